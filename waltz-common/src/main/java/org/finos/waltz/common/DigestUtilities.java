@@ -26,7 +26,12 @@ import static java.util.Base64.getEncoder;
 public class DigestUtilities {
 
     public static String digest(byte[] bytes) throws NoSuchAlgorithmException {
-        return getEncoder().encodeToString(getInstance("SHA").digest(bytes));
+        return digest(bytes, "SHA");
+    }
+
+
+    public static String digest(byte[] bytes, String algorithm) throws NoSuchAlgorithmException {
+        return getEncoder().encodeToString(getInstance(algorithm).digest(bytes));
     }
 
 }
@@ -0,0 +1,298 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.ToLongFunction;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A small, thread safe, size (or weight) bounded cache where entries expire
+ * a fixed time after they were loaded.
+ *
+ * Once the cache is full the least recently used entries are evicted.  By
+ * default every entry has a weight of one, so the bound is simply the number
+ * of entries.  A weigher may be given when values vary greatly in size.
+ * Values are loaded outside of the cache lock, a value loaded while an
+ * invalidation was taking place is returned to the caller but is not
+ * stored, so an invalidation is never undone by an in-flight load.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class ExpiringCache<K, V> {
+
+    private final long maxWeight;
+    private final long ttlMillis;
+    private final ToLongFunction<V> weigher;
+    private final LongSupplier clock;
+
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private long totalWeight = 0;
+
+
+    public ExpiringCache(int maxSize, long ttlMillis) {
+        this(maxSize, ttlMillis, v -> 1, System::currentTimeMillis);
+    }
+
+
+    /**
+     * @param maxWeight  maximum combined weight of all entries
+     * @param ttlMillis  time after which entries expire
+     * @param weigher  gives the weight of a value, must be non-negative
+     *                 and should not change whilst the value is cached
+     */
+    public ExpiringCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher) {
+        this(maxWeight, ttlMillis, weigher, System::currentTimeMillis);
+    }
+
+
+    ExpiringCache(int maxSize, long ttlMillis, LongSupplier clock) {
+        this(maxSize, ttlMillis, v -> 1, clock);
+    }
+
+
+    ExpiringCache(long maxWeight, long ttlMillis, ToLongFunction<V> weigher, LongSupplier clock) {
+        checkTrue(maxWeight > 0, "maxWeight must be positive");
+        checkTrue(ttlMillis > 0, "ttlMillis must be positive");
+        checkNotNull(weigher, "weigher cannot be null");
+        checkNotNull(clock, "clock cannot be null");
+
+        this.maxWeight = maxWeight;
+        this.ttlMillis = ttlMillis;
+        this.weigher = weigher;
+        this.clock = clock;
+    }
+
+
+    /**
+     * Returns the cached value for the key, using the loader to obtain
+     * (and cache) it if it is not present or has expired.
+     *
+     * @param key  cache key
+     * @param loader  function to obtain the value, `null` results are not cached
+     * @return the cached or newly loaded value
+     */
+    public V get(K key, Function<K, V> loader) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(loader, "loader cannot be null");
+
+        Optional<V> cached = getIfPresent(key);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        long invalidationsBeforeLoad = invalidations.get();
+        V value = loader.apply(key);
+
+        if (value != null) {
+            synchronized (entries) {
+                if (invalidations.get() == invalidationsBeforeLoad) {
+                    store(key, value, Long.MAX_VALUE);
+                }
+            }
+        }
+        return value;
+    }
+
+
+    /**
+     * @param key  cache key
+     * @return the cached value, if present and not expired
+     */
+    public Optional<V> getIfPresent(K key) {
+        checkNotNull(key, "key cannot be null");
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= clock.getAsLong()) {
+                remove(key);
+                evictions.increment();
+                entry = null;
+            }
+
+            if (entry == null) {
+                misses.increment();
+                return Optional.empty();
+            } else {
+                hits.increment();
+                return Optional.of(entry.value);
+            }
+        }
+    }
+
+
+    public void put(K key, V value) {
+        put(key, value, Long.MAX_VALUE);
+    }
+
+
+    /**
+     * Stores a value which should expire no later than the given time,
+     * values will still expire after the cache ttl if that is sooner.
+     *
+     * @param key  cache key
+     * @param value  value to cache
+     * @param expiresAtMillis  epoch millis after which the value must not be returned
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        checkNotNull(key, "key cannot be null");
+        checkNotNull(value, "value cannot be null");
+        synchronized (entries) {
+            store(key, value, expiresAtMillis);
+        }
+    }
+
+
+    public void invalidate(K key) {
+        checkNotNull(key, "key cannot be null");
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            remove(key);
+        }
+    }
+
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+            totalWeight = 0;
+        }
+    }
+
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+
+    /**
+     * @return combined weight of all entries (the same as `size` if no weigher was given)
+     */
+    public long weight() {
+        synchronized (entries) {
+            return totalWeight;
+        }
+    }
+
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+
+    /**
+     * @return snapshot of the weight of each entry, least recently used first
+     */
+    public Map<K, Long> entryWeights() {
+        synchronized (entries) {
+            Map<K, Long> weights = new LinkedHashMap<>();
+            entries.forEach((k, e) -> weights.put(k, e.weight));
+            return weights;
+        }
+    }
+
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+
+    /**
+     * @return number of entries removed because they expired or the cache was full
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+
+    private void store(K key, V value, long expiresAtMillis) {
+        long expiresAt = Math.min(clock.getAsLong() + ttlMillis, expiresAtMillis);
+        long weight = weigher.applyAsLong(value);
+        checkTrue(weight >= 0, "weight cannot be negative");
+
+        remove(key);
+        entries.put(key, new Entry<>(value, expiresAt, weight));
+        totalWeight += weight;
+
+        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            totalWeight -= iterator.next().getValue().weight;
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+
+    private void remove(K key) {
+        Entry<V> removed = entries.remove(key);
+        if (removed != null) {
+            totalWeight -= removed.weight;
+        }
+    }
+
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("ExpiringCache{");
+        sb.append("size=").append(size());
+        sb.append(", weight=").append(weight());
+        sb.append(", hits=").append(hitCount());
+        sb.append(", misses=").append(missCount());
+        sb.append(", evictions=").append(evictionCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+
+    private static class Entry<V> {
+
+        private final V value;
+        private final long expiresAt;
+        private final long weight;
+
+
+        private Entry(V value, long expiresAt, long weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+}
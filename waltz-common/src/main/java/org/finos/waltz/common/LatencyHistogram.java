@@ -0,0 +1,127 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * A thread safe, fixed size histogram of durations.
+ *
+ * Durations are counted in exponentially sized buckets, each 20% wider
+ * than the previous one, starting at 10 microseconds.  Recording is
+ * lock free and constant time, percentiles are approximate (to within
+ * a bucket width) and are never reported as larger than the maximum
+ * recorded duration.
+ */
+public class LatencyHistogram {
+
+    private static final long[] BUCKET_UPPER_BOUNDS_NANOS = mkBucketUpperBounds();
+
+    private final AtomicLongArray bucketCounts = new AtomicLongArray(BUCKET_UPPER_BOUNDS_NANOS.length);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+
+    public void record(long nanos) {
+        long duration = Math.max(nanos, 0);
+        int idx = Arrays.binarySearch(BUCKET_UPPER_BOUNDS_NANOS, duration);
+        bucketCounts.incrementAndGet(idx < 0 ? -idx - 1 : idx);
+        count.increment();
+        totalNanos.add(duration);
+        maxNanos.accumulateAndGet(duration, Math::max);
+    }
+
+
+    public long count() {
+        return count.sum();
+    }
+
+
+    public long totalNanos() {
+        return totalNanos.sum();
+    }
+
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+
+    public double meanNanos() {
+        long n = count();
+        return n == 0
+                ? 0
+                : (double) totalNanos() / n;
+    }
+
+
+    /**
+     * @param percentile  between 0 and 100 (e.g. 95 for the p95)
+     * @return the upper bound of the bucket containing the given percentile, or 0 if nothing has been recorded
+     */
+    public long percentileNanos(double percentile) {
+        checkTrue(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+
+        long[] counts = new long[bucketCounts.length()];
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts.get(i);
+            total += counts[i];
+        }
+
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(BUCKET_UPPER_BOUNDS_NANOS[i], maxNanos());
+            }
+        }
+        return maxNanos();
+    }
+
+
+    private static long[] mkBucketUpperBounds() {
+        List<Long> bounds = new ArrayList<>();
+        long limit = TimeUnit.HOURS.toNanos(1);
+        for (double bound = TimeUnit.MICROSECONDS.toNanos(10); bound < limit; bound *= 1.2) {
+            bounds.add((long) bound);
+        }
+        bounds.add(Long.MAX_VALUE);
+        return bounds
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+    }
+
+}
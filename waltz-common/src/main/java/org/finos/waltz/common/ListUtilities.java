@@ -23,6 +23,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static java.util.stream.Collectors.toList;
 
 
@@ -143,6 +144,28 @@ public class ListUtilities {
     }
 
 
+    /**
+     * Splits a collection into consecutive lists of (at most) `size` elements.
+     * The final list may be shorter than `size`.
+     *
+     * @param ts collection of elements to split
+     * @param size maximum number of elements in each partition, must be positive
+     * @param <T> type of elements
+     * @return list of partitions, empty if `ts` is empty
+     */
+    public static <T> List<List<T>> partition(Collection<T> ts, int size) {
+        checkNotNull(ts, "collection must not be null");
+        checkTrue(size > 0, "size must be positive");
+
+        List<T> all = new ArrayList<>(ts);
+        List<List<T>> partitions = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += size) {
+            partitions.add(all.subList(i, Math.min(i + size, all.size())));
+        }
+        return partitions;
+    }
+
+
     /**
      * Apply mapFn to first element in list if found, otherwise return Optional.empty();
      * @param xs possible input elements
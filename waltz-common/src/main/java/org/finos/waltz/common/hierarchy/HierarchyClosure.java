@@ -0,0 +1,195 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.common.hierarchy;
+
+import org.finos.waltz.common.Checks;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * An immutable, primitive keyed, ancestor/descendant closure of a forest.
+ *
+ * Ids are held in a sorted array and looked up via binary search, each
+ * id has an array of ancestor and descendant ids.  Both of these arrays
+ * include the node itself, mirroring the rows held in the
+ * `entity_hierarchy` table.
+ *
+ * Each closure carries a version number so callers can tell if a closure
+ * they previously obtained has since been superseded.
+ */
+public class HierarchyClosure {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final long version;
+    private final long[] ids;
+    private final int[] levels;
+    private final long[][] ancestors;
+    private final long[][] descendants;
+
+
+    private HierarchyClosure(long version,
+                             long[] ids,
+                             int[] levels,
+                             long[][] ancestors,
+                             long[][] descendants) {
+        this.version = version;
+        this.ids = ids;
+        this.levels = levels;
+        this.ancestors = ancestors;
+        this.descendants = descendants;
+    }
+
+
+    /**
+     * Builds a closure from the given forest.
+     *
+     * @param version  version number to associate with the closure
+     * @param forest  forest to compute the closure over
+     * @return closure of all nodes in the forest
+     */
+    public static HierarchyClosure fromForest(long version, Forest<?, Long> forest) {
+        Checks.checkNotNull(forest, "forest cannot be null");
+
+        Map<Long, ? extends Node<?, Long>> allNodes = forest.getAllNodes();
+        Map<Long, Integer> depths = HierarchyUtilities.assignDepths(forest);
+
+        long[] ids = allNodes
+                .keySet()
+                .stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .toArray();
+
+        int size = ids.length;
+        int[] levels = new int[size];
+        long[][] ancestors = new long[size][];
+        int[] descendantCounts = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            Node<?, Long> node = allNodes.get(ids[i]);
+            Integer depth = depths.get(ids[i]);
+            levels[i] = depth == null ? -1 : depth;
+
+            List<? extends Node<?, Long>> parents = HierarchyUtilities.parents(node);
+            long[] nodeAncestors = new long[parents.size() + 1];
+            nodeAncestors[0] = ids[i];
+            for (int p = 0; p < parents.size(); p++) {
+                nodeAncestors[p + 1] = parents.get(p).getId();
+            }
+            ancestors[i] = nodeAncestors;
+
+            for (long ancestorId : nodeAncestors) {
+                descendantCounts[Arrays.binarySearch(ids, ancestorId)]++;
+            }
+        }
+
+        long[][] descendants = new long[size][];
+        int[] fillPositions = new int[size];
+        for (int i = 0; i < size; i++) {
+            descendants[i] = new long[descendantCounts[i]];
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (long ancestorId : ancestors[i]) {
+                int idx = Arrays.binarySearch(ids, ancestorId);
+                descendants[idx][fillPositions[idx]++] = ids[i];
+            }
+        }
+
+        return new HierarchyClosure(version, ids, levels, ancestors, descendants);
+    }
+
+
+    public long version() {
+        return version;
+    }
+
+
+    public int size() {
+        return ids.length;
+    }
+
+
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, id) >= 0;
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return the depth of the node (roots are `1`) or `-1` if the node is not known
+     */
+    public int levelOf(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx < 0 ? -1 : levels[idx];
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return the node and all of its ancestors, immediate parent first, or an empty array if the node is unknown
+     */
+    public long[] ancestorsOf(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx < 0 ? EMPTY : ancestors[idx].clone();
+    }
+
+
+    /**
+     * @param id  node identifier
+     * @return the node and all of its descendants, or an empty array if the node is unknown
+     */
+    public long[] descendantsOf(long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        return idx < 0 ? EMPTY : descendants[idx].clone();
+    }
+
+
+    /**
+     * @param ancestorId  candidate ancestor
+     * @param id  candidate descendant
+     * @return true if `ancestorId` is `id` or one of its ancestors
+     */
+    public boolean isAncestorOf(long ancestorId, long id) {
+        int idx = Arrays.binarySearch(ids, id);
+        if (idx < 0) {
+            return false;
+        }
+        for (long a : ancestors[idx]) {
+            if (a == ancestorId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("HierarchyClosure{");
+        sb.append("version=").append(version);
+        sb.append(", #ids=").append(ids.length);
+        sb.append('}');
+        return sb.toString();
+    }
+}
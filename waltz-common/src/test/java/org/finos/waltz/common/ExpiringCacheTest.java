@@ -0,0 +1,139 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExpiringCacheTest {
+
+    @Test
+    public void valuesAreLoadedOnceUntilTheyExpire() {
+        AtomicLong now = new AtomicLong(1000);
+        AtomicInteger loads = new AtomicInteger();
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10, 100, now::get);
+
+        assertEquals(1, cache.get("a", k -> loads.incrementAndGet()));
+        assertEquals(1, cache.get("a", k -> loads.incrementAndGet()));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+
+        now.addAndGet(100);
+        assertEquals(2, cache.get("a", k -> loads.incrementAndGet()));
+        assertEquals(1, cache.evictionCount());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedWhenFull() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(2, 1000, () -> 0);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.getIfPresent("a");
+        cache.put("c", "C");
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertTrue(cache.getIfPresent("a").isPresent());
+        assertFalse(cache.getIfPresent("b").isPresent());
+        assertTrue(cache.getIfPresent("c").isPresent());
+    }
+
+
+    @Test
+    public void invalidatedValuesAreReloaded() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, () -> 0);
+        cache.put("a", "A");
+        cache.invalidate("a");
+        assertEquals("A2", cache.get("a", k -> "A2"));
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void valuesLoadedDuringAnInvalidationAreNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, () -> 0);
+        String loaded = cache.get("a", k -> {
+            cache.invalidate(k);
+            return "stale";
+        });
+
+        assertEquals("stale", loaded);
+        assertFalse(cache.getIfPresent("a").isPresent());
+    }
+
+
+    @Test
+    public void entriesExpireAtTheEarlierOfTheirOwnExpiryOrTheTtl() {
+        AtomicLong now = new AtomicLong(0);
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, now::get);
+        cache.put("short", "S", 10);
+        cache.put("long", "L", 5000);
+
+        now.set(10);
+        assertFalse(cache.getIfPresent("short").isPresent());
+        assertTrue(cache.getIfPresent("long").isPresent());
+
+        now.set(1000);
+        assertFalse(cache.getIfPresent("long").isPresent());
+    }
+
+
+    @Test
+    public void nullValuesAreNotCached() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, () -> 0);
+        assertNull(cache.get("a", k -> null));
+        assertEquals(0, cache.size());
+    }
+
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedOnceTheMaxWeightIsExceeded() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10, 1000, String::length, () -> 0);
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        cache.getIfPresent("a");
+        cache.put("c", "ccc");
+
+        assertEquals(2, cache.size());
+        assertEquals(7, cache.weight());
+        assertTrue(cache.getIfPresent("a").isPresent());
+        assertFalse(cache.getIfPresent("b").isPresent());
+        assertEquals(1, cache.evictionCount());
+    }
+
+
+    @Test
+    public void weightIsAdjustedWhenEntriesAreReplacedOrRemoved() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(100, 1000, String::length, () -> 0);
+        cache.put("a", "aaaa");
+        cache.put("a", "aa");
+        cache.put("b", "bbb");
+        assertEquals(5, cache.weight());
+
+        Map<String, Long> weights = cache.entryWeights();
+        assertEquals(Long.valueOf(2), weights.get("a"));
+        assertEquals(Long.valueOf(3), weights.get("b"));
+
+        cache.invalidate("a");
+        assertEquals(3, cache.weight());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.weight());
+    }
+
+
+    @Test
+    public void valuesHeavierThanTheMaxWeightAreNotRetained() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(3, 1000, String::length, () -> 0);
+        assertEquals("toolong", cache.get("a", k -> "toolong"));
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+}
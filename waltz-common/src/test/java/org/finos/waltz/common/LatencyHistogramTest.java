@@ -0,0 +1,58 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZeros() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileNanos(99));
+        assertEquals(0, histogram.meanNanos(), 0.0001);
+    }
+
+
+    @Test
+    public void percentilesAreWithinABucketOfActualValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 100)
+                .forEach(i -> histogram.record(TimeUnit.MILLISECONDS.toNanos(i)));
+
+        assertEquals(100, histogram.count());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), histogram.maxNanos());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5050), histogram.totalNanos());
+
+        assertWithinBucket(TimeUnit.MILLISECONDS.toNanos(50), histogram.percentileNanos(50));
+        assertWithinBucket(TimeUnit.MILLISECONDS.toNanos(95), histogram.percentileNanos(95));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), histogram.percentileNanos(100), "never exceeds the max");
+    }
+
+
+    @Test
+    public void percentileMustBeInRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileNanos(101));
+        assertThrows(IllegalArgumentException.class, () -> histogram.percentileNanos(-1));
+    }
+
+
+    @Test
+    public void negativeDurationsAreTreatedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(1, histogram.count());
+        assertEquals(0, histogram.maxNanos());
+    }
+
+
+    private static void assertWithinBucket(long expected, long actual) {
+        assertTrue(actual >= expected, "percentile should not be under the actual value");
+        assertTrue(actual <= expected * 1.2, "percentile should be within one bucket of the actual value");
+    }
+}
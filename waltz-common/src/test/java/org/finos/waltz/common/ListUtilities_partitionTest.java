@@ -0,0 +1,46 @@
+package org.finos.waltz.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ListUtilities_partitionTest {
+
+    @Test
+    public void partitionsAreFilledInOrder(){
+        List<List<String>> result = ListUtilities.partition(ListUtilities.newArrayList("a", "b", "c", "d", "e"), 2);
+        assertEquals(3, result.size());
+        assertEquals(ListUtilities.newArrayList("a", "b"), result.get(0));
+        assertEquals(ListUtilities.newArrayList("c", "d"), result.get(1));
+        assertEquals(ListUtilities.newArrayList("e"), result.get(2));
+    }
+
+    @Test
+    public void partitionLargerThanCollectionGivesSinglePartition(){
+        List<List<String>> result = ListUtilities.partition(ListUtilities.newArrayList("a", "b"), 10);
+        assertEquals(1, result.size());
+        assertEquals(ListUtilities.newArrayList("a", "b"), result.get(0));
+    }
+
+    @Test
+    public void emptyCollectionGivesNoPartitions(){
+        assertTrue(ListUtilities.partition(Collections.emptyList(), 3).isEmpty());
+    }
+
+    @Test
+    public void sizeMustBePositive(){
+        assertThrows(IllegalArgumentException.class,
+                () -> ListUtilities.partition(ListUtilities.newArrayList("a"), 0));
+    }
+
+    @Test
+    public void nullCollectionThrows(){
+        assertThrows(IllegalArgumentException.class,
+                () -> ListUtilities.partition(null, 2));
+    }
+}
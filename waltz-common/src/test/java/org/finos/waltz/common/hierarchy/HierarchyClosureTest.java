@@ -0,0 +1,78 @@
+package org.finos.waltz.common.hierarchy;
+
+import org.finos.waltz.common.ListUtilities;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HierarchyClosureTest {
+
+    private static final List<FlatNode<Void, Long>> TWO_TREES = ListUtilities.newArrayList(
+            new FlatNode<>(1L, empty(), null),
+            new FlatNode<>(2L, of(1L), null),
+            new FlatNode<>(3L, of(2L), null),
+            new FlatNode<>(4L, of(2L), null),
+            new FlatNode<>(5L, of(1L), null),
+            new FlatNode<>(6L, empty(), null),
+            new FlatNode<>(7L, of(6L), null));
+
+
+    @Test
+    public void descendantsIncludeSelfAndAllChildren() {
+        HierarchyClosure closure = HierarchyClosure.fromForest(1, HierarchyUtilities.toForest(TWO_TREES));
+        assertArrayEquals(new long[]{1, 2, 3, 4, 5}, sorted(closure.descendantsOf(1)));
+        assertArrayEquals(new long[]{2, 3, 4}, sorted(closure.descendantsOf(2)));
+        assertArrayEquals(new long[]{3}, closure.descendantsOf(3));
+        assertArrayEquals(new long[]{6, 7}, sorted(closure.descendantsOf(6)));
+    }
+
+
+    @Test
+    public void ancestorsAreSelfThenImmediateParentFirst() {
+        HierarchyClosure closure = HierarchyClosure.fromForest(1, HierarchyUtilities.toForest(TWO_TREES));
+        assertArrayEquals(new long[]{3, 2, 1}, closure.ancestorsOf(3));
+        assertArrayEquals(new long[]{1}, closure.ancestorsOf(1));
+        assertTrue(closure.isAncestorOf(1, 4));
+        assertFalse(closure.isAncestorOf(6, 4));
+    }
+
+
+    @Test
+    public void levelsStartAtOne() {
+        HierarchyClosure closure = HierarchyClosure.fromForest(1, HierarchyUtilities.toForest(TWO_TREES));
+        assertEquals(1, closure.levelOf(1));
+        assertEquals(3, closure.levelOf(4));
+        assertEquals(2, closure.levelOf(7));
+    }
+
+
+    @Test
+    public void unknownIdsGiveEmptyResults() {
+        HierarchyClosure closure = HierarchyClosure.fromForest(4, HierarchyUtilities.toForest(TWO_TREES));
+        assertFalse(closure.contains(99));
+        assertEquals(0, closure.descendantsOf(99).length);
+        assertEquals(0, closure.ancestorsOf(99).length);
+        assertEquals(-1, closure.levelOf(99));
+        assertEquals(4, closure.version());
+        assertEquals(7, closure.size());
+    }
+
+
+    @Test
+    public void emptyForestGivesEmptyClosure() {
+        HierarchyClosure closure = HierarchyClosure.fromForest(1, HierarchyUtilities.toForest(ListUtilities.<FlatNode<Void, Long>>newArrayList()));
+        assertEquals(0, closure.size());
+    }
+
+
+    private static long[] sorted(long[] arr) {
+        long[] copy = arr.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
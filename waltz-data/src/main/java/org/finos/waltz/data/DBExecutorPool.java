@@ -16,36 +16,204 @@
  *
  */
 
+
 package org.finos.waltz.data;
 
+import org.finos.waltz.common.LatencyHistogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
 
+/**
+ * Executes database work (typically fan-out queries) on a fixed number of threads.
+ *
+ * The pool has a bounded queue, once it is full tasks are run on the submitting
+ * thread.  This applies back-pressure to the callers and avoids deadlock when a
+ * task submitted to the pool submits further tasks of its own.
+ *
+ * Tasks may be given a deadline, either per task or via a pool wide default (by
+ * default there is none).  Tasks which have not completed by their deadline are
+ * cancelled: the caller waiting on the future is released, queued tasks never
+ * start and running tasks are interrupted (a thread blocked in a jdbc call may not
+ * respond to the interrupt, but its result will be discarded).
+ */
 public class DBExecutorPool implements DBExecutorPoolInterface {
 
-    private final ExecutorService executorPool;
+    private static final Logger LOG = LoggerFactory.getLogger(DBExecutorPool.class);
+
+    private static final int DEFAULT_QUEUE_CAPACITY_PER_THREAD = 50;
+
+    private final ThreadPoolExecutor executorPool;
+    private final ScheduledThreadPoolExecutor deadlineScheduler;
+    private final int queueCapacity;
+    private final long defaultTimeoutMillis;
+
+    private final LongAdder callerRunsCount = new LongAdder();
+    private final LongAdder timedOutCount = new LongAdder();
+    private final LatencyHistogram queueWaitHistogram = new LatencyHistogram();
+    private final LatencyHistogram executionHistogram = new LatencyHistogram();
 
 
     @Autowired
     public DBExecutorPool(int dbPoolMin, int dbPoolMax) {
-        executorPool = Executors.newFixedThreadPool(
-                Integer.max(dbPoolMax / 2, 1),
-                (runnable) -> {
-                    Thread t = new Thread(runnable, "DB Executor");
-                    t.setDaemon(true);
-                    return t;
+        this(Integer.max(dbPoolMax / 2, 1), 0, 0);
+    }
+
+
+    /**
+     * @param threadCount  number of threads, should not exceed the size of the connection pool
+     * @param queueCapacity  maximum number of waiting tasks, if `<= 0` a capacity is derived from the thread count
+     * @param defaultTimeoutMillis  deadline applied to tasks submitted without one, `<= 0` for no deadline
+     */
+    public DBExecutorPool(int threadCount, int queueCapacity, long defaultTimeoutMillis) {
+        checkTrue(threadCount > 0, "threadCount must be positive");
+
+        this.queueCapacity = queueCapacity > 0
+                ? queueCapacity
+                : threadCount * DEFAULT_QUEUE_CAPACITY_PER_THREAD;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+
+        executorPool = new ThreadPoolExecutor(
+                threadCount,
+                threadCount,
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.queueCapacity),
+                mkThreadFactory("DB Executor-"),
+                (runnable, executor) -> {
+                    if (executor.isShutdown()) {
+                        throw new RejectedExecutionException("DB Executor has been shut down");
+                    }
+                    callerRunsCount.increment();
+                    runnable.run();
                 });
 
+        deadlineScheduler = new ScheduledThreadPoolExecutor(1, mkThreadFactory("DB Executor Deadlines-"));
+        deadlineScheduler.setRemoveOnCancelPolicy(true);
+
+        LOG.info(
+                "Created DB Executor with {} threads, queue capacity of {} and default timeout of {}ms",
+                threadCount,
+                this.queueCapacity,
+                defaultTimeoutMillis);
     }
 
 
     @Override
     public <T> Future<T> submit(Callable<T> task) {
-        return executorPool.submit(task);
+        return submit(task, defaultTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task, long timeout, TimeUnit unit) {
+        checkNotNull(task, "task cannot be null");
+        checkNotNull(unit, "unit cannot be null");
+
+        DeadlineTask<T> deadlineTask = new DeadlineTask<>(task);
+
+        if (timeout > 0) {
+            deadlineTask.deadline = deadlineScheduler.schedule(
+                    () -> {
+                        if (deadlineTask.cancel(true)) {
+                            timedOutCount.increment();
+                            LOG.warn("DB Executor task cancelled as it did not complete within {}ms", unit.toMillis(timeout));
+                        }
+                    },
+                    timeout,
+                    unit);
+        }
+
+        executorPool.execute(deadlineTask);
+        return deadlineTask;
+    }
+
+
+    @Override
+    public DBExecutorPoolStats getStats() {
+        return ImmutableDBExecutorPoolStats.builder()
+                .threadCount(executorPool.getMaximumPoolSize())
+                .queueCapacity(queueCapacity)
+                .activeCount(executorPool.getActiveCount())
+                .queuedCount(executorPool.getQueue().size())
+                .completedCount(executorPool.getCompletedTaskCount())
+                .callerRunsCount(callerRunsCount.sum())
+                .timedOutCount(timedOutCount.sum())
+                .meanQueueWaitMillis(toMillis(queueWaitHistogram.meanNanos()))
+                .p95QueueWaitMillis(toMillis(queueWaitHistogram.percentileNanos(95)))
+                .meanExecutionMillis(toMillis(executionHistogram.meanNanos()))
+                .p95ExecutionMillis(toMillis(executionHistogram.percentileNanos(95)))
+                .maxExecutionMillis(toMillis(executionHistogram.maxNanos()))
+                .build();
+    }
+
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+
+    private static ThreadFactory mkThreadFactory(String namePrefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return (runnable) -> {
+            Thread t = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+
+    private class DeadlineTask<T> extends FutureTask<T> {
+
+        private final long submittedAt = System.nanoTime();
+        private volatile ScheduledFuture<?> deadline;
+
+
+        private DeadlineTask(Callable<T> callable) {
+            super(callable);
+        }
+
+
+        @Override
+        public void run() {
+            if (isDone()) {
+                return;
+            }
+
+            long startedAt = System.nanoTime();
+            queueWaitHistogram.record(startedAt - submittedAt);
+            try {
+                super.run();
+            } finally {
+                executionHistogram.record(System.nanoTime() - startedAt);
+            }
+        }
+
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> d = deadline;
+            if (d != null) {
+                d.cancel(false);
+            }
+        }
     }
 
 }
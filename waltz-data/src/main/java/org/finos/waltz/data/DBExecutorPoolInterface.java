@@ -21,8 +21,22 @@ package org.finos.waltz.data;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public interface DBExecutorPoolInterface {
 
+    /**
+     * Submits a task using the pool's default deadline, if any.
+     */
     <T> Future<T> submit(Callable<T> task);
+
+
+    /**
+     * Submits a task which will be cancelled if it has not completed
+     * within the given timeout (measured from submission).
+     */
+    <T> Future<T> submit(Callable<T> task, long timeout, TimeUnit unit);
+
+
+    DBExecutorPoolStats getStats();
 }
@@ -0,0 +1,55 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data;
+
+import org.immutables.value.Value;
+
+
+/**
+ * Point in time view of the activity of a {@link DBExecutorPoolInterface}.
+ */
+@Value.Immutable
+public abstract class DBExecutorPoolStats {
+
+    public abstract int threadCount();
+    public abstract int queueCapacity();
+
+    public abstract int activeCount();
+    public abstract int queuedCount();
+
+    public abstract long completedCount();
+
+    /**
+     * @return number of tasks run on the submitting thread as the queue was full
+     */
+    public abstract long callerRunsCount();
+
+    /**
+     * @return number of tasks cancelled as they did not complete before their deadline
+     */
+    public abstract long timedOutCount();
+
+    public abstract double meanQueueWaitMillis();
+    public abstract double p95QueueWaitMillis();
+    public abstract double meanExecutionMillis();
+    public abstract double p95ExecutionMillis();
+    public abstract double maxExecutionMillis();
+
+}
@@ -55,6 +55,20 @@ public class EntityReferenceNameResolver {
     }
 
     public List<EntityReference> resolve(List<EntityReference> refs) {
+        return resolve(refs, false);
+    }
+
+
+    /**
+     * As {@link #resolve(List)} but also populates the external id of each
+     * reference (e.g. the asset code of an application), where the kind has one.
+     */
+    public List<EntityReference> resolveWithExternalIds(List<EntityReference> refs) {
+        return resolve(refs, true);
+    }
+
+
+    private List<EntityReference> resolve(List<EntityReference> refs, boolean includeExternalIds) {
         checkNotNull(refs, "refs cannot be null");
         
         Field<Long> idField = DSL.field("tref_id", Long.class);
@@ -64,6 +78,10 @@ public class EntityReferenceNameResolver {
                 idField,
                 kindField);
 
+        Field<String> externalIdField = includeExternalIds
+                ? InlineSelectFieldFactory.mkExternalIdField(idField, kindField)
+                : DSL.inline((String) null);
+
         List<SelectSelectStep<Record2<String, Long>>> parts = map(
                 refs,
                 r -> DSL.select(
@@ -80,12 +98,14 @@ public class EntityReferenceNameResolver {
 
             Table<Record2<String, Long>> tempRefs = firstPart.asTable("temp_refs");
             return dsl
-                    .select(idField, kindField, nameField)
+                    .select(idField, kindField, nameField, externalIdField)
                     .from(tempRefs)
                     .fetch(r -> mkRef(
                             EntityKind.valueOf(r.get(kindField)),
                             r.get(idField),
-                            r.get(nameField)));
+                            r.get(nameField),
+                            null,
+                            r.get(externalIdField)));
         } else {
             return Collections.emptyList();
         }
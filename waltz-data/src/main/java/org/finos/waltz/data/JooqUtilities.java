@@ -52,6 +52,66 @@ public class JooqUtilities {
 
     public static final Field<Integer> TALLY_COUNT_FIELD = DSL.field("count", Integer.class);
 
+    /**
+     * Number of rows to fetch per round trip when results are read lazily
+     * from a cursor (e.g. when streamed to a response).
+     */
+    public static final int STREAM_FETCH_SIZE = 1000;
+
+    /**
+     * Key of the (boolean) configuration data item which determines whether
+     * `maybeInline` renders query parts with their bind values inlined.
+     * If absent query parts are inlined.
+     *
+     * @see org.jooq.Configuration#data(Object)
+     */
+    public static final String INLINE_SELECTORS_KEY = "waltz.inline.selectors";
+
+
+    /**
+     * Selector based conditions have traditionally been rendered with their
+     * bind values inlined, giving each execution unique SQL.  When the dsl is
+     * configured to keep bind values (see `INLINE_SELECTORS_KEY`) the condition
+     * is returned unchanged, allowing the database to reuse query plans.
+     *
+     * @param dsl  context the query will be executed with
+     * @param condition  condition to (possibly) inline
+     * @return either the original condition or an equivalent plain sql condition with inlined values
+     */
+    public static Condition maybeInline(DSLContext dsl, Condition condition) {
+        return isInliningSelectors(dsl)
+                ? DSL.condition(dsl.renderInlined(condition))
+                : condition;
+    }
+
+
+    /**
+     * @see #maybeInline(DSLContext, Condition)
+     */
+    public static Table<?> maybeInline(DSLContext dsl, Table<?> table) {
+        return isInliningSelectors(dsl)
+                ? DSL.table(dsl.renderInlined(table))
+                : table;
+    }
+
+
+    /**
+     * Prepares the query for execution by the given dsl.
+     *
+     * @see #maybeInline(DSLContext, Condition)
+     */
+    public static ResultQuery<Record> maybeInline(DSLContext dsl, ResultQuery<?> query) {
+        return isInliningSelectors(dsl)
+                ? dsl.resultQuery(dsl.renderInlined(query))
+                : dsl.resultQuery("{0}", query);
+    }
+
+
+    public static boolean isInliningSelectors(DSLContext dsl) {
+        Object inline = dsl.configuration().data(INLINE_SELECTORS_KEY);
+        return inline == null || Boolean.TRUE.equals(inline);
+    }
+
 
     public static Optional<EntityReference> maybeReadRef(Record record,
                                                          Field<String> kindField,
@@ -275,7 +335,7 @@ public class JooqUtilities {
                 fieldToTally,
                 DSL.count(fieldToTally).as(TALLY_COUNT_FIELD))
                 .from(table)
-                .where(dsl.renderInlined(recordsInScopeCondition))
+                .where(maybeInline(dsl, recordsInScopeCondition))
                 .groupBy(fieldToTally);
     }
 
@@ -290,7 +350,7 @@ public class JooqUtilities {
                 DSL.count(fieldToTally).as(TALLY_COUNT_FIELD),
                 DSL.rowNumber().over(DSL.orderBy(DSL.count(fieldToTally).desc())))
                 .from(table)
-                .where(dsl.renderInlined(recordsInScopeCondition))
+                .where(maybeInline(dsl, recordsInScopeCondition))
                 .groupBy(fieldToTally);
     }
 
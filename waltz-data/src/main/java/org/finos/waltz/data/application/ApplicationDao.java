@@ -46,6 +46,7 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.schema.Tables.EXTERNAL_IDENTIFIER;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -240,7 +241,7 @@ public class ApplicationDao {
     public List<Application> findByAppIdSelector(Select<Record1<Long>> selector) {
         return dsl.select(APPLICATION.fields())
                 .from(APPLICATION)
-                .where(dsl.renderInlined(APPLICATION.ID.in(selector)))
+                .where(maybeInline(dsl, APPLICATION.ID.in(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
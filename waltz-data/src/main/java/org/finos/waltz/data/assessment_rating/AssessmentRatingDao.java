@@ -51,6 +51,7 @@ import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class AssessmentRatingDao {
@@ -234,7 +235,7 @@ public class AssessmentRatingDao {
                 .select(ENTITY_NAME_FIELD)
                 .from(ASSESSMENT_RATING)
                 .innerJoin(RATING_SCHEME_ITEM).on(ASSESSMENT_RATING.RATING_ID.eq(RATING_SCHEME_ITEM.ID))
-                .where(dsl.renderInlined(entityCondition))
+                .where(maybeInline(dsl, entityCondition))
                 .fetch();
 
         Map<Long, Collection<Tuple2<String, EntityReference>>> groupedByDef = groupBy(data,
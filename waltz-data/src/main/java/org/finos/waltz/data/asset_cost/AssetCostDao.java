@@ -40,6 +40,7 @@ import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.AssetCost.ASSET_COST;
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -172,7 +173,7 @@ public class AssetCostDao {
                 .from(ASSET_COST)
                 .innerJoin(APPLICATION)
                 .on(APPLICATION.ASSET_CODE.eq(ASSET_COST.ASSET_CODE))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(APPLICATION.ID)
                 .fetch(r -> Tuple.tuple(r.value1(), r.value2()));
     }
@@ -53,6 +53,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -121,6 +122,79 @@ public class AttestationInstanceDao {
     }
 
 
+    /**
+     * Issues the instances and recipients for a run whose recipients are determined by
+     * involvements.  An instance is created for each selected entity which has at least
+     * one (active) person with one of the given involvement kinds, each of those people
+     * become recipients of the instance.
+     *
+     * Both steps are executed as set based `insert ... select` statements so that
+     * the number of recipients does not need to be held in memory.
+     *
+     * @param attestationRunId  run being issued
+     * @param targetEntityKind  kind of the entities returned by the selector
+     * @param entityIdSelector  selects the ids of the entities being attested
+     * @param involvementKindIds  involvement kinds which determine the recipients
+     * @param attestedEntityKind  kind of thing being attested
+     * @return tuple of (instances created, recipients created)
+     */
+    public Tuple2<Integer, Integer> createForRunByInvolvement(long attestationRunId,
+                                                              EntityKind targetEntityKind,
+                                                              Select<Record1<Long>> entityIdSelector,
+                                                              Set<Long> involvementKindIds,
+                                                              EntityKind attestedEntityKind) {
+        checkNotNull(targetEntityKind, "targetEntityKind cannot be null");
+        checkNotNull(entityIdSelector, "entityIdSelector cannot be null");
+        checkNotNull(involvementKindIds, "involvementKindIds cannot be null");
+        checkNotNull(attestedEntityKind, "attestedEntityKind cannot be null");
+
+        Condition involvementCondition = PERSON.IS_REMOVED.isFalse()
+                .and(INVOLVEMENT.KIND_ID.in(involvementKindIds))
+                .and(INVOLVEMENT.ENTITY_KIND.eq(targetEntityKind.name()));
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int instanceCount = tx
+                    .insertInto(ATTESTATION_INSTANCE)
+                    .columns(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID,
+                            ATTESTATION_INSTANCE.PARENT_ENTITY_KIND,
+                            ATTESTATION_INSTANCE.PARENT_ENTITY_ID,
+                            ATTESTATION_INSTANCE.ATTESTED_ENTITY_KIND)
+                    .select(DSL
+                            .selectDistinct(
+                                    DSL.val(attestationRunId),
+                                    DSL.val(targetEntityKind.name()),
+                                    INVOLVEMENT.ENTITY_ID,
+                                    DSL.val(attestedEntityKind.name()))
+                            .from(INVOLVEMENT)
+                            .innerJoin(PERSON).on(PERSON.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
+                            .where(involvementCondition)
+                            .and(INVOLVEMENT.ENTITY_ID.in(entityIdSelector)))
+                    .execute();
+
+            int recipientCount = tx
+                    .insertInto(ATTESTATION_INSTANCE_RECIPIENT)
+                    .columns(ATTESTATION_INSTANCE_RECIPIENT.ATTESTATION_INSTANCE_ID,
+                            ATTESTATION_INSTANCE_RECIPIENT.USER_ID)
+                    .select(DSL
+                            .selectDistinct(
+                                    ATTESTATION_INSTANCE.ID,
+                                    PERSON.EMAIL)
+                            .from(ATTESTATION_INSTANCE)
+                            .innerJoin(INVOLVEMENT)
+                            .on(INVOLVEMENT.ENTITY_ID.eq(ATTESTATION_INSTANCE.PARENT_ENTITY_ID)
+                                    .and(INVOLVEMENT.ENTITY_KIND.eq(ATTESTATION_INSTANCE.PARENT_ENTITY_KIND)))
+                            .innerJoin(PERSON).on(PERSON.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
+                            .where(involvementCondition)
+                            .and(ATTESTATION_INSTANCE.ATTESTATION_RUN_ID.eq(attestationRunId)))
+                    .execute();
+
+            return tuple(instanceCount, recipientCount);
+        });
+    }
+
+
     public List<AttestationInstance> findByRecipient(String userId, boolean unattestedOnly) {
         Condition condition = ATTESTATION_INSTANCE_RECIPIENT.USER_ID.eq(userId);
         if(unattestedOnly) {
@@ -554,7 +628,7 @@ public class AttestationInstanceDao {
                 .leftJoin(appAttestations)
                 .on(attestationExistsForThisTargetEntityAndAppCondition)
                 .where(APPLICATION.ID.in(appSelector))
-                .and(dsl.renderInlined(filterCondition))
+                .and(maybeInline(dsl, filterCondition))
                 .fetch(r -> tuple(
                         EntityKind.valueOf(r.get(possibleAttestationKinds.field(ATTESTATION_RUN.ATTESTED_ENTITY_KIND))),
                         r.get(possibleAttestationKinds.field(ATTESTATION_RUN.ATTESTED_ENTITY_ID)),
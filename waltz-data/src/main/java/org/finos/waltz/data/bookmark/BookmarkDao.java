@@ -191,7 +191,12 @@ public class BookmarkDao {
      * @return count of bookmarks removed
      */
     public int deleteByParentSelector(GenericSelector parentRefSelector) {
-        return dsl
+        return deleteByParentSelector(dsl, parentRefSelector);
+    }
+
+
+    public int deleteByParentSelector(DSLContext tx, GenericSelector parentRefSelector) {
+        return tx
                 .deleteFrom(BOOKMARK)
                 .where(BOOKMARK.PARENT_ID.in(parentRefSelector.selector()))
                 .and(BOOKMARK.PARENT_KIND.eq(parentRefSelector.kind().name()))
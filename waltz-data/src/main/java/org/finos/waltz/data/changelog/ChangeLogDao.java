@@ -35,12 +35,16 @@ import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.finos.waltz.schema.Tables.PERSON;
 import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.ListUtilities.partition;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.data.JooqUtilities.*;
 
@@ -48,6 +52,9 @@ import static org.finos.waltz.data.JooqUtilities.*;
 @Repository
 public class ChangeLogDao {
 
+    // each row binds 8 parameters, SQL Server allows at most 2100 per statement
+    private static final int INSERT_BATCH_SIZE = 250;
+
     private final DSLContext dsl;
 
     public static final RecordMapper<? super Record, ChangeLog> TO_DOMAIN_MAPPER = r -> {
@@ -250,22 +257,84 @@ public class ChangeLogDao {
     }
 
 
-    public int[] write(Collection<ChangeLog> changeLogs) {
+    /**
+     * Writes the given entries using multi-row inserts of up to
+     * `INSERT_BATCH_SIZE` rows per statement.
+     *
+     * @param changeLogs  entries to write
+     * @return number of rows inserted
+     */
+    public int write(Collection<ChangeLog> changeLogs) {
         checkNotNull(changeLogs, "changeLogs must not be null");
 
-        Query[] queries = changeLogs
+        return partition(changeLogs, INSERT_BATCH_SIZE)
                 .stream()
-                .map(changeLog -> DSL.insertInto(CHANGE_LOG)
-                        .set(CHANGE_LOG.MESSAGE, changeLog.message())
-                        .set(CHANGE_LOG.PARENT_ID, changeLog.parentReference().id())
-                        .set(CHANGE_LOG.PARENT_KIND, changeLog.parentReference().kind().name())
-                        .set(CHANGE_LOG.USER_ID, changeLog.userId())
-                        .set(CHANGE_LOG.SEVERITY, changeLog.severity().name())
-                        .set(CHANGE_LOG.CHILD_KIND, changeLog.childKind().map(ck -> ck.name()).orElse(null))
-                        .set(CHANGE_LOG.OPERATION, changeLog.operation().name())
-                        .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(changeLog.createdAt())))
-                .toArray(Query[]::new);
-        return dsl.batch(queries).execute();
+                .mapToInt(batch -> {
+                    InsertValuesStep8<ChangeLogRecord, String, Long, String, String, String, String, String, Timestamp> insert = dsl
+                            .insertInto(CHANGE_LOG)
+                            .columns(CHANGE_LOG.MESSAGE,
+                                    CHANGE_LOG.PARENT_ID,
+                                    CHANGE_LOG.PARENT_KIND,
+                                    CHANGE_LOG.USER_ID,
+                                    CHANGE_LOG.SEVERITY,
+                                    CHANGE_LOG.CHILD_KIND,
+                                    CHANGE_LOG.OPERATION,
+                                    CHANGE_LOG.CREATED_AT);
+
+                    batch.forEach(changeLog -> insert.values(
+                            changeLog.message(),
+                            changeLog.parentReference().id(),
+                            changeLog.parentReference().kind().name(),
+                            changeLog.userId(),
+                            changeLog.severity().name(),
+                            changeLog.childKind().map(ck -> ck.name()).orElse(null),
+                            changeLog.operation().name(),
+                            Timestamp.valueOf(changeLog.createdAt())));
+
+                    return insert.execute();
+                })
+                .sum();
+    }
+
+
+    /**
+     * @return the id of the most recent change log entry, or 0 if there are none
+     */
+    public int getLatestId() {
+        return dsl
+                .select(DSL.coalesce(DSL.max(CHANGE_LOG.ID), 0))
+                .from(CHANGE_LOG)
+                .fetchOne()
+                .value1();
+    }
+
+
+    /**
+     * Finds the parent references of the change log entries with an id
+     * greater than `afterId` and no greater than `upToId`, restricted to the given
+     * parent kinds.  Used to find entities which have changed since a previous check.
+     *
+     * @param afterId  exclusive lower bound of change log ids
+     * @param upToId  inclusive upper bound of change log ids
+     * @param parentKinds  kinds of parent entity of interest
+     * @return parent references keyed by change log id
+     */
+    public Map<Integer, EntityReference> findParentReferencesByIdInRange(int afterId,
+                                                                         int upToId,
+                                                                         Collection<EntityKind> parentKinds) {
+        checkNotNull(parentKinds, "parentKinds cannot be null");
+
+        return dsl
+                .select(CHANGE_LOG.ID, CHANGE_LOG.PARENT_KIND, CHANGE_LOG.PARENT_ID)
+                .from(CHANGE_LOG)
+                .where(CHANGE_LOG.ID.greaterThan(afterId))
+                .and(CHANGE_LOG.ID.lessOrEqual(upToId))
+                .and(CHANGE_LOG.PARENT_KIND.in(map(parentKinds, Enum::name)))
+                .fetchMap(
+                        CHANGE_LOG.ID,
+                        r -> mkRef(
+                                EntityKind.valueOf(r.get(CHANGE_LOG.PARENT_KIND)),
+                                r.get(CHANGE_LOG.PARENT_ID)));
     }
 
 
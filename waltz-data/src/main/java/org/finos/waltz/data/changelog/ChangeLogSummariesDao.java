@@ -40,6 +40,7 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.JooqUtilities.mkDateRangeCondition;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -121,8 +122,7 @@ public class ChangeLogSummariesDao {
                         CHANGE_LOG.CHILD_KIND,
                         count)
                 .from(CHANGE_LOG)
-                .where(dsl
-                        .renderInlined(CHANGE_LOG.PARENT_ID.in(genericSelector.selector())
+                .where(maybeInline(dsl, CHANGE_LOG.PARENT_ID.in(genericSelector.selector())
                         .and(CHANGE_LOG.PARENT_KIND.eq(genericSelector.kind().name()))
                         .and(dateRangeCondition)))
                 .groupBy(CHANGE_LOG.PARENT_ID, CHANGE_LOG.PARENT_KIND, CHANGE_LOG.CHILD_KIND)
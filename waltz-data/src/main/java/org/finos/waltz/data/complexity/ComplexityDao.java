@@ -44,6 +44,7 @@ import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.JooqUtilities.selectorToCTE;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class ComplexityDao {
@@ -182,8 +183,8 @@ public class ComplexityDao {
                 .select(entityCount,
                         entityWithComplexityCount)
                 .from(entityIds)
-                .leftJoin(dsl.renderInlined(entityWithComplexity))
-                .on(dsl.renderInlined(entityIds.field(0, Long.class).eq(entityWithComplexity.field(0, Long.class))))
+                .leftJoin(maybeInline(dsl, entityWithComplexity))
+                .on(maybeInline(dsl, entityIds.field(0, Long.class).eq(entityWithComplexity.field(0, Long.class))))
                 .fetchOne(r -> tuple(
                         r.get(entityWithComplexityCount),
                         r.get(entityCount) - r.get(entityWithComplexityCount)));
@@ -42,6 +42,7 @@ import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.JooqUtilities.selectorToCTE;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -104,7 +105,7 @@ public class CostDao {
                 .select(ENTITY_NAME_FIELD)
                 .select(COST.fields())
                 .from(COST)
-                .innerJoin(latestYearForCostKindSelector).on(dsl.renderInlined(latestYearForCostKind))
+                .innerJoin(latestYearForCostKindSelector).on(maybeInline(dsl, latestYearForCostKind))
                 .where(COST.ENTITY_ID.in(genericSelector.selector())
                         .and(COST.ENTITY_KIND.eq(genericSelector.kind().name())))
                 .fetchSet(TO_COST_MAPPER);
@@ -160,7 +161,7 @@ public class CostDao {
         SelectConditionStep<Record1<BigDecimal>> qry = dsl
                 .select(total)
                 .from(COST)
-                .where(dsl.renderInlined(condition));
+                .where(maybeInline(dsl, condition));
 
         return qry
                 .fetchOne(total);
@@ -194,8 +195,8 @@ public class CostDao {
                 .select(appCount,
                         appsWithCostsCount)
                 .from(appIds)
-                .leftJoin(dsl.renderInlined(appsWithCosts))
-                .on(dsl.renderInlined(appIds.field(0, Long.class).eq(appsWithCosts.field(0, Long.class))));
+                .leftJoin(maybeInline(dsl, appsWithCosts))
+                .on(maybeInline(dsl, appIds.field(0, Long.class).eq(appsWithCosts.field(0, Long.class))));
 
         return qry
                 .fetchOne(r -> tuple(
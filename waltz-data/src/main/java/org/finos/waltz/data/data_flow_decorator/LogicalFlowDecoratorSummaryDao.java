@@ -43,6 +43,7 @@ import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOV
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.jooq.impl.DSL.inline;
 import static org.jooq.impl.DSL.when;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -98,8 +99,8 @@ public class LogicalFlowDecoratorSummaryDao {
                 .select(countField)
                 .from(LOGICAL_FLOW_DECORATOR)
                 .innerJoin(LOGICAL_FLOW)
-                .on(dsl.renderInlined(dataFlowJoinCondition))
-                .where(dsl.renderInlined(condition))
+                .on(maybeInline(dsl, dataFlowJoinCondition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(groupingFields)
                 .fetch(r -> {
                     EntityKind decoratorEntityKind = EntityKind.valueOf(r.getValue(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND));
@@ -159,7 +160,7 @@ public class LogicalFlowDecoratorSummaryDao {
                 .on(sourceAppId.eq(lf.SOURCE_ENTITY_ID))
                 .leftJoin(targetApp)
                 .on(targetAppId.eq(lf.TARGET_ENTITY_ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetchGroups(
                         k -> DataTypeDirectionKey.mkKey(
                                 k.get(lfd.DECORATOR_ENTITY_ID),
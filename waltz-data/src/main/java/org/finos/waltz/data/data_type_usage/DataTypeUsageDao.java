@@ -18,7 +18,9 @@
 
 package org.finos.waltz.data.data_type_usage;
 
+import org.finos.waltz.schema.tables.records.DataTypeUsagePendingRecord;
 import org.finos.waltz.schema.tables.records.DataTypeUsageRecord;
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.MapUtilities;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.model.EntityKind;
@@ -42,11 +44,13 @@ import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.finos.waltz.schema.tables.Actor.ACTOR;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.DataType.DATA_TYPE;
 import static org.finos.waltz.schema.tables.DataTypeUsage.DATA_TYPE_USAGE;
+import static org.finos.waltz.schema.tables.DataTypeUsagePending.DATA_TYPE_USAGE_PENDING;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -59,6 +63,8 @@ import static org.jooq.impl.DSL.*;
 @Repository
 public class DataTypeUsageDao {
 
+    private static final int RECALC_BATCH_SIZE = 500;
+
     private final org.finos.waltz.schema.tables.DataType dt = DATA_TYPE.as("dt");
     private final org.finos.waltz.schema.tables.DataTypeUsage dtu = DATA_TYPE_USAGE.as("dtu");
     private final org.finos.waltz.schema.tables.LogicalFlow lf = LOGICAL_FLOW.as("lf");
@@ -234,22 +240,113 @@ public class DataTypeUsageDao {
     }
 
 
+    /**
+     * Recalculates usages for all active applications and all actors.  The work
+     * is split into batches (each in its own transaction) to limit lock times.
+     */
     public boolean recalculateForAllApplications() {
-        recalculateForIdSelector(
+        recalculateForIds(
                 EntityKind.APPLICATION,
-                DSL.select(APPLICATION.ID)
+                dsl.select(APPLICATION.ID)
                     .from(APPLICATION)
-                    .where(IS_ACTIVE));
+                    .where(IS_ACTIVE)
+                    .fetch(APPLICATION.ID));
 
-        recalculateForIdSelector(
+        recalculateForIds(
                 EntityKind.ACTOR,
-                DSL.select(ACTOR.ID)
-                    .from(ACTOR));
+                dsl.select(ACTOR.ID)
+                    .from(ACTOR)
+                    .fetch(ACTOR.ID));
 
         return true;
     }
 
 
+    /**
+     * Recalculates usages for the given applications or actors in batches of
+     * `RECALC_BATCH_SIZE`, each batch is recalculated in its own transaction.
+     *
+     * @param kind  either APPLICATION or ACTOR
+     * @param ids  ids of the entities to recalculate
+     * @return true
+     */
+    public boolean recalculateForIds(EntityKind kind, Collection<Long> ids) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(ids, "ids cannot be null");
+
+        ListUtilities
+                .partition(ids, RECALC_BATCH_SIZE)
+                .forEach(batch -> recalculateForIdSelector(kind, mkIdSelector(kind, batch)));
+
+        return true;
+    }
+
+
+    /**
+     * Records that the usages of the given entities need recalculating, see
+     * `findPendingRecalculations`.  The same entity may be recorded many times.
+     *
+     * @param refs  applications or actors whose usages are out of date
+     * @return number of entries added
+     */
+    public int addPendingRecalculations(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+
+        List<DataTypeUsagePendingRecord> records = refs
+                .stream()
+                .map(ref -> {
+                    DataTypeUsagePendingRecord record = dsl.newRecord(DATA_TYPE_USAGE_PENDING);
+                    record.setEntityKind(ref.kind().name());
+                    record.setEntityId(ref.id());
+                    return record;
+                })
+                .collect(Collectors.toList());
+
+        return IntStream.of(dsl.batchInsert(records).execute()).sum();
+    }
+
+
+    /**
+     * @param limit  maximum number of entries to return
+     * @return the oldest pending entries, keyed by entry id
+     */
+    public Map<Long, EntityReference> findPendingRecalculations(int limit) {
+        return dsl
+                .select(DATA_TYPE_USAGE_PENDING.ID,
+                        DATA_TYPE_USAGE_PENDING.ENTITY_KIND,
+                        DATA_TYPE_USAGE_PENDING.ENTITY_ID)
+                .from(DATA_TYPE_USAGE_PENDING)
+                .orderBy(DATA_TYPE_USAGE_PENDING.ID)
+                .limit(limit)
+                .fetchMap(
+                        DATA_TYPE_USAGE_PENDING.ID,
+                        r -> mkRef(
+                                EntityKind.valueOf(r.get(DATA_TYPE_USAGE_PENDING.ENTITY_KIND)),
+                                r.get(DATA_TYPE_USAGE_PENDING.ENTITY_ID)));
+    }
+
+
+    /**
+     * Removes pending entries once they have been recalculated.  Only the given
+     * entries are removed, so entries added meanwhile are kept.
+     *
+     * @param ids  ids of the entries to remove
+     * @return number of entries removed
+     */
+    public int removePendingRecalculations(Collection<Long> ids) {
+        checkNotNull(ids, "ids cannot be null");
+
+        return ListUtilities
+                .partition(ids, RECALC_BATCH_SIZE)
+                .stream()
+                .mapToInt(batch -> dsl
+                        .deleteFrom(DATA_TYPE_USAGE_PENDING)
+                        .where(DATA_TYPE_USAGE_PENDING.ID.in(batch))
+                        .execute())
+                .sum();
+    }
+
+
     @Deprecated
     public boolean recalculateForAppIdSelector(Select<Record1<Long>> appIdSelector) {
         return recalculateForIdSelector(EntityKind.APPLICATION, appIdSelector);
@@ -310,6 +407,18 @@ public class DataTypeUsageDao {
     }
 
 
+    private static Select<Record1<Long>> mkIdSelector(EntityKind kind, Collection<Long> ids) {
+        switch (kind) {
+            case APPLICATION:
+                return DSL.select(APPLICATION.ID).from(APPLICATION).where(APPLICATION.ID.in(ids));
+            case ACTOR:
+                return DSL.select(ACTOR.ID).from(ACTOR).where(ACTOR.ID.in(ids));
+            default:
+                throw new IllegalArgumentException("Cannot recalculate data type usages for kind: " + kind);
+        }
+    }
+
+
     private List<DataTypeUsageRecord> findAllNonActiveDataTypeUsages(DSLContext tx,
                                                                      EntityKind kind,
                                                                      Select<Record1<Long>> idSelector) {
@@ -29,6 +29,8 @@ import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.datatype.DataTypeUsageCharacteristics;
 import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
 import org.finos.waltz.model.datatype.ImmutableDataTypeUsageCharacteristics;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRatingCandidate;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRatingCandidate;
 import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import org.jooq.*;
@@ -43,6 +45,7 @@ import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 import static org.finos.waltz.schema.Tables.PHYSICAL_FLOW;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
@@ -58,6 +61,7 @@ import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOV
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -140,7 +144,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
                 .and(LOGICAL_NOT_REMOVED)
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetch(TO_DECORATOR_MAPPER);
     }
 
@@ -157,7 +161,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .from(LOGICAL_FLOW_DECORATOR)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .and(LOGICAL_NOT_REMOVED)
                 .fetch(TO_DECORATOR_MAPPER);
     }
@@ -253,6 +257,87 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
     }
 
 
+    /**
+     * Finds all data type decorators on non-removed logical flows along with
+     * the source, target and (if the target is an application) the target's
+     * org unit.  Used when recalculating flow classification ratings in bulk.
+     *
+     * Results are paged by decorator id, pass the id of the last decorator
+     * of the previous page to get the next one.
+     *
+     * @param afterDecoratorId  only decorators with a greater id are returned
+     * @param limit  maximum number of decorators to return
+     * @return candidate decorators for rating, in decorator id order
+     */
+    public List<FlowClassificationRatingCandidate> findFlowClassificationRatingCandidates(long afterDecoratorId,
+                                                                                         int limit) {
+        return dsl
+                .select(LOGICAL_FLOW_DECORATOR.ID,
+                        LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID,
+                        LOGICAL_FLOW_DECORATOR.RATING,
+                        LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID,
+                        LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                        LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                        LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                        LOGICAL_FLOW.TARGET_ENTITY_ID,
+                        APPLICATION.ORGANISATIONAL_UNIT_ID)
+                .from(LOGICAL_FLOW_DECORATOR)
+                .innerJoin(LOGICAL_FLOW).on(LOGICAL_FLOW.ID.eq(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID))
+                .leftJoin(APPLICATION).on(APPLICATION.ID.eq(LOGICAL_FLOW.TARGET_ENTITY_ID)
+                        .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
+                .where(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(DATA_TYPE.name()))
+                .and(LOGICAL_NOT_REMOVED)
+                .and(LOGICAL_FLOW_DECORATOR.ID.gt(afterDecoratorId))
+                .orderBy(LOGICAL_FLOW_DECORATOR.ID)
+                .limit(limit)
+                .fetch(r -> ImmutableFlowClassificationRatingCandidate
+                        .builder()
+                        .decoratorId(r.get(LOGICAL_FLOW_DECORATOR.ID))
+                        .dataTypeId(r.get(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID))
+                        .rating(Optional
+                                .ofNullable(r.get(LOGICAL_FLOW_DECORATOR.RATING))
+                                .map(AuthoritativenessRatingValue::of))
+                        .flowClassificationRuleId(Optional.ofNullable(r.get(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID)))
+                        .source(mkRef(
+                                EntityKind.valueOf(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND)),
+                                r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID)))
+                        .target(mkRef(
+                                EntityKind.valueOf(r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND)),
+                                r.get(LOGICAL_FLOW.TARGET_ENTITY_ID)))
+                        .targetOrgUnitId(Optional.ofNullable(r.get(APPLICATION.ORGANISATIONAL_UNIT_ID)))
+                        .build());
+    }
+
+
+    /**
+     * Sets the rating and flow classification rule of each candidate's
+     * decorator.  No other decorator columns are modified.
+     *
+     * @param candidates  decorators (by id) with their new rating and rule
+     * @return number of decorators updated
+     */
+    public int updateRatings(Collection<FlowClassificationRatingCandidate> candidates) {
+        checkNotNull(candidates, "candidates cannot be null");
+
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Query[] updates = candidates
+                .stream()
+                .map(c -> dsl
+                        .update(LOGICAL_FLOW_DECORATOR)
+                        .set(LOGICAL_FLOW_DECORATOR.RATING, c.rating()
+                                .orElse(AuthoritativenessRatingValue.NO_OPINION)
+                                .value())
+                        .set(LOGICAL_FLOW_DECORATOR.FLOW_CLASSIFICATION_RULE_ID, c.flowClassificationRuleId().orElse(null))
+                        .where(LOGICAL_FLOW_DECORATOR.ID.eq(c.decoratorId())))
+                .toArray(Query[]::new);
+
+        return IntStream.of(dsl.batch(updates).execute()).sum();
+    }
+
+
     public int updateDecoratorsForFlowClassificationRule(FlowClassificationRuleVantagePoint flowClassificationRuleVantagePoint) {
         LogicalFlowDecorator lfd = LOGICAL_FLOW_DECORATOR.as("lfd");
 
@@ -358,7 +443,7 @@ public class LogicalFlowDecoratorDao extends DataTypeDecoratorDao {
                 .select(LOGICAL_FLOW_DECORATOR.fields())
                 .select(ENTITY_NAME_FIELD)
                 .from(LOGICAL_FLOW_DECORATOR)
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetch(TO_DECORATOR_MAPPER);
     }
 
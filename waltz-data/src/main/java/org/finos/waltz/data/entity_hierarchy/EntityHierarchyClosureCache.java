@@ -0,0 +1,291 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_hierarchy;
+
+import org.finos.waltz.common.hierarchy.FlatNode;
+import org.finos.waltz.common.hierarchy.Forest;
+import org.finos.waltz.common.hierarchy.HierarchyClosure;
+import org.finos.waltz.common.hierarchy.HierarchyUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.jooq.DSLContext;
+import org.jooq.Record3;
+import org.jooq.Result;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import javax.annotation.PostConstruct;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
+
+/**
+ * Holds an in-memory {@link HierarchyClosure} per entity kind.
+ *
+ * Closures are loaded lazily from the `entity_hierarchy` table and replaced
+ * whenever the hierarchy for a kind is rebuilt on this node.  As rebuilds may
+ * happen on another node in the cluster, closures are also reloaded once they
+ * are older than `MAX_AGE_MILLIS`.
+ *
+ * Loading happens outside of the map update, the first caller to use a new
+ * entry performs the load and any concurrent callers for the same kind wait
+ * for it.  Callers using other kinds are not held up.
+ *
+ * The cache registers itself with {@link HierarchyClosureSelectors} so the
+ * (statically constructed) id selector factories can use the closures.
+ */
+@Repository
+public class EntityHierarchyClosureCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntityHierarchyClosureCache.class);
+
+    private static final long MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
+    private final DSLContext dsl;
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final Map<EntityKind, CacheEntry> entriesByKind = new ConcurrentHashMap<>();
+    private final Map<EntityKind, AtomicInteger> suspensionsByKind = new ConcurrentHashMap<>();
+
+
+    @Autowired
+    public EntityHierarchyClosureCache(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    @PostConstruct
+    public void registerWithSelectors() {
+        HierarchyClosureSelectors.register(this);
+    }
+
+
+    /**
+     * Returns the closure for the given kind, loading it from the
+     * database if it is not present or has expired.
+     *
+     * @param kind  kind of hierarchy
+     * @return closure for the kind (possibly empty)
+     */
+    public HierarchyClosure getClosure(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+
+        // creating an entry is cheap, the load happens when the closure is first asked for
+        CacheEntry entry = entriesByKind.compute(
+                kind,
+                (k, existing) -> existing == null || existing.isExpired()
+                        ? new CacheEntry(() -> loadClosure(k))
+                        : existing);
+
+        try {
+            return entry.getClosure();
+        } catch (RuntimeException e) {
+            // do not hold on to a failed load, the next caller will retry
+            entriesByKind.remove(kind, entry);
+            throw e;
+        }
+    }
+
+
+    /**
+     * Replaces the closure for the given kind with one computed from the forest.
+     * Typically called after the hierarchy for a kind has been rebuilt.
+     *
+     * @param kind  kind of hierarchy
+     * @param forest  complete forest for the kind
+     * @return the new closure
+     */
+    public HierarchyClosure replace(EntityKind kind, Forest<?, Long> forest) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(forest, "forest cannot be null");
+
+        HierarchyClosure closure = HierarchyClosure.fromForest(versionCounter.incrementAndGet(), forest);
+        entriesByKind.put(kind, new CacheEntry(() -> closure));
+
+        LOG.debug("Replaced hierarchy closure for kind: {} - {}", kind, closure);
+        return closure;
+    }
+
+
+    /**
+     * Discards the closure for the given kind, it will be reloaded on next use.
+     * Use this when only part of a hierarchy has been rebuilt.
+     *
+     * @param kind  kind of hierarchy
+     */
+    public void invalidate(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        entriesByKind.remove(kind);
+    }
+
+
+    /**
+     * Marks the closure for the given kind as unreliable whilst its hierarchy
+     * is being rebuilt in a (not yet committed) transaction.  Selectors should
+     * query the `entity_hierarchy` table instead, so that the transaction sees
+     * its own changes and other callers see the committed hierarchy.
+     *
+     * Every call must be paired with a call to {@link #resume(EntityKind)},
+     * once the transaction has committed or rolled back.
+     *
+     * @param kind  kind of hierarchy
+     */
+    public void suspend(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        suspensionsByKind
+                .computeIfAbsent(kind, k -> new AtomicInteger())
+                .incrementAndGet();
+        entriesByKind.remove(kind);
+    }
+
+
+    /**
+     * Ends a suspension started by {@link #suspend(EntityKind)}.  The closure is
+     * discarded, so it will be reloaded (from the committed hierarchy) on next use.
+     *
+     * @param kind  kind of hierarchy
+     */
+    public void resume(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        suspensionsByKind
+                .computeIfAbsent(kind, k -> new AtomicInteger())
+                .decrementAndGet();
+        entriesByKind.remove(kind);
+    }
+
+
+    /**
+     * @param kind  kind of hierarchy
+     * @return true if a rebuild of the hierarchy for the kind is in progress
+     */
+    public boolean isSuspended(EntityKind kind) {
+        AtomicInteger suspensions = suspensionsByKind.get(kind);
+        return suspensions != null && suspensions.get() > 0;
+    }
+
+
+    /**
+     * @param kind  kind of hierarchy
+     * @return version of the currently held closure, if one is held
+     */
+    public Optional<Long> getVersion(EntityKind kind) {
+        return Optional
+                .ofNullable(entriesByKind.get(kind))
+                .filter(CacheEntry::isLoaded)
+                .map(e -> e.getClosure().version());
+    }
+
+
+    /**
+     * Rebuilds the forest from the stored closure rows.  Each node has a 'self'
+     * row which gives its own level, the parent is the ancestor one level above.
+     */
+    private HierarchyClosure loadClosure(EntityKind kind) {
+        Result<Record3<Long, Long, Integer>> rows = dsl
+                .select(ENTITY_HIERARCHY.ID,
+                        ENTITY_HIERARCHY.ANCESTOR_ID,
+                        ENTITY_HIERARCHY.LEVEL)
+                .from(ENTITY_HIERARCHY)
+                .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
+                .fetch();
+
+        Map<Long, Integer> levelById = new HashMap<>();
+        rows.forEach(r -> {
+            if (r.value1().equals(r.value2())) {
+                levelById.put(r.value1(), r.value3());
+            }
+        });
+
+        Map<Long, Long> parentById = new HashMap<>();
+        rows.forEach(r -> {
+            Integer level = levelById.get(r.value1());
+            if (level != null
+                    && !r.value1().equals(r.value2())
+                    && r.value3() == level - 1) {
+                parentById.put(r.value1(), r.value2());
+            }
+        });
+
+        List<FlatNode<Long, Long>> flatNodes = new ArrayList<>(levelById.size());
+        levelById.keySet().forEach(id -> flatNodes.add(new FlatNode<>(
+                id,
+                Optional.ofNullable(parentById.get(id)),
+                id)));
+
+        HierarchyClosure closure = HierarchyClosure.fromForest(
+                versionCounter.incrementAndGet(),
+                HierarchyUtilities.toForest(flatNodes));
+
+        LOG.debug("Loaded hierarchy closure for kind: {} - {}", kind, closure);
+        return closure;
+    }
+
+
+    private static class CacheEntry {
+
+        private final FutureTask<HierarchyClosure> loader;
+        private final long createdAt = System.currentTimeMillis();
+
+
+        private CacheEntry(Callable<HierarchyClosure> loader) {
+            this.loader = new FutureTask<>(loader);
+        }
+
+
+        private HierarchyClosure getClosure() {
+            // only the first caller runs the load, others block in `get` until it completes
+            loader.run();
+            try {
+                return loader.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted whilst waiting for hierarchy closure", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException
+                        ? (RuntimeException) cause
+                        : new IllegalStateException("Could not load hierarchy closure", cause);
+            }
+        }
+
+
+        private boolean isLoaded() {
+            return loader.isDone() && !loader.isCancelled();
+        }
+
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > MAX_AGE_MILLIS;
+        }
+    }
+}
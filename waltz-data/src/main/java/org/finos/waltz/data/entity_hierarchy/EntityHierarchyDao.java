@@ -18,30 +18,44 @@
 
 package org.finos.waltz.data.entity_hierarchy;
 
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.common.hierarchy.HierarchyClosure;
 import org.finos.waltz.schema.tables.EntityHierarchy;
 import org.finos.waltz.schema.tables.records.EntityHierarchyRecord;
 import org.finos.waltz.data.JooqUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyRebuildSummary;
 import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyItem;
+import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyRebuildSummary;
 import org.finos.waltz.model.tally.Tally;
 import org.jooq.Condition;
 import org.jooq.DSLContext;
+import org.jooq.Query;
 import org.jooq.Record;
 import org.jooq.RecordMapper;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple2;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 
 import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.finos.waltz.common.ListUtilities.map;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class EntityHierarchyDao {
@@ -71,34 +85,131 @@ public class EntityHierarchyDao {
     };
 
     private final DSLContext dsl;
+    private final EntityHierarchyClosureCache closureCache;
 
     @Autowired
-    public EntityHierarchyDao(DSLContext dsl) {
+    public EntityHierarchyDao(DSLContext dsl,
+                              EntityHierarchyClosureCache closureCache) {
         checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(closureCache, "closureCache cannot be null");
 
         this.dsl = dsl;
+        this.closureCache = closureCache;
     }
 
 
-    public int replaceHierarchy(EntityKind kind, List<EntityHierarchyItem> hierarchyItems, Condition deleteFilter) {
+    /**
+     * Brings the stored hierarchy for the given kind in line with the given items.
+     * Rather than deleting and re-inserting everything the stored
+     * `(id, ancestor_id, level)` tuples are compared with the new items and only
+     * the differences are written.
+     *
+     * @param kind  kind of hierarchy being replaced
+     * @param hierarchyItems  the complete (new) set of items for the kind, restricted by the filter
+     * @param deleteFilter  restricts which existing rows are considered part of the hierarchy being replaced
+     * @return summary of the number of inserted, updated, deleted and unchanged tuples
+     */
+    public EntityHierarchyRebuildSummary replaceHierarchy(EntityKind kind,
+                                                          List<EntityHierarchyItem> hierarchyItems,
+                                                          Condition deleteFilter) {
+        return dsl.transactionResult(configuration -> replaceHierarchy(
+                DSL.using(configuration),
+                kind,
+                hierarchyItems,
+                deleteFilter));
+    }
+
+
+    /**
+     * As {@link #replaceHierarchy(EntityKind, List, Condition)} but runs against the
+     * given context, allowing the rebuild to take part in a wider transaction.
+     *
+     * @param txDsl  context (typically transactional) to use for the rebuild
+     * @param kind  kind of hierarchy being replaced
+     * @param hierarchyItems  the complete (new) set of items for the kind, restricted by the filter
+     * @param deleteFilter  restricts which existing rows are considered part of the hierarchy being replaced
+     * @return summary of the number of inserted, updated, deleted and unchanged tuples
+     */
+    public EntityHierarchyRebuildSummary replaceHierarchy(DSLContext txDsl,
+                                                          EntityKind kind,
+                                                          List<EntityHierarchyItem> hierarchyItems,
+                                                          Condition deleteFilter) {
+        checkNotNull(txDsl, "txDsl cannot be null");
         checkNotNull(kind, "kind cannot be null");
         checkNotNull(hierarchyItems, "hierarchyItems cannot be null");
 
+        long startTime = System.currentTimeMillis();
         List<EntityHierarchyRecord> records = map(hierarchyItems, ITEM_TO_RECORD_MAPPER);
 
-        LOG.info("Replacing hierarchy items for kind: {}, inserting new record (#{})", kind, hierarchyItems.size());
-        dsl.transaction(configuration -> {
-            DSLContext txDsl = DSL.using(configuration);
-            txDsl.deleteFrom(ENTITY_HIERARCHY)
-                    .where(ENTITY_HIERARCHY.KIND.eq(kind.name()))
-                    .and(deleteFilter)
-                    .execute();
-            txDsl.batchInsert(records)
-                    .execute();
-        });
+        Map<Tuple2<Long, Long>, Integer> existingLevels = new HashMap<>();
+        txDsl.select(eh.ID, eh.ANCESTOR_ID, eh.LEVEL)
+                .from(eh)
+                .where(eh.KIND.eq(kind.name()))
+                .and(deleteFilter)
+                .fetch()
+                .forEach(r -> existingLevels.put(tuple(r.value1(), r.value2()), r.value3()));
+
+        List<EntityHierarchyRecord> toInsert = new ArrayList<>();
+        List<Query> toUpdate = new ArrayList<>();
+        int unchangedCount = 0;
+
+        for (EntityHierarchyRecord record : records) {
+            Integer existingLevel = existingLevels.remove(tuple(record.getId(), record.getAncestorId()));
+            if (existingLevel == null) {
+                toInsert.add(record);
+            } else if (! existingLevel.equals(record.getLevel())) {
+                toUpdate.add(txDsl
+                        .update(eh)
+                        .set(eh.LEVEL, record.getLevel())
+                        .where(eh.KIND.eq(kind.name()))
+                        .and(eh.ID.eq(record.getId()))
+                        .and(eh.ANCESTOR_ID.eq(record.getAncestorId())));
+            } else {
+                unchangedCount++;
+            }
+        }
+
+        // anything left over is no longer part of the hierarchy
+        List<Query> toDelete = existingLevels
+                .keySet()
+                .stream()
+                .map(t -> txDsl
+                        .deleteFrom(eh)
+                        .where(eh.KIND.eq(kind.name()))
+                        .and(eh.ID.eq(t.v1))
+                        .and(eh.ANCESTOR_ID.eq(t.v2)))
+                .collect(toList());
+
+        if (! toDelete.isEmpty()) {
+            txDsl.batch(toDelete).execute();
+        }
+        if (! toUpdate.isEmpty()) {
+            txDsl.batch(toUpdate).execute();
+        }
+        if (! toInsert.isEmpty()) {
+            txDsl.batchInsert(toInsert).execute();
+        }
 
-        return records.size();
+        EntityHierarchyRebuildSummary summary = ImmutableEntityHierarchyRebuildSummary.builder()
+                .kind(kind)
+                .insertCount(toInsert.size())
+                .updateCount(toUpdate.size())
+                .deleteCount(toDelete.size())
+                .unchangedCount(unchangedCount)
+                .durationMillis(System.currentTimeMillis() - startTime)
+                .completedAt(DateTimeUtilities.nowUtc())
+                .build();
+
+        LOG.info(
+                "Updated hierarchy for kind: {}, inserted: {}, updated: {}, deleted: {}, unchanged: {}, took: {}ms",
+                kind,
+                summary.insertCount(),
+                summary.updateCount(),
+                summary.deleteCount(),
+                summary.unchangedCount(),
+                summary.durationMillis());
 
+        return summary;
     }
 
 
@@ -117,14 +228,42 @@ public class EntityHierarchyDao {
     }
 
 
+    /**
+     * Finds the descendants (including self) of the given entity.  This is resolved
+     * using the in-memory closure for the entity's kind rather than by querying the
+     * `entity_hierarchy` table.
+     *
+     * @param ref  entity to find descendants of
+     * @return hierarchy items, the `parentId` and `level` of each refer to the given entity
+     */
     public List<EntityHierarchyItem> findDesendents(EntityReference ref) {
         checkNotNull(ref, "ref cannot be null");
-        return dsl
-                .select(ENTITY_HIERARCHY.fields())
-                .from(ENTITY_HIERARCHY)
-                .where(ENTITY_HIERARCHY.KIND.eq(ref.kind().name()))
-                .and(ENTITY_HIERARCHY.ANCESTOR_ID.eq(ref.id()))
-                .fetch(TO_DOMAIN_MAPPER);
+
+        HierarchyClosure closure = closureCache.getClosure(ref.kind());
+        int level = closure.levelOf(ref.id());
+
+        return LongStream
+                .of(closure.descendantsOf(ref.id()))
+                .mapToObj(id -> ImmutableEntityHierarchyItem.builder()
+                        .id(id)
+                        .kind(ref.kind())
+                        .parentId(ref.id())
+                        .level(level)
+                        .build())
+                .collect(toList());
+    }
+
+
+    /**
+     * @param ref  entity to find descendants of
+     * @return ids of the entity and all of its descendants
+     */
+    public Set<Long> findDescendantIds(EntityReference ref) {
+        checkNotNull(ref, "ref cannot be null");
+        return LongStream
+                .of(closureCache.getClosure(ref.kind()).descendantsOf(ref.id()))
+                .boxed()
+                .collect(toSet());
     }
 
 }
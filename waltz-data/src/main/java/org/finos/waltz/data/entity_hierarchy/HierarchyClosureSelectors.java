@@ -0,0 +1,123 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_hierarchy;
+
+import org.finos.waltz.common.hierarchy.HierarchyClosure;
+import org.finos.waltz.model.EntityKind;
+import org.jooq.Record1;
+import org.jooq.Row1;
+import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Builds id selectors for the ancestors / descendants of an entity using
+ * the in-memory closures held by the {@link EntityHierarchyClosureCache},
+ * avoiding a join against the (large) `entity_hierarchy` table.
+ *
+ * The id selector factories are plain objects, so the cache registers
+ * itself here when the application context starts.  An empty result means
+ * the caller should fall back to querying `entity_hierarchy`.  This is the
+ * case when no cache is registered, the hierarchy is being rebuilt, the entity
+ * is not (yet) known to the closure, or when the subtree is too large to pass
+ * as a list of values.
+ */
+public class HierarchyClosureSelectors {
+
+    /**
+     * Subtrees larger than this are left to the database, this keeps
+     * the statement well under driver parameter limits (e.g. 2100 on SQL Server)
+     */
+    public static final int MAX_IDS = 1000;
+
+    private static volatile EntityHierarchyClosureCache closureCache;
+
+
+    private HierarchyClosureSelectors() {
+    }
+
+
+    static void register(EntityHierarchyClosureCache cache) {
+        closureCache = checkNotNull(cache, "cache cannot be null");
+    }
+
+
+    /**
+     * @param kind  kind of hierarchy
+     * @param id  entity identifier
+     * @return selector giving the entity and all of its descendants
+     */
+    public static Optional<Select<Record1<Long>>> mkDescendantsSelector(EntityKind kind, long id) {
+        return mkSelector(kind, id, c -> c.descendantsOf(id));
+    }
+
+
+    /**
+     * @param kind  kind of hierarchy
+     * @param id  entity identifier
+     * @return selector giving the entity and all of its ancestors
+     */
+    public static Optional<Select<Record1<Long>>> mkAncestorsSelector(EntityKind kind, long id) {
+        return mkSelector(kind, id, c -> c.ancestorsOf(id));
+    }
+
+
+    private static Optional<Select<Record1<Long>>> mkSelector(EntityKind kind,
+                                                              long id,
+                                                              Function<HierarchyClosure, long[]> idsFn) {
+        checkNotNull(kind, "kind cannot be null");
+
+        EntityHierarchyClosureCache cache = closureCache;
+        if (cache == null || cache.isSuspended(kind)) {
+            return Optional.empty();
+        }
+
+        HierarchyClosure closure = cache.getClosure(kind);
+        if (!closure.contains(id)) {
+            return Optional.empty();
+        }
+
+        long[] ids = idsFn.apply(closure);
+        if (ids.length > MAX_IDS) {
+            return Optional.empty();
+        }
+
+        return Optional.of(mkValuesSelector(ids));
+    }
+
+
+    @SuppressWarnings("unchecked")
+    private static Select<Record1<Long>> mkValuesSelector(long[] ids) {
+        Row1<Long>[] rows = LongStream
+                .of(ids)
+                .mapToObj(DSL::row)
+                .toArray(Row1[]::new);
+
+        Table<Record1<Long>> idTable = DSL.values(rows).as("closure_ids", "id");
+        return DSL.select(idTable.field(0, Long.class)).from(idTable);
+    }
+
+}
@@ -208,7 +208,12 @@ public class EntityRelationshipDao {
 
 
     public int deleteForGenericEntitySelector(GenericSelector selector) {
-        return doDelete(mkGenericSelectorCondition(selector));
+        return deleteForGenericEntitySelector(dsl, selector);
+    }
+
+
+    public int deleteForGenericEntitySelector(DSLContext tx, GenericSelector selector) {
+        return doDelete(tx, mkGenericSelectorCondition(selector));
     }
 
 
@@ -221,7 +226,12 @@ public class EntityRelationshipDao {
 
 
     private int doDelete(Condition condition) {
-        return dsl
+        return doDelete(dsl, condition);
+    }
+
+
+    private int doDelete(DSLContext tx, Condition condition) {
+        return tx
                 .deleteFrom(ENTITY_RELATIONSHIP)
                 .where(condition)
                 .execute();
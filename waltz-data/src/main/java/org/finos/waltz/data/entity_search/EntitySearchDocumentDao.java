@@ -0,0 +1,303 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.entity_search;
+
+import org.finos.waltz.common.StringUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchDocument;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchDocument;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.SelectField;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.schema.Tables.ACTOR;
+import static org.finos.waltz.schema.Tables.APPLICATION;
+import static org.finos.waltz.schema.Tables.CHANGE_INITIATIVE;
+import static org.finos.waltz.schema.Tables.DATA_TYPE;
+import static org.finos.waltz.schema.Tables.ENTITY_ALIAS;
+import static org.finos.waltz.schema.Tables.LOGICAL_DATA_ELEMENT;
+import static org.finos.waltz.schema.Tables.MEASURABLE;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.finos.waltz.schema.Tables.PERSON;
+import static org.finos.waltz.schema.Tables.PHYSICAL_SPECIFICATION;
+import static org.finos.waltz.schema.Tables.ROADMAP;
+import static org.finos.waltz.schema.Tables.SERVER_INFORMATION;
+import static org.finos.waltz.schema.Tables.SOFTWARE_PACKAGE;
+
+
+/**
+ * Loads the searchable text of entities for use by the in-memory search index.
+ *
+ * Each supported kind is described by a {@link DocumentSource} giving the
+ * table and the columns holding the name, description, identifiers and
+ * lifecycle status (or removed flag) of the entity.  Aliases are taken from
+ * the `entity_alias` table.
+ */
+@Repository
+public class EntitySearchDocumentDao {
+
+    private static final Field<String> NO_LIFECYCLE_STATUS = DSL.inline(null, String.class);
+    private static final Field<Boolean> NOT_REMOVED = DSL.inline(false, Boolean.class);
+
+    private static final int FIRST_IDENTIFIER_POSITION = 5;
+
+    private static final Map<EntityKind, DocumentSource> SOURCES = mkSources();
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntitySearchDocumentDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * @return the kinds for which documents can be loaded
+     */
+    public static Set<EntityKind> supportedKinds() {
+        return Collections.unmodifiableSet(SOURCES.keySet());
+    }
+
+
+    public List<EntitySearchDocument> findAll(EntityKind kind) {
+        return findWhere(kind, DSL.trueCondition(), DSL.trueCondition());
+    }
+
+
+    /**
+     * Finds the documents for the given entities, ids which no longer exist
+     * are silently ignored.
+     *
+     * @param kind  kind of entity
+     * @param ids  entity ids
+     * @return documents for the entities that still exist
+     */
+    public List<EntitySearchDocument> findByIds(EntityKind kind, Collection<Long> ids) {
+        checkNotNull(ids, "ids cannot be null");
+        if (ids.isEmpty()) {
+            return emptyList();
+        }
+        return findWhere(
+                kind,
+                getSource(kind).id.in(ids),
+                ENTITY_ALIAS.ID.in(ids));
+    }
+
+
+    private List<EntitySearchDocument> findWhere(EntityKind kind,
+                                                 Condition entityCondition,
+                                                 Condition aliasCondition) {
+        DocumentSource source = getSource(kind);
+
+        Map<Long, List<String>> aliasesById = dsl
+                .select(ENTITY_ALIAS.ID, ENTITY_ALIAS.ALIAS)
+                .from(ENTITY_ALIAS)
+                .where(ENTITY_ALIAS.KIND.eq(kind.name()))
+                .and(aliasCondition)
+                .fetch()
+                .stream()
+                .collect(groupingBy(
+                        r -> r.get(ENTITY_ALIAS.ID),
+                        mapping(r -> r.get(ENTITY_ALIAS.ALIAS), toList())));
+
+        List<SelectField<?>> fields = new ArrayList<>();
+        fields.add(source.id);
+        fields.add(source.name);
+        fields.add(source.description);
+        fields.add(source.lifecycleStatus);
+        fields.add(source.isRemoved);
+        fields.addAll(source.identifiers);
+
+        return dsl
+                .select(fields)
+                .from(source.table)
+                .where(entityCondition)
+                .fetch(r -> toDocument(kind, r, aliasesById));
+    }
+
+
+    /**
+     * Fields are read by position as the lifecycle status and removed flag
+     * may be (indistinguishable) inlined constants.
+     */
+    private static EntitySearchDocument toDocument(EntityKind kind,
+                                                   Record r,
+                                                   Map<Long, List<String>> aliasesById) {
+        long id = r.get(0, Long.class);
+
+        List<String> identifiers = new ArrayList<>();
+        for (int i = FIRST_IDENTIFIER_POSITION; i < r.size(); i++) {
+            String identifier = r.get(i, String.class);
+            if (StringUtilities.notEmpty(identifier)) {
+                identifiers.add(identifier);
+            }
+        }
+
+        EntityLifecycleStatus lifecycleStatus = Boolean.TRUE.equals(r.get(4, Boolean.class))
+                ? EntityLifecycleStatus.REMOVED
+                : readEnum(r.get(3, String.class), EntityLifecycleStatus.class, s -> EntityLifecycleStatus.ACTIVE);
+
+        return ImmutableEntitySearchDocument
+                .builder()
+                .entityReference(ImmutableEntityReference
+                        .builder()
+                        .kind(kind)
+                        .id(id)
+                        .name(Optional.ofNullable(r.get(1, String.class)))
+                        .description(Objects.toString(r.get(2, String.class), ""))
+                        .externalId(identifiers.stream().findFirst())
+                        .entityLifecycleStatus(lifecycleStatus)
+                        .build())
+                .identifiers(identifiers)
+                .aliases(aliasesById.getOrDefault(id, emptyList()))
+                .build();
+    }
+
+
+    private static DocumentSource getSource(EntityKind kind) {
+        checkNotNull(kind, "kind cannot be null");
+        DocumentSource source = SOURCES.get(kind);
+        checkTrue(source != null, "Search documents are not supported for kind: " + kind);
+        return source;
+    }
+
+
+    private static Map<EntityKind, DocumentSource> mkSources() {
+        Map<EntityKind, DocumentSource> sources = new EnumMap<>(EntityKind.class);
+
+        sources.put(EntityKind.ACTOR, new DocumentSource(
+                ACTOR, ACTOR.ID, ACTOR.NAME, ACTOR.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                ACTOR.EXTERNAL_ID));
+
+        sources.put(EntityKind.APPLICATION, new DocumentSource(
+                APPLICATION, APPLICATION.ID, APPLICATION.NAME, APPLICATION.DESCRIPTION,
+                APPLICATION.ENTITY_LIFECYCLE_STATUS, APPLICATION.IS_REMOVED,
+                APPLICATION.ASSET_CODE, APPLICATION.PARENT_ASSET_CODE));
+
+        sources.put(EntityKind.CHANGE_INITIATIVE, new DocumentSource(
+                CHANGE_INITIATIVE, CHANGE_INITIATIVE.ID, CHANGE_INITIATIVE.NAME, CHANGE_INITIATIVE.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                CHANGE_INITIATIVE.EXTERNAL_ID));
+
+        sources.put(EntityKind.DATA_TYPE, new DocumentSource(
+                DATA_TYPE, DATA_TYPE.ID, DATA_TYPE.NAME, DATA_TYPE.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                DATA_TYPE.CODE));
+
+        sources.put(EntityKind.LOGICAL_DATA_ELEMENT, new DocumentSource(
+                LOGICAL_DATA_ELEMENT, LOGICAL_DATA_ELEMENT.ID, LOGICAL_DATA_ELEMENT.NAME, LOGICAL_DATA_ELEMENT.DESCRIPTION,
+                LOGICAL_DATA_ELEMENT.ENTITY_LIFECYCLE_STATUS, NOT_REMOVED,
+                LOGICAL_DATA_ELEMENT.EXTERNAL_ID));
+
+        sources.put(EntityKind.MEASURABLE, new DocumentSource(
+                MEASURABLE, MEASURABLE.ID, MEASURABLE.NAME, MEASURABLE.DESCRIPTION,
+                MEASURABLE.ENTITY_LIFECYCLE_STATUS, NOT_REMOVED,
+                MEASURABLE.EXTERNAL_ID));
+
+        sources.put(EntityKind.ORG_UNIT, new DocumentSource(
+                ORGANISATIONAL_UNIT, ORGANISATIONAL_UNIT.ID, ORGANISATIONAL_UNIT.NAME, ORGANISATIONAL_UNIT.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                ORGANISATIONAL_UNIT.EXTERNAL_ID));
+
+        sources.put(EntityKind.PERSON, new DocumentSource(
+                PERSON, PERSON.ID, PERSON.DISPLAY_NAME, PERSON.TITLE,
+                NO_LIFECYCLE_STATUS, PERSON.IS_REMOVED,
+                PERSON.EMAIL, PERSON.EMPLOYEE_ID, PERSON.USER_PRINCIPAL_NAME));
+
+        sources.put(EntityKind.PHYSICAL_SPECIFICATION, new DocumentSource(
+                PHYSICAL_SPECIFICATION, PHYSICAL_SPECIFICATION.ID, PHYSICAL_SPECIFICATION.NAME, PHYSICAL_SPECIFICATION.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, PHYSICAL_SPECIFICATION.IS_REMOVED,
+                PHYSICAL_SPECIFICATION.EXTERNAL_ID));
+
+        sources.put(EntityKind.ROADMAP, new DocumentSource(
+                ROADMAP, ROADMAP.ID, ROADMAP.NAME, ROADMAP.DESCRIPTION,
+                ROADMAP.ENTITY_LIFECYCLE_STATUS, NOT_REMOVED));
+
+        sources.put(EntityKind.SERVER, new DocumentSource(
+                SERVER_INFORMATION, SERVER_INFORMATION.ID, SERVER_INFORMATION.HOSTNAME, SERVER_INFORMATION.OPERATING_SYSTEM,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                SERVER_INFORMATION.EXTERNAL_ID));
+
+        sources.put(EntityKind.SOFTWARE, new DocumentSource(
+                SOFTWARE_PACKAGE, SOFTWARE_PACKAGE.ID, SOFTWARE_PACKAGE.NAME, SOFTWARE_PACKAGE.DESCRIPTION,
+                NO_LIFECYCLE_STATUS, NOT_REMOVED,
+                SOFTWARE_PACKAGE.EXTERNAL_ID));
+
+        return sources;
+    }
+
+
+    private static class DocumentSource {
+
+        private final Table<?> table;
+        private final Field<Long> id;
+        private final Field<String> name;
+        private final Field<String> description;
+        private final Field<String> lifecycleStatus;
+        private final Field<Boolean> isRemoved;
+        private final List<Field<String>> identifiers;
+
+
+        @SafeVarargs
+        private DocumentSource(Table<?> table,
+                               Field<Long> id,
+                               Field<String> name,
+                               Field<String> description,
+                               Field<String> lifecycleStatus,
+                               Field<Boolean> isRemoved,
+                               Field<String>... identifiers) {
+            this.table = table;
+            this.id = id;
+            this.name = name;
+            this.description = description;
+            this.lifecycleStatus = lifecycleStatus;
+            this.isRemoved = isRemoved;
+            this.identifiers = Arrays.asList(identifiers);
+        }
+    }
+}
@@ -35,6 +35,7 @@ import java.util.List;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.schema.tables.EntityStatisticDefinition.ENTITY_STATISTIC_DEFINITION;
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class EntityStatisticDao implements FindEntityReferencesByIdSelector {
@@ -72,7 +73,7 @@ public class EntityStatisticDao implements FindEntityReferencesByIdSelector {
                 .from(es)
                 .innerJoin(esv)
                 .on(esv.STATISTIC_ID.eq(es.ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetch(TO_COMPOUND_MAPPER);
     }
 
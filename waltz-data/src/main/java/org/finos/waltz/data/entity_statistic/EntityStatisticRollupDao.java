@@ -0,0 +1,477 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data.entity_statistic;
+
+import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.tally.ImmutableTally;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.schema.tables.EntityStatisticRollup;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record1;
+import org.jooq.Record5;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.jooq.impl.SQLDataType;
+import org.jooq.lambda.tuple.Tuple2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.DateTimeUtilities.today;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.finos.waltz.schema.tables.EntityStatisticDefinition.ENTITY_STATISTIC_DEFINITION;
+import static org.finos.waltz.schema.tables.EntityStatisticRollup.ENTITY_STATISTIC_ROLLUP;
+import static org.finos.waltz.schema.tables.EntityStatisticRollupExtent.ENTITY_STATISTIC_ROLLUP_EXTENT;
+import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+/**
+ * Maintains and queries pre-aggregated history for entity statistics.
+ *
+ * Application values are rolled up per statistic, owning org unit, outcome
+ * and bucket.  `DAY` buckets aggregate all values created on that day,
+ * `WEEK` buckets (keyed by the Monday starting the week) hold a copy of the
+ * last day in the week which has values (so snapshot style statistics are
+ * not multiplied up by the number of days in the week).
+ *
+ * Each statistic records the range of days its rollups cover
+ * (`findRolledUpRange`).  Values created outside that range (before
+ * rollups were introduced, or written straight to the values table since
+ * the last refresh) must still be read from the raw values.  Refreshing
+ * always extends the range contiguously, so any gap since the last refresh
+ * is rolled up as well.  The current day is never treated as covered as
+ * values may still be arriving.  History for an org unit subtree sums the
+ * rollups of the org units in that subtree, so reads are bounded by the
+ * number of org units and buckets rather than the number of raw values.
+ *
+ * Only applications which are `ACTIVE` when the rollup is computed are
+ * included.
+ */
+@Repository
+public class EntityStatisticRollupDao {
+
+    public enum BucketKind {
+        DAY,
+        WEEK
+    }
+
+
+    private static final EntityStatisticRollup esr = ENTITY_STATISTIC_ROLLUP.as("esr");
+    private static final org.finos.waltz.schema.tables.EntityStatisticValue esv = ENTITY_STATISTIC_VALUE.as("esv");
+    private static final org.finos.waltz.schema.tables.Application app = APPLICATION.as("app");
+
+    private static final Field<Date> esvCreatedAtDate = DSL.cast(esv.CREATED_AT, Date.class);
+    private static final Field<BigDecimal> esvNumericValueSum = DSL.sum(DSL.cast(esv.VALUE, SQLDataType.DECIMAL(38, 12)));
+    private static final Field<BigDecimal> entityCountSum = DSL.sum(esr.ENTITY_COUNT).as("entity_count_sum");
+    private static final Field<BigDecimal> valueCountSum = DSL.sum(esr.VALUE_COUNT).as("value_count_sum");
+    private static final Field<BigDecimal> valueSumSum = DSL.sum(esr.VALUE_SUM).as("value_sum_sum");
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public EntityStatisticRollupDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    /**
+     * Recomputes the daily and weekly rollups of a statistic for all weeks
+     * which overlap the given (inclusive) date range, in its own transaction.
+     *
+     * @param statisticId  statistic to recompute
+     * @param from  first date which has new values
+     * @param to  last date which has new values
+     * @return number of rollup rows written
+     */
+    public int refresh(long statisticId, LocalDate from, LocalDate to) {
+        return dsl.transactionResult(ctx -> refresh(ctx.dsl(), statisticId, from, to));
+    }
+
+
+    /**
+     * As above, but runs in the given transaction.  The range is widened to
+     * close any gap with the days already rolled up, so values written
+     * directly to the values table since the last refresh are included.
+     */
+    public int refresh(DSLContext tx, long statisticId, LocalDate from, LocalDate to) {
+        checkNotNull(tx, "tx cannot be null");
+        checkNotNull(from, "from cannot be null");
+        checkNotNull(to, "to cannot be null");
+        checkTrue(!to.isBefore(from), "to cannot be before from");
+
+        Optional<Tuple2<LocalDate, LocalDate>> existing = findRolledUpRange(tx, statisticId);
+
+        LocalDate firstWeekStart = toWeekStart(existing
+                .map(r -> Collections.min(asList(from, r.v2())))
+                .orElse(from));
+        LocalDate lastWeekStart = toWeekStart(existing
+                .map(r -> Collections.max(asList(to, r.v1().minusDays(1))))
+                .orElse(to));
+        boolean numeric = isNumeric(tx, statisticId);
+
+        int written = refreshDays(
+                tx,
+                statisticId,
+                numeric,
+                firstWeekStart,
+                lastWeekStart.plusDays(6));
+
+        for (LocalDate weekStart = firstWeekStart;
+             !weekStart.isAfter(lastWeekStart);
+             weekStart = weekStart.plusWeeks(1)) {
+            written += refreshWeek(tx, statisticId, weekStart);
+        }
+
+        LocalDate rolledUpFrom = existing
+                .map(r -> Collections.min(asList(firstWeekStart, r.v1())))
+                .orElse(firstWeekStart);
+        LocalDate rolledUpUntil = Collections.max(asList(
+                rolledUpFrom,
+                existing.map(Tuple2::v2).orElse(rolledUpFrom),
+                Collections.min(asList(lastWeekStart.plusWeeks(1), today()))));
+
+        saveRolledUpRange(tx, statisticId, rolledUpFrom, rolledUpUntil);
+
+        return written;
+    }
+
+
+    /**
+     * Recomputes all rollups for the given statistic from its stored values.
+     *
+     * @param statisticId  statistic to recompute
+     * @return number of rollup rows written
+     */
+    public int rebuild(long statisticId) {
+        Record1<Date> earliest = dsl
+                .select(DSL.min(esvCreatedAtDate))
+                .from(esv)
+                .where(esv.STATISTIC_ID.eq(statisticId))
+                .fetchOne();
+
+        Record1<Date> latest = dsl
+                .select(DSL.max(esvCreatedAtDate))
+                .from(esv)
+                .where(esv.STATISTIC_ID.eq(statisticId))
+                .fetchOne();
+
+        if (earliest == null || earliest.value1() == null) {
+            return 0;
+        }
+
+        return refresh(
+                statisticId,
+                earliest.value1().toLocalDate(),
+                latest.value1().toLocalDate());
+    }
+
+
+    /**
+     * Rollups hold every value created from the first date up to (but
+     * excluding) the second date, values outside that range must be read
+     * from the raw values.
+     *
+     * @param statisticId  statistic to check
+     * @return (rolled up from, rolled up until), empty if the statistic has no rollups
+     */
+    public Optional<Tuple2<LocalDate, LocalDate>> findRolledUpRange(long statisticId) {
+        return findRolledUpRange(dsl, statisticId);
+    }
+
+
+    /**
+     * Returns one tally pack per bucket, oldest first.  Short durations use
+     * daily buckets, longer ones (half year and above) use weekly buckets.
+     *
+     * @param statisticId  statistic to report on
+     * @param orgUnitIdSelector  org units whose rollups should be combined
+     * @param rollupKind  how the values are combined, `NONE` is not supported
+     * @param duration  how far back to go
+     * @return tally packs, one per bucket
+     */
+    public List<TallyPack<String>> findHistory(long statisticId,
+                                               Select<Record1<Long>> orgUnitIdSelector,
+                                               RollupKind rollupKind,
+                                               Duration duration) {
+        checkNotNull(orgUnitIdSelector, "orgUnitIdSelector cannot be null");
+        checkNotNull(rollupKind, "rollupKind cannot be null");
+        checkNotNull(duration, "duration cannot be null");
+        checkTrue(rollupKind != RollupKind.NONE, "rollupKind of NONE cannot be read from rollups");
+
+        Condition condition = esr.STATISTIC_ID.eq(statisticId)
+                .and(esr.BUCKET_KIND.eq(toBucketKind(duration).name()))
+                .and(esr.ORG_UNIT_ID.in(orgUnitIdSelector))
+                .and(mkDurationCondition(duration, toBucketKind(duration)));
+
+        return dsl
+                .select(esr.BUCKET_START, esr.OUTCOME, entityCountSum, valueCountSum, valueSumSum)
+                .from(esr)
+                .where(maybeInline(dsl, condition))
+                .groupBy(esr.BUCKET_START, esr.OUTCOME)
+                .orderBy(esr.BUCKET_START.asc())
+                .fetch()
+                .stream()
+                .map(r -> tuple(
+                        r.get(esr.BUCKET_START).toLocalDate(),
+                        ImmutableTally.<String>builder()
+                                .id(r.get(esr.OUTCOME))
+                                .count(toCount(r, rollupKind))
+                                .build()))
+                .collect(groupingBy(
+                        Tuple2::v1,
+                        TreeMap::new,
+                        mapping(Tuple2::v2, toList())))
+                .entrySet()
+                .stream()
+                .map(e -> ImmutableTallyPack.<String>builder()
+                        .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
+                        .tallies(e.getValue())
+                        .lastUpdatedAt(e.getKey().atStartOfDay())
+                        .build())
+                .collect(toList());
+    }
+
+
+    /**
+     * Short durations use daily buckets, longer ones (half year and above)
+     * use weekly buckets.
+     */
+    public static BucketKind toBucketKind(Duration duration) {
+        return duration.numDays() >= Duration.HALF_YEAR.numDays()
+                ? BucketKind.WEEK
+                : BucketKind.DAY;
+    }
+
+
+    /**
+     * Weekly buckets are keyed by the Monday starting the week.
+     */
+    public static LocalDate toWeekStart(LocalDate date) {
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+
+    // -- HELPERS ----
+
+    private Optional<Tuple2<LocalDate, LocalDate>> findRolledUpRange(DSLContext ctx, long statisticId) {
+        return ctx
+                .select(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_FROM,
+                        ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_UNTIL)
+                .from(ENTITY_STATISTIC_ROLLUP_EXTENT)
+                .where(ENTITY_STATISTIC_ROLLUP_EXTENT.STATISTIC_ID.eq(statisticId))
+                .fetchOptional()
+                .map(r -> tuple(r.value1().toLocalDate(), r.value2().toLocalDate()));
+    }
+
+
+    private void saveRolledUpRange(DSLContext tx,
+                                   long statisticId,
+                                   LocalDate rolledUpFrom,
+                                   LocalDate rolledUpUntil) {
+        int updated = tx
+                .update(ENTITY_STATISTIC_ROLLUP_EXTENT)
+                .set(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_FROM, Date.valueOf(rolledUpFrom))
+                .set(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_UNTIL, Date.valueOf(rolledUpUntil))
+                .where(ENTITY_STATISTIC_ROLLUP_EXTENT.STATISTIC_ID.eq(statisticId))
+                .execute();
+
+        if (updated == 0) {
+            tx.insertInto(ENTITY_STATISTIC_ROLLUP_EXTENT)
+                    .set(ENTITY_STATISTIC_ROLLUP_EXTENT.STATISTIC_ID, statisticId)
+                    .set(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_FROM, Date.valueOf(rolledUpFrom))
+                    .set(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_UNTIL, Date.valueOf(rolledUpUntil))
+                    .execute();
+        }
+    }
+
+
+    private int refreshDays(DSLContext tx,
+                            long statisticId,
+                            boolean numeric,
+                            LocalDate from,
+                            LocalDate to) {
+        tx.deleteFrom(ENTITY_STATISTIC_ROLLUP)
+                .where(ENTITY_STATISTIC_ROLLUP.STATISTIC_ID.eq(statisticId))
+                .and(ENTITY_STATISTIC_ROLLUP.BUCKET_KIND.eq(BucketKind.DAY.name()))
+                .and(ENTITY_STATISTIC_ROLLUP.BUCKET_START.between(Date.valueOf(from), Date.valueOf(to)))
+                .execute();
+
+        Field<BigDecimal> valueSum = numeric
+                ? esvNumericValueSum
+                : DSL.castNull(SQLDataType.DECIMAL(38, 12));
+
+        return tx
+                .insertInto(ENTITY_STATISTIC_ROLLUP)
+                .columns(ENTITY_STATISTIC_ROLLUP.STATISTIC_ID,
+                        ENTITY_STATISTIC_ROLLUP.ORG_UNIT_ID,
+                        ENTITY_STATISTIC_ROLLUP.BUCKET_KIND,
+                        ENTITY_STATISTIC_ROLLUP.BUCKET_START,
+                        ENTITY_STATISTIC_ROLLUP.OUTCOME,
+                        ENTITY_STATISTIC_ROLLUP.ENTITY_COUNT,
+                        ENTITY_STATISTIC_ROLLUP.VALUE_COUNT,
+                        ENTITY_STATISTIC_ROLLUP.VALUE_SUM)
+                .select(DSL
+                        .select(esv.STATISTIC_ID,
+                                app.ORGANISATIONAL_UNIT_ID,
+                                DSL.val(BucketKind.DAY.name()),
+                                esvCreatedAtDate,
+                                esv.OUTCOME,
+                                DSL.count(),
+                                DSL.count(esv.VALUE),
+                                valueSum)
+                        .from(esv)
+                        .innerJoin(app)
+                        .on(app.ID.eq(esv.ENTITY_ID))
+                        .where(esv.STATISTIC_ID.eq(statisticId))
+                        .and(esv.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
+                        .and(esv.CREATED_AT.ge(Timestamp.valueOf(from.atStartOfDay())))
+                        .and(esv.CREATED_AT.lt(Timestamp.valueOf(to.plusDays(1).atStartOfDay())))
+                        .and(app.ENTITY_LIFECYCLE_STATUS.eq(EntityLifecycleStatus.ACTIVE.name()))
+                        .groupBy(esv.STATISTIC_ID,
+                                app.ORGANISATIONAL_UNIT_ID,
+                                esvCreatedAtDate,
+                                esv.OUTCOME))
+                .execute();
+    }
+
+
+    private int refreshWeek(DSLContext tx,
+                            long statisticId,
+                            LocalDate weekStart) {
+        Condition inWeek = ENTITY_STATISTIC_ROLLUP.STATISTIC_ID.eq(statisticId)
+                .and(ENTITY_STATISTIC_ROLLUP.BUCKET_START.between(
+                        Date.valueOf(weekStart),
+                        Date.valueOf(weekStart.plusDays(6))));
+
+        tx.deleteFrom(ENTITY_STATISTIC_ROLLUP)
+                .where(inWeek)
+                .and(ENTITY_STATISTIC_ROLLUP.BUCKET_KIND.eq(BucketKind.WEEK.name()))
+                .execute();
+
+        Optional<Date> lastDay = Optional.ofNullable(tx
+                .select(DSL.max(ENTITY_STATISTIC_ROLLUP.BUCKET_START))
+                .from(ENTITY_STATISTIC_ROLLUP)
+                .where(inWeek)
+                .and(ENTITY_STATISTIC_ROLLUP.BUCKET_KIND.eq(BucketKind.DAY.name()))
+                .fetchOne()
+                .value1());
+
+        return lastDay
+                .map(day -> tx
+                        .insertInto(ENTITY_STATISTIC_ROLLUP)
+                        .columns(ENTITY_STATISTIC_ROLLUP.STATISTIC_ID,
+                                ENTITY_STATISTIC_ROLLUP.ORG_UNIT_ID,
+                                ENTITY_STATISTIC_ROLLUP.BUCKET_KIND,
+                                ENTITY_STATISTIC_ROLLUP.BUCKET_START,
+                                ENTITY_STATISTIC_ROLLUP.OUTCOME,
+                                ENTITY_STATISTIC_ROLLUP.ENTITY_COUNT,
+                                ENTITY_STATISTIC_ROLLUP.VALUE_COUNT,
+                                ENTITY_STATISTIC_ROLLUP.VALUE_SUM)
+                        .select(DSL
+                                .select(esr.STATISTIC_ID,
+                                        esr.ORG_UNIT_ID,
+                                        DSL.val(BucketKind.WEEK.name()),
+                                        DSL.val(Date.valueOf(weekStart)),
+                                        esr.OUTCOME,
+                                        esr.ENTITY_COUNT,
+                                        esr.VALUE_COUNT,
+                                        esr.VALUE_SUM)
+                                .from(esr)
+                                .where(esr.STATISTIC_ID.eq(statisticId))
+                                .and(esr.BUCKET_KIND.eq(BucketKind.DAY.name()))
+                                .and(esr.BUCKET_START.eq(day)))
+                        .execute())
+                .orElse(0);
+    }
+
+
+    private boolean isNumeric(DSLContext tx, long statisticId) {
+        return tx.fetchExists(DSL
+                .selectOne()
+                .from(ENTITY_STATISTIC_DEFINITION)
+                .where(ENTITY_STATISTIC_DEFINITION.ID.eq(statisticId))
+                .and(ENTITY_STATISTIC_DEFINITION.ROLLUP_KIND.in(
+                        RollupKind.SUM_BY_VALUE.name(),
+                        RollupKind.AVG_BY_VALUE.name())));
+    }
+
+
+    private static double toCount(Record5<Date, String, BigDecimal, BigDecimal, BigDecimal> r,
+                                  RollupKind rollupKind) {
+        switch (rollupKind) {
+            case COUNT_BY_ENTITY:
+                return r.get(entityCountSum).doubleValue();
+            case SUM_BY_VALUE:
+                return toDouble(r.get(valueSumSum));
+            case AVG_BY_VALUE:
+                BigDecimal valueCount = r.get(valueCountSum);
+                return valueCount == null || valueCount.signum() == 0
+                        ? 0
+                        : toDouble(r.get(valueSumSum)) / valueCount.doubleValue();
+            default:
+                throw new UnsupportedOperationException(String.format("Rollup kind [%s] not supported.", rollupKind));
+        }
+    }
+
+
+    private static double toDouble(BigDecimal value) {
+        return value == null
+                ? 0
+                : value.doubleValue();
+    }
+
+
+    private static Condition mkDurationCondition(Duration duration, BucketKind bucketKind) {
+        if (duration == Duration.ALL) {
+            return DSL.trueCondition();
+        }
+
+        LocalDate cutoff = today().minusDays(duration.numDays());
+        return bucketKind == BucketKind.WEEK
+                ? esr.BUCKET_START.ge(Date.valueOf(toWeekStart(cutoff.plusDays(1))))
+                : esr.BUCKET_START.gt(Date.valueOf(cutoff));
+    }
+}
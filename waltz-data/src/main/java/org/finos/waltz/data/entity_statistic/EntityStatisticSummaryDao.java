@@ -18,7 +18,6 @@
 
 package org.finos.waltz.data.entity_statistic;
 
-import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.model.Duration;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -29,7 +28,6 @@ import org.finos.waltz.model.tally.TallyPack;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.jooq.impl.SQLDataType;
-import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
@@ -37,11 +35,14 @@ import org.springframework.stereotype.Repository;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.concurrent.Future;
+import java.util.Map;
 import java.util.function.Function;
 
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
@@ -51,6 +52,7 @@ import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.jooq.impl.DSL.*;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class EntityStatisticSummaryDao {
@@ -71,15 +73,12 @@ public class EntityStatisticSummaryDao {
     private static final Field<java.sql.Date> esvCreatedAtDateOnly = castDateField.as("esv_created_at_date_only");
 
     private final DSLContext dsl;
-    private final DBExecutorPoolInterface dbExecutorPool;
 
 
     @Autowired
-    public EntityStatisticSummaryDao(DSLContext dsl, DBExecutorPoolInterface dbExecutorPool) {
+    public EntityStatisticSummaryDao(DSLContext dsl) {
         checkNotNull(dsl, "dsl cannot be null");
-        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         this.dsl = dsl;
-        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -96,7 +95,20 @@ public class EntityStatisticSummaryDao {
     public List<TallyPack<String>> generateHistoricWithAvgByValue(Long statisticId,
                                                                   Select<Record1<Long>> appIdSelector,
                                                                   Duration duration) {
-        return generateHistoricSummary(statisticId, appIdSelector, avgTotal, toBigDecimalTally, duration);
+        return generateHistoricSummary(statisticId, appIdSelector, avgTotal, toBigDecimalTally, duration, DSL.trueCondition());
+    }
+
+
+    /**
+     * As above, but excludes values created within the given (half open)
+     * date range, i.e. days which have already been rolled up.
+     */
+    public List<TallyPack<String>> generateHistoricWithAvgByValue(Long statisticId,
+                                                                  Select<Record1<Long>> appIdSelector,
+                                                                  Duration duration,
+                                                                  LocalDate excludedFrom,
+                                                                  LocalDate excludedUntil) {
+        return generateHistoricSummary(statisticId, appIdSelector, avgTotal, toBigDecimalTally, duration, mkExcludedRangeCondition(excludedFrom, excludedUntil));
     }
 
 
@@ -113,7 +125,20 @@ public class EntityStatisticSummaryDao {
     public List<TallyPack<String>> generateHistoricWithSumByValue(Long statisticId,
                                                                   Select<Record1<Long>> appIdSelector,
                                                                   Duration duration) {
-        return generateHistoricSummary(statisticId, appIdSelector, sumTotal, toBigDecimalTally, duration);
+        return generateHistoricSummary(statisticId, appIdSelector, sumTotal, toBigDecimalTally, duration, DSL.trueCondition());
+    }
+
+
+    /**
+     * As above, but excludes values created within the given (half open)
+     * date range, i.e. days which have already been rolled up.
+     */
+    public List<TallyPack<String>> generateHistoricWithSumByValue(Long statisticId,
+                                                                  Select<Record1<Long>> appIdSelector,
+                                                                  Duration duration,
+                                                                  LocalDate excludedFrom,
+                                                                  LocalDate excludedUntil) {
+        return generateHistoricSummary(statisticId, appIdSelector, sumTotal, toBigDecimalTally, duration, mkExcludedRangeCondition(excludedFrom, excludedUntil));
     }
 
 
@@ -130,7 +155,20 @@ public class EntityStatisticSummaryDao {
     public List<TallyPack<String>> generateHistoricWithCountByEntity(Long statisticId,
                                                                      Select<Record1<Long>> appIdSelector,
                                                                      Duration duration) {
-        return generateHistoricSummary(statisticId, appIdSelector, countTotal, toIntegerTally, duration);
+        return generateHistoricSummary(statisticId, appIdSelector, countTotal, toIntegerTally, duration, DSL.trueCondition());
+    }
+
+
+    /**
+     * As above, but excludes values created within the given (half open)
+     * date range, i.e. days which have already been rolled up.
+     */
+    public List<TallyPack<String>> generateHistoricWithCountByEntity(Long statisticId,
+                                                                     Select<Record1<Long>> appIdSelector,
+                                                                     Duration duration,
+                                                                     LocalDate excludedFrom,
+                                                                     LocalDate excludedUntil) {
+        return generateHistoricSummary(statisticId, appIdSelector, countTotal, toIntegerTally, duration, mkExcludedRangeCondition(excludedFrom, excludedUntil));
     }
 
 
@@ -144,47 +182,26 @@ public class EntityStatisticSummaryDao {
             return Collections.emptyList();
         }
 
-        List<Future<TallyPack<String>>> summaryFutures = statisticIds.stream()
-                .map(statId -> dbExecutorPool.submit(() ->
-                        generateWithNoRollup(statId, entityReference)))
-                .collect(toList());
-
-        return summaryFutures.stream()
-                .map(f -> Unchecked.supplier(f::get)
-                        .get())
-                .collect(toList());
-    }
-
-
-    public TallyPack<String> generateWithNoRollup(Long statisticId, EntityReference entityReference) {
         Condition condition = mkNoRollupCondition(
-                newArrayList(statisticId),
+                statisticIds,
                 entityReference,
                 esv.CURRENT.eq(true));
 
-        Result<Record4<Long, String, String, Timestamp>> values = dsl
+        SelectSeekStep1<Record4<Long, String, String, Timestamp>, Long> query = dsl
                 .select(esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE, max(esv.CREATED_AT).as(maxCreatedAtField))
                 .from(esv)
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
-                .fetch();
+                .orderBy(esv.STATISTIC_ID);
 
-        LocalDateTime maxCreatedAt = values.isNotEmpty()
-                                    ? values.get(0).getValue(maxCreatedAtField).toLocalDateTime()
-                                    : nowUtc();
+        try (Cursor<Record4<Long, String, String, Timestamp>> cursor = query.fetchLazy()) {
+            return toTallyPacks(statisticIds, cursor, Double::parseDouble);
+        }
+    }
 
-        List<Tally<String>> tallies = values.stream()
-                .map(r -> ImmutableTally.<String>builder()
-                        .count(Double.parseDouble(r.getValue(esv.VALUE)))
-                        .id(r.getValue(esv.OUTCOME))
-                        .build())
-                .collect(toList());
 
-        return ImmutableTallyPack.<String>builder()
-                .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
-                .tallies(tallies)
-                .lastUpdatedAt(maxCreatedAt)
-                .build();
+    public TallyPack<String> generateWithNoRollup(Long statisticId, EntityReference entityReference) {
+        return generateWithNoRollup(newArrayList(statisticId), entityReference).get(0);
     }
 
 
@@ -204,8 +221,8 @@ public class EntityStatisticSummaryDao {
         Result<Record4<java.sql.Date, Long, String, String>> values = dsl
                 .select(esvCreatedAtDateOnly, esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
                 .from(esv)
-                .where(dsl.renderInlined(condition))
-                .and(dsl.renderInlined(mkHistoryDurationCondition(duration)))
+                .where(maybeInline(dsl, condition))
+                .and(maybeInline(dsl, mkHistoryDurationCondition(duration)))
                 .groupBy(castDateField, esv.STATISTIC_ID, esv.OUTCOME, esv.VALUE)
                 .orderBy(esvCreatedAtDateOnly.asc())
                 .fetch();
@@ -235,39 +252,14 @@ public class EntityStatisticSummaryDao {
                                                   Select<Record1<Long>> appIdSelector,
                                                   Field<T> aggregateField,
                                                   Function<T, Double> toTally) {
-
-        Condition condition = mkSummaryCondition(
-                newArrayList(statisticId),
-                appIdSelector,
-                esv.CURRENT.eq(true));
-
-        Result<Record3<String, T, Timestamp>> values = dsl
-                .select(esv.OUTCOME, aggregateField, max(esv.CREATED_AT).as(maxCreatedAtField))
-                .from(esv)
-                .where(dsl.renderInlined(condition))
-                .groupBy(esv.OUTCOME)
-                .fetch();
-
-        LocalDateTime maxCreatedAt = values.isNotEmpty()
-                                        ? values.get(0).getValue(maxCreatedAtField).toLocalDateTime()
-                                        : nowUtc();
-
-        List<Tally<String>> tallies = values
-                .stream()
-                .map(r -> ImmutableTally.<String>builder()
-                        .count(toTally.apply(r.getValue(aggregateField)))
-                        .id(r.getValue(esv.OUTCOME))
-                        .build())
-                .collect(toList());
-
-        return ImmutableTallyPack.<String>builder()
-                .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
-                .tallies(tallies)
-                .lastUpdatedAt(maxCreatedAt)
-                .build();
+        return generateSummaries(newArrayList(statisticId), appIdSelector, aggregateField, toTally).get(0);
     }
 
 
+    /**
+     * Aggregates all the given statistics in a single query, grouped by statistic and outcome.
+     * The (statistic ordered) rows are streamed and split into one tally pack per statistic.
+     */
     private <T> List<TallyPack<String>> generateSummaries(Collection<Long> statisticIds,
                                                           Select<Record1<Long>> appIdSelector,
                                                           Field<T> aggregateField,
@@ -282,15 +274,21 @@ public class EntityStatisticSummaryDao {
             return Collections.emptyList();
         }
 
-        List<Future<TallyPack<String>>> summaryFutures = statisticIds.stream()
-                .map(statId -> dbExecutorPool.submit(() ->
-                        generateSummary(statId, appIdSelector, aggregateField, toTally)))
-                .collect(toList());
+        Condition condition = mkSummaryCondition(
+                statisticIds,
+                appIdSelector,
+                esv.CURRENT.eq(true));
 
-        return summaryFutures.stream()
-                .map(f -> Unchecked.supplier(f::get)
-                        .get())
-                .collect(toList());
+        SelectSeekStep1<Record4<Long, String, T, Timestamp>, Long> query = dsl
+                .select(esv.STATISTIC_ID, esv.OUTCOME, aggregateField, max(esv.CREATED_AT).as(maxCreatedAtField))
+                .from(esv)
+                .where(maybeInline(dsl, condition))
+                .groupBy(esv.STATISTIC_ID, esv.OUTCOME)
+                .orderBy(esv.STATISTIC_ID);
+
+        try (Cursor<Record4<Long, String, T, Timestamp>> cursor = query.fetchLazy()) {
+            return toTallyPacks(statisticIds, cursor, toTally);
+        }
     }
 
 
@@ -298,7 +296,8 @@ public class EntityStatisticSummaryDao {
                                                                 Select<Record1<Long>> appIdSelector,
                                                                 Field<T> aggregateField,
                                                                 Function<T, Double> toTally,
-                                                                Duration duration) {
+                                                                Duration duration,
+                                                                Condition createdAtCondition) {
 
         checkNotNull(statisticId, "statisticId cannot be null");
         checkNotNull(appIdSelector, "appIdSelector cannot be null");
@@ -314,8 +313,9 @@ public class EntityStatisticSummaryDao {
         Result<Record3<Date, String, T>> values = dsl
                 .select(esvCreatedAtDateOnly, esv.OUTCOME, aggregateField)
                 .from(esv)
-                .where(dsl.renderInlined(condition))
-                .and(dsl.renderInlined(mkHistoryDurationCondition(duration)))
+                .where(maybeInline(dsl, condition))
+                .and(maybeInline(dsl, mkHistoryDurationCondition(duration)))
+                .and(maybeInline(dsl, createdAtCondition))
                 .groupBy(castDateField, esv.OUTCOME)
                 .orderBy(esvCreatedAtDateOnly.asc())
                 .fetch();
@@ -341,6 +341,75 @@ public class EntityStatisticSummaryDao {
     }
 
 
+    /**
+     * Splits rows of `(statistic id, outcome, value, max created at)`, ordered by
+     * statistic id, into a tally pack per statistic.  Packs are returned in the
+     * order of the requested statistic ids, statistics without any values are
+     * given an empty pack.
+     */
+    private static <T> List<TallyPack<String>> toTallyPacks(Collection<Long> statisticIds,
+                                                            Cursor<Record4<Long, String, T, Timestamp>> cursor,
+                                                            Function<T, Double> toTally) {
+        Map<Long, TallyPack<String>> packsByStatisticId = new HashMap<>(statisticIds.size());
+
+        Long currentStatisticId = null;
+        List<Tally<String>> currentTallies = new ArrayList<>();
+        Timestamp currentMaxCreatedAt = null;
+
+        for (Record4<Long, String, T, Timestamp> r : cursor) {
+            Long statisticId = r.value1();
+            if (!statisticId.equals(currentStatisticId)) {
+                if (currentStatisticId != null) {
+                    packsByStatisticId.put(
+                            currentStatisticId,
+                            mkTallyPack(currentStatisticId, currentTallies, currentMaxCreatedAt));
+                }
+                currentStatisticId = statisticId;
+                currentTallies = new ArrayList<>();
+                currentMaxCreatedAt = null;
+            }
+
+            currentTallies.add(ImmutableTally.<String>builder()
+                    .count(toTally.apply(r.value3()))
+                    .id(r.value2())
+                    .build());
+
+            Timestamp createdAt = r.value4();
+            if (currentMaxCreatedAt == null || (createdAt != null && createdAt.after(currentMaxCreatedAt))) {
+                currentMaxCreatedAt = createdAt;
+            }
+        }
+
+        if (currentStatisticId != null) {
+            packsByStatisticId.put(
+                    currentStatisticId,
+                    mkTallyPack(currentStatisticId, currentTallies, currentMaxCreatedAt));
+        }
+
+        return statisticIds
+                .stream()
+                .map(statId -> packsByStatisticId.computeIfAbsent(
+                        statId,
+                        id -> mkTallyPack(id, Collections.emptyList(), null)))
+                .collect(toList());
+    }
+
+
+    private static TallyPack<String> mkTallyPack(Long statisticId,
+                                                 List<Tally<String>> tallies,
+                                                 Timestamp maxCreatedAt) {
+        LocalDateTime lastUpdatedAt = maxCreatedAt != null
+                ? maxCreatedAt.toLocalDateTime()
+                : nowUtc();
+
+        return ImmutableTallyPack.<String>builder()
+                .entityReference(EntityReference.mkRef(EntityKind.ENTITY_STATISTIC, statisticId))
+                .tallies(tallies)
+                .lastUpdatedAt(lastUpdatedAt)
+                .build();
+    }
+
+
     private Condition mkSummaryCondition(Collection<Long> statisticIds,
                                          Select<Record1<Long>> appIdSelector,
                                          Condition additionalCondition) {
@@ -362,6 +431,15 @@ public class EntityStatisticSummaryDao {
     }
 
 
+    private Condition mkExcludedRangeCondition(LocalDate excludedFrom, LocalDate excludedUntil) {
+        checkNotNull(excludedFrom, "excludedFrom cannot be null");
+        checkNotNull(excludedUntil, "excludedUntil cannot be null");
+
+        return esv.CREATED_AT.lt(Timestamp.valueOf(excludedFrom.atStartOfDay()))
+                .or(esv.CREATED_AT.ge(Timestamp.valueOf(excludedUntil.atStartOfDay())));
+    }
+
+
     private Condition mkHistoryDurationCondition(Duration duration) {
         if (duration == Duration.ALL) {
             return DSL.trueCondition();
@@ -37,6 +37,7 @@ import java.util.stream.Collectors;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class EntityStatisticValueDao {
@@ -77,9 +78,14 @@ public class EntityStatisticValueDao {
 
 
     public int[] bulkSaveValues(List<EntityStatisticValue> values) {
-        return dsl
+        return bulkSaveValues(dsl, values);
+    }
+
+
+    public int[] bulkSaveValues(DSLContext tx, List<EntityStatisticValue> values) {
+        return tx
                 .batch(values.stream()
-                        .map(s -> dsl
+                        .map(s -> tx
                                 .insertInto(
                                         ENTITY_STATISTIC_VALUE,
                                         ENTITY_STATISTIC_VALUE.STATISTIC_ID,
@@ -121,7 +127,7 @@ public class EntityStatisticValueDao {
                 .from(esv)
                 .join(app)
                 .on(esv.ENTITY_ID.eq(app.ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetch(TO_VALUE_MAPPER);
 
         return fetch;
@@ -138,7 +144,7 @@ public class EntityStatisticValueDao {
                 .from(app)
                 .join(esv)
                 .on(esv.ENTITY_ID.eq(app.ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetch(ApplicationDao.TO_DOMAIN_MAPPER);
     }
 
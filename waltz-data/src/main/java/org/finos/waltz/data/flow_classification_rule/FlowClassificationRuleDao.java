@@ -54,6 +54,7 @@ import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -285,7 +286,7 @@ public class FlowClassificationRuleDao {
                 .and(ENTITY_HIERARCHY.KIND.eq(EntityKind.DATA_TYPE.name()))
                 .innerJoin(org.finos.waltz.schema.tables.DataType.DATA_TYPE).on(ENTITY_HIERARCHY.ANCESTOR_ID.eq(org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID))
                 .innerJoin(FLOW_CLASSIFICATION).on(LOGICAL_FLOW_DECORATOR.RATING.eq(FLOW_CLASSIFICATION.CODE))
-                .where(dsl.renderInlined(org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID.eq(rule.dataTypeId())
+                .where(maybeInline(dsl, org.finos.waltz.schema.tables.DataType.DATA_TYPE.ID.eq(rule.dataTypeId())
                         .and(LOGICAL_FLOW.SOURCE_ENTITY_ID.eq(rule.applicationReference().id())
                                 .and(LOGICAL_FLOW.SOURCE_ENTITY_KIND.eq(EntityKind.APPLICATION.name())
                                         .and(LOGICAL_FLOW.TARGET_ENTITY_KIND.eq(rule.parentReference().kind().name())
@@ -302,29 +303,54 @@ public class FlowClassificationRuleDao {
 
 
     public List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(Set<Long> orgIds) {
-        SelectSeekStep3<Record7<Long, Integer, Long, Integer, Long, String, Long>, Integer, Integer, Long> select = dsl
-                .select(targetOrgUnitId,
-                        declaredOrgUnitLevel,
+        return findExpandedFlowClassificationRuleVantagePoints(ehOrgUnit.ID.in(orgIds));
+    }
+
+
+    /**
+     * Expands all org unit scoped rules to every org unit and data type they apply to.
+     *
+     * @return vantage points for every (org unit, data type) covered by a rule
+     */
+    public List<FlowClassificationRuleVantagePoint> findAllExpandedFlowClassificationRuleVantagePoints() {
+        return findExpandedFlowClassificationRuleVantagePoints(
+                FLOW_CLASSIFICATION_RULE.PARENT_KIND.eq(EntityKind.ORG_UNIT.name()));
+    }
+
+
+    /**
+     * Expands all point-to-point rules (where the parent is an application or
+     * actor) to every data type they apply to.  The vantage point of each
+     * result is the parent of the rule, i.e. the target of the flow.
+     *
+     * @return vantage points for every (flow target, data type) covered by a point-to-point rule
+     */
+    public List<FlowClassificationRuleVantagePoint> findExpandedPointToPointFlowClassificationRuleVantagePoints() {
+        return dsl
+                .select(FLOW_CLASSIFICATION_RULE.PARENT_KIND,
+                        FLOW_CLASSIFICATION_RULE.PARENT_ID,
                         declaredDataTypeId,
                         declaredDataTypeLevel,
                         FLOW_CLASSIFICATION_RULE.APPLICATION_ID,
                         FLOW_CLASSIFICATION.CODE,
                         FLOW_CLASSIFICATION_RULE.ID)
-                .from(ehOrgUnit)
-                .innerJoin(FLOW_CLASSIFICATION_RULE)
-                    .on(ehOrgUnit.ANCESTOR_ID.eq(FLOW_CLASSIFICATION_RULE.PARENT_ID).and(ehOrgUnit.KIND.eq(EntityKind.ORG_UNIT.name())))
-                .innerJoin(declaredDataType)
-                    .on(declaredDataType.ID.eq(FLOW_CLASSIFICATION_RULE.DATA_TYPE_ID))
+                .from(FLOW_CLASSIFICATION_RULE)
                 .innerJoin(ehDataType)
-                    .on(ehDataType.ANCESTOR_ID.eq(declaredDataType.ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
-                .innerJoin(impliedDataType)
-                    .on(impliedDataType.ID.eq(ehDataType.ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
+                    .on(ehDataType.ANCESTOR_ID.eq(FLOW_CLASSIFICATION_RULE.DATA_TYPE_ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
                 .innerJoin(FLOW_CLASSIFICATION).on(FLOW_CLASSIFICATION_RULE.FLOW_CLASSIFICATION_ID.eq(FLOW_CLASSIFICATION.ID))
-                .where(ehOrgUnit.ID.in(orgIds))
-                .orderBy(ehOrgUnit.LEVEL.desc(), ehDataType.LEVEL.desc(), ehOrgUnit.ID);
-
-        return select
-                .fetch(TO_VANTAGE_MAPPER);
+                .where(FLOW_CLASSIFICATION_RULE.PARENT_KIND.ne(EntityKind.ORG_UNIT.name()))
+                .fetch(r -> ImmutableFlowClassificationRuleVantagePoint
+                        .builder()
+                        .vantagePoint(mkRef(
+                                EntityKind.valueOf(r.get(FLOW_CLASSIFICATION_RULE.PARENT_KIND)),
+                                r.get(FLOW_CLASSIFICATION_RULE.PARENT_ID)))
+                        .vantagePointRank(0)
+                        .applicationId(r.get(FLOW_CLASSIFICATION_RULE.APPLICATION_ID))
+                        .classificationCode(r.get(FLOW_CLASSIFICATION.CODE))
+                        .dataType(mkRef(EntityKind.DATA_TYPE, r.get(declaredDataTypeId)))
+                        .dataTypeRank(r.get(declaredDataTypeLevel))
+                        .ruleId(r.get(FLOW_CLASSIFICATION_RULE.ID))
+                        .build());
     }
 
 
@@ -470,6 +496,33 @@ public class FlowClassificationRuleDao {
 
     // -- HELPERS --
 
+    private List<FlowClassificationRuleVantagePoint> findExpandedFlowClassificationRuleVantagePoints(Condition condition) {
+        SelectSeekStep3<Record7<Long, Integer, Long, Integer, Long, String, Long>, Integer, Integer, Long> select = dsl
+                .select(targetOrgUnitId,
+                        declaredOrgUnitLevel,
+                        declaredDataTypeId,
+                        declaredDataTypeLevel,
+                        FLOW_CLASSIFICATION_RULE.APPLICATION_ID,
+                        FLOW_CLASSIFICATION.CODE,
+                        FLOW_CLASSIFICATION_RULE.ID)
+                .from(ehOrgUnit)
+                .innerJoin(FLOW_CLASSIFICATION_RULE)
+                    .on(ehOrgUnit.ANCESTOR_ID.eq(FLOW_CLASSIFICATION_RULE.PARENT_ID).and(ehOrgUnit.KIND.eq(EntityKind.ORG_UNIT.name())))
+                .innerJoin(declaredDataType)
+                    .on(declaredDataType.ID.eq(FLOW_CLASSIFICATION_RULE.DATA_TYPE_ID))
+                .innerJoin(ehDataType)
+                    .on(ehDataType.ANCESTOR_ID.eq(declaredDataType.ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
+                .innerJoin(impliedDataType)
+                    .on(impliedDataType.ID.eq(ehDataType.ID).and(ehDataType.KIND.eq(EntityKind.DATA_TYPE.name())))
+                .innerJoin(FLOW_CLASSIFICATION).on(FLOW_CLASSIFICATION_RULE.FLOW_CLASSIFICATION_ID.eq(FLOW_CLASSIFICATION.ID))
+                .where(condition)
+                .orderBy(ehOrgUnit.LEVEL.desc(), ehDataType.LEVEL.desc(), ehOrgUnit.ID);
+
+        return select
+                .fetch(TO_VANTAGE_MAPPER);
+    }
+
+
     private SelectOnConditionStep<Record> baseSelect() {
         return dsl
                 .select(PARENT_NAME_FIELD)
@@ -194,7 +194,12 @@ public class FlowDiagramEntityDao {
      * @return count of removed entities
      */
     public int deleteForGenericEntitySelector(GenericSelector selector) {
-        return dsl
+        return deleteForGenericEntitySelector(dsl, selector);
+    }
+
+
+    public int deleteForGenericEntitySelector(DSLContext tx, GenericSelector selector) {
+        return tx
                 .deleteFrom(FLOW_DIAGRAM_ENTITY)
                 .where(FLOW_DIAGRAM_ENTITY.ENTITY_KIND.eq(selector.kind().name()))
                 .and(FLOW_DIAGRAM_ENTITY.ENTITY_ID.in(selector.selector()))
@@ -277,7 +277,12 @@ public class InvolvementDao {
      * @return count of removed involvements
      */
     public int deleteByGenericEntitySelector(GenericSelector genericSelector) {
-        return dsl
+        return deleteByGenericEntitySelector(dsl, genericSelector);
+    }
+
+
+    public int deleteByGenericEntitySelector(DSLContext tx, GenericSelector genericSelector) {
+        return tx
                 .deleteFrom(INVOLVEMENT)
                 .where(INVOLVEMENT.ENTITY_KIND.eq(genericSelector.kind().name()))
                 .and(INVOLVEMENT.ENTITY_ID.in(genericSelector.selector()))
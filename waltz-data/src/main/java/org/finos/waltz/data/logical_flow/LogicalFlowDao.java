@@ -35,6 +35,7 @@ import java.sql.Timestamp;
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.schema.Tables.PHYSICAL_SPECIFICATION;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
@@ -53,6 +54,8 @@ import static org.finos.waltz.data.application.ApplicationDao.IS_ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.ACTIVE;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.STREAM_FETCH_SIZE;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -323,11 +326,27 @@ public class LogicalFlowDao {
 
     public List<LogicalFlow> findBySelector(Select<Record1<Long>> flowIdSelector) {
         return baseQuery()
-                .where(dsl.renderInlined(LOGICAL_FLOW.ID.in(flowIdSelector)))
+                .where(maybeInline(dsl, LOGICAL_FLOW.ID.in(flowIdSelector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
 
+    /**
+     * Lazy variant of {@link #findBySelector(Select)}, flows are read from an
+     * open cursor as the stream is consumed.  The stream must be closed.
+     *
+     * @param flowIdSelector  selector giving the ids of the flows to return
+     * @return stream of flows, backed by an open cursor
+     */
+    public Stream<LogicalFlow> streamBySelector(Select<Record1<Long>> flowIdSelector) {
+        return baseQuery()
+                .where(maybeInline(dsl, LOGICAL_FLOW.ID.in(flowIdSelector)))
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
     public Integer cleanupOrphans() {
         Select<Record1<Long>> appIds = DSL
                 .select(APPLICATION.ID)
@@ -57,6 +57,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.FlowDirection.INBOUND;
 import static org.finos.waltz.model.FlowDirection.OUTBOUND;
 import static org.jooq.impl.DSL.*;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -108,7 +109,7 @@ public class LogicalFlowStatsDao {
         Select<Record1<Integer>> intraAppCounter = dsl
                     .select(count())
                     .from(APPLICATION)
-                    .where(dsl.renderInlined(APPLICATION.ID.in(appIdSelector)));
+                    .where(maybeInline(dsl, APPLICATION.ID.in(appIdSelector)));
 
         Future<Integer> inAppCount = dbExecutorPool.submit(() -> inAppCounter.fetchOne().value1());
         Future<Integer> outAppCount = dbExecutorPool.submit(() -> outAppCounter.fetchOne().value1());
@@ -158,7 +159,7 @@ public class LogicalFlowStatsDao {
                     .on(sourceAppId.eq(lf.SOURCE_ENTITY_ID))
                 .leftJoin(targetApp)
                     .on(targetAppId.eq(lf.TARGET_ENTITY_ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(lfd.DECORATOR_ENTITY_ID, flowTypeCase)
                 .fetchGroups(
                         r -> mkRef(EntityKind.DATA_TYPE, r.getValue(lfd.DECORATOR_ENTITY_ID)),
@@ -238,7 +239,7 @@ public class LogicalFlowStatsDao {
 
         return dsl.select(DSL.countDistinct(fieldToCount))
                 .from(lf)
-                .where(dsl.renderInlined(condition));
+                .where(maybeInline(dsl, condition));
 
     }
 
@@ -47,6 +47,7 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
 import static org.finos.waltz.data.JooqUtilities.TO_ENTITY_REFERENCE;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -110,13 +111,18 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
         return dsl
                 .select(MEASURABLE.fields())
                 .from(MEASURABLE)
-                .where(dsl.renderInlined(MEASURABLE.ID.in(selector)))
+                .where(maybeInline(dsl, MEASURABLE.ID.in(selector)))
                 .fetch(TO_DOMAIN_MAPPER);
     }
 
 
     public Measurable getById(long id) {
-        return dsl
+        return getById(dsl, id);
+    }
+
+
+    public Measurable getById(DSLContext tx, long id) {
+        return tx
                 .select(MEASURABLE.fields())
                 .from(MEASURABLE)
                 .where(MEASURABLE.ID.eq(id))
@@ -134,27 +140,47 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
 
 
     public boolean updateConcreteFlag(Long id, boolean newValue, String userId) {
-        return updateField(id, MEASURABLE.CONCRETE, newValue, userId);
+        return updateConcreteFlag(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateConcreteFlag(DSLContext tx, Long id, boolean newValue, String userId) {
+        return updateField(tx, id, MEASURABLE.CONCRETE, newValue, userId);
     }
 
 
     public boolean updateName(long id, String newValue, String userId) {
-        return updateField(id, MEASURABLE.NAME, newValue, userId);
+        return updateName(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateName(DSLContext tx, long id, String newValue, String userId) {
+        return updateField(tx, id, MEASURABLE.NAME, newValue, userId);
     }
 
 
     public boolean updateDescription(long id, String newValue, String userId) {
-        return updateField(id, MEASURABLE.DESCRIPTION, newValue, userId);
+        return updateDescription(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateDescription(DSLContext tx, long id, String newValue, String userId) {
+        return updateField(tx, id, MEASURABLE.DESCRIPTION, newValue, userId);
     }
 
 
     public boolean updateExternalId(long id, String newValue, String userId) {
-        return updateField(id, MEASURABLE.EXTERNAL_ID, newValue, userId);
+        return updateExternalId(dsl, id, newValue, userId);
     }
 
 
-    private <T> boolean updateField(long id, Field<T> field, T value, String userId) {
-        return dsl
+    public boolean updateExternalId(DSLContext tx, long id, String newValue, String userId) {
+        return updateField(tx, id, MEASURABLE.EXTERNAL_ID, newValue, userId);
+    }
+
+
+    private <T> boolean updateField(DSLContext tx, long id, Field<T> field, T value, String userId) {
+        return tx
                 .update(MEASURABLE)
                 .set(field, value)
                 .set(MEASURABLE.LAST_UPDATED_AT, DateTimeUtilities.nowUtcTimestamp())
@@ -165,7 +191,12 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
 
 
     public Long create(Measurable measurable) {
-        return dsl.insertInto(MEASURABLE)
+        return create(dsl, measurable);
+    }
+
+
+    public Long create(DSLContext tx, Measurable measurable) {
+        return tx.insertInto(MEASURABLE)
                 .set(MEASURABLE.MEASURABLE_CATEGORY_ID, measurable.categoryId())
                 .set(MEASURABLE.PARENT_ID, measurable.parentId().orElse(null))
                 .set(MEASURABLE.EXTERNAL_ID, measurable.externalId().orElse(null))
@@ -190,7 +221,12 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
      * @return count of removed measurables
      */
     public int deleteByIdSelector(Select<Record1<Long>> selector) {
-        return dsl
+        return deleteByIdSelector(dsl, selector);
+    }
+
+
+    public int deleteByIdSelector(DSLContext tx, Select<Record1<Long>> selector) {
+        return tx
                 .update(MEASURABLE)
                 .set(MEASURABLE.ENTITY_LIFECYCLE_STATUS, EntityLifecycleStatus.REMOVED.name())
                 .where(MEASURABLE.ID.in(selector))
@@ -199,6 +235,11 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
 
 
     public boolean updateParentId(Long measurableId, Long destinationId, String userId) {
+        return updateParentId(dsl, measurableId, destinationId, userId);
+    }
+
+
+    public boolean updateParentId(DSLContext tx, Long measurableId, Long destinationId, String userId) {
         LOG.info(
                 "Moving measurable: {} to {}",
                 measurableId,
@@ -213,7 +254,7 @@ public class MeasurableDao implements FindEntityReferencesByIdSelector {
                     .from(MEASURABLE)
                     .where(MEASURABLE.ID.eq(destinationId));
 
-        return dsl
+        return tx
                 .update(MEASURABLE)
                 .set(MEASURABLE.PARENT_ID, destinationId)
                 .set(MEASURABLE.EXTERNAL_PARENT_ID, destinationExtId)
@@ -22,6 +22,7 @@ package org.finos.waltz.data.measurable;
 import org.finos.waltz.schema.tables.MeasurableRating;
 import org.finos.waltz.data.IdSelectorFactory;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.entity_hierarchy.HierarchyClosureSelectors;
 import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityLifecycleStatus;
@@ -310,22 +311,28 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
                 selector = DSL.select(DSL.val(options.entityReference().id()));
                 break;
             case CHILDREN:
-                selector = DSL
-                        .select(ENTITY_HIERARCHY.ID)
-                        .from(ENTITY_HIERARCHY)
-                        .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ID))
-                        .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
-                        .and(isMeasurable)
-                        .and(mkLifecycleCondition(options));
+                selector = HierarchyClosureSelectors
+                        .mkDescendantsSelector(EntityKind.MEASURABLE, options.entityReference().id())
+                        .map(ids -> mkForMeasurableIds(ids, options))
+                        .orElseGet(() -> DSL
+                                .select(ENTITY_HIERARCHY.ID)
+                                .from(ENTITY_HIERARCHY)
+                                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ID))
+                                .where(ENTITY_HIERARCHY.ANCESTOR_ID.eq(options.entityReference().id()))
+                                .and(isMeasurable)
+                                .and(mkLifecycleCondition(options)));
                 break;
             case PARENTS:
-                selector = DSL
-                        .select(ENTITY_HIERARCHY.ANCESTOR_ID)
-                        .from(ENTITY_HIERARCHY)
-                        .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID))
-                        .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
-                        .and(isMeasurable)
-                        .and(mkLifecycleCondition(options));
+                selector = HierarchyClosureSelectors
+                        .mkAncestorsSelector(EntityKind.MEASURABLE, options.entityReference().id())
+                        .map(ids -> mkForMeasurableIds(ids, options))
+                        .orElseGet(() -> DSL
+                                .select(ENTITY_HIERARCHY.ANCESTOR_ID)
+                                .from(ENTITY_HIERARCHY)
+                                .innerJoin(MEASURABLE).on(MEASURABLE.ID.eq(ENTITY_HIERARCHY.ANCESTOR_ID))
+                                .where(ENTITY_HIERARCHY.ID.eq(options.entityReference().id()))
+                                .and(isMeasurable)
+                                .and(mkLifecycleCondition(options)));
                 break;
         }
 
@@ -333,6 +340,16 @@ public class MeasurableIdSelectorFactory implements IdSelectorFactory {
     }
 
 
+    private Select<Record1<Long>> mkForMeasurableIds(Select<Record1<Long>> measurableIds,
+                                                     IdSelectionOptions options) {
+        return DSL
+                .select(MEASURABLE.ID)
+                .from(MEASURABLE)
+                .where(MEASURABLE.ID.in(measurableIds))
+                .and(mkLifecycleCondition(options));
+    }
+
+
     private Condition mkLifecycleCondition(IdSelectionOptions options) {
         return MEASURABLE.ENTITY_LIFECYCLE_STATUS.in(options.entityLifecycleStatuses());
     }
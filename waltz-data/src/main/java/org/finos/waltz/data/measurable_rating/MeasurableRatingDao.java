@@ -41,6 +41,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.Measurable.MEASURABLE;
@@ -51,6 +52,8 @@ import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.StringUtilities.firstChar;
+import static org.finos.waltz.data.JooqUtilities.STREAM_FETCH_SIZE;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class MeasurableRatingDao {
@@ -212,20 +215,54 @@ public class MeasurableRatingDao {
 
 
     public Collection<MeasurableRating> findByApplicationIdSelector(Select<Record1<Long>> selector) {
+        return mkByApplicationIdSelectorQuery(selector)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    /**
+     * Lazy variant of {@link #findByApplicationIdSelector(Select)}, the stream
+     * is backed by an open cursor and must be closed.
+     */
+    public Stream<MeasurableRating> streamByApplicationIdSelector(Select<Record1<Long>> selector) {
+        return mkByApplicationIdSelectorQuery(selector)
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
+    public Collection<MeasurableRating> findByCategory(long id) {
+        return mkByCategoryQuery(id)
+                .fetch(TO_DOMAIN_MAPPER);
+    }
+
+
+    /**
+     * Lazy variant of {@link #findByCategory(long)}, the stream is backed by
+     * an open cursor and must be closed.
+     */
+    public Stream<MeasurableRating> streamByCategory(long id) {
+        return mkByCategoryQuery(id)
+                .fetchSize(STREAM_FETCH_SIZE)
+                .fetchStream()
+                .map(TO_DOMAIN_MAPPER::map);
+    }
+
+
+    private SelectConditionStep<Record> mkByApplicationIdSelectorQuery(Select<Record1<Long>> selector) {
         checkNotNull(selector, "selector cannot be null");
         Condition condition = MEASURABLE_RATING.ENTITY_ID.in(selector)
                 .and(MEASURABLE_RATING.ENTITY_KIND.eq(DSL.val(EntityKind.APPLICATION.name())));
         return mkBaseQuery()
-                .where(dsl.renderInlined(condition))
-                .fetch(TO_DOMAIN_MAPPER);
+                .where(maybeInline(dsl, condition));
     }
 
 
-    public Collection<MeasurableRating> findByCategory(long id) {
+    private SelectConditionStep<Record> mkByCategoryQuery(long id) {
         return mkBaseQuery()
                 .innerJoin(MEASURABLE).on(MEASURABLE_RATING.MEASURABLE_ID.eq(MEASURABLE.ID))
-                .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(id))
-                .fetch(TO_DOMAIN_MAPPER);
+                .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(id));
     }
 
 
@@ -251,7 +288,7 @@ public class MeasurableRatingDao {
     public List<MeasurableRatingTally> statsByAppSelector(Select<Record1<Long>> selector) {
         return dsl.select(MEASURABLE_RATING.MEASURABLE_ID, MEASURABLE_RATING.RATING, DSL.count())
                 .from(MEASURABLE_RATING)
-                .where(dsl.renderInlined(MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
+                .where(maybeInline(dsl, MEASURABLE_RATING.ENTITY_KIND.eq(EntityKind.APPLICATION.name())
                 .and(MEASURABLE_RATING.ENTITY_ID.in(selector))))
                 .groupBy(MEASURABLE_RATING.MEASURABLE_ID, MEASURABLE_RATING.RATING)
                 .fetch(TO_TALLY_MAPPER);
@@ -281,7 +318,12 @@ public class MeasurableRatingDao {
 
 
     public int deleteByMeasurableIdSelector(Select<Record1<Long>> selector) {
-        return dsl
+        return deleteByMeasurableIdSelector(dsl, selector);
+    }
+
+
+    public int deleteByMeasurableIdSelector(DSLContext tx, Select<Record1<Long>> selector) {
+        return tx
                 .deleteFrom(MEASURABLE_RATING)
                 .where(MEASURABLE_RATING.MEASURABLE_ID.in(selector))
                 .execute();
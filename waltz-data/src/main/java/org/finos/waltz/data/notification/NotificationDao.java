@@ -32,6 +32,7 @@ import java.util.List;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -87,8 +88,7 @@ public class NotificationDao {
         Select<Record2<String, Integer>> qry = attestationCount
                 .unionAll(surveyCount);
 
-        return dsl
-                .resultQuery(dsl.renderInlined(qry))
+        return maybeInline(dsl, qry)
                 .fetch(TO_DOMAIN_MAPPER);
     }
 }
@@ -43,6 +43,7 @@ import static org.finos.waltz.schema.tables.Person.PERSON;
 import static org.finos.waltz.schema.tables.PersonHierarchy.PERSON_HIERARCHY;
 import static org.finos.waltz.common.Checks.checkNotEmpty;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -127,7 +128,7 @@ public class PersonDao {
         checkNotEmpty(employeeId, "Cannot find directs without an employeeId");
         return dsl.select()
                 .from(PERSON)
-                .where(dsl.renderInlined(PERSON.MANAGER_EMPLOYEE_ID.eq(employeeId)))
+                .where(maybeInline(dsl, PERSON.MANAGER_EMPLOYEE_ID.eq(employeeId)))
                 .andNot(PERSON.IS_REMOVED)
                 .orderBy(PERSON.DISPLAY_NAME)
                 .fetch(personMapper);
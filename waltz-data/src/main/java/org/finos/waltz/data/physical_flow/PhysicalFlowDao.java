@@ -51,6 +51,7 @@ import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.logical_flow.LogicalFlowDao.LOGICAL_NOT_REMOVED;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
 import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -367,7 +368,7 @@ public class PhysicalFlowDao {
                 .on(PHYSICAL_SPECIFICATION.ID.eq(PHYSICAL_FLOW.SPECIFICATION_ID))
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(isSender))
+                .where(maybeInline(dsl, isSender))
                 .and(PHYSICAL_FLOW_NOT_REMOVED);
     }
 
@@ -382,7 +383,7 @@ public class PhysicalFlowDao {
                 .from(PHYSICAL_FLOW)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(matchesLogicalFlow))
+                .where(maybeInline(dsl, matchesLogicalFlow))
                 .and(PHYSICAL_FLOW_NOT_REMOVED);
     }
 
@@ -399,7 +400,7 @@ public class PhysicalFlowDao {
                 .from(PHYSICAL_FLOW)
                 .innerJoin(LOGICAL_FLOW)
                 .on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
-                .where(dsl.renderInlined(matchesLogicalFlow));
+                .where(maybeInline(dsl, matchesLogicalFlow));
     }
 
 
@@ -0,0 +1,695 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.physical_flow;
+
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.UserTimestamp;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.datatype.ImmutableDataTypeDecorator;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowBulkCreateResult;
+import org.finos.waltz.model.physical_flow.PhysicalFlowBulkCreateResult;
+import org.finos.waltz.model.physical_flow.PhysicalFlowParsed;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadPhase;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.schema.tables.records.LogicalFlowDecoratorRecord;
+import org.finos.waltz.schema.tables.records.LogicalFlowRecord;
+import org.finos.waltz.schema.tables.records.PhysicalFlowRecord;
+import org.finos.waltz.schema.tables.records.PhysicalSpecDataTypeRecord;
+import org.finos.waltz.schema.tables.records.PhysicalSpecificationRecord;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.lambda.tuple.Tuple;
+import org.jooq.lambda.tuple.Tuple2;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.ListUtilities.partition;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.data.physical_flow.PhysicalFlowDao.PHYSICAL_FLOW_NOT_REMOVED;
+import static org.finos.waltz.model.EntityLifecycleStatus.ACTIVE;
+import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
+import static org.finos.waltz.schema.tables.PhysicalFlow.PHYSICAL_FLOW;
+import static org.finos.waltz.schema.tables.PhysicalSpecDataType.PHYSICAL_SPEC_DATA_TYPE;
+import static org.finos.waltz.schema.tables.PhysicalSpecification.PHYSICAL_SPECIFICATION;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Set based lookups and inserts backing the bulk physical flow upload.
+ *
+ * Rather than resolving each uploaded row individually, existing logical
+ * flows, specifications and physical flows are fetched with a handful of
+ * queries (chunked by `CHUNK_SIZE` ids) and matched in memory.  Anything
+ * missing is then added with batched inserts, all within one transaction.
+ */
+@Repository
+public class PhysicalFlowUploadDao {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowUploadDao.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final String PROVENANCE = "waltz";
+
+    private final DSLContext dsl;
+    private final PhysicalSpecificationDao physicalSpecificationDao;
+
+
+    @Autowired
+    public PhysicalFlowUploadDao(DSLContext dsl,
+                                 PhysicalSpecificationDao physicalSpecificationDao) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
+        this.dsl = dsl;
+        this.physicalSpecificationDao = physicalSpecificationDao;
+    }
+
+
+    /**
+     * Finds existing (non removed) physical flows matching the parsed flows.  The
+     * matching criteria are the same as `PhysicalFlowDao.getByParsedFlow`.
+     *
+     * @param flows  fully resolved parsed flows
+     * @return physical flow id keyed by parsed flow, flows without a match are omitted
+     */
+    public Map<PhysicalFlowParsed, Long> findPhysicalFlowIds(Collection<PhysicalFlowParsed> flows) {
+        checkNotNull(flows, "flows cannot be null");
+
+        Map<Tuple, Long> idsByKey = new HashMap<>();
+
+        mkRefConditions(
+                LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                map(flows, f -> toKey(f.source())))
+            .forEach(sourceCondition -> dsl
+                    .select(PHYSICAL_FLOW.ID,
+                            LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                            LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                            LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                            LOGICAL_FLOW.TARGET_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND,
+                            PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID,
+                            PHYSICAL_SPECIFICATION.FORMAT,
+                            PHYSICAL_SPECIFICATION.NAME,
+                            PHYSICAL_FLOW.BASIS_OFFSET,
+                            PHYSICAL_FLOW.FREQUENCY,
+                            PHYSICAL_FLOW.TRANSPORT,
+                            PHYSICAL_FLOW.CRITICALITY,
+                            PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)
+                    .from(PHYSICAL_FLOW)
+                    .innerJoin(LOGICAL_FLOW).on(LOGICAL_FLOW.ID.eq(PHYSICAL_FLOW.LOGICAL_FLOW_ID))
+                    .innerJoin(PHYSICAL_SPECIFICATION).on(PHYSICAL_SPECIFICATION.ID.eq(PHYSICAL_FLOW.SPECIFICATION_ID))
+                    .innerJoin(PHYSICAL_SPEC_DATA_TYPE).on(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.eq(PHYSICAL_SPECIFICATION.ID))
+                    .where(sourceCondition)
+                    .and(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS.ne(REMOVED.name()))
+                    .and(PHYSICAL_SPECIFICATION.IS_REMOVED.isFalse())
+                    .and(PHYSICAL_FLOW_NOT_REMOVED)
+                    .fetch()
+                    .forEach(r -> idsByKey.putIfAbsent(
+                            tuple(mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND)), r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID)),
+                                  mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND)), r.get(LOGICAL_FLOW.TARGET_ENTITY_ID)),
+                                  mkRef(EntityKind.valueOf(r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND)), r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID)),
+                                  r.get(PHYSICAL_SPECIFICATION.FORMAT),
+                                  r.get(PHYSICAL_SPECIFICATION.NAME),
+                                  r.get(PHYSICAL_FLOW.BASIS_OFFSET),
+                                  r.get(PHYSICAL_FLOW.FREQUENCY),
+                                  r.get(PHYSICAL_FLOW.TRANSPORT),
+                                  r.get(PHYSICAL_FLOW.CRITICALITY),
+                                  r.get(PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)),
+                            r.get(PHYSICAL_FLOW.ID))));
+
+        Map<PhysicalFlowParsed, Long> result = new HashMap<>();
+        flows.forEach(f -> {
+            Long id = idsByKey.get(tuple(
+                    toKey(f.source()),
+                    toKey(f.target()),
+                    toKey(f.owner()),
+                    f.format().name(),
+                    f.name(),
+                    f.basisOffset(),
+                    f.frequency().name(),
+                    f.transport().value(),
+                    f.criticality().name(),
+                    f.dataType().id()));
+            if (id != null) {
+                result.put(f, id);
+            }
+        });
+        return result;
+    }
+
+
+    /**
+     * Creates physical flows for each of the given parsed flows, reusing any existing
+     * logical flows, specifications and physical flows.  Removed logical flows are
+     * restored and missing data type decorators are added to logical flows and
+     * specifications.  Everything happens in a single transaction.
+     *
+     * Flow ratings are _not_ calculated here, the added logical flow decorators are
+     * returned (with a rating of `NO_OPINION`) so the caller can rate them once the
+     * transaction has committed.
+     *
+     * @param username  user performing the upload
+     * @param flows  fully resolved parsed flows
+     * @param phaseListener  notified as each phase of the upload starts
+     * @return physical flow ids (in the same order as `flows`) and details of what was added
+     */
+    public PhysicalFlowBulkCreateResult createFlows(String username,
+                                                   List<PhysicalFlowParsed> flows,
+                                                   Consumer<PhysicalFlowUploadPhase> phaseListener) {
+        checkNotNull(username, "username cannot be null");
+        checkNotNull(flows, "flows cannot be null");
+        checkNotNull(phaseListener, "phaseListener cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+            LocalDateTime now = nowUtc();
+            List<DataTypeDecorator> addedDecorators = new ArrayList<>();
+
+            phaseListener.accept(PhysicalFlowUploadPhase.LOGICAL_FLOWS);
+            Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds = new HashMap<>();
+            int createdLogicalFlowCount = resolveLogicalFlows(tx, username, now, flows, logicalFlowIds);
+            addedDecorators.addAll(addLogicalFlowDecorators(tx, username, now, flows, logicalFlowIds));
+
+            phaseListener.accept(PhysicalFlowUploadPhase.SPECIFICATIONS);
+            Map<Tuple3<EntityReference, String, String>, Long> specIds = new HashMap<>();
+            Set<Long> createdSpecIds = resolveSpecifications(tx, username, now, flows, specIds);
+            List<DataTypeDecorator> addedSpecDecorators = addSpecificationDecorators(tx, username, now, flows, specIds);
+            addedDecorators.addAll(addedSpecDecorators);
+
+            phaseListener.accept(PhysicalFlowUploadPhase.PHYSICAL_FLOWS);
+            Map<Tuple, Long> physicalFlowIds = new HashMap<>();
+            Set<Long> createdPhysicalFlowIds = resolvePhysicalFlows(tx, username, now, flows, logicalFlowIds, specIds, physicalFlowIds);
+
+            // existing specs which gained a data type may be used by other logical flows
+            Set<Long> specsToPropagate = map(addedSpecDecorators, d -> d.entityReference().id());
+            specsToPropagate.removeAll(createdSpecIds);
+            partition(specsToPropagate, CHUNK_SIZE)
+                    .forEach(ids -> physicalSpecificationDao.propagateDataTypesToLogicalFlows(tx, username, ids));
+
+            List<Long> ids = flows
+                    .stream()
+                    .map(f -> physicalFlowIds.get(toPhysicalFlowKey(f, logicalFlowIds, specIds)))
+                    .collect(toList());
+
+            LOG.info("Bulk physical flow upload by {}: {} rows, created {} logical flows, {} specifications, {} physical flows, {} decorators",
+                    username,
+                    flows.size(),
+                    createdLogicalFlowCount,
+                    createdSpecIds.size(),
+                    createdPhysicalFlowIds.size(),
+                    addedDecorators.size());
+
+            return ImmutablePhysicalFlowBulkCreateResult.builder()
+                    .physicalFlowIds(ids)
+                    .createdPhysicalFlowIds(createdPhysicalFlowIds)
+                    .logicalFlowIds(logicalFlowIds.values())
+                    .createdLogicalFlowCount(createdLogicalFlowCount)
+                    .createdSpecificationCount(createdSpecIds.size())
+                    .addedDecorators(addedDecorators)
+                    .build();
+        });
+    }
+
+
+    // --- logical flows
+
+    private int resolveLogicalFlows(DSLContext tx,
+                                    String username,
+                                    LocalDateTime now,
+                                    List<PhysicalFlowParsed> flows,
+                                    Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds) {
+        Set<Tuple2<EntityReference, EntityReference>> keys = map(flows, this::toLogicalFlowKey);
+
+        Map<Tuple2<EntityReference, EntityReference>, Tuple2<Long, Boolean>> existing = findLogicalFlows(tx, keys);
+
+        Set<Long> removedIds = existing
+                .values()
+                .stream()
+                .filter(t -> t.v2)
+                .map(t -> t.v1)
+                .collect(toSet());
+
+        partition(removedIds, CHUNK_SIZE)
+                .forEach(ids -> tx
+                        .update(LOGICAL_FLOW)
+                        .set(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS, ACTIVE.name())
+                        .set(LOGICAL_FLOW.IS_REMOVED, false)
+                        .set(LOGICAL_FLOW.LAST_UPDATED_BY, username)
+                        .set(LOGICAL_FLOW.LAST_UPDATED_AT, Timestamp.valueOf(now))
+                        .where(LOGICAL_FLOW.ID.in(ids))
+                        .execute());
+
+        existing.forEach((k, v) -> logicalFlowIds.put(k, v.v1));
+
+        List<Tuple2<EntityReference, EntityReference>> missing = keys
+                .stream()
+                .filter(k -> !existing.containsKey(k))
+                .collect(toList());
+
+        if (!missing.isEmpty()) {
+            List<LogicalFlowRecord> records = missing
+                    .stream()
+                    .map(k -> LogicalFlowDao.TO_RECORD_MAPPER.apply(
+                            ImmutableLogicalFlow.builder()
+                                    .source(k.v1)
+                                    .target(k.v2)
+                                    .lastUpdatedBy(username)
+                                    .lastUpdatedAt(now)
+                                    .provenance(PROVENANCE)
+                                    .created(UserTimestamp.mkForUser(username, now))
+                                    .build(),
+                            tx))
+                    .collect(toList());
+
+            tx.batchInsert(records).execute();
+
+            findLogicalFlows(tx, missing).forEach((k, v) -> logicalFlowIds.put(k, v.v1));
+        }
+
+        return missing.size();
+    }
+
+
+    /**
+     * @return flow id and 'is removed' flag keyed by source and target
+     */
+    private Map<Tuple2<EntityReference, EntityReference>, Tuple2<Long, Boolean>> findLogicalFlows(
+            DSLContext tx,
+            Collection<Tuple2<EntityReference, EntityReference>> keys) {
+
+        Set<Tuple2<EntityReference, EntityReference>> wanted = new HashSet<>(keys);
+        Map<Tuple2<EntityReference, EntityReference>, Tuple2<Long, Boolean>> result = new HashMap<>();
+
+        mkRefConditions(LOGICAL_FLOW.SOURCE_ENTITY_KIND, LOGICAL_FLOW.SOURCE_ENTITY_ID, map(keys, k -> k.v1))
+                .forEach(sourceCondition -> tx
+                        .select(LOGICAL_FLOW.ID,
+                                LOGICAL_FLOW.SOURCE_ENTITY_KIND,
+                                LOGICAL_FLOW.SOURCE_ENTITY_ID,
+                                LOGICAL_FLOW.TARGET_ENTITY_KIND,
+                                LOGICAL_FLOW.TARGET_ENTITY_ID,
+                                LOGICAL_FLOW.IS_REMOVED,
+                                LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS)
+                        .from(LOGICAL_FLOW)
+                        .where(sourceCondition)
+                        .fetch()
+                        .forEach(r -> {
+                            Tuple2<EntityReference, EntityReference> key = tuple(
+                                    mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.SOURCE_ENTITY_KIND)), r.get(LOGICAL_FLOW.SOURCE_ENTITY_ID)),
+                                    mkRef(EntityKind.valueOf(r.get(LOGICAL_FLOW.TARGET_ENTITY_KIND)), r.get(LOGICAL_FLOW.TARGET_ENTITY_ID)));
+
+                            if (wanted.contains(key)) {
+                                boolean isRemoved = r.get(LOGICAL_FLOW.IS_REMOVED)
+                                        || REMOVED.name().equals(r.get(LOGICAL_FLOW.ENTITY_LIFECYCLE_STATUS));
+                                // prefer an active flow over a removed one
+                                result.merge(
+                                        key,
+                                        tuple(r.get(LOGICAL_FLOW.ID), isRemoved),
+                                        (a, b) -> a.v2 ? b : a);
+                            }
+                        }));
+
+        return result;
+    }
+
+
+    private List<DataTypeDecorator> addLogicalFlowDecorators(DSLContext tx,
+                                                             String username,
+                                                             LocalDateTime now,
+                                                             List<PhysicalFlowParsed> flows,
+                                                             Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds) {
+        Set<Tuple2<Long, Long>> required = map(
+                flows,
+                f -> tuple(logicalFlowIds.get(toLogicalFlowKey(f)), f.dataType().id()));
+
+        Set<Tuple2<Long, Long>> existing = new HashSet<>();
+        partition(map(required, t -> t.v1), CHUNK_SIZE)
+                .forEach(ids -> tx
+                        .select(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID, LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_ID)
+                        .from(LOGICAL_FLOW_DECORATOR)
+                        .where(LOGICAL_FLOW_DECORATOR.LOGICAL_FLOW_ID.in(ids))
+                        .and(LOGICAL_FLOW_DECORATOR.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()))
+                        .fetch()
+                        .forEach(r -> existing.add(tuple(r.value1(), r.value2()))));
+
+        List<DataTypeDecorator> added = required
+                .stream()
+                .filter(t -> !existing.contains(t))
+                .map(t -> mkDecorator(username, now, mkRef(EntityKind.LOGICAL_DATA_FLOW, t.v1), t.v2, Optional.of(AuthoritativenessRatingValue.NO_OPINION)))
+                .collect(toList());
+
+        List<LogicalFlowDecoratorRecord> records = added
+                .stream()
+                .map(d -> {
+                    LogicalFlowDecoratorRecord r = tx.newRecord(LOGICAL_FLOW_DECORATOR);
+                    r.setLogicalFlowId(d.entityReference().id());
+                    r.setDecoratorEntityKind(EntityKind.DATA_TYPE.name());
+                    r.setDecoratorEntityId(d.decoratorEntity().id());
+                    r.setRating(AuthoritativenessRatingValue.NO_OPINION.value());
+                    r.setProvenance(d.provenance());
+                    r.setLastUpdatedAt(Timestamp.valueOf(d.lastUpdatedAt()));
+                    r.setLastUpdatedBy(d.lastUpdatedBy());
+                    return r;
+                })
+                .collect(toList());
+
+        if (!records.isEmpty()) {
+            tx.batchInsert(records).execute();
+        }
+
+        return added;
+    }
+
+
+    // --- specifications
+
+    private Set<Long> resolveSpecifications(DSLContext tx,
+                                            String username,
+                                            LocalDateTime now,
+                                            List<PhysicalFlowParsed> flows,
+                                            Map<Tuple3<EntityReference, String, String>, Long> specIds) {
+        // the first row for a specification supplies its description and external id
+        Map<Tuple3<EntityReference, String, String>, PhysicalFlowParsed> flowsByKey = new LinkedHashMap<>();
+        flows.forEach(f -> flowsByKey.putIfAbsent(toSpecKey(f), f));
+
+        specIds.putAll(findSpecifications(tx, flowsByKey.keySet()));
+
+        List<PhysicalSpecificationRecord> records = flowsByKey
+                .entrySet()
+                .stream()
+                .filter(e -> !specIds.containsKey(e.getKey()))
+                .map(e -> {
+                    PhysicalFlowParsed flow = e.getValue();
+                    PhysicalSpecificationRecord r = tx.newRecord(PHYSICAL_SPECIFICATION);
+                    r.setOwningEntityKind(flow.owner().kind().name());
+                    r.setOwningEntityId(flow.owner().id());
+                    r.setName(flow.name());
+                    r.setExternalId(Optional.ofNullable(flow.specExternalId()).orElse(""));
+                    r.setDescription(Optional.ofNullable(flow.specDescription()).orElse(""));
+                    r.setFormat(flow.format().name());
+                    r.setLastUpdatedAt(Timestamp.valueOf(now));
+                    r.setLastUpdatedBy(username);
+                    r.setIsRemoved(false);
+                    r.setProvenance(PROVENANCE);
+                    r.setCreatedAt(Timestamp.valueOf(now));
+                    r.setCreatedBy(username);
+                    return r;
+                })
+                .collect(toList());
+
+        if (records.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        tx.batchInsert(records).execute();
+
+        Set<Tuple3<EntityReference, String, String>> missing = flowsByKey
+                .keySet()
+                .stream()
+                .filter(k -> !specIds.containsKey(k))
+                .collect(toSet());
+
+        Map<Tuple3<EntityReference, String, String>, Long> created = findSpecifications(tx, missing);
+        specIds.putAll(created);
+        return new HashSet<>(created.values());
+    }
+
+
+    private Map<Tuple3<EntityReference, String, String>, Long> findSpecifications(
+            DSLContext tx,
+            Collection<Tuple3<EntityReference, String, String>> keys) {
+
+        Set<Tuple3<EntityReference, String, String>> wanted = new HashSet<>(keys);
+        Map<Tuple3<EntityReference, String, String>, Long> result = new HashMap<>();
+
+        mkRefConditions(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND, PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID, map(keys, k -> k.v1))
+                .forEach(ownerCondition -> tx
+                        .select(PHYSICAL_SPECIFICATION.ID,
+                                PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND,
+                                PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID,
+                                PHYSICAL_SPECIFICATION.FORMAT,
+                                PHYSICAL_SPECIFICATION.NAME)
+                        .from(PHYSICAL_SPECIFICATION)
+                        .where(ownerCondition)
+                        .and(PhysicalSpecificationDao.PHYSICAL_SPEC_NOT_REMOVED)
+                        .fetch()
+                        .forEach(r -> {
+                            Tuple3<EntityReference, String, String> key = tuple(
+                                    mkRef(EntityKind.valueOf(r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_KIND)), r.get(PHYSICAL_SPECIFICATION.OWNING_ENTITY_ID)),
+                                    r.get(PHYSICAL_SPECIFICATION.FORMAT),
+                                    r.get(PHYSICAL_SPECIFICATION.NAME));
+                            if (wanted.contains(key)) {
+                                result.putIfAbsent(key, r.get(PHYSICAL_SPECIFICATION.ID));
+                            }
+                        }));
+
+        return result;
+    }
+
+
+    private List<DataTypeDecorator> addSpecificationDecorators(DSLContext tx,
+                                                               String username,
+                                                               LocalDateTime now,
+                                                               List<PhysicalFlowParsed> flows,
+                                                               Map<Tuple3<EntityReference, String, String>, Long> specIds) {
+        Set<Tuple2<Long, Long>> required = map(
+                flows,
+                f -> tuple(specIds.get(toSpecKey(f)), f.dataType().id()));
+
+        Set<Tuple2<Long, Long>> existing = new HashSet<>();
+        partition(map(required, t -> t.v1), CHUNK_SIZE)
+                .forEach(ids -> tx
+                        .select(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID, PHYSICAL_SPEC_DATA_TYPE.DATA_TYPE_ID)
+                        .from(PHYSICAL_SPEC_DATA_TYPE)
+                        .where(PHYSICAL_SPEC_DATA_TYPE.SPECIFICATION_ID.in(ids))
+                        .fetch()
+                        .forEach(r -> existing.add(tuple(r.value1(), r.value2()))));
+
+        List<DataTypeDecorator> added = required
+                .stream()
+                .filter(t -> !existing.contains(t))
+                .map(t -> mkDecorator(username, now, mkRef(EntityKind.PHYSICAL_SPECIFICATION, t.v1), t.v2, Optional.empty()))
+                .collect(toList());
+
+        List<PhysicalSpecDataTypeRecord> records = added
+                .stream()
+                .map(d -> {
+                    PhysicalSpecDataTypeRecord r = tx.newRecord(PHYSICAL_SPEC_DATA_TYPE);
+                    r.setSpecificationId(d.entityReference().id());
+                    r.setDataTypeId(d.decoratorEntity().id());
+                    r.setProvenance(d.provenance());
+                    r.setLastUpdatedAt(Timestamp.valueOf(d.lastUpdatedAt()));
+                    r.setLastUpdatedBy(d.lastUpdatedBy());
+                    return r;
+                })
+                .collect(toList());
+
+        if (!records.isEmpty()) {
+            tx.batchInsert(records).execute();
+        }
+
+        return added;
+    }
+
+
+    // --- physical flows
+
+    private Set<Long> resolvePhysicalFlows(DSLContext tx,
+                                           String username,
+                                           LocalDateTime now,
+                                           List<PhysicalFlowParsed> flows,
+                                           Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds,
+                                           Map<Tuple3<EntityReference, String, String>, Long> specIds,
+                                           Map<Tuple, Long> physicalFlowIds) {
+        // the first row for a physical flow supplies its description and external id
+        Map<Tuple, PhysicalFlowParsed> flowsByKey = new LinkedHashMap<>();
+        flows.forEach(f -> flowsByKey.putIfAbsent(toPhysicalFlowKey(f, logicalFlowIds, specIds), f));
+
+        Set<Long> logicalFlowIdsInUpload = new HashSet<>(logicalFlowIds.values());
+        physicalFlowIds.putAll(findPhysicalFlows(tx, logicalFlowIdsInUpload, flowsByKey.keySet()));
+
+        List<PhysicalFlowRecord> records = flowsByKey
+                .entrySet()
+                .stream()
+                .filter(e -> !physicalFlowIds.containsKey(e.getKey()))
+                .map(e -> {
+                    PhysicalFlowParsed flow = e.getValue();
+                    PhysicalFlowRecord r = tx.newRecord(PHYSICAL_FLOW);
+                    r.setLogicalFlowId(logicalFlowIds.get(toLogicalFlowKey(flow)));
+                    r.setSpecificationId(specIds.get(toSpecKey(flow)));
+                    r.setFrequency(flow.frequency().name());
+                    r.setTransport(flow.transport().value());
+                    r.setBasisOffset(flow.basisOffset());
+                    r.setCriticality(flow.criticality().name());
+                    r.setDescription(flow.description());
+                    r.setExternalId(flow.externalId());
+                    r.setLastUpdatedBy(username);
+                    r.setLastUpdatedAt(Timestamp.valueOf(now));
+                    r.setIsRemoved(false);
+                    r.setProvenance(PROVENANCE);
+                    r.setCreatedAt(Timestamp.valueOf(now));
+                    r.setCreatedBy(username);
+                    return r;
+                })
+                .collect(toList());
+
+        if (records.isEmpty()) {
+            return new HashSet<>();
+        }
+
+        tx.batchInsert(records).execute();
+
+        Set<Long> existingIds = new HashSet<>(physicalFlowIds.values());
+        Map<Tuple, Long> all = findPhysicalFlows(tx, logicalFlowIdsInUpload, flowsByKey.keySet());
+        physicalFlowIds.putAll(all);
+
+        Set<Long> createdIds = new HashSet<>(all.values());
+        createdIds.removeAll(existingIds);
+        return createdIds;
+    }
+
+
+    private Map<Tuple, Long> findPhysicalFlows(DSLContext tx,
+                                               Collection<Long> logicalFlowIds,
+                                               Set<Tuple> keys) {
+        Map<Tuple, Long> result = new HashMap<>();
+
+        partition(logicalFlowIds, CHUNK_SIZE)
+                .forEach(ids -> tx
+                        .select(PHYSICAL_FLOW.ID,
+                                PHYSICAL_FLOW.LOGICAL_FLOW_ID,
+                                PHYSICAL_FLOW.SPECIFICATION_ID,
+                                PHYSICAL_FLOW.BASIS_OFFSET,
+                                PHYSICAL_FLOW.FREQUENCY,
+                                PHYSICAL_FLOW.TRANSPORT,
+                                PHYSICAL_FLOW.CRITICALITY)
+                        .from(PHYSICAL_FLOW)
+                        .where(PHYSICAL_FLOW.LOGICAL_FLOW_ID.in(ids))
+                        .and(PHYSICAL_FLOW_NOT_REMOVED)
+                        .fetch()
+                        .forEach(r -> {
+                            Tuple key = tuple(
+                                    r.get(PHYSICAL_FLOW.LOGICAL_FLOW_ID),
+                                    r.get(PHYSICAL_FLOW.SPECIFICATION_ID),
+                                    r.get(PHYSICAL_FLOW.BASIS_OFFSET),
+                                    r.get(PHYSICAL_FLOW.FREQUENCY),
+                                    r.get(PHYSICAL_FLOW.TRANSPORT),
+                                    r.get(PHYSICAL_FLOW.CRITICALITY));
+                            if (keys.contains(key)) {
+                                result.putIfAbsent(key, r.get(PHYSICAL_FLOW.ID));
+                            }
+                        }));
+
+        return result;
+    }
+
+
+    // --- helpers
+
+    private Tuple2<EntityReference, EntityReference> toLogicalFlowKey(PhysicalFlowParsed flow) {
+        return tuple(toKey(flow.source()), toKey(flow.target()));
+    }
+
+
+    private Tuple3<EntityReference, String, String> toSpecKey(PhysicalFlowParsed flow) {
+        return tuple(toKey(flow.owner()), flow.format().name(), flow.name());
+    }
+
+
+    private Tuple toPhysicalFlowKey(PhysicalFlowParsed flow,
+                                    Map<Tuple2<EntityReference, EntityReference>, Long> logicalFlowIds,
+                                    Map<Tuple3<EntityReference, String, String>, Long> specIds) {
+        return tuple(
+                logicalFlowIds.get(toLogicalFlowKey(flow)),
+                specIds.get(toSpecKey(flow)),
+                flow.basisOffset(),
+                flow.frequency().name(),
+                flow.transport().value(),
+                flow.criticality().name());
+    }
+
+
+    /**
+     * References resolved during parsing carry names, those read back from
+     * the database do not, so keys are built from kind and id alone.
+     */
+    private static EntityReference toKey(EntityReference ref) {
+        return mkRef(ref.kind(), ref.id());
+    }
+
+
+    /**
+     * Builds conditions matching the given references, one per kind and chunk of ids.
+     */
+    private static List<Condition> mkRefConditions(Field<String> kindField,
+                                                   Field<Long> idField,
+                                                   Collection<EntityReference> refs) {
+        return groupBy(EntityReference::kind, refs)
+                .entrySet()
+                .stream()
+                .flatMap(e -> partition(map(e.getValue(), EntityReference::id), CHUNK_SIZE)
+                        .stream()
+                        .map(ids -> kindField.eq(e.getKey().name()).and(idField.in(ids))))
+                .collect(toList());
+    }
+
+
+    private static DataTypeDecorator mkDecorator(String username,
+                                                 LocalDateTime now,
+                                                 EntityReference entityReference,
+                                                 long dataTypeId,
+                                                 Optional<AuthoritativenessRatingValue> rating) {
+        return ImmutableDataTypeDecorator.builder()
+                .rating(rating)
+                .entityReference(entityReference)
+                .decoratorEntity(mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                .provenance(PROVENANCE)
+                .lastUpdatedAt(now)
+                .lastUpdatedBy(username)
+                .build();
+    }
+}
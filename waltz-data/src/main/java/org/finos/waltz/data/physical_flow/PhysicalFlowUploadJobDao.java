@@ -0,0 +1,229 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.data.physical_flow;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommandResponse;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadPhase;
+import org.finos.waltz.model.system.job_log.JobStatus;
+import org.finos.waltz.schema.tables.records.PhysicalFlowUploadJobRecord;
+import org.jooq.DSLContext;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.RecordMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.schema.tables.PhysicalFlowUploadJob.PHYSICAL_FLOW_UPLOAD_JOB;
+
+
+/**
+ * Stores the status (and, once complete, the command responses) of physical
+ * flow uploads running in the background, so that any node can answer a
+ * client polling for a job.
+ */
+@Repository
+public class PhysicalFlowUploadJobDao {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper().registerModule(new Jdk8Module());
+    private static final TypeReference<List<PhysicalFlowUploadCommandResponse>> RESULTS_TYPE = new TypeReference<List<PhysicalFlowUploadCommandResponse>>() {};
+
+    // the results are only read on request, as they may be large
+    private static final List<Field<?>> JOB_FIELDS = Stream
+            .of(PHYSICAL_FLOW_UPLOAD_JOB.fields())
+            .filter(f -> !f.equals(PHYSICAL_FLOW_UPLOAD_JOB.RESULTS))
+            .collect(Collectors.toList());
+
+    private static final RecordMapper<Record, PhysicalFlowUploadJob> TO_DOMAIN_MAPPER = record -> {
+        PhysicalFlowUploadJobRecord r = record.into(PHYSICAL_FLOW_UPLOAD_JOB);
+        return ImmutablePhysicalFlowUploadJob
+                .builder()
+                .id(r.getId())
+                .userId(r.getUserId())
+                .status(JobStatus.valueOf(r.getStatus()))
+                .phase(PhysicalFlowUploadPhase.valueOf(r.getPhase()))
+                .commandCount(r.getCommandCount())
+                .createdCount(r.getCreatedCount())
+                .submittedAt(r.getSubmittedAt().toLocalDateTime())
+                .completedAt(Optional.ofNullable(r.getCompletedAt()).map(Timestamp::toLocalDateTime))
+                .errorMessage(Optional.ofNullable(r.getErrorMessage()))
+                .build();
+    };
+
+    private final DSLContext dsl;
+
+
+    @Autowired
+    public PhysicalFlowUploadJobDao(DSLContext dsl) {
+        checkNotNull(dsl, "dsl cannot be null");
+        this.dsl = dsl;
+    }
+
+
+    public PhysicalFlowUploadJob getById(String jobId) {
+        return dsl
+                .select(JOB_FIELDS)
+                .from(PHYSICAL_FLOW_UPLOAD_JOB)
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.ID.eq(jobId))
+                .fetchOne(TO_DOMAIN_MAPPER);
+    }
+
+
+    /**
+     * @param jobId  job to read the results of
+     * @return command responses, empty if the job is unknown or has no results
+     */
+    public List<PhysicalFlowUploadCommandResponse> findResults(String jobId) {
+        return dsl
+                .select(PHYSICAL_FLOW_UPLOAD_JOB.RESULTS)
+                .from(PHYSICAL_FLOW_UPLOAD_JOB)
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.ID.eq(jobId))
+                .fetchOptional(PHYSICAL_FLOW_UPLOAD_JOB.RESULTS)
+                .map(PhysicalFlowUploadJobDao::readResults)
+                .orElse(Collections.emptyList());
+    }
+
+
+    public int create(PhysicalFlowUploadJob job) {
+        checkNotNull(job, "job cannot be null");
+
+        PhysicalFlowUploadJobRecord record = dsl.newRecord(PHYSICAL_FLOW_UPLOAD_JOB);
+        record.setId(job.id());
+        record.setUserId(job.userId());
+        setStatusFields(record, job);
+        record.setCommandCount(job.commandCount());
+        record.setSubmittedAt(Timestamp.valueOf(job.submittedAt()));
+        return record.insert();
+    }
+
+
+    /**
+     * Saves the status, phase, counts and completion details of the job.
+     */
+    public int updateStatus(PhysicalFlowUploadJob job) {
+        checkNotNull(job, "job cannot be null");
+
+        PhysicalFlowUploadJobRecord record = dsl.newRecord(PHYSICAL_FLOW_UPLOAD_JOB);
+        setStatusFields(record, job);
+        return dsl
+                .update(PHYSICAL_FLOW_UPLOAD_JOB)
+                .set(record)
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.ID.eq(job.id()))
+                .execute();
+    }
+
+
+    /**
+     * As `updateStatus`, also saving the command responses of the completed job.
+     */
+    public int updateStatus(PhysicalFlowUploadJob job,
+                            List<PhysicalFlowUploadCommandResponse> results) {
+        checkNotNull(job, "job cannot be null");
+        checkNotNull(results, "results cannot be null");
+
+        PhysicalFlowUploadJobRecord record = dsl.newRecord(PHYSICAL_FLOW_UPLOAD_JOB);
+        setStatusFields(record, job);
+        record.setResults(writeResults(results));
+        return dsl
+                .update(PHYSICAL_FLOW_UPLOAD_JOB)
+                .set(record)
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.ID.eq(job.id()))
+                .execute();
+    }
+
+
+    /**
+     * Marks jobs which are still in progress but were submitted before the
+     * cutoff as failed, e.g. because the node running them was stopped.
+     *
+     * @return number of jobs marked as failed
+     */
+    public int failInProgressSubmittedBefore(LocalDateTime cutoff, String errorMessage) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+
+        return dsl
+                .update(PHYSICAL_FLOW_UPLOAD_JOB)
+                .set(PHYSICAL_FLOW_UPLOAD_JOB.STATUS, JobStatus.FAILURE.name())
+                .set(PHYSICAL_FLOW_UPLOAD_JOB.ERROR_MESSAGE, errorMessage)
+                .set(PHYSICAL_FLOW_UPLOAD_JOB.COMPLETED_AT, Timestamp.valueOf(nowUtc()))
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.STATUS.eq(JobStatus.IN_PROGRESS.name()))
+                .and(PHYSICAL_FLOW_UPLOAD_JOB.SUBMITTED_AT.lt(Timestamp.valueOf(cutoff)))
+                .execute();
+    }
+
+
+    /**
+     * @return number of finished jobs removed
+     */
+    public int deleteCompletedBefore(LocalDateTime cutoff) {
+        checkNotNull(cutoff, "cutoff cannot be null");
+
+        return dsl
+                .deleteFrom(PHYSICAL_FLOW_UPLOAD_JOB)
+                .where(PHYSICAL_FLOW_UPLOAD_JOB.COMPLETED_AT.lt(Timestamp.valueOf(cutoff)))
+                .execute();
+    }
+
+
+    // -- helpers
+
+    private static void setStatusFields(PhysicalFlowUploadJobRecord record, PhysicalFlowUploadJob job) {
+        record.setStatus(job.status().name());
+        record.setPhase(job.phase().name());
+        record.setCreatedCount(job.createdCount());
+        record.setCompletedAt(job.completedAt().map(Timestamp::valueOf).orElse(null));
+        record.setErrorMessage(job.errorMessage().orElse(null));
+    }
+
+
+    private static List<PhysicalFlowUploadCommandResponse> readResults(String json) {
+        if (json == null) {
+            return Collections.emptyList();
+        }
+        try {
+            return JSON_MAPPER.readValue(json, RESULTS_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read physical flow upload results", e);
+        }
+    }
+
+
+    private static String writeResults(List<PhysicalFlowUploadCommandResponse> results) {
+        try {
+            return JSON_MAPPER.writeValueAsString(results);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot write physical flow upload results", e);
+        }
+    }
+}
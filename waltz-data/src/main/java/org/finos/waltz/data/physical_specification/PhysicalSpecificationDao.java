@@ -34,6 +34,7 @@ import org.springframework.stereotype.Repository;
 
 import java.sql.Timestamp;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -249,74 +250,93 @@ public class PhysicalSpecificationDao {
      * @return  number of updates made to logical flows
      */
     public int propagateDataTypesToLogicalFlows(String userName, long specificationId) {
-        return dsl.transactionResult(ctx -> {
-            DSLContext tx = ctx.dsl();
-
-            SelectConditionStep<Record3<Long, Long, String>> desiredQry = DSL
-                    .select(psdt.DATA_TYPE_ID, lf.ID, dt.NAME)
-                    .from(psdt)
-                    .innerJoin(pf).on(psdt.SPECIFICATION_ID.eq(pf.SPECIFICATION_ID))
-                    .innerJoin(lf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
-                    .innerJoin(dt).on(dt.ID.eq(psdt.DATA_TYPE_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
-                    .and(lf.IS_REMOVED.isFalse())
-                    .and(pf.IS_REMOVED.isFalse())
-                    .and(lf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()))
-                    .and(pf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()));
-
-            SelectConditionStep<Record3<Long, Long, String>> existingQry = DSL
-                    .select(lfd.DECORATOR_ENTITY_ID, lfd.LOGICAL_FLOW_ID, dt.NAME)
-                    .from(lfd)
-                    .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
-                    .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
-                    .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
-                    .where(pf.SPECIFICATION_ID.eq(specificationId))
-                    .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()));
-
-            SelectOrderByStep<Record3<Long, Long, String>> requiredQry = desiredQry
-                    .except(existingQry);
-
-            SelectJoinStep<? extends Record6<String, Long, String, String, String, String>> requiredChangeLogs = DSL
-                    .select(
-                        val(EntityKind.LOGICAL_DATA_FLOW.name()),
-                        requiredQry.field(1, Long.class), // logical flow id
-                        concat("Propagated data type from specification to flow: ", requiredQry.field(2, String.class)),
-                        val(userName),
-                        val(Severity.INFORMATION.name()),
-                        val(Operation.ADD.name()))
-                    .from(requiredQry);
-
-            SelectJoinStep<Record4<Long, String, Long, String>> requiredDecorators = DSL
-                    .select(
-                        requiredQry.field(1, Long.class),
-                        val(EntityKind.DATA_TYPE.name()),
-                        requiredQry.field(0, Long.class),
-                        val(userName))
-                    .from(requiredQry);
-
-            tx.insertInto(CHANGE_LOG)
-                    .columns(
-                            CHANGE_LOG.PARENT_KIND,
-                            CHANGE_LOG.PARENT_ID,
-                            CHANGE_LOG.MESSAGE,
-                            CHANGE_LOG.USER_ID,
-                            CHANGE_LOG.SEVERITY,
-                            CHANGE_LOG.OPERATION)
-                    .select(requiredChangeLogs)
-                    .execute();
-
-            int insertCount = tx
-                    .insertInto(lfd)
-                    .columns(
-                            lfd.LOGICAL_FLOW_ID,
-                            lfd.DECORATOR_ENTITY_KIND,
-                            lfd.DECORATOR_ENTITY_ID,
-                            lfd.LAST_UPDATED_BY)
-                    .select(requiredDecorators)
-                    .execute();
-
-            return insertCount;
-        });
+        return dsl.transactionResult(ctx -> propagateDataTypesToLogicalFlows(
+                ctx.dsl(),
+                userName,
+                Collections.singleton(specificationId)));
+    }
+
+
+    /**
+     * As `propagateDataTypesToLogicalFlows(userName, specificationId)` but for
+     * several specifications at once, using the given (transactional) context.
+     *
+     * @param tx  context to execute the statements in
+     * @param userName  user enacting the change
+     * @param specificationIds  specifications whose data types should be propagated
+     * @return  number of updates made to logical flows
+     */
+    public int propagateDataTypesToLogicalFlows(DSLContext tx,
+                                                String userName,
+                                                Collection<Long> specificationIds) {
+        if (specificationIds.isEmpty()) {
+            return 0;
+        }
+
+        SelectConditionStep<Record3<Long, Long, String>> desiredQry = DSL
+                .select(psdt.DATA_TYPE_ID, lf.ID, dt.NAME)
+                .from(psdt)
+                .innerJoin(pf).on(psdt.SPECIFICATION_ID.eq(pf.SPECIFICATION_ID))
+                .innerJoin(lf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(psdt.DATA_TYPE_ID))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
+                .and(lf.IS_REMOVED.isFalse())
+                .and(pf.IS_REMOVED.isFalse())
+                .and(lf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()))
+                .and(pf.ENTITY_LIFECYCLE_STATUS.notEqual(EntityLifecycleStatus.REMOVED.name()));
+
+        SelectConditionStep<Record3<Long, Long, String>> existingQry = DSL
+                .select(lfd.DECORATOR_ENTITY_ID, lfd.LOGICAL_FLOW_ID, dt.NAME)
+                .from(lfd)
+                .innerJoin(lf).on(lf.ID.eq(lfd.LOGICAL_FLOW_ID))
+                .innerJoin(pf).on(pf.LOGICAL_FLOW_ID.eq(lf.ID))
+                .innerJoin(dt).on(dt.ID.eq(lfd.DECORATOR_ENTITY_ID))
+                .where(pf.SPECIFICATION_ID.in(specificationIds))
+                .and(lfd.DECORATOR_ENTITY_KIND.eq(EntityKind.DATA_TYPE.name()));
+
+        SelectOrderByStep<Record3<Long, Long, String>> requiredQry = desiredQry
+                .except(existingQry);
+
+        SelectJoinStep<? extends Record6<String, Long, String, String, String, String>> requiredChangeLogs = DSL
+                .select(
+                    val(EntityKind.LOGICAL_DATA_FLOW.name()),
+                    requiredQry.field(1, Long.class), // logical flow id
+                    concat("Propagated data type from specification to flow: ", requiredQry.field(2, String.class)),
+                    val(userName),
+                    val(Severity.INFORMATION.name()),
+                    val(Operation.ADD.name()))
+                .from(requiredQry);
+
+        SelectJoinStep<Record4<Long, String, Long, String>> requiredDecorators = DSL
+                .select(
+                    requiredQry.field(1, Long.class),
+                    val(EntityKind.DATA_TYPE.name()),
+                    requiredQry.field(0, Long.class),
+                    val(userName))
+                .from(requiredQry);
+
+        tx.insertInto(CHANGE_LOG)
+                .columns(
+                        CHANGE_LOG.PARENT_KIND,
+                        CHANGE_LOG.PARENT_ID,
+                        CHANGE_LOG.MESSAGE,
+                        CHANGE_LOG.USER_ID,
+                        CHANGE_LOG.SEVERITY,
+                        CHANGE_LOG.OPERATION)
+                .select(requiredChangeLogs)
+                .execute();
+
+        int insertCount = tx
+                .insertInto(lfd)
+                .columns(
+                        lfd.LOGICAL_FLOW_ID,
+                        lfd.DECORATOR_ENTITY_KIND,
+                        lfd.DECORATOR_ENTITY_ID,
+                        lfd.LAST_UPDATED_BY)
+                .select(requiredDecorators)
+                .execute();
+
+        return insertCount;
     }
 
 }
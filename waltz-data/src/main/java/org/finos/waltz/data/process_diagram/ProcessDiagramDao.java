@@ -17,6 +17,7 @@ import static org.finos.waltz.schema.Tables.PROCESS_DIAGRAM_ENTITY;
 import static java.util.Optional.ofNullable;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.EnumUtilities.readEnum;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class ProcessDiagramDao {
@@ -96,7 +97,7 @@ public class ProcessDiagramDao {
                 .selectDistinct(FIELDS_WITHOUT_LAYOUT)
                 .from(PROCESS_DIAGRAM)
                 .innerJoin(PROCESS_DIAGRAM_ENTITY).on(PROCESS_DIAGRAM_ENTITY.DIAGRAM_ID.eq(PROCESS_DIAGRAM.ID))
-                .where(dsl.renderInlined(
+                .where(maybeInline(dsl, 
                     PROCESS_DIAGRAM_ENTITY.ENTITY_ID.in(selector.selector())
                         .and(PROCESS_DIAGRAM_ENTITY.ENTITY_KIND.eq(selector.kind().name()))));
 
@@ -20,10 +20,10 @@ package org.finos.waltz.data.report_grid;
 
 
 import org.finos.waltz.common.DateTimeUtilities;
-import org.finos.waltz.common.SetUtilities;
+import org.finos.waltz.common.ListUtilities;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.EntityKind;
-import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.report_grid.*;
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.schema.tables.records.ReportGridColumnDefinitionRecord;
@@ -32,12 +32,22 @@ import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.jooq.lambda.tuple.Tuple2;
 import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Repository;
 
 import java.util.Comparator;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 import java.util.function.ToIntFunction;
 import java.util.stream.IntStream;
@@ -47,6 +57,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.*;
+import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.DateTimeUtilities.toLocalDateTime;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.common.MapUtilities.groupBy;
@@ -59,11 +70,34 @@ import static org.finos.waltz.model.survey.SurveyInstanceStatus.COMPLETED;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.InvolvementKind.INVOLVEMENT_KIND;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class ReportGridDao {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridDao.class);
+
+    /**
+     * Maximum number of app ids given to a single cell data query, this keeps
+     * the number of bind values well within the limits of the supported databases.
+     */
+    private static final int APP_ID_CHUNK_SIZE = 1000;
+
+    /**
+     * Maximum number of cell data queries run at once for a single grid, so
+     * a large grid (many column families over many chunks) cannot occupy the
+     * whole DB executor pool.
+     */
+    private static final int MAX_CONCURRENT_QUERIES_PER_GRID = 4;
+
+    /**
+     * Time allowed for all of the cell data queries of a grid, any queries
+     * still outstanding after this are cancelled.
+     */
+    private static final long CELL_DATA_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private final DSLContext dsl;
+    private final DBExecutorPoolInterface dbExecutorPool;
 
     private final org.finos.waltz.schema.tables.Measurable m = MEASURABLE.as("m");
     private final org.finos.waltz.schema.tables.MeasurableRating mr = MEASURABLE_RATING.as("mr");
@@ -88,8 +122,11 @@ public class ReportGridDao {
             .as("entity_name");
 
     @Autowired
-    public ReportGridDao(DSLContext dsl) {
+    public ReportGridDao(DSLContext dsl, DBExecutorPoolInterface dbExecutorPool) {
+        checkNotNull(dsl, "dsl cannot be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         this.dsl = dsl;
+        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -112,15 +149,30 @@ public class ReportGridDao {
     }
 
 
-    public Set<ReportGridCell> findCellDataByGridId(long id,
-                                                    Select<Record1<Long>> appSelector) {
-        return findCellDataByGridCondition(rg.ID.eq(id), appSelector);
+    public ReportGridCells findCellDataByGridId(long id,
+                                                Select<Record1<Long>> appSelector) {
+        return findCellDataByGridCondition(rg.ID.eq(id), fetchAppIds(appSelector));
+    }
+
+
+    /**
+     * Finds the cell data for the grid over an already resolved set of
+     * application ids.  Prefer this when the caller also needs the
+     * applications, so the app selector is only evaluated once.
+     *
+     * @param id  grid identifier
+     * @param appIds  ids of the applications (rows) in the grid
+     * @return cell data for the grid
+     */
+    public ReportGridCells findCellDataByGridId(long id,
+                                                Collection<Long> appIds) {
+        return findCellDataByGridCondition(rg.ID.eq(id), appIds);
     }
 
 
-    public Set<ReportGridCell> findCellDataByGridExternalId(String  externalId,
-                                                            Select<Record1<Long>> appSelector) {
-        return findCellDataByGridCondition(rg.EXTERNAL_ID.eq(externalId), appSelector);
+    public ReportGridCells findCellDataByGridExternalId(String  externalId,
+                                                        Select<Record1<Long>> appSelector) {
+        return findCellDataByGridCondition(rg.EXTERNAL_ID.eq(externalId), fetchAppIds(appSelector));
     }
 
 
@@ -287,13 +339,26 @@ public class ReportGridDao {
 
 
 
-    private Set<ReportGridCell> findCellDataByGridCondition(Condition gridCondition,
-                                                            Select<Record1<Long>> appSelector) {
+    private List<Long> fetchAppIds(Select<Record1<Long>> appSelector) {
+        return maybeInline(dsl, appSelector)
+                .fetch()
+                .getValues(0, Long.class);
+    }
+
+
+    /**
+     * The app ids are split into chunks and each column family (measurable
+     * summaries, assessments etc.) is fetched for each chunk as a separate task
+     * on the db executor pool, so the families (and chunks) are fetched
+     * concurrently and no query re-evaluates the app selector.
+     */
+    private ReportGridCells findCellDataByGridCondition(Condition gridCondition,
+                                                        Collection<Long> appIds) {
 
         ReportGridDefinition gridDefn = getGridDefinitionByCondition(gridCondition);
 
-        if(gridDefn == null ){
-            return emptySet();
+        if(gridDefn == null || appIds.isEmpty()){
+            return new ReportGridCells();
 
         } else {
 
@@ -334,96 +399,247 @@ public class ReportGridDao {
                     cd -> cd.columnEntityReference().id());
 
 
-            return union(
-                    fetchSummaryMeasurableData(appSelector, summaryMeasurableIdsUsingHighest, summaryMeasurableIdsUsingLowest),
-                    fetchAssessmentData(appSelector, requiredAssessmentDefinitions),
-                    fetchExactMeasurableData(appSelector, exactMeasurableIds),
-                    fetchCostData(appSelector, requiredCostKinds),
-                    fetchInvolvementData(appSelector, requiredInvolvementKinds),
-                    fetchSurveyQuestionResponseData(appSelector, requiredSurveyQuestionIds));
+            long start = System.currentTimeMillis();
+            List<List<Long>> appIdChunks = ListUtilities.partition(new TreeSet<>(appIds), APP_ID_CHUNK_SIZE);
+
+            CellFamilyFetch<ReportGridCells> summaryMeasurableFetch = new CellFamilyFetch<>(
+                    "summaryMeasurable",
+                    !summaryMeasurableIdsUsingHighest.isEmpty() || !summaryMeasurableIdsUsingLowest.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchSummaryMeasurableData(chunk, summaryMeasurableIdsUsingHighest, summaryMeasurableIdsUsingLowest));
+
+            CellFamilyFetch<ReportGridCells> assessmentFetch = new CellFamilyFetch<>(
+                    "assessment",
+                    !requiredAssessmentDefinitions.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchAssessmentData(chunk, requiredAssessmentDefinitions));
+
+            CellFamilyFetch<ReportGridCells> exactMeasurableFetch = new CellFamilyFetch<>(
+                    "exactMeasurable",
+                    !exactMeasurableIds.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchExactMeasurableData(chunk, exactMeasurableIds));
+
+            CellFamilyFetch<Tuple2<Map<Long, Integer>, ReportGridCells>> costFetch = new CellFamilyFetch<>(
+                    "cost",
+                    !requiredCostKinds.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchCostData(chunk, requiredCostKinds));
+
+            CellFamilyFetch<ReportGridCells> involvementFetch = new CellFamilyFetch<>(
+                    "involvement",
+                    !requiredInvolvementKinds.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchInvolvementData(chunk, requiredInvolvementKinds));
+
+            CellFamilyFetch<ReportGridCells> surveyQuestionFetch = new CellFamilyFetch<>(
+                    "surveyQuestion",
+                    !requiredSurveyQuestionIds.isEmpty(),
+                    appIdChunks,
+                    chunk -> fetchSurveyQuestionResponseData(chunk, requiredSurveyQuestionIds));
+
+            List<CellFamilyFetch<?>> fetches = newArrayList(
+                    summaryMeasurableFetch,
+                    assessmentFetch,
+                    exactMeasurableFetch,
+                    costFetch,
+                    involvementFetch,
+                    surveyQuestionFetch);
+
+            runCellQueries(fetches);
+
+            ReportGridCells cells = new ReportGridCells();
+            summaryMeasurableFetch.appendTo(cells, identity());
+            assessmentFetch.appendTo(cells, identity());
+            exactMeasurableFetch.appendTo(cells, identity());
+            costFetch.appendTo(cells, selectLatestCosts(costFetch.results()));
+            involvementFetch.appendTo(cells, identity());
+            surveyQuestionFetch.appendTo(cells, identity());
+
+            LOG.info(
+                    "Fetched {} cells for grid: {} over {} apps in {} chunk(s), took {}ms [{}]",
+                    cells.size(),
+                    gridDefn.id(),
+                    appIds.size(),
+                    appIdChunks.size(),
+                    System.currentTimeMillis() - start,
+                    fetches.stream()
+                            .filter(CellFamilyFetch::isRequired)
+                            .map(CellFamilyFetch::describe)
+                            .collect(joining(", ")));
+
+            return cells;
         }
     }
 
 
-    private Set<ReportGridCell> fetchInvolvementData(Select<Record1<Long>> appSelector,
-                                                     Set<Long> requiredInvolvementKinds) {
+    /**
+     * Runs the chunk queries of the given fetches on the DB executor pool.
+     * At most `MAX_CONCURRENT_QUERIES_PER_GRID` queries run at once, each
+     * worker taking the next outstanding query until none remain.  If any
+     * query fails, or they are not all complete within `CELL_DATA_TIMEOUT_MILLIS`,
+     * the remaining queries are abandoned, the workers cancelled and an
+     * exception thrown.
+     */
+    private void runCellQueries(List<CellFamilyFetch<?>> fetches) {
+        Queue<Runnable> queries = new ConcurrentLinkedQueue<>();
+        fetches.forEach(fetch -> fetch.addQueriesTo(queries));
+
+        AtomicBoolean abandoned = new AtomicBoolean(false);
+        List<Future<?>> workers = IntStream
+                .range(0, Math.min(MAX_CONCURRENT_QUERIES_PER_GRID, queries.size()))
+                .mapToObj(i -> dbExecutorPool.submit(() -> {
+                    Runnable query;
+                    while (!abandoned.get() && (query = queries.poll()) != null) {
+                        query.run();
+                    }
+                    return null;
+                }))
+                .collect(toList());
+
+        long deadline = System.currentTimeMillis() + CELL_DATA_TIMEOUT_MILLIS;
+        try {
+            for (Future<?> worker : workers) {
+                worker.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted whilst waiting for report grid cell data", e);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(format(
+                    "Report grid cell data was not fetched within %dms",
+                    CELL_DATA_TIMEOUT_MILLIS));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException
+                    ? (RuntimeException) cause
+                    : new IllegalStateException("Could not fetch report grid cell data", cause);
+        } finally {
+            // no-op when all workers completed, otherwise stops the remaining queries
+            abandoned.set(true);
+            workers.forEach(w -> w.cancel(true));
+        }
+    }
+
+
+    /**
+     * Each chunk gives the costs of its own latest year for each cost kind,
+     * only the latest year across all chunks is shown in the grid.
+     */
+    private Function<Tuple2<Map<Long, Integer>, ReportGridCells>, ReportGridCells> selectLatestCosts(
+            List<Tuple2<Map<Long, Integer>, ReportGridCells>> chunkCosts) {
+
+        Map<Long, Integer> latestYearByCostKind = new HashMap<>();
+        chunkCosts.forEach(t -> t.v1.forEach((costKindId, year) -> latestYearByCostKind.merge(costKindId, year, Math::max)));
+
+        return t -> {
+            ReportGridCells latest = new ReportGridCells();
+            for (int row = 0; row < t.v2.size(); row++) {
+                long costKindId = t.v2.columnEntityId(row);
+                if (t.v1.get(costKindId).equals(latestYearByCostKind.get(costKindId))) {
+                    latest.addRow(t.v2, row);
+                }
+            }
+            return latest;
+        };
+    }
+
+
+    private ReportGridCells fetchInvolvementData(Collection<Long> appIds,
+                                                 Set<Long> requiredInvolvementKinds) {
+        ReportGridCells cells = new ReportGridCells();
         if (requiredInvolvementKinds.size() == 0) {
-            return emptySet();
+            return cells;
         } else {
-            return SetUtilities.fromCollection(dsl
-                    .select(
+            dsl
+                    .selectDistinct(
                             inv.ENTITY_ID,
                             inv.KIND_ID,
                             p.EMAIL)
                     .from(inv)
                     .innerJoin(p).on(p.EMPLOYEE_ID.eq(inv.EMPLOYEE_ID))
                     .where(inv.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
-                    .and(inv.ENTITY_ID.in(appSelector))
+                    .and(inv.ENTITY_ID.in(appIds))
                     .and(inv.KIND_ID.in(requiredInvolvementKinds))
                     .and(p.IS_REMOVED.isFalse())
-                    .fetchSet(r -> ImmutableReportGridCell
-                            .builder()
-                            .applicationId(r.get(inv.ENTITY_ID))
-                            .columnEntityId(r.get(inv.KIND_ID))
-                            .columnEntityKind(EntityKind.INVOLVEMENT_KIND)
-                            .text(r.get(p.EMAIL))
-                            .build())
-                    // we now convert to a map so we can merge text values of cells with the same coordinates (appId, entId)
+                    .fetch()
+                    // merge the emails of cells with the same coordinates (appId, entId)
                     .stream()
                     .collect(toMap(
-                            c -> tuple(c.applicationId(), c.columnEntityId()),
-                            identity(),
-                            (a, b) -> ImmutableReportGridCell
-                                    .copyOf(a)
-                                    .withText(a.text() + "; " + b.text())))
-                    // and then we simply return the values of that temporary map.
-                    .values());
+                            r -> tuple(r.get(inv.ENTITY_ID), r.get(inv.KIND_ID)),
+                            r -> r.get(p.EMAIL),
+                            (a, b) -> a + "; " + b))
+                    .forEach((appAndKind, emails) -> cells.add(
+                            EntityKind.INVOLVEMENT_KIND,
+                            appAndKind.v2,
+                            appAndKind.v1,
+                            null,
+                            null,
+                            emails,
+                            null));
+            return cells;
         }
     }
 
 
-    private Set<ReportGridCell> fetchCostData(Select<Record1<Long>> appSelector,
-                                              Set<Long> requiredCostKinds) {
+    /**
+     * @return the latest year of each cost kind within the given apps, and the cost cells for those years
+     */
+    private Tuple2<Map<Long, Integer>, ReportGridCells> fetchCostData(Collection<Long> appIds,
+                                                                      Set<Long> requiredCostKinds) {
+
+        Map<Long, Integer> yearsByCostKind = new HashMap<>();
+        ReportGridCells cells = new ReportGridCells();
 
         if (requiredCostKinds.size() == 0) {
-            return emptySet();
+            return tuple(yearsByCostKind, cells);
         } else {
 
             SelectHavingStep<Record2<Long, Integer>> costKindLastestYear = dsl
                     .select(COST.COST_KIND_ID, DSL.max(COST.YEAR).as("latest_year"))
                     .from(COST)
-                    .where(dsl.renderInlined(COST.ENTITY_ID.in(appSelector)
+                    .where(maybeInline(dsl, COST.ENTITY_ID.in(appIds)
                             .and(COST.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))))
                     .groupBy(COST.COST_KIND_ID);
 
             Condition latestYearForKind = c.COST_KIND_ID.eq(costKindLastestYear.field(COST.COST_KIND_ID))
                     .and(c.YEAR.eq(costKindLastestYear.field("latest_year", Integer.class)));
 
-            return dsl
+            dsl
                     .select(c.ENTITY_ID,
                             c.COST_KIND_ID,
+                            c.YEAR,
                             c.AMOUNT)
                     .from(c)
                     .innerJoin(costKindLastestYear).on(latestYearForKind)
-                    .where(dsl.renderInlined(c.COST_KIND_ID.in(requiredCostKinds)
+                    .where(maybeInline(dsl, c.COST_KIND_ID.in(requiredCostKinds)
                             .and(c.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
-                            .and(c.ENTITY_ID.in(appSelector))))
-                    .fetchSet(r -> ImmutableReportGridCell.builder()
-                            .applicationId(r.get(c.ENTITY_ID))
-                            .columnEntityId(r.get(c.COST_KIND_ID))
-                            .columnEntityKind(EntityKind.COST_KIND)
-                            .value(r.get(c.AMOUNT))
-                            .build());
+                            .and(c.ENTITY_ID.in(appIds))))
+                    .fetch()
+                    .forEach(r -> {
+                        yearsByCostKind.put(r.get(c.COST_KIND_ID), r.get(c.YEAR));
+                        cells.add(
+                                EntityKind.COST_KIND,
+                                r.get(c.COST_KIND_ID),
+                                r.get(c.ENTITY_ID),
+                                null,
+                                r.get(c.AMOUNT),
+                                null,
+                                null);
+                    });
+
+            return tuple(yearsByCostKind, cells);
         }
     }
 
 
-    private Set<ReportGridCell> fetchSummaryMeasurableData(Select<Record1<Long>> appSelector,
-                                                           Set<Long> measurableIdsUsingHighest,
-                                                           Set<Long> measurableIdsUsingLowest) {
+    private ReportGridCells fetchSummaryMeasurableData(Collection<Long> appIds,
+                                                       Set<Long> measurableIdsUsingHighest,
+                                                       Set<Long> measurableIdsUsingLowest) {
 
+        ReportGridCells cells = new ReportGridCells();
         if (measurableIdsUsingHighest.size() == 0 && measurableIdsUsingLowest.size() == 0){
-            return emptySet();
+            return cells;
         }
 
         Table<Record5<Long, String, Long, Integer, String>> ratingSchemeItems = DSL
@@ -454,11 +670,10 @@ public class ReportGridDao {
                     .on(m.MEASURABLE_CATEGORY_ID.eq(ratingSchemeItems.field("mcId", Long.class)))
                     .and(mr.RATING.eq(ratingSchemeItems.field("rsiCode", String.class)))
                 .where(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
-                .and(mr.ENTITY_ID.in(appSelector))
+                .and(mr.ENTITY_ID.in(appIds))
                 .and(m.ID.in(union(measurableIdsUsingHighest, measurableIdsUsingLowest)));
 
-        return dsl
-                .resultQuery(dsl.renderInlined(ratings))
+        maybeInline(dsl, ratings)
                 .fetchGroups(
                         r -> tuple(
                                 mkRef(EntityKind.APPLICATION, r.get(mr.ENTITY_ID)),
@@ -467,13 +682,9 @@ public class ReportGridDao {
                                 r.get("rsiId", Long.class),
                                 r.get("rsiPos", Integer.class),
                                 r.get("rsiName", String.class)))
-                .entrySet()
-                .stream()
-                .map(e -> {
-                    Tuple2<EntityReference, Long> entityAndMeasurable = e.getKey();
+                .forEach((entityAndMeasurable, ratingsForEntityAndMeasurable) -> {
                     Long measurableId = entityAndMeasurable.v2();
                     long applicationId = entityAndMeasurable.v1().id();
-                    List<Tuple3<Long, Integer, String>> ratingsForEntityAndMeasurable = e.getValue();
 
                     ToIntFunction<Tuple3<Long, Integer, String>> compareByPositionAsc = t -> t.v2;
                     ToIntFunction<Tuple3<Long, Integer, String>> compareByPositionDesc = t -> t.v2 * -1;
@@ -485,28 +696,29 @@ public class ReportGridDao {
                                     : compareByPositionDesc)
                             .thenComparing(compareByName);
 
-                    return ratingsForEntityAndMeasurable
+                    ratingsForEntityAndMeasurable
                             .stream()
                             .min(cmp)
-                            .map(t -> ImmutableReportGridCell
-                                    .builder()
-                                    .applicationId(applicationId)
-                                    .columnEntityId(measurableId)
-                                    .columnEntityKind(EntityKind.MEASURABLE)
-                                    .ratingId(t.v1)
-                                    .build())
-                            .orElse(null);
-                })
-                .filter(Objects::nonNull)
-                .collect(toSet());
+                            .ifPresent(t -> cells.add(
+                                    EntityKind.MEASURABLE,
+                                    measurableId,
+                                    applicationId,
+                                    t.v1,
+                                    null,
+                                    null,
+                                    null));
+                });
+
+        return cells;
     }
 
 
-    private Set<ReportGridCell> fetchExactMeasurableData(Select<Record1<Long>> appSelector,
-                                                         Set<Long> exactMeasurableIds) {
+    private ReportGridCells fetchExactMeasurableData(Collection<Long> appIds,
+                                                     Set<Long> exactMeasurableIds) {
 
+        ReportGridCells cells = new ReportGridCells();
         if (exactMeasurableIds.size() == 0) {
-            return emptySet();
+            return cells;
         }
 
         SelectConditionStep<Record4<Long, Long, Long, String>> qry = dsl
@@ -519,27 +731,31 @@ public class ReportGridDao {
                 .innerJoin(mc).on(mc.ID.eq(m.MEASURABLE_CATEGORY_ID))
                 .innerJoin(rsi).on(rsi.CODE.eq(mr.RATING)).and(rsi.SCHEME_ID.eq(mc.RATING_SCHEME_ID))
                 .where(mr.MEASURABLE_ID.in(exactMeasurableIds))
-                .and(mr.ENTITY_ID.in(appSelector))
+                .and(mr.ENTITY_ID.in(appIds))
                 .and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name()));
 
-        return  dsl
-                .resultQuery(dsl.renderInlined(qry))
-                .fetchSet(r -> ImmutableReportGridCell.builder()
-                        .applicationId(r.get(mr.ENTITY_ID))
-                        .columnEntityId(r.get(mr.MEASURABLE_ID))
-                        .columnEntityKind(EntityKind.MEASURABLE)
-                        .ratingId(r.get(rsi.ID))
-                        .comment(r.get(mr.DESCRIPTION))
-                        .build());
+        maybeInline(dsl, qry)
+                .fetch()
+                .forEach(r -> cells.add(
+                        EntityKind.MEASURABLE,
+                        r.get(mr.MEASURABLE_ID),
+                        r.get(mr.ENTITY_ID),
+                        r.get(rsi.ID),
+                        null,
+                        null,
+                        r.get(mr.DESCRIPTION)));
+
+        return cells;
     }
 
 
-    private Set<ReportGridCell> fetchAssessmentData(Select<Record1<Long>> appSelector,
-                                                    Set<Long> requiredAssessmentDefinitionIds) {
+    private ReportGridCells fetchAssessmentData(Collection<Long> appIds,
+                                                Set<Long> requiredAssessmentDefinitionIds) {
+        ReportGridCells cells = new ReportGridCells();
         if (requiredAssessmentDefinitionIds.size() == 0) {
-            return emptySet();
+            return cells;
         } else {
-            return dsl
+            dsl
                     .select(ar.ENTITY_ID,
                             ar.ASSESSMENT_DEFINITION_ID,
                             ar.RATING_ID,
@@ -547,22 +763,26 @@ public class ReportGridDao {
                     .from(ar)
                     .where(ar.ASSESSMENT_DEFINITION_ID.in(requiredAssessmentDefinitionIds)
                             .and(ar.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
-                            .and(ar.ENTITY_ID.in(appSelector)))
-                    .fetchSet(r -> ImmutableReportGridCell.builder()
-                            .applicationId(r.get(ar.ENTITY_ID))
-                            .columnEntityId(r.get(ar.ASSESSMENT_DEFINITION_ID))
-                            .columnEntityKind(EntityKind.ASSESSMENT_DEFINITION)
-                            .ratingId(r.get(ar.RATING_ID))
-                            .comment(r.get(ar.DESCRIPTION))
-                            .build());
+                            .and(ar.ENTITY_ID.in(appIds)))
+                    .fetch()
+                    .forEach(r -> cells.add(
+                            EntityKind.ASSESSMENT_DEFINITION,
+                            r.get(ar.ASSESSMENT_DEFINITION_ID),
+                            r.get(ar.ENTITY_ID),
+                            r.get(ar.RATING_ID),
+                            null,
+                            null,
+                            r.get(ar.DESCRIPTION)));
+            return cells;
         }
     }
 
 
-    private Set<ReportGridCell> fetchSurveyQuestionResponseData(Select<Record1<Long>> appSelector,
-                                                                Set<Long> requiredSurveyQuestionIds) {
+    private ReportGridCells fetchSurveyQuestionResponseData(Collection<Long> appIds,
+                                                            Set<Long> requiredSurveyQuestionIds) {
+        ReportGridCells cells = new ReportGridCells();
         if (requiredSurveyQuestionIds.size() == 0) {
-            return emptySet();
+            return cells;
         } else {
 
             Field<Long> latest_instance = DSL
@@ -594,7 +814,7 @@ public class ReportGridDao {
                     .on(SURVEY_QUESTION_RESPONSE.SURVEY_INSTANCE_ID.eq(SURVEY_INSTANCE.ID))
                     .where(SURVEY_INSTANCE.STATUS.in(APPROVED.name(), COMPLETED.name())
                             .and(SURVEY_QUESTION.ID.in(requiredSurveyQuestionIds))
-                            .and(SURVEY_INSTANCE.ENTITY_ID.in(appSelector))
+                            .and(SURVEY_INSTANCE.ENTITY_ID.in(appIds))
                             .and(SURVEY_INSTANCE.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
                     .asTable();
 
@@ -606,7 +826,7 @@ public class ReportGridDao {
                     .from(SURVEY_QUESTION_LIST_RESPONSE)
                     .innerJoin(SURVEY_INSTANCE).on(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID.eq(SURVEY_INSTANCE.ID))
                     .where(SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID.in(requiredSurveyQuestionIds))
-                    .and(SURVEY_INSTANCE.ENTITY_ID.in(appSelector))
+                    .and(SURVEY_INSTANCE.ENTITY_ID.in(appIds))
                     .and(SURVEY_INSTANCE.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
                     .fetchGroups(
                             k -> tuple(k.get(SURVEY_QUESTION_LIST_RESPONSE.SURVEY_INSTANCE_ID), k.get(SURVEY_QUESTION_LIST_RESPONSE.QUESTION_ID)),
@@ -618,8 +838,9 @@ public class ReportGridDao {
                     .where(responsesWithQuestionTypeAndEntity.field(latest_instance)
                             .eq(responsesWithQuestionTypeAndEntity.field("sid", Long.class)));
 
-            return qry
-                    .fetchSet(r -> {
+            qry
+                    .fetch()
+                    .forEach(r -> {
                         String fieldType = r.get(SURVEY_QUESTION.FIELD_TYPE);
 
                         Long instanceId = r.get("sid", Long.class);
@@ -629,14 +850,16 @@ public class ReportGridDao {
 
                         List<String> listResponses = responsesByInstanceQuestionKey.getOrDefault(tuple(instanceId, questionId), emptyList());
 
-                        return ImmutableReportGridCell.builder()
-                                .applicationId(r.get(SURVEY_INSTANCE.ENTITY_ID))
-                                .columnEntityId(questionId)
-                                .columnEntityKind(EntityKind.SURVEY_QUESTION)
-                                .text(determineDisplayText(fieldType, entityName, response, listResponses))
-                                .comment(r.get(SURVEY_QUESTION_RESPONSE.COMMENT))
-                                .build();
+                        cells.add(
+                                EntityKind.SURVEY_QUESTION,
+                                questionId,
+                                r.get(SURVEY_INSTANCE.ENTITY_ID),
+                                null,
+                                null,
+                                determineDisplayText(fieldType, entityName, response, listResponses),
+                                r.get(SURVEY_QUESTION_RESPONSE.COMMENT));
                     });
+            return cells;
         }
     }
 
@@ -694,5 +917,75 @@ public class ReportGridDao {
                 .where(REPORT_GRID.ID.eq(gridId))
                 .execute() == 1;
     }
-}
 
+
+    /**
+     * The chunk queries for a single column family, their results (one per
+     * chunk, in chunk order) and the total time spent running them.
+     */
+    private static class CellFamilyFetch<T> {
+
+        private final String family;
+        private final boolean required;
+        private final List<List<Long>> appIdChunks;
+        private final Function<List<Long>, T> fetcher;
+        private final AtomicReferenceArray<T> chunkResults;
+        private final AtomicLong queryMillis = new AtomicLong();
+        private int cellCount = 0;
+
+
+        private CellFamilyFetch(String family,
+                                boolean required,
+                                List<List<Long>> appIdChunks,
+                                Function<List<Long>, T> fetcher) {
+            this.family = family;
+            this.required = required;
+            this.appIdChunks = appIdChunks;
+            this.fetcher = fetcher;
+            this.chunkResults = new AtomicReferenceArray<>(appIdChunks.size());
+        }
+
+
+        private void addQueriesTo(Queue<Runnable> queries) {
+            if (required) {
+                IntStream
+                        .range(0, appIdChunks.size())
+                        .forEach(i -> queries.add(() -> {
+                            long start = System.currentTimeMillis();
+                            chunkResults.set(i, fetcher.apply(appIdChunks.get(i)));
+                            queryMillis.addAndGet(System.currentTimeMillis() - start);
+                        }));
+            }
+        }
+
+
+        private List<T> results() {
+            List<T> results = new ArrayList<>();
+            if (required) {
+                for (int i = 0; i < chunkResults.length(); i++) {
+                    results.add(chunkResults.get(i));
+                }
+            }
+            return results;
+        }
+
+
+        private void appendTo(ReportGridCells cells, Function<T, ReportGridCells> toCells) {
+            results().forEach(result -> {
+                ReportGridCells chunkCells = toCells.apply(result);
+                cellCount += chunkCells.size();
+                cells.addAll(chunkCells);
+            });
+        }
+
+
+        private boolean isRequired() {
+            return required;
+        }
+
+
+        private String describe() {
+            return format("%s: %d cells in %dms", family, cellCount, queryMillis.get());
+        }
+    }
+}
@@ -19,6 +19,7 @@
 package org.finos.waltz.data.scheduled_job;
 
 
+import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.model.scheduled_job.JobKey;
 import org.finos.waltz.model.scheduled_job.JobLifecycleStatus;
 import org.jooq.DSLContext;
@@ -26,6 +27,10 @@ import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Timestamp;
+import java.time.Duration;
+
+import static org.finos.waltz.schema.tables.ScheduledJobLease.SCHEDULED_JOB_LEASE;
 import static org.finos.waltz.schema.tables.Settings.SETTINGS;
 import static org.finos.waltz.common.Checks.checkNotNull;
 
@@ -68,4 +73,61 @@ public class ScheduledJobDao {
                 .where(SETTINGS.NAME.eq(jobKey.name()))
                 .execute();
     }
+
+
+    /**
+     * Attempts to claim the lease for a recurring job.  The claim succeeds if the
+     * lease is free or if the current claim is older than the timeout (e.g. the
+     * claiming node crashed or was restarted before releasing it).
+     *
+     * @param jobKey  job to claim
+     * @param claimant  identifies the node making the claim
+     * @param timeout  how long a claim is honoured without being renewed
+     * @return true if the lease is now held by the claimant
+     */
+    public boolean claimLease(JobKey jobKey, String claimant, Duration timeout) {
+        checkNotNull(jobKey, "jobKey cannot be null");
+        checkNotNull(claimant, "claimant cannot be null");
+        checkNotNull(timeout, "timeout cannot be null");
+
+        dsl.insertInto(SCHEDULED_JOB_LEASE)
+                .set(SCHEDULED_JOB_LEASE.JOB_KEY, jobKey.name())
+                .onDuplicateKeyIgnore()
+                .execute();
+
+        Timestamp now = DateTimeUtilities.nowUtcTimestamp();
+        Timestamp staleBefore = new Timestamp(now.getTime() - timeout.toMillis());
+
+        return dsl.update(SCHEDULED_JOB_LEASE)
+                .set(SCHEDULED_JOB_LEASE.CLAIMED_BY, claimant)
+                .set(SCHEDULED_JOB_LEASE.CLAIMED_AT, now)
+                .where(SCHEDULED_JOB_LEASE.JOB_KEY.eq(jobKey.name()))
+                .and(SCHEDULED_JOB_LEASE.CLAIMED_AT.isNull()
+                        .or(SCHEDULED_JOB_LEASE.CLAIMED_AT.lt(staleBefore)))
+                .execute() == 1;
+    }
+
+
+    /**
+     * Extends a lease held by the claimant.
+     *
+     * @return false if the lease is no longer held by the claimant (it has been taken over)
+     */
+    public boolean renewLease(JobKey jobKey, String claimant) {
+        return dsl.update(SCHEDULED_JOB_LEASE)
+                .set(SCHEDULED_JOB_LEASE.CLAIMED_AT, DateTimeUtilities.nowUtcTimestamp())
+                .where(SCHEDULED_JOB_LEASE.JOB_KEY.eq(jobKey.name()))
+                .and(SCHEDULED_JOB_LEASE.CLAIMED_BY.eq(claimant))
+                .execute() == 1;
+    }
+
+
+    public void releaseLease(JobKey jobKey, String claimant) {
+        dsl.update(SCHEDULED_JOB_LEASE)
+                .setNull(SCHEDULED_JOB_LEASE.CLAIMED_BY)
+                .setNull(SCHEDULED_JOB_LEASE.CLAIMED_AT)
+                .where(SCHEDULED_JOB_LEASE.JOB_KEY.eq(jobKey.name()))
+                .and(SCHEDULED_JOB_LEASE.CLAIMED_BY.eq(claimant))
+                .execute();
+    }
 }
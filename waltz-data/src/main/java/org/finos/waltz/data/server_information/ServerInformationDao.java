@@ -47,6 +47,7 @@ import static org.finos.waltz.common.DateTimeUtilities.toSqlDate;
 import static org.jooq.impl.DSL.cast;
 import static org.jooq.impl.DSL.when;
 import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Repository
@@ -181,7 +182,7 @@ public class ServerInformationDao {
                 .selectDistinct(SERVER_INFORMATION.ID, SERVER_INFORMATION.IS_VIRTUAL)
                 .from(SERVER_INFORMATION)
                 .join(SERVER_USAGE).on(SERVER_USAGE.SERVER_ID.eq(SERVER_INFORMATION.ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .fetchGroups(SERVER_INFORMATION.IS_VIRTUAL, r -> 1);
 
         return ImmutableServerSummaryBasicStatistics.builder()
@@ -215,8 +216,7 @@ public class ServerInformationDao {
                 .join(SERVER_USAGE).on(SERVER_USAGE.SERVER_ID.eq(SERVER_INFORMATION.ID))
                 .where(condition);
 
-        Result<? extends Record> serverInfo =  dsl
-                .resultQuery(dsl.renderInlined(qry))
+        Result<? extends Record> serverInfo =  maybeInline(dsl, qry)
                 .fetch();
 
         // We want to use offsets as the column lookup by field can be considerably slower (+400ms) when volumes are high
@@ -298,8 +298,7 @@ public class ServerInformationDao {
                 .and(SERVER_USAGE.ENTITY_KIND.eq(EntityKind.APPLICATION.name()))
                 .groupBy(SERVER_USAGE.ENVIRONMENT);
 
-        return dsl
-                .resultQuery(dsl.renderInlined(qry))
+        return maybeInline(dsl, qry)
                 .fetch()
                 .stream()
                 .map(r -> ImmutableTally.<String>builder()
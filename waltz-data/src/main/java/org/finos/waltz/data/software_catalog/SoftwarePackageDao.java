@@ -40,6 +40,7 @@ import static org.finos.waltz.schema.tables.SoftwareUsage.SOFTWARE_USAGE;
 import static org.finos.waltz.schema.tables.SoftwareVersion.SOFTWARE_VERSION;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.SetUtilities.orderedUnion;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class SoftwarePackageDao implements SearchDao<SoftwarePackage> {
@@ -110,7 +111,7 @@ public class SoftwarePackageDao implements SearchDao<SoftwarePackage> {
                     .on(SOFTWARE_VERSION.SOFTWARE_PACKAGE_ID.eq(SOFTWARE_PACKAGE.ID))
                 .innerJoin(SOFTWARE_USAGE)
                     .on(SOFTWARE_USAGE.ID.eq(SOFTWARE_VERSION.SOFTWARE_PACKAGE_ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(groupingField)
                 .fetch(JooqUtilities.TO_STRING_TALLY);
     }
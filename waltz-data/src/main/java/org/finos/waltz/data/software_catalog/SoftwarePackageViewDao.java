@@ -38,6 +38,7 @@ import java.util.Optional;
 import static org.finos.waltz.schema.tables.SoftwarePackage.SOFTWARE_PACKAGE;
 import static org.finos.waltz.schema.tables.SoftwareUsage.SOFTWARE_USAGE;
 import static org.finos.waltz.schema.tables.SoftwareVersion.SOFTWARE_VERSION;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Repository
 public class SoftwarePackageViewDao {
@@ -115,7 +116,7 @@ public class SoftwarePackageViewDao {
                     .on(SOFTWARE_VERSION.SOFTWARE_PACKAGE_ID.eq(SOFTWARE_PACKAGE.ID))
                 .innerJoin(SOFTWARE_USAGE)
                     .on(SOFTWARE_USAGE.ID.eq(SOFTWARE_VERSION.SOFTWARE_PACKAGE_ID))
-                .where(dsl.renderInlined(condition))
+                .where(maybeInline(dsl, condition))
                 .groupBy(groupingField)
                 .fetch(JooqUtilities.TO_STRING_TALLY);
     }
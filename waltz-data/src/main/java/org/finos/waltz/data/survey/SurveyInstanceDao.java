@@ -22,10 +22,14 @@ import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.data.InlineSelectFieldFactory;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.survey.*;
+import org.finos.waltz.schema.tables.records.SurveyInstanceOwnerRecord;
 import org.finos.waltz.schema.tables.records.SurveyInstanceRecipientRecord;
 import org.finos.waltz.schema.tables.records.SurveyInstanceRecord;
 import org.jooq.*;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.tuple.Tuple3;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Repository;
 
@@ -37,15 +41,19 @@ import java.util.stream.Collectors;
 
 import static java.util.Optional.ofNullable;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.DateTimeUtilities.*;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.JooqUtilities.maybeReadRef;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.schema.Tables.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Repository
 public class SurveyInstanceDao {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyInstanceDao.class);
+
     private static final org.finos.waltz.schema.tables.SurveyInstance si = SURVEY_INSTANCE;
 
     private static final Field<String> ENTITY_NAME_FIELD = InlineSelectFieldFactory
@@ -155,6 +163,133 @@ public class SurveyInstanceDao {
     }
 
 
+    /**
+     * Replaces all instances (and their recipients) of a survey run with the given
+     * issuances.  This is done in a single transaction using batched inserts, as
+     * firm wide runs may issue many thousands of instances.
+     *
+     * Batch inserts do not return generated ids, so the run's (newly emptied)
+     * instances are read back and matched to their issuances on
+     * (entity_kind, entity_id, owning_role).  Instances sharing a key are
+     * identical, so they may be assigned to those issuances in any order.
+     *
+     * @param surveyRunId  run being issued
+     * @param issuances  instances to create along with their owners and recipients
+     * @return number of instances created
+     */
+    public int replaceInstancesForSurveyRun(long surveyRunId, List<SurveyInstanceIssuance> issuances) {
+        checkNotNull(issuances, "issuances cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            long st = System.currentTimeMillis();
+            tx.deleteFrom(SURVEY_INSTANCE_RECIPIENT)
+                    .where(SURVEY_INSTANCE_RECIPIENT.SURVEY_INSTANCE_ID.in(DSL
+                            .select(si.ID)
+                            .from(si)
+                            .where(si.SURVEY_RUN_ID.eq(surveyRunId))))
+                    .execute();
+            tx.deleteFrom(si)
+                    .where(si.SURVEY_RUN_ID.eq(surveyRunId))
+                    .execute();
+            long deletedAt = System.currentTimeMillis();
+
+            List<SurveyInstanceRecord> instanceRecords = issuances
+                    .stream()
+                    .map(issuance -> {
+                        SurveyInstanceCreateCommand command = issuance.instance();
+                        checkTrue(command.surveyRunId() == surveyRunId, "instances must belong to the run being issued");
+                        SurveyInstanceRecord record = tx.newRecord(si);
+                        record.setSurveyRunId(command.surveyRunId());
+                        record.setEntityKind(command.entityReference().kind().name());
+                        record.setEntityId(command.entityReference().id());
+                        record.setStatus(command.status().name());
+                        record.setDueDate(command.dueDate().map(Date::valueOf).orElse(null));
+                        record.setApprovalDueDate(toSqlDate(command.approvalDueDate()));
+                        record.setOwningRole(command.owningRole());
+                        return record;
+                    })
+                    .collect(Collectors.toList());
+
+            if (!instanceRecords.isEmpty()) {
+                tx.batchInsert(instanceRecords).execute();
+            }
+
+            // batch inserts do not give back generated keys, so the new instances are read back and matched
+            // to their issuances by (entity, owning role).  Individually issued runs have several instances
+            // for the same key, these are identical so may be assigned to those issuances in any order.
+            Map<Tuple3<String, Long, String>, Iterator<Long>> instanceIdsByKey = new HashMap<>();
+            tx
+                    .select(si.ID, si.ENTITY_KIND, si.ENTITY_ID, si.OWNING_ROLE)
+                    .from(si)
+                    .where(si.SURVEY_RUN_ID.eq(surveyRunId))
+                    .orderBy(si.ID)
+                    .fetchGroups(
+                            r -> tuple(r.get(si.ENTITY_KIND), r.get(si.ENTITY_ID), r.get(si.OWNING_ROLE)),
+                            r -> r.get(si.ID))
+                    .forEach((key, ids) -> instanceIdsByKey.put(key, ids.iterator()));
+            long instancesCreatedAt = System.currentTimeMillis();
+
+            List<SurveyInstanceOwnerRecord> ownerRecords = new ArrayList<>();
+            List<SurveyInstanceRecipientRecord> recipientRecords = new ArrayList<>();
+
+            for (SurveyInstanceIssuance issuance : issuances) {
+                SurveyInstanceCreateCommand command = issuance.instance();
+                Iterator<Long> instanceIds = instanceIdsByKey.getOrDefault(
+                        tuple(command.entityReference().kind().name(), command.entityReference().id(), command.owningRole()),
+                        Collections.emptyIterator());
+
+                checkTrue(
+                        instanceIds.hasNext(),
+                        "No instance found in survey run %d for %s (owning role: %s)",
+                        surveyRunId,
+                        command.entityReference(),
+                        command.owningRole());
+
+                Long instanceId = instanceIds.next();
+
+                issuance.ownerIds().forEach(personId -> {
+                    SurveyInstanceOwnerRecord record = tx.newRecord(SURVEY_INSTANCE_OWNER);
+                    record.setSurveyInstanceId(instanceId);
+                    record.setPersonId(personId);
+                    ownerRecords.add(record);
+                });
+
+                issuance.recipientIds().forEach(personId -> {
+                    SurveyInstanceRecipientRecord record = tx.newRecord(SURVEY_INSTANCE_RECIPIENT);
+                    record.setSurveyInstanceId(instanceId);
+                    record.setPersonId(personId);
+                    recipientRecords.add(record);
+                });
+            }
+
+            if (!ownerRecords.isEmpty()) {
+                tx.batchInsert(ownerRecords).execute();
+            }
+            long ownersCreatedAt = System.currentTimeMillis();
+
+            if (!recipientRecords.isEmpty()) {
+                tx.batchInsert(recipientRecords).execute();
+            }
+            long recipientsCreatedAt = System.currentTimeMillis();
+
+            LOG.info(
+                    "Issued survey run {}: {} instances, {} owners, {} recipients. Timings(ms) - delete: {}, instances: {}, owners: {}, recipients: {}",
+                    surveyRunId,
+                    issuances.size(),
+                    ownerRecords.size(),
+                    recipientRecords.size(),
+                    deletedAt - st,
+                    instancesCreatedAt - deletedAt,
+                    ownersCreatedAt - instancesCreatedAt,
+                    recipientsCreatedAt - ownersCreatedAt);
+
+            return issuances.size();
+        });
+    }
+
+
     public long createPreviousVersion(SurveyInstance currentInstance) {
         checkNotNull(currentInstance, "currentInstance cannot be null");
 
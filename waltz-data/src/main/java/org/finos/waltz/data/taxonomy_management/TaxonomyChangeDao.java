@@ -174,7 +174,12 @@ public class TaxonomyChangeDao {
 
 
     public TaxonomyChangeCommand update(TaxonomyChangeCommand cmd) {
-        TaxonomyChangeRecord r = TO_RECORD_MAPPER.apply(cmd, dsl);
+        return update(dsl, cmd);
+    }
+
+
+    public TaxonomyChangeCommand update(DSLContext tx, TaxonomyChangeCommand cmd) {
+        TaxonomyChangeRecord r = TO_RECORD_MAPPER.apply(cmd, tx);
         r.update();
         return cmd;
     }
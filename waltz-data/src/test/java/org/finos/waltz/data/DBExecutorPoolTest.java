@@ -0,0 +1,139 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DBExecutorPoolTest {
+
+    @Test
+    public void tasksAreExecuted() throws Exception {
+        DBExecutorPool pool = new DBExecutorPool(2, 10, 0);
+
+        Future<Integer> future = pool.submit(() -> 42);
+
+        assertEquals(42, future.get());
+        DBExecutorPoolStats stats = pool.getStats();
+        assertEquals(2, stats.threadCount());
+        assertEquals(10, stats.queueCapacity());
+    }
+
+
+    @Test
+    public void tasksRunOnCallerWhenQueueIsFull() throws Exception {
+        DBExecutorPool pool = new DBExecutorPool(1, 1, 0);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        Future<String> blocker = pool.submit(() -> {
+            started.countDown();
+            release.await();
+            return "blocker";
+        });
+        started.await();
+
+        Future<String> queued = pool.submit(() -> "queued");
+
+        AtomicReference<String> ranOn = new AtomicReference<>();
+        Future<String> callerRun = pool.submit(() -> {
+            ranOn.set(Thread.currentThread().getName());
+            return "caller";
+        });
+
+        assertEquals("caller", callerRun.get(), "task should have completed immediately on the caller");
+        assertEquals(Thread.currentThread().getName(), ranOn.get());
+        assertEquals(1, pool.getStats().callerRunsCount());
+        assertEquals(1, pool.getStats().queuedCount());
+
+        release.countDown();
+        assertEquals("blocker", blocker.get());
+        assertEquals("queued", queued.get());
+    }
+
+
+    @Test
+    public void tasksExceedingTheirDeadlineAreCancelled() throws Exception {
+        DBExecutorPool pool = new DBExecutorPool(1, 10, 0);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> slow = pool.submit(
+                () -> {
+                    release.await();
+                    return "slow";
+                },
+                50,
+                TimeUnit.MILLISECONDS);
+
+        assertThrows(CancellationException.class, slow::get);
+        assertTrue(slow.isCancelled());
+        awaitTimedOutCount(pool, 1);
+
+        release.countDown();
+        assertEquals("next", pool.submit(() -> "next").get(), "pool should still be usable");
+    }
+
+
+
+    @Test
+    public void tasksWithoutADeadlineAreNotCancelled() throws Exception {
+        DBExecutorPool pool = new DBExecutorPool(2, 10);
+
+        Future<String> slow = pool.submit(() -> {
+            Thread.sleep(100);
+            return "slow";
+        });
+
+        assertEquals("slow", slow.get());
+        assertEquals(0, pool.getStats().timedOutCount());
+    }
+
+
+    @Test
+    public void completedTasksAreNotCountedAsTimedOut() throws Exception {
+        DBExecutorPool pool = new DBExecutorPool(1, 10, 0);
+
+        Future<String> quick = pool.submit(() -> "quick", 50, TimeUnit.MILLISECONDS);
+
+        assertEquals("quick", quick.get());
+        Thread.sleep(100);
+        assertEquals(0, pool.getStats().timedOutCount());
+    }
+
+
+    /**
+     * The count is updated just after the waiting caller is released, so allow it a moment.
+     */
+    private static void awaitTimedOutCount(DBExecutorPool pool, long expected) throws InterruptedException {
+        long giveUpAt = System.currentTimeMillis() + 1_000;
+        while (pool.getStats().timedOutCount() != expected && System.currentTimeMillis() < giveUpAt) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, pool.getStats().timedOutCount());
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.data;
+
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.SQLDialect;
+import org.jooq.Select;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
+import static org.finos.waltz.schema.tables.Application.APPLICATION;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JooqUtilities_MaybeInlineTest {
+
+    private static final Condition CONDITION = APPLICATION.ID.in(1L, 2L).and(APPLICATION.NAME.eq("test"));
+    private static final Select<Record1<Long>> QUERY = DSL.select(APPLICATION.ID).from(APPLICATION).where(CONDITION);
+
+
+    @Test
+    public void inlinesByDefault() {
+        DSLContext dsl = DSL.using(SQLDialect.H2);
+
+        assertTrue(JooqUtilities.isInliningSelectors(dsl));
+        assertTrue(dsl.extractBindValues(maybeInline(dsl, CONDITION)).isEmpty());
+        assertTrue(dsl.render(maybeInline(dsl, CONDITION)).contains("'test'"));
+        assertTrue(dsl.extractBindValues(maybeInline(dsl, QUERY)).isEmpty());
+    }
+
+
+    @Test
+    public void bindValuesAreKeptIfConfigured() {
+        DSLContext dsl = DSL.using(SQLDialect.H2);
+        dsl.configuration().data(JooqUtilities.INLINE_SELECTORS_KEY, false);
+
+        assertFalse(JooqUtilities.isInliningSelectors(dsl));
+        assertSame(CONDITION, maybeInline(dsl, CONDITION));
+        assertEquals(3, dsl.extractBindValues(maybeInline(dsl, QUERY)).size());
+        assertEquals(dsl.render(QUERY), dsl.render(maybeInline(dsl, QUERY)));
+    }
+
+}
@@ -6,8 +6,14 @@ import liquibase.integration.spring.SpringLiquibase;
 import org.finos.waltz.common.ExcludeFromIntegrationTesting;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.JooqUtilities;
+import org.finos.waltz.service.QueryPerformanceListener;
+import org.finos.waltz.service.TableChangeListener;
+import org.finos.waltz.service.query_performance.QueryPerformanceRegistry;
+import org.finos.waltz.service.table_change.TableChangeTracker;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
+import org.jooq.TransactionListener;
 import org.jooq.conf.RenderQuotedNames;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
@@ -50,19 +56,46 @@ public class DIInMemoryTestConfiguration {
     }
 
 
+    @Bean
+    public QueryPerformanceRegistry queryPerformanceRegistry() {
+        return new QueryPerformanceRegistry(500);
+    }
+
+
+    @Bean
+    public TableChangeTracker tableChangeTracker() {
+        return new TableChangeTracker();
+    }
+
+
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(DataSource dataSource,
+                          QueryPerformanceRegistry queryPerformanceRegistry,
+                          TableChangeTracker tableChangeTracker) {
         Settings dslSettings = new Settings()
                 .withRenderFormatted(true)
                 .withDebugInfoOnStackTrace(true)
                 .withRenderQuotedNames(RenderQuotedNames.ALWAYS)
                 .withExecuteLogging(true);
 
+        // as in production selectors are inlined by default, run with -Ddatabase.selectors.inline=false to test bind mode
+        boolean inlineSelectors = Boolean.parseBoolean(System.getProperty("database.selectors.inline", "true"));
+        if (! inlineSelectors) {
+            dslSettings.withInListPadding(true);
+        }
+
+        TableChangeListener tableChangeListener = new TableChangeListener(tableChangeTracker);
+
         org.jooq.Configuration configuration = new DefaultConfiguration()
                 .set(dataSource)
                 .set(dslSettings)
-                .set(SQLDialect.H2);
+                .set(SQLDialect.H2)
+                .set(new QueryPerformanceListener(queryPerformanceRegistry, 10_000),
+                     tableChangeListener)
+                .set((TransactionListener) tableChangeListener);
+
+        configuration.data(JooqUtilities.INLINE_SELECTORS_KEY, inlineSelectors);
 
         return DSL.using(configuration);
     }
@@ -0,0 +1,137 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.entity_statistic.EntityStatisticSummaryDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtcTimestamp;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.tables.EntityStatisticValue.ENTITY_STATISTIC_VALUE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntityStatisticSummaryDaoTest extends BaseInMemoryIntegrationTest {
+
+    private static final long STAT_A = 9001L;
+    private static final long STAT_B = 9002L;
+    private static final long STAT_WITHOUT_VALUES = 9003L;
+
+    private final ApplicationIdSelectorFactory idSelectorFactory = new ApplicationIdSelectorFactory();
+
+    @Autowired
+    private EntityStatisticSummaryDao summaryDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void summariesForManyStatisticsAreSplitPerStatistic() {
+        EntityReference app1 = appHelper.createNewApp(mkName("esSummary1"), ouIds.a);
+        EntityReference app2 = appHelper.createNewApp(mkName("esSummary2"), ouIds.a);
+
+        insertValue(STAT_A, app1, "RED", "2");
+        insertValue(STAT_A, app2, "RED", "4");
+        insertValue(STAT_A, app2, "GREEN", "10");
+        insertValue(STAT_B, app1, "BLUE", "1");
+
+        Select<Record1<Long>> appIdSelector = idSelectorFactory.apply(mkOpts(
+                mkRef(EntityKind.ORG_UNIT, ouIds.a),
+                HierarchyQueryScope.EXACT));
+
+        List<TallyPack<String>> counts = summaryDao.generateWithCountByEntity(
+                newArrayList(STAT_WITHOUT_VALUES, STAT_B, STAT_A),
+                appIdSelector);
+
+        assertEquals(3, counts.size());
+        assertEquals(STAT_WITHOUT_VALUES, counts.get(0).entityReference().id(), "packs should follow the requested order");
+        assertTrue(counts.get(0).tallies().isEmpty(), "statistics without values should have an empty pack");
+        assertEquals(STAT_B, counts.get(1).entityReference().id());
+        assertEquals(STAT_A, counts.get(2).entityReference().id());
+
+        Map<String, Double> statACounts = toCountsByOutcome(counts.get(2));
+        assertEquals(2.0, statACounts.get("RED"));
+        assertEquals(1.0, statACounts.get("GREEN"));
+        assertEquals(1.0, toCountsByOutcome(counts.get(1)).get("BLUE"));
+
+        List<TallyPack<String>> sums = summaryDao.generateWithSumByValue(
+                newArrayList(STAT_A, STAT_B),
+                appIdSelector);
+
+        Map<String, Double> statASums = toCountsByOutcome(sums.get(0));
+        assertEquals(6.0, statASums.get("RED"));
+        assertEquals(10.0, statASums.get("GREEN"));
+
+        List<TallyPack<String>> noRollup = summaryDao.generateWithNoRollup(
+                newArrayList(STAT_A, STAT_B),
+                app2);
+
+        assertEquals(2, noRollup.size());
+        assertEquals(2, noRollup.get(0).tallies().size());
+        assertTrue(noRollup.get(1).tallies().isEmpty(), "app2 has no values for stat B");
+    }
+
+
+    private Map<String, Double> toCountsByOutcome(TallyPack<String> pack) {
+        return pack
+                .tallies()
+                .stream()
+                .collect(toMap(Tally::id, Tally::count));
+    }
+
+
+    private void insertValue(long statisticId, EntityReference ref, String outcome, String value) {
+        Timestamp now = nowUtcTimestamp();
+        dsl.insertInto(ENTITY_STATISTIC_VALUE)
+                .set(ENTITY_STATISTIC_VALUE.STATISTIC_ID, statisticId)
+                .set(ENTITY_STATISTIC_VALUE.ENTITY_KIND, ref.kind().name())
+                .set(ENTITY_STATISTIC_VALUE.ENTITY_ID, ref.id())
+                .set(ENTITY_STATISTIC_VALUE.OUTCOME, outcome)
+                .set(ENTITY_STATISTIC_VALUE.VALUE, value)
+                .set(ENTITY_STATISTIC_VALUE.STATE, "PROVIDED")
+                .set(ENTITY_STATISTIC_VALUE.CREATED_AT, now)
+                .set(ENTITY_STATISTIC_VALUE.CURRENT, true)
+                .execute();
+    }
+}
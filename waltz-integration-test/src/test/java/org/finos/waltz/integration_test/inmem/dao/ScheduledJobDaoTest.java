@@ -0,0 +1,103 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.dao;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.data.scheduled_job.ScheduledJobDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.scheduled_job.JobKey;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+
+import static org.finos.waltz.schema.tables.ScheduledJobLease.SCHEDULED_JOB_LEASE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ScheduledJobDaoTest extends BaseInMemoryIntegrationTest {
+
+    private static final JobKey JOB = JobKey.DATA_TYPE_USAGE_RECALC_PENDING;
+    private static final Duration TIMEOUT = Duration.ofMinutes(10);
+
+    @Autowired
+    private ScheduledJobDao scheduledJobDao;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @BeforeEach
+    public void clearLease() {
+        dsl.deleteFrom(SCHEDULED_JOB_LEASE)
+                .where(SCHEDULED_JOB_LEASE.JOB_KEY.eq(JOB.name()))
+                .execute();
+    }
+
+
+    @Test
+    public void onlyOneNodeCanHoldTheLease() {
+        assertTrue(scheduledJobDao.claimLease(JOB, "node-a", TIMEOUT));
+        assertFalse(scheduledJobDao.claimLease(JOB, "node-b", TIMEOUT), "lease is held by node-a");
+
+        scheduledJobDao.releaseLease(JOB, "node-a");
+        assertTrue(scheduledJobDao.claimLease(JOB, "node-b", TIMEOUT), "lease was released");
+    }
+
+
+    @Test
+    public void staleLeaseLeftByACrashedNodeCanBeTakenOver() {
+        claimedAt("crashed-node", Duration.ofMinutes(30));
+
+        assertTrue(scheduledJobDao.claimLease(JOB, "node-b", TIMEOUT), "stale lease should be taken over");
+        assertFalse(scheduledJobDao.renewLease(JOB, "crashed-node"), "original holder no longer has the lease");
+
+        scheduledJobDao.releaseLease(JOB, "crashed-node");
+        assertEquals(
+                "node-b",
+                dsl.select(SCHEDULED_JOB_LEASE.CLAIMED_BY)
+                        .from(SCHEDULED_JOB_LEASE)
+                        .where(SCHEDULED_JOB_LEASE.JOB_KEY.eq(JOB.name()))
+                        .fetchOne(SCHEDULED_JOB_LEASE.CLAIMED_BY),
+                "a release by the former holder should not affect the new claim");
+    }
+
+
+    @Test
+    public void recentLeaseIsNotTakenOver() {
+        claimedAt("busy-node", Duration.ofMinutes(2));
+
+        assertFalse(scheduledJobDao.claimLease(JOB, "node-b", TIMEOUT));
+        assertTrue(scheduledJobDao.renewLease(JOB, "busy-node"));
+    }
+
+
+    private void claimedAt(String claimant, Duration age) {
+        Timestamp claimedAt = new Timestamp(DateTimeUtilities.nowUtcTimestamp().getTime() - age.toMillis());
+        dsl.insertInto(SCHEDULED_JOB_LEASE)
+                .set(SCHEDULED_JOB_LEASE.JOB_KEY, JOB.name())
+                .set(SCHEDULED_JOB_LEASE.CLAIMED_BY, claimant)
+                .set(SCHEDULED_JOB_LEASE.CLAIMED_AT, claimedAt)
+                .execute();
+    }
+}
@@ -0,0 +1,51 @@
+package org.finos.waltz.integration_test.inmem.helpers;
+
+import org.finos.waltz.data.flow_classification_rule.FlowClassificationRuleDao;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleCreateCommand;
+import org.finos.waltz.schema.tables.records.FlowClassificationRecord;
+import org.jooq.DSLContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.schema.Tables.FLOW_CLASSIFICATION;
+
+@Service
+public class FlowClassificationHelper {
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private FlowClassificationRuleDao flowClassificationRuleDao;
+
+
+    public Long createFlowClassification(String code) {
+        FlowClassificationRecord record = dsl.newRecord(FLOW_CLASSIFICATION);
+        record.setName(code);
+        record.setDescription(code);
+        record.setCode(code);
+        record.setColor("#00ff00");
+        record.insert();
+        return record.getId();
+    }
+
+
+    public Long createRule(EntityReference parent, EntityReference app, Long dataTypeId, Long classificationId) {
+        return flowClassificationRuleDao.insert(
+                ImmutableFlowClassificationRuleCreateCommand
+                        .builder()
+                        .parentReference(parent)
+                        .applicationId(app.id())
+                        .dataTypeId(dataTypeId)
+                        .classificationId(classificationId)
+                        .description("test rule")
+                        .build(),
+                "flowClassificationHelper");
+    }
+
+
+    public int removeRule(Long ruleId) {
+        return flowClassificationRuleDao.remove(ruleId);
+    }
+}
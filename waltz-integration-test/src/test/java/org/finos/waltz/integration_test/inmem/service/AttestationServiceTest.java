@@ -20,6 +20,7 @@ package org.finos.waltz.integration_test.inmem.service;
 
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.OptionalUtilities;
+import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.exception.UpdateFailedException;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
 import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
@@ -47,6 +48,7 @@ import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkUserId
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.tables.AttestationInstance.ATTESTATION_INSTANCE;
+import static org.finos.waltz.schema.tables.AttestationRun.ATTESTATION_RUN;
 import static org.junit.jupiter.api.Assertions.*;
 
 public class AttestationServiceTest extends BaseInMemoryIntegrationTest {
@@ -255,4 +257,62 @@ public class AttestationServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void pendingRunsAreIssuedWithAnInstancePerInvolvedEntity() {
+        String stem = "pendingRunsAreIssued";
+        long invId = involvementHelper.mkInvolvementKind(mkName(stem));
+
+        AttestationRunCreateCommand cmd = ImmutableAttestationRunCreateCommand.builder()
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .targetEntityKind(EntityKind.APPLICATION)
+                .attestedEntityKind(EntityKind.LOGICAL_DATA_FLOW)
+                .selectionOptions(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.b)))
+                .addInvolvementKindIds(invId)
+                .name(mkName(stem))
+                .description("pendingRunsAreIssued Desc")
+                .sendEmailNotifications(false)
+                .build();
+
+        Long runId = arSvc
+                .create(mkUserId(stem), cmd)
+                .id()
+                .orElseThrow(() -> new AssertionError("Failed to create run"));
+
+        assertTrue(aiSvc.findByRunId(runId).isEmpty(), "no one is involved yet so no instances expected");
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.b);
+        EntityReference appB = appHelper.createNewApp(mkName(stem, "appB"), ouIds.b);
+        EntityReference appC = appHelper.createNewApp(mkName(stem, "appC"), ouIds.b);
+
+        String u1 = mkName(stem, "u1");
+        String u2 = mkName(stem, "u2");
+        String removed = mkName(stem, "removed");
+        Long u1Id = personHelper.createPerson(u1);
+        Long u2Id = personHelper.createPerson(u2);
+        Long removedId = personHelper.createPerson(removed);
+        personHelper.updateIsRemoved(removedId, true);
+
+        involvementHelper.createInvolvement(u1Id, invId, appA);
+        involvementHelper.createInvolvement(u2Id, invId, appA);
+        involvementHelper.createInvolvement(u2Id, invId, appB);
+        involvementHelper.createInvolvement(removedId, invId, appC);
+
+        dsl.update(ATTESTATION_RUN)
+                .set(ATTESTATION_RUN.STATUS, AttestationStatus.PENDING.name())
+                .where(ATTESTATION_RUN.ID.eq(runId))
+                .execute();
+
+        assertTrue(arSvc.issueInstancesForPendingRuns() >= 1, "our run should have been issued");
+        assertEquals(AttestationStatus.ISSUED, arSvc.getById(runId).status());
+
+        List<AttestationInstance> instances = aiSvc.findByRunId(runId);
+        assertEquals(
+                asSet(appA.id(), appB.id()),
+                SetUtilities.map(instances, i -> i.parentEntity().id()),
+                "app C only has a removed person involved so should not have an instance");
+
+        assertEquals(asSet(runId), SetUtilities.map(arSvc.findByRecipient(u1), r -> r.id().get()));
+        assertEquals(asSet(runId), SetUtilities.map(arSvc.findByRecipient(u2), r -> r.id().get()));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.changelog.ChangeLogWriter;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkUserId;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ChangeLogWriterTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private ChangeLogDao changeLogDao;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void entriesAreWrittenImmediatelyByDefault() {
+        EntityReference ref = mkRef(EntityKind.APPLICATION, -101L);
+        List<ChangeLog> entries = mkEntries(ref, 1201);
+
+        assertEquals(1201, changeLogService.write(entries));
+        assertEquals(1201, countEntries(ref), "written across several multi-row inserts");
+    }
+
+
+    @Test
+    public void asyncEntriesAreWrittenWhenFlushed() {
+        ChangeLogWriter writer = mkAsyncWriter(1000, 100_000);
+        try {
+            EntityReference ref = mkRef(EntityKind.APPLICATION, -102L);
+
+            assertEquals(3, writer.write(mkEntries(ref, 3)));
+            assertEquals(3, writer.getPendingCount());
+            assertEquals(0, countEntries(ref), "queued, not yet written");
+
+            assertEquals(3, writer.flush());
+            assertEquals(0, writer.getPendingCount());
+            assertEquals(3, countEntries(ref));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+
+    @Test
+    public void queuedEntriesAreWrittenOnShutdown() {
+        ChangeLogWriter writer = mkAsyncWriter(1000, 100_000);
+        EntityReference ref = mkRef(EntityKind.APPLICATION, -103L);
+
+        writer.write(mkEntries(ref, 5));
+        writer.shutdown();
+
+        assertEquals(5, countEntries(ref));
+    }
+
+
+    @Test
+    public void entriesAreWrittenDirectlyWhenTheQueueIsFull() {
+        ChangeLogWriter writer = mkAsyncWriter(2, 100_000);
+        try {
+            EntityReference ref = mkRef(EntityKind.APPLICATION, -104L);
+
+            assertEquals(5, writer.write(mkEntries(ref, 5)));
+            assertFalse(writer.getPendingCount() > 2);
+            writer.flush();
+            assertEquals(5, countEntries(ref));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+
+    @Test
+    public void failedBatchesAreRetriedOnTheNextFlush() {
+        FailingChangeLogDao dao = new FailingChangeLogDao(1);
+        ChangeLogWriter writer = mkAsyncWriter(dao, 1000, 100_000);
+        try {
+            EntityReference ref = mkRef(EntityKind.APPLICATION, -105L);
+
+            writer.write(mkEntries(ref, 4));
+            assertThrows(IllegalStateException.class, writer::flush);
+            assertEquals(4, writer.getPendingCount(), "failed batch is kept for a retry");
+            assertEquals(0, countEntries(ref));
+
+            writer.write(mkEntries(ref, 2));
+            assertEquals(6, writer.flush());
+            assertEquals(0, writer.getPendingCount());
+            assertEquals(6, countEntries(ref));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+
+    @Test
+    public void repeatedlyFailingBatchesAreWrittenIndividually() {
+        FailingChangeLogDao dao = new FailingChangeLogDao(Integer.MAX_VALUE);
+        ChangeLogWriter writer = mkAsyncWriter(dao, 1000, 100_000);
+        try {
+            EntityReference ref = mkRef(EntityKind.APPLICATION, -106L);
+
+            writer.write(mkEntries(ref, 3));
+            assertThrows(IllegalStateException.class, writer::flush);
+            assertThrows(IllegalStateException.class, writer::flush);
+            assertEquals(3, writer.flush(), "third attempt falls back to single row writes");
+            assertEquals(0, writer.getPendingCount());
+            assertEquals(3, countEntries(ref));
+        } finally {
+            writer.shutdown();
+        }
+    }
+
+
+    @Test
+    public void entriesAreWrittenIndividuallyIfTheShutdownFlushFails() {
+        FailingChangeLogDao dao = new FailingChangeLogDao(Integer.MAX_VALUE);
+        ChangeLogWriter writer = mkAsyncWriter(dao, 1000, 100_000);
+        EntityReference ref = mkRef(EntityKind.APPLICATION, -107L);
+
+        writer.write(mkEntries(ref, 4));
+        writer.shutdown();
+
+        assertEquals(0, writer.getPendingCount());
+        assertEquals(4, countEntries(ref), "entries should not be dropped when the batch write fails");
+    }
+
+
+    // -- helpers
+
+    /**
+     * Fails the first `failures` multi-row writes, single row writes always succeed.
+     */
+    private class FailingChangeLogDao extends ChangeLogDao {
+
+        private int failures;
+
+        private FailingChangeLogDao(int failures) {
+            super(dsl);
+            this.failures = failures;
+        }
+
+        @Override
+        public int write(Collection<ChangeLog> changeLogs) {
+            if (failures > 0) {
+                failures--;
+                throw new IllegalStateException("Simulated failure");
+            }
+            return super.write(changeLogs);
+        }
+    }
+
+
+    private ChangeLogWriter mkAsyncWriter(int queueCapacity, long flushIntervalMillis) {
+        return mkAsyncWriter(changeLogDao, queueCapacity, flushIntervalMillis);
+    }
+
+
+    private ChangeLogWriter mkAsyncWriter(ChangeLogDao dao, int queueCapacity, long flushIntervalMillis) {
+        ChangeLogWriter writer = new ChangeLogWriter(dao);
+        ReflectionTestUtils.setField(writer, "async", true);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", flushIntervalMillis);
+        ReflectionTestUtils.setField(writer, "batchSize", queueCapacity);
+        ReflectionTestUtils.setField(writer, "queueCapacity", queueCapacity);
+        writer.init();
+        return writer;
+    }
+
+
+    private List<ChangeLog> mkEntries(EntityReference ref, int count) {
+        String userId = mkUserId("changeLogWriter");
+        return IntStream
+                .range(0, count)
+                .mapToObj(i -> ImmutableChangeLog.builder()
+                        .parentReference(ref)
+                        .message("change " + i)
+                        .severity(Severity.INFORMATION)
+                        .operation(Operation.UPDATE)
+                        .userId(userId)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+
+    private int countEntries(EntityReference ref) {
+        return changeLogDao
+                .findByParentReference(ref, Optional.empty(), Optional.empty())
+                .size();
+    }
+
+}
@@ -0,0 +1,84 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.integration_test.inmem.helpers.DataTypeHelper;
+import org.finos.waltz.integration_test.inmem.helpers.LogicalFlowHelper;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.usage_info.UsageKind;
+import org.finos.waltz.service.usage_info.DataTypeUsageService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Set;
+
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DataTypeUsageServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private DataTypeUsageService dataTypeUsageService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper logicalFlowHelper;
+
+
+    @Test
+    public void usagesAreOnlyRecalculatedForPendingEntities() {
+        String stem = "dtus_usagesAreOnlyRecalculatedForPendingEntities";
+
+        EntityReference a = appHelper.createNewApp(mkName(stem, "a"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName(stem, "b"), ouIds.a);
+        Long dtId = dataTypeHelper.createDataType(stem);
+
+        LogicalFlow flow = logicalFlowHelper.createLogicalFlow(a, b);
+        logicalFlowHelper.createLogicalFlowDecorators(flow.entityReference(), asSet(dtId));
+
+        dataTypeUsageService.recalculatePending();
+        assertTrue(dataTypeUsageService.findForEntity(a).isEmpty(), "nothing has been marked so no usages yet");
+
+        dataTypeUsageService.markForRecalculation(newArrayList(a));
+        assertEquals(1, dataTypeUsageService.recalculatePending(), "only app a should be recalculated");
+
+        assertEquals(asSet(UsageKind.ORIGINATOR, UsageKind.DISTRIBUTOR), usageKinds(a));
+        assertTrue(dataTypeUsageService.findForEntity(b).isEmpty(), "app b was not marked");
+
+        dataTypeUsageService.markForRecalculation(newArrayList(a, b));
+        assertEquals(2, dataTypeUsageService.recalculatePending());
+        assertEquals(asSet(UsageKind.CONSUMER), usageKinds(b));
+
+        assertEquals(0, dataTypeUsageService.recalculatePending(), "pending entities are cleared once recalculated");
+    }
+
+
+    @Test
+    public void entitiesMarkedRepeatedlyAreRecalculatedOnce() {
+        String stem = "dtus_entitiesMarkedRepeatedlyAreRecalculatedOnce";
+
+        EntityReference a = appHelper.createNewApp(mkName(stem, "a"), ouIds.a);
+        dataTypeUsageService.recalculatePending();
+
+        dataTypeUsageService.markForRecalculation(newArrayList(a));
+        dataTypeUsageService.markForRecalculation(newArrayList(a));
+        assertEquals(1, dataTypeUsageService.recalculatePending());
+        assertEquals(0, dataTypeUsageService.recalculatePending());
+    }
+
+
+    private Set<UsageKind> usageKinds(EntityReference ref) {
+        return map(dataTypeUsageService.findForEntity(ref), u -> u.usage().kind());
+    }
+
+}
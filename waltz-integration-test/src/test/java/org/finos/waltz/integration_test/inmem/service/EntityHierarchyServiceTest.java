@@ -0,0 +1,116 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyRebuildSummary;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.jooq.DSLContext;
+import org.jooq.Record1;
+import org.jooq.Select;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.ORGANISATIONAL_UNIT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class EntityHierarchyServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntityHierarchyService svc;
+
+    @Autowired
+    private EntityHierarchyDao dao;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void rebuildingAnUnchangedHierarchyWritesNothing() {
+        svc.buildFor(EntityKind.ORG_UNIT);
+
+        EntityHierarchyRebuildSummary summary = getOrgUnitSummary();
+        assertEquals(0, summary.insertCount());
+        assertEquals(0, summary.updateCount());
+        assertEquals(0, summary.deleteCount());
+        assertEquals(8, summary.unchangedCount(), "4 self rows and 4 ancestor rows");
+    }
+
+
+    @Test
+    public void addingANodeOnlyInsertsItsTuples() {
+        Long a2 = createOrgUnit("a2", ouIds.a);
+        svc.buildFor(EntityKind.ORG_UNIT);
+
+        EntityHierarchyRebuildSummary summary = getOrgUnitSummary();
+        assertEquals(3, summary.insertCount(), "self, a and root");
+        assertEquals(0, summary.deleteCount());
+        assertEquals(8, summary.unchangedCount());
+        assertEquals(asSet(ouIds.a, ouIds.a1, a2), dao.findDescendantIds(mkRef(EntityKind.ORG_UNIT, ouIds.a)));
+    }
+
+
+    @Test
+    public void movingANodeOnlyReplacesTheChangedAncestor() {
+        dsl.update(ORGANISATIONAL_UNIT)
+                .set(ORGANISATIONAL_UNIT.PARENT_ID, ouIds.b)
+                .where(ORGANISATIONAL_UNIT.ID.eq(ouIds.a1))
+                .execute();
+
+        svc.buildFor(EntityKind.ORG_UNIT);
+
+        EntityHierarchyRebuildSummary summary = getOrgUnitSummary();
+        assertEquals(1, summary.insertCount(), "a1 -> b");
+        assertEquals(1, summary.deleteCount(), "a1 -> a");
+        assertEquals(0, summary.updateCount());
+        assertEquals(7, summary.unchangedCount());
+        assertEquals(asSet(ouIds.b, ouIds.a1), dao.findDescendantIds(mkRef(EntityKind.ORG_UNIT, ouIds.b)));
+        assertEquals(asSet(ouIds.a), dao.findDescendantIds(mkRef(EntityKind.ORG_UNIT, ouIds.a)));
+    }
+
+
+    @Test
+    public void orgUnitSelectorsAreResolvedFromTheClosure() {
+        svc.buildFor(EntityKind.ORG_UNIT);
+
+        Select<Record1<Long>> children = ouSelectorFactory.apply(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN));
+        Select<Record1<Long>> parents = ouSelectorFactory.apply(mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a1), HierarchyQueryScope.PARENTS));
+
+        assertFalse(dsl.renderInlined(children).toLowerCase().contains("entity_hierarchy"), "should not need the hierarchy table");
+        assertEquals(asSet(ouIds.a, ouIds.a1), dsl.fetch(children).intoSet(children.field(0, Long.class)));
+        assertEquals(asSet(ouIds.root, ouIds.a, ouIds.a1), dsl.fetch(parents).intoSet(parents.field(0, Long.class)));
+    }
+
+
+    private EntityHierarchyRebuildSummary getOrgUnitSummary() {
+        return svc
+                .findLastRebuildSummaries()
+                .stream()
+                .filter(s -> s.kind() == EntityKind.ORG_UNIT)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No summary for org units"));
+    }
+}
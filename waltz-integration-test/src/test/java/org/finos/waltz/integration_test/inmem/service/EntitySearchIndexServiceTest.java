@@ -0,0 +1,147 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.common.DateTimeUtilities;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchOptions;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.entity_search.EntitySearchIndexService;
+import org.jooq.DSLContext;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.schema.tables.ChangeLog.CHANGE_LOG;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EntitySearchIndexServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private EntitySearchIndexService svc;
+
+    @Autowired
+    private ChangeLogService changeLogService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void indexIsNotAvailableUnlessEnabled() {
+        svc.rebuild();
+        assertFalse(svc.isAvailable());
+    }
+
+
+    @Test
+    public void rebuildLoadsAllIndexedKinds() {
+        String name = mkName("searchIndexRebuild");
+        EntityReference app = appHelper.createNewApp(name, ouIds.a);
+
+        assertTrue(svc.rebuild() > 0);
+        assertEquals(singletonList(app.id()), findAppIds(mkOptions(name)));
+    }
+
+
+    @Test
+    public void refreshPicksUpLoggedChanges() {
+        svc.rebuild();
+
+        String name = mkName("searchIndexRefresh");
+        EntityReference app = appHelper.createNewApp(name, ouIds.a);
+        logChange(app, Operation.ADD);
+
+        assertTrue(findAppIds(mkOptions(name)).isEmpty(), "not yet indexed");
+        assertTrue(svc.refresh() >= 1);
+        assertEquals(singletonList(app.id()), findAppIds(mkOptions(name)));
+
+        appHelper.removeApp(app.id());
+        logChange(app, Operation.UPDATE);
+        svc.refresh();
+
+        assertTrue(findAppIds(mkOptions(name)).isEmpty(), "removed apps are excluded by default");
+        assertEquals(
+                singletonList(app.id()),
+                findAppIds(ImmutableEntitySearchOptions
+                        .copyOf(mkOptions(name))
+                        .withEntityLifecycleStatuses(newArrayList(EntityLifecycleStatus.REMOVED))));
+    }
+
+
+    @Test
+    public void refreshPicksUpChangesCommittedOutOfIdOrder() {
+        EntityReference other = appHelper.createNewApp(mkName("searchIndexOther"), ouIds.a);
+        svc.rebuild();
+
+        // reserve an id, which is later used for an entry committed after a higher id has been seen
+        logChange(other, Operation.ADD);
+        int reservedId = dsl.select(DSL.max(CHANGE_LOG.ID)).from(CHANGE_LOG).fetchOne().value1();
+        dsl.deleteFrom(CHANGE_LOG).where(CHANGE_LOG.ID.eq(reservedId)).execute();
+
+        String name = mkName("searchIndexLate");
+        EntityReference app = appHelper.createNewApp(name, ouIds.a);
+        logChange(other, Operation.UPDATE);
+        svc.refresh();
+        assertTrue(findAppIds(mkOptions(name)).isEmpty(), "not yet logged");
+
+        dsl
+                .insertInto(CHANGE_LOG)
+                .set(CHANGE_LOG.ID, reservedId)
+                .set(CHANGE_LOG.PARENT_KIND, EntityKind.APPLICATION.name())
+                .set(CHANGE_LOG.PARENT_ID, app.id())
+                .set(CHANGE_LOG.MESSAGE, "late change")
+                .set(CHANGE_LOG.USER_ID, LAST_UPDATE_USER)
+                .set(CHANGE_LOG.SEVERITY, Severity.INFORMATION.name())
+                .set(CHANGE_LOG.OPERATION, Operation.ADD.name())
+                .set(CHANGE_LOG.CREATED_AT, Timestamp.valueOf(DateTimeUtilities.nowUtc()))
+                .execute();
+
+        assertEquals(1, svc.refresh(), "late entry is found below the latest id");
+        assertEquals(singletonList(app.id()), findAppIds(mkOptions(name)));
+        assertEquals(0, svc.refresh(), "entries are only re-indexed once");
+    }
+
+
+    // -- helpers ---
+
+    private void logChange(EntityReference ref, Operation operation) {
+        changeLogService.write(ImmutableChangeLog.builder()
+                .parentReference(ref)
+                .severity(Severity.INFORMATION)
+                .operation(operation)
+                .userId(LAST_UPDATE_USER)
+                .message("test change")
+                .createdAt(DateTimeUtilities.nowUtc())
+                .build());
+    }
+
+
+    private List<Long> findAppIds(EntitySearchOptions options) {
+        List<Long> ids = newArrayList();
+        svc.search(options).forEach(ref -> ids.add(ref.id()));
+        return ids;
+    }
+
+
+    private static EntitySearchOptions mkOptions(String query) {
+        return EntitySearchOptions.mkForEntity(EntityKind.APPLICATION, query);
+    }
+}
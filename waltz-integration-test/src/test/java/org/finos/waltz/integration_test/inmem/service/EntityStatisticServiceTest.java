@@ -0,0 +1,336 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
+import org.finos.waltz.data.entity_statistic.EntityStatisticRollupDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticSummaryDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticValueDao;
+import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.IdSelectionOptions;
+import org.finos.waltz.model.entity_statistic.EntityStatisticValue;
+import org.finos.waltz.model.entity_statistic.ImmutableEntityStatisticValue;
+import org.finos.waltz.model.entity_statistic.RollupKind;
+import org.finos.waltz.model.entity_statistic.StatisticValueState;
+import org.finos.waltz.model.tally.Tally;
+import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.service.entity_statistic.EntityStatisticService;
+import org.jooq.DSLContext;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.sql.Date;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.DateTimeUtilities.today;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.tables.EntityStatisticDefinition.ENTITY_STATISTIC_DEFINITION;
+import static org.finos.waltz.schema.tables.EntityStatisticRollupExtent.ENTITY_STATISTIC_ROLLUP_EXTENT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+public class EntityStatisticServiceTest extends BaseInMemoryIntegrationTest {
+
+    private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
+
+    @Autowired
+    private EntityStatisticService statisticService;
+
+    @Autowired
+    private EntityStatisticValueDao valueDao;
+
+    @Autowired
+    private EntityStatisticRollupDao rollupDao;
+
+    @Autowired
+    private EntityStatisticSummaryDao summaryDao;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void savingValuesMaintainsRollups() {
+        long statId = createDefinition(RollupKind.SUM_BY_VALUE);
+        EntityReference appA = appHelper.createNewApp(mkName("esRollupA"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("esRollupA1"), ouIds.a1);
+        EntityReference appB = appHelper.createNewApp(mkName("esRollupB"), ouIds.b);
+
+        LocalDate twoDaysAgo = today().minusDays(2);
+        LocalDate yesterday = today().minusDays(1);
+
+        statisticService.bulkSaveValues(newArrayList(
+                mkValue(statId, appA, "OK", "10", twoDaysAgo),
+                mkValue(statId, appA1, "OK", "5", twoDaysAgo),
+                mkValue(statId, appB, "OK", "100", twoDaysAgo),
+                mkValue(statId, appA, "OK", "12", yesterday),
+                mkValue(statId, appA1, "BAD", "1", yesterday)));
+
+        assertEquals(
+                Optional.of(tuple(EntityStatisticRollupDao.toWeekStart(twoDaysAgo), today())),
+                rollupDao.findRolledUpRange(statId),
+                "rollups cover whole weeks, up to but excluding today");
+
+        IdSelectionOptions subtreeOfA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> sums = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.SUM_BY_VALUE,
+                subtreeOfA,
+                Duration.WEEK);
+
+        assertEquals(2, sums.size(), "expected one pack per day");
+        assertEquals(twoDaysAgo.atStartOfDay(), sums.get(0).lastUpdatedAt());
+        assertEquals(15.0, toCountsByOutcome(sums.get(0)).get("OK"), "app in ou 'b' should not be included");
+        assertEquals(12.0, toCountsByOutcome(sums.get(1)).get("OK"));
+        assertEquals(1.0, toCountsByOutcome(sums.get(1)).get("BAD"));
+
+        List<TallyPack<String>> averages = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.AVG_BY_VALUE,
+                subtreeOfA,
+                Duration.WEEK);
+
+        assertEquals(7.5, toCountsByOutcome(averages.get(0)).get("OK"));
+
+        List<TallyPack<String>> weekly = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.YEAR);
+
+        assertFalse(weekly.isEmpty());
+        TallyPack<String> latestWeek = weekly.get(weekly.size() - 1);
+        assertEquals(
+                yesterday.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).atStartOfDay(),
+                latestWeek.lastUpdatedAt(),
+                "weekly buckets should be keyed by the start of the week");
+        assertEquals(1.0, toCountsByOutcome(latestWeek).get("BAD"), "weekly buckets should hold the last day in the week which has values");
+    }
+
+
+    @Test
+    public void historyBeforeTheEarliestRollupIsReadFromRawValues() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("esEarlierA"), ouIds.a);
+
+        LocalDate tenDaysAgo = today().minusDays(10);
+        LocalDate yesterday = today().minusDays(1);
+
+        // values saved before rollups were introduced
+        valueDao.bulkSaveValues(newArrayList(mkValue(statId, appA, "RED", "RED", tenDaysAgo)));
+
+        statisticService.bulkSaveValues(newArrayList(mkValue(statId, appA, "GREEN", "GREEN", yesterday)));
+        assertEquals(
+                Optional.of(EntityStatisticRollupDao.toWeekStart(yesterday)),
+                rollupDao.findRolledUpRange(statId).map(Tuple2::v1));
+
+        IdSelectionOptions subtreeOfA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> history = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.MONTH);
+
+        assertEquals(2, history.size());
+        assertEquals(tenDaysAgo.atStartOfDay(), history.get(0).lastUpdatedAt(), "earlier day read from raw values");
+        assertEquals(1.0, toCountsByOutcome(history.get(0)).get("RED"));
+        assertEquals(yesterday.atStartOfDay(), history.get(1).lastUpdatedAt());
+        assertEquals(1.0, toCountsByOutcome(history.get(1)).get("GREEN"));
+
+        List<TallyPack<String>> lastFewDays = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.WEEK);
+
+        assertEquals(1, lastFewDays.size(), "duration is covered by the rollups");
+    }
+
+
+    @Test
+    public void rollupsMatchRawValues() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("esRawA"), ouIds.a);
+        EntityReference appA1 = appHelper.createNewApp(mkName("esRawA1"), ouIds.a1);
+
+        LocalDate yesterday = today().minusDays(1);
+
+        statisticService.bulkSaveValues(newArrayList(
+                mkValue(statId, appA, "RED", "RED", yesterday),
+                mkValue(statId, appA1, "RED", "RED", yesterday),
+                mkValue(statId, appA1, "GREEN", "GREEN", yesterday)));
+
+        IdSelectionOptions subtreeOfA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> fromRollups = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.MONTH);
+
+        List<TallyPack<String>> fromValues = summaryDao.generateHistoricWithCountByEntity(
+                statId,
+                appIdSelectorFactory.apply(subtreeOfA),
+                Duration.MONTH);
+
+        assertEquals(1, fromRollups.size());
+        assertEquals(fromValues.size(), fromRollups.size());
+        assertEquals(toCountsByOutcome(fromValues.get(0)), toCountsByOutcome(fromRollups.get(0)));
+        assertEquals(fromValues.get(0).lastUpdatedAt(), fromRollups.get(0).lastUpdatedAt());
+    }
+
+
+    @Test
+    public void valuesWrittenSinceTheLastRefreshAreReadFromRawValues() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("esLaterA"), ouIds.a);
+
+        LocalDate fiveDaysAgo = today().minusDays(5);
+        LocalDate threeDaysAgo = today().minusDays(3);
+
+        statisticService.bulkSaveValues(newArrayList(mkValue(statId, appA, "RED", "RED", fiveDaysAgo)));
+
+        // as if the rollups were last refreshed four days ago
+        dsl.update(ENTITY_STATISTIC_ROLLUP_EXTENT)
+                .set(ENTITY_STATISTIC_ROLLUP_EXTENT.ROLLED_UP_UNTIL, Date.valueOf(today().minusDays(4)))
+                .where(ENTITY_STATISTIC_ROLLUP_EXTENT.STATISTIC_ID.eq(statId))
+                .execute();
+
+        // written straight to the values table, so not rolled up
+        valueDao.bulkSaveValues(newArrayList(
+                mkValue(statId, appA, "AMBER", "AMBER", threeDaysAgo),
+                mkValue(statId, appA, "GREEN", "GREEN", today())));
+
+        IdSelectionOptions subtreeOfA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> history = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.WEEK);
+
+        assertEquals(
+                newArrayList(fiveDaysAgo.atStartOfDay(), threeDaysAgo.atStartOfDay(), today().atStartOfDay()),
+                map(history, TallyPack::lastUpdatedAt));
+        assertEquals(1.0, toCountsByOutcome(history.get(1)).get("AMBER"));
+        assertEquals(1.0, toCountsByOutcome(history.get(2)).get("GREEN"));
+
+        // the next refresh closes the gap since the last one
+        statisticService.bulkSaveValues(newArrayList(mkValue(statId, appA, "GREEN", "GREEN", today())));
+
+        List<TallyPack<String>> rolledUp = rollupDao.findHistory(
+                statId,
+                orgUnitIdSelectorFactory.apply(subtreeOfA),
+                RollupKind.COUNT_BY_ENTITY,
+                Duration.WEEK);
+
+        assertTrue(
+                map(rolledUp, TallyPack::lastUpdatedAt).contains(threeDaysAgo.atStartOfDay()),
+                "value written directly should now be rolled up");
+    }
+
+
+    @Test
+    public void rawHistoryIsBucketedByWeekForLongDurations() {
+        long statId = createDefinition(RollupKind.COUNT_BY_ENTITY);
+        EntityReference appA = appHelper.createNewApp(mkName("esWeeklyA"), ouIds.a);
+
+        LocalDate earlierWeekStart = EntityStatisticRollupDao.toWeekStart(today()).minusWeeks(4);
+        LocalDate yesterday = today().minusDays(1);
+
+        // values saved before rollups were introduced, two days in the same week
+        valueDao.bulkSaveValues(newArrayList(
+                mkValue(statId, appA, "RED", "RED", earlierWeekStart),
+                mkValue(statId, appA, "AMBER", "AMBER", earlierWeekStart.plusDays(2))));
+
+        statisticService.bulkSaveValues(newArrayList(mkValue(statId, appA, "GREEN", "GREEN", yesterday)));
+
+        IdSelectionOptions subtreeOfA = mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN);
+
+        List<TallyPack<String>> history = statisticService.calculateHistoricStatTally(
+                statId,
+                RollupKind.COUNT_BY_ENTITY,
+                subtreeOfA,
+                Duration.YEAR);
+
+        assertEquals(
+                newArrayList(
+                        earlierWeekStart.atStartOfDay(),
+                        EntityStatisticRollupDao.toWeekStart(yesterday).atStartOfDay()),
+                map(history, TallyPack::lastUpdatedAt),
+                "raw values should be bucketed by week, like the rollups");
+        assertEquals(
+                asSet("AMBER"),
+                toCountsByOutcome(history.get(0)).keySet(),
+                "week should hold the last day in the week which has values");
+    }
+
+
+    private Map<String, Double> toCountsByOutcome(TallyPack<String> pack) {
+        return pack
+                .tallies()
+                .stream()
+                .collect(toMap(Tally::id, Tally::count));
+    }
+
+
+    private long createDefinition(RollupKind rollupKind) {
+        long id = counter.incrementAndGet();
+        dsl.insertInto(ENTITY_STATISTIC_DEFINITION)
+                .set(ENTITY_STATISTIC_DEFINITION.ID, id)
+                .set(ENTITY_STATISTIC_DEFINITION.NAME, mkName("stat"))
+                .set(ENTITY_STATISTIC_DEFINITION.TYPE, "NUMERIC")
+                .set(ENTITY_STATISTIC_DEFINITION.CATEGORY, "TECHNICAL")
+                .set(ENTITY_STATISTIC_DEFINITION.ACTIVE, true)
+                .set(ENTITY_STATISTIC_DEFINITION.RENDERER, "value")
+                .set(ENTITY_STATISTIC_DEFINITION.HISTORIC_RENDERER, "value")
+                .set(ENTITY_STATISTIC_DEFINITION.PROVENANCE, PROVENANCE)
+                .set(ENTITY_STATISTIC_DEFINITION.ROLLUP_KIND, rollupKind.name())
+                .execute();
+        return id;
+    }
+
+
+    private EntityStatisticValue mkValue(long statId,
+                                         EntityReference appRef,
+                                         String outcome,
+                                         String value,
+                                         LocalDate date) {
+        LocalDateTime createdAt = date.atTime(9, 30);
+        return ImmutableEntityStatisticValue.builder()
+                .statisticId(statId)
+                .entity(appRef)
+                .outcome(outcome)
+                .value(value)
+                .state(StatisticValueState.PROVIDED)
+                .createdAt(createdAt)
+                .current(false)
+                .provenance(PROVENANCE)
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.integration_test.inmem.helpers.DataTypeHelper;
+import org.finos.waltz.integration_test.inmem.helpers.FlowClassificationHelper;
+import org.finos.waltz.integration_test.inmem.helpers.LogicalFlowHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlowClassificationRuleServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private FlowClassificationRuleService svc;
+
+    @Autowired
+    private FlowClassificationHelper fcHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+
+    @Test
+    public void recalculatingRatesFlowsByOrgUnitRules() {
+        Long dtId = dataTypeHelper.createDataType("recalcOu");
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+
+        String primaryCode = mkName("PRIMARY");
+        Long primary = fcHelper.createFlowClassification(primaryCode);
+
+        EntityReference authApp = appHelper.createNewApp(mkName("auth"), ouIds.a);
+        EntityReference otherApp = appHelper.createNewApp(mkName("other"), ouIds.b);
+        EntityReference consumerInScope = appHelper.createNewApp(mkName("consumerA1"), ouIds.a1);
+        EntityReference consumerOutOfScope = appHelper.createNewApp(mkName("consumerB"), ouIds.b);
+
+        Long ruleId = fcHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), authApp, dtId, primary);
+
+        LogicalFlow authFlow = mkFlow(authApp, consumerInScope, dtId);
+        LogicalFlow nonAuthFlow = mkFlow(otherApp, consumerInScope, dtId);
+        LogicalFlow outOfScopeFlow = mkFlow(authApp, consumerOutOfScope, dtId);
+
+        assertTrue(svc.fastRecalculateAllFlowRatings());
+
+        DataTypeDecorator authDecorator = getDecorator(authFlow);
+        assertEquals(Optional.of(primaryCode), authDecorator.rating().map(AuthoritativenessRatingValue::value), "flow from the rule app is rated by the rule");
+        assertEquals(Optional.of(ruleId), authDecorator.flowClassificationRuleId());
+
+        DataTypeDecorator nonAuthDecorator = getDecorator(nonAuthFlow);
+        assertEquals(
+                Optional.of(AuthoritativenessRatingValue.DISCOURAGED),
+                nonAuthDecorator.rating(),
+                "flow from another app into the rule's org unit is discouraged");
+        assertEquals(Optional.empty(), nonAuthDecorator.flowClassificationRuleId(), "discouraged flows are not attributed to a rule");
+
+        assertEquals(
+                Optional.of(AuthoritativenessRatingValue.NO_OPINION),
+                getDecorator(outOfScopeFlow).rating(),
+                "flow into an org unit without rules has no opinion");
+
+        fcHelper.removeRule(ruleId);
+        svc.fastRecalculateAllFlowRatings();
+
+        DataTypeDecorator afterRemoval = getDecorator(authFlow);
+        assertEquals(Optional.of(AuthoritativenessRatingValue.NO_OPINION), afterRemoval.rating(), "removing the rule removes the rating");
+        assertEquals(Optional.empty(), afterRemoval.flowClassificationRuleId());
+        assertEquals(Optional.of(AuthoritativenessRatingValue.NO_OPINION), getDecorator(nonAuthFlow).rating());
+    }
+
+
+    @Test
+    public void pointToPointRulesTakePrecedence() {
+        Long dtId = dataTypeHelper.createDataType("recalcP2P");
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+
+        String primaryCode = mkName("PRIMARY");
+        String secondaryCode = mkName("SECONDARY");
+        Long primary = fcHelper.createFlowClassification(primaryCode);
+        Long secondary = fcHelper.createFlowClassification(secondaryCode);
+
+        EntityReference authApp = appHelper.createNewApp(mkName("auth"), ouIds.a);
+        EntityReference otherApp = appHelper.createNewApp(mkName("other"), ouIds.b);
+        EntityReference consumer = appHelper.createNewApp(mkName("consumer"), ouIds.a1);
+
+        fcHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), authApp, dtId, primary);
+        Long p2pRuleId = fcHelper.createRule(consumer, otherApp, dtId, secondary);
+
+        LogicalFlow p2pFlow = mkFlow(otherApp, consumer, dtId);
+
+        svc.fastRecalculateAllFlowRatings();
+
+        DataTypeDecorator decorator = getDecorator(p2pFlow);
+        assertEquals(Optional.of(secondaryCode), decorator.rating().map(AuthoritativenessRatingValue::value));
+        assertEquals(Optional.of(p2pRuleId), decorator.flowClassificationRuleId());
+
+        svc.fastRecalculateAllFlowRatings();
+
+        assertEquals(
+                decorator.rating(),
+                getDecorator(p2pFlow).rating(),
+                "recalculating again leaves the rating unchanged");
+    }
+
+
+    @Test
+    public void mostSpecificRuleForTheSourceAppIsUsed() {
+        Long dtId = dataTypeHelper.createDataType("recalcSpecific");
+        rebuildHierarchy(EntityKind.DATA_TYPE);
+
+        String primaryCode = mkName("PRIMARY");
+        String secondaryCode = mkName("SECONDARY");
+        Long primary = fcHelper.createFlowClassification(primaryCode);
+        Long secondary = fcHelper.createFlowClassification(secondaryCode);
+
+        EntityReference authApp = appHelper.createNewApp(mkName("auth"), ouIds.a);
+        EntityReference otherApp = appHelper.createNewApp(mkName("other"), ouIds.b);
+        EntityReference consumer = appHelper.createNewApp(mkName("consumer"), ouIds.a1);
+
+        fcHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.root), authApp, dtId, secondary);
+        Long specificRuleId = fcHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a1), authApp, dtId, primary);
+        Long otherAppRuleId = fcHelper.createRule(mkRef(EntityKind.ORG_UNIT, ouIds.a), otherApp, dtId, secondary);
+
+        LogicalFlow authFlow = mkFlow(authApp, consumer, dtId);
+        LogicalFlow otherFlow = mkFlow(otherApp, consumer, dtId);
+
+        svc.fastRecalculateAllFlowRatings();
+
+        DataTypeDecorator authDecorator = getDecorator(authFlow);
+        assertEquals(Optional.of(primaryCode), authDecorator.rating().map(AuthoritativenessRatingValue::value), "org unit closest to the consumer wins");
+        assertEquals(Optional.of(specificRuleId), authDecorator.flowClassificationRuleId());
+
+        DataTypeDecorator otherDecorator = getDecorator(otherFlow);
+        assertEquals(
+                Optional.of(secondaryCode),
+                otherDecorator.rating().map(AuthoritativenessRatingValue::value),
+                "a more specific rule for another app does not discourage an app with its own rule");
+        assertEquals(Optional.of(otherAppRuleId), otherDecorator.flowClassificationRuleId());
+    }
+
+
+    // -- HELPERS
+
+    private LogicalFlow mkFlow(EntityReference source, EntityReference target, Long dtId) {
+        LogicalFlow flow = lfHelper.createLogicalFlow(source, target);
+        lfHelper.createLogicalFlowDecorators(flow.entityReference(), asSet(dtId));
+        return flow;
+    }
+
+
+    private DataTypeDecorator getDecorator(LogicalFlow flow) {
+        return first(lfHelper.fetchDecoratorsForFlow(flow.entityReference().id()));
+    }
+
+}
@@ -0,0 +1,118 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
+import org.finos.waltz.integration_test.inmem.helpers.DataTypeHelper;
+import org.finos.waltz.integration_test.inmem.helpers.LogicalFlowHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.logical_flow.ImmutableAddLogicalFlowCommand;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowImpactSummary;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineageNode;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.Arrays.asList;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LogicalFlowGraphServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private LogicalFlowGraphService graphService;
+
+    @Autowired
+    private LogicalFlowService logicalFlowService;
+
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private DataTypeHelper dataTypeHelper;
+
+    @Autowired
+    private LogicalFlowHelper logicalFlowHelper;
+
+
+    @Test
+    public void lineageIsLoadedFromActiveFlowsAndFilteredByDataType() {
+        String stem = "lfgs_lineage";
+
+        EntityReference a = appHelper.createNewApp(mkName(stem, "a"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName(stem, "b"), ouIds.a);
+        EntityReference c = appHelper.createNewApp(mkName(stem, "c"), ouIds.a);
+        Long dt1 = dataTypeHelper.createDataType(mkName(stem, "dt1"));
+        Long dt2 = dataTypeHelper.createDataType(mkName(stem, "dt2"));
+
+        LogicalFlow ab = logicalFlowHelper.createLogicalFlow(a, b);
+        LogicalFlow bc = logicalFlowHelper.createLogicalFlow(b, c);
+        logicalFlowHelper.createLogicalFlowDecorators(ab.entityReference(), asSet(dt1));
+        logicalFlowHelper.createLogicalFlowDecorators(bc.entityReference(), asSet(dt2));
+
+        graphService.rebuild();
+
+        assertEquals(asSet(b, c), refs(graphService.getDownstream(a, Optional.empty(), Optional.empty()).nodes()));
+        assertEquals(asSet(a, b), refs(graphService.getUpstream(c, Optional.empty(), Optional.empty()).nodes()));
+        assertEquals(asSet(b), refs(graphService.getDownstream(a, Optional.empty(), Optional.of(dt1)).nodes()));
+        assertEquals(asSet(b), refs(graphService.getDownstream(a, Optional.of(1), Optional.empty()).nodes()));
+
+        assertEquals(
+                asList(ab.id().get(), bc.id().get()),
+                graphService.findRoute(a, c, Optional.empty()).get().flowIds());
+        assertFalse(graphService.findRoute(a, c, Optional.of(dt1)).isPresent());
+
+        LogicalFlowImpactSummary impact = graphService.calculateImpact(a, Optional.empty());
+        assertEquals(2, impact.impactedCount());
+        assertEquals(2, impact.radius());
+        assertEquals(2, impact.flowCount());
+        assertEquals(2, impact.countsByKind().get(EntityKind.APPLICATION));
+    }
+
+
+    @Test
+    public void graphIsUpdatedAsFlowsAreAddedAndRemoved() {
+        String stem = "lfgs_updates";
+
+        EntityReference a = appHelper.createNewApp(mkName(stem, "a"), ouIds.a);
+        EntityReference b = appHelper.createNewApp(mkName(stem, "b"), ouIds.a);
+
+        graphService.rebuild();
+        assertTrue(graphService.getDownstream(a, Optional.empty(), Optional.empty()).nodes().isEmpty());
+
+        LogicalFlow flow = logicalFlowService.addFlow(
+                ImmutableAddLogicalFlowCommand.builder()
+                        .source(a)
+                        .target(b)
+                        .build(),
+                "lfgsTest");
+
+        assertEquals(
+                asSet(b),
+                refs(graphService.getDownstream(a, Optional.empty(), Optional.empty()).nodes()),
+                "added flow is visible without a rebuild");
+
+        logicalFlowService.removeFlow(flow.id().get(), "lfgsTest");
+
+        assertTrue(
+                graphService.getDownstream(a, Optional.empty(), Optional.empty()).nodes().isEmpty(),
+                "removed flow is dropped without a rebuild");
+    }
+
+
+    private Set<EntityReference> refs(List<LogicalFlowLineageNode> nodes) {
+        return map(nodes, n -> mkRef(n.entityReference().kind(), n.entityReference().id()));
+    }
+
+}
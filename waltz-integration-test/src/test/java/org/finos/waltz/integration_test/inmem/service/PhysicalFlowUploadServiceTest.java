@@ -0,0 +1,304 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.physical_flow.PhysicalFlowUploadJobDao;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.ActorHelper;
+import org.finos.waltz.integration_test.inmem.helpers.DataTypeHelper;
+import org.finos.waltz.integration_test.inmem.helpers.LogicalFlowHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.enum_value.EnumValueKind;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowUploadCommand;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommand;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommandResponse;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadPhase;
+import org.finos.waltz.model.system.job_log.JobStatus;
+import org.finos.waltz.service.data_type.DataTypeDecoratorService;
+import org.finos.waltz.service.data_type.DataTypeService;
+import org.finos.waltz.service.logical_flow.LogicalFlowService;
+import org.finos.waltz.service.physical_flow.PhysicalFlowUploadJobService;
+import org.finos.waltz.service.physical_flow.PhysicalFlowUploadService;
+import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.ENUM_VALUE;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PhysicalFlowUploadServiceTest extends BaseInMemoryIntegrationTest {
+
+    private static final String TRANSPORT = "UPLOAD_TEST_TRANSPORT";
+
+    @Autowired
+    private DSLContext dsl;
+
+    @Autowired
+    private PhysicalFlowUploadService uploadSvc;
+
+    @Autowired
+    private PhysicalFlowUploadJobService uploadJobSvc;
+
+    @Autowired
+    private PhysicalFlowUploadJobDao uploadJobDao;
+
+    @Autowired
+    private LogicalFlowService lfSvc;
+
+    @Autowired
+    private PhysicalSpecificationService psSvc;
+
+    @Autowired
+    private DataTypeDecoratorService dtDecoratorSvc;
+
+    @Autowired
+    private DataTypeService dtSvc;
+
+    @Autowired
+    private ActorHelper actorHelper;
+
+    @Autowired
+    private DataTypeHelper dtHelper;
+
+    @Autowired
+    private LogicalFlowHelper lfHelper;
+
+
+    @BeforeEach
+    public void ensureTransportKindExists() {
+        boolean exists = dsl.fetchExists(ENUM_VALUE, ENUM_VALUE.TYPE.eq(EnumValueKind.TRANSPORT_KIND.dbValue()).and(ENUM_VALUE.KEY.eq(TRANSPORT)));
+        if (!exists) {
+            dsl.insertInto(ENUM_VALUE)
+                    .set(ENUM_VALUE.TYPE, EnumValueKind.TRANSPORT_KIND.dbValue())
+                    .set(ENUM_VALUE.KEY, TRANSPORT)
+                    .set(ENUM_VALUE.DISPLAY_NAME, TRANSPORT)
+                    .set(ENUM_VALUE.DESCRIPTION, TRANSPORT)
+                    .execute();
+        }
+    }
+
+
+    @Test
+    public void uploadCreatesMissingFlowsAndSpecsAndReusesThemAcrossRows() throws Exception {
+        String a = mkName("upA");
+        String b = mkName("upB");
+        String c = mkName("upC");
+        EntityReference aRef = mkRef(EntityKind.ACTOR, actorHelper.createActor(a));
+        actorHelper.createActor(b);
+        actorHelper.createActor(c);
+        String dtCode = mkDataType();
+
+        List<PhysicalFlowUploadCommand> cmds = asList(
+                mkCmd(a, b, a, "spec1", "DAILY", dtCode),
+                mkCmd(a, b, a, "spec1", "WEEKLY", dtCode),
+                mkCmd(a, c, a, "spec2", "DAILY", dtCode));
+
+        List<PhysicalFlowUploadCommandResponse> created = uploadSvc.upload("uploadTest", cmds);
+
+        assertEquals(3, created.size());
+        Set<Long> physicalFlowIds = map(created, r -> r.entityReference().id());
+        assertEquals(3, physicalFlowIds.size(), "each row should result in a distinct physical flow");
+
+        List<LogicalFlow> logicalFlows = lfSvc.findByEntityReference(aRef);
+        assertEquals(2, logicalFlows.size(), "rows sharing a source and target should share a logical flow");
+        assertEquals(2, psSvc.findByEntityReference(aRef).size(), "rows sharing a spec name should share a spec");
+
+        Long dtId = dtSvc.getDataTypeByCode(dtCode).id().get();
+        logicalFlows.forEach(lf -> assertEquals(
+                asSet(dtId),
+                map(dtDecoratorSvc.findByEntityId(lf.entityReference()), DataTypeDecorator::dataTypeId),
+                "logical flows should be decorated with the uploaded data type"));
+
+        List<PhysicalFlowUploadCommandResponse> revalidated = uploadSvc.validate(cmds);
+        assertEquals(
+                physicalFlowIds,
+                map(revalidated, r -> r.entityReference().id()),
+                "validation should now find the existing physical flows");
+
+        assertTrue(uploadSvc.upload("uploadTest", cmds).isEmpty(), "nothing new to create on re-upload");
+    }
+
+
+    @Test
+    public void uploadRestoresRemovedLogicalFlows() throws Exception {
+        String a = mkName("upA");
+        String b = mkName("upB");
+        EntityReference aRef = mkRef(EntityKind.ACTOR, actorHelper.createActor(a));
+        EntityReference bRef = mkRef(EntityKind.ACTOR, actorHelper.createActor(b));
+        String dtCode = mkDataType();
+
+        LogicalFlow existing = lfHelper.createLogicalFlow(aRef, bRef);
+        lfSvc.removeFlow(existing.id().get(), "uploadTest");
+        assertTrue(lfSvc.findByEntityReference(aRef).isEmpty());
+
+        uploadSvc.upload("uploadTest", singletonList(mkCmd(a, b, a, "spec", "DAILY", dtCode)));
+
+        List<LogicalFlow> flows = lfSvc.findByEntityReference(aRef);
+        assertEquals(1, flows.size());
+        assertEquals(existing.id(), flows.get(0).id(), "removed flow should have been restored rather than recreated");
+    }
+
+
+    @Test
+    public void uploadJobsRunInTheBackgroundAndAreOnlyVisibleToTheirOwner() throws Exception {
+        String a = mkName("upA");
+        String b = mkName("upB");
+        actorHelper.createActor(a);
+        actorHelper.createActor(b);
+        String dtCode = mkDataType();
+
+        PhysicalFlowUploadJob job = uploadJobSvc.submit(
+                "jobUser",
+                singletonList(mkCmd(a, b, a, "spec", "DAILY", dtCode)));
+
+        PhysicalFlowUploadJob finished = awaitCompletion("jobUser", job.id());
+
+        assertEquals(JobStatus.SUCCESS, finished.status());
+        assertEquals(PhysicalFlowUploadPhase.DONE, finished.phase());
+        assertEquals(1, finished.createdCount());
+        assertTrue(finished.completedAt().isPresent());
+        assertEquals(1, uploadJobSvc.findResults("jobUser", job.id()).size());
+
+        assertFalse(uploadJobSvc.getJob("someoneElse", job.id()).isPresent());
+        assertTrue(uploadJobSvc.findResults("someoneElse", job.id()).isEmpty());
+    }
+
+
+    @Test
+    public void uploadJobsFailWhenCommandsDoNotValidate() throws Exception {
+        String a = mkName("upA");
+        actorHelper.createActor(a);
+        String dtCode = mkDataType();
+
+        PhysicalFlowUploadJob job = uploadJobSvc.submit(
+                "jobUser",
+                singletonList(mkCmd(a, mkName("unknown"), a, "spec", "DAILY", dtCode)));
+
+        PhysicalFlowUploadJob finished = awaitCompletion("jobUser", job.id());
+
+        assertEquals(JobStatus.FAILURE, finished.status());
+        assertTrue(finished.errorMessage().isPresent());
+        assertTrue(uploadJobSvc.findResults("jobUser", job.id()).isEmpty());
+    }
+
+
+    @Test
+    public void uploadJobsCanBeReadByAnotherNode() throws Exception {
+        String a = mkName("upA");
+        String b = mkName("upB");
+        actorHelper.createActor(a);
+        actorHelper.createActor(b);
+        String dtCode = mkDataType();
+
+        PhysicalFlowUploadJob job = uploadJobSvc.submit(
+                "jobUser",
+                singletonList(mkCmd(a, b, a, "spec", "DAILY", dtCode)));
+
+        awaitCompletion("jobUser", job.id());
+
+        PhysicalFlowUploadJobService otherNode = new PhysicalFlowUploadJobService(uploadSvc, uploadJobDao);
+        PhysicalFlowUploadJob fromOtherNode = otherNode.getJob("jobUser", job.id()).get();
+
+        assertEquals(JobStatus.SUCCESS, fromOtherNode.status());
+        assertEquals(1, fromOtherNode.createdCount());
+
+        List<PhysicalFlowUploadCommandResponse> results = otherNode.findResults("jobUser", job.id());
+        assertEquals(1, results.size());
+        assertEquals(a, results.get(0).originalCommand().source());
+    }
+
+
+    @Test
+    public void expiredAndAbandonedUploadJobsArePurged() {
+        PhysicalFlowUploadJob expired = mkJob(JobStatus.SUCCESS, nowUtc().minusHours(3), Optional.of(nowUtc().minusHours(2)));
+        PhysicalFlowUploadJob recent = mkJob(JobStatus.SUCCESS, nowUtc().minusMinutes(10), Optional.of(nowUtc().minusMinutes(5)));
+        PhysicalFlowUploadJob running = mkJob(JobStatus.IN_PROGRESS, nowUtc().minusMinutes(10), Optional.empty());
+        PhysicalFlowUploadJob abandoned = mkJob(JobStatus.IN_PROGRESS, nowUtc().minusHours(7), Optional.empty());
+
+        uploadJobSvc.purgeExpiredJobs();
+
+        assertFalse(uploadJobSvc.getJob("jobUser", expired.id()).isPresent());
+        assertTrue(uploadJobSvc.getJob("jobUser", recent.id()).isPresent());
+        assertEquals(JobStatus.IN_PROGRESS, uploadJobSvc.getJob("jobUser", running.id()).get().status());
+
+        PhysicalFlowUploadJob failed = uploadJobSvc.getJob("jobUser", abandoned.id()).get();
+        assertEquals(JobStatus.FAILURE, failed.status(), "abandoned job is failed, and kept until it expires");
+        assertTrue(failed.errorMessage().isPresent());
+    }
+
+
+    // -- helpers
+
+    private PhysicalFlowUploadJob mkJob(JobStatus status,
+                                        LocalDateTime submittedAt,
+                                        Optional<LocalDateTime> completedAt) {
+        PhysicalFlowUploadJob job = ImmutablePhysicalFlowUploadJob.builder()
+                .id(UUID.randomUUID().toString())
+                .userId("jobUser")
+                .status(status)
+                .phase(PhysicalFlowUploadPhase.QUEUED)
+                .commandCount(1)
+                .submittedAt(submittedAt)
+                .completedAt(completedAt)
+                .build();
+        uploadJobDao.create(job);
+        return job;
+    }
+
+
+    private PhysicalFlowUploadJob awaitCompletion(String username, String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30_000;
+        PhysicalFlowUploadJob job = uploadJobSvc.getJob(username, jobId).get();
+        while (job.status() == JobStatus.IN_PROGRESS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            job = uploadJobSvc.getJob(username, jobId).get();
+        }
+        return job;
+    }
+
+
+    private String mkDataType() {
+        Long dtId = dtHelper.createDataType("upload");
+        return dtSvc.getDataTypeById(dtId).code();
+    }
+
+
+    private PhysicalFlowUploadCommand mkCmd(String source,
+                                            String target,
+                                            String owner,
+                                            String specName,
+                                            String frequency,
+                                            String dataType) {
+        return ImmutablePhysicalFlowUploadCommand.builder()
+                .source(source)
+                .target(target)
+                .owner(owner)
+                .name(specName)
+                .format("FLAT_FILE")
+                .basisOffset("0")
+                .criticality("MEDIUM")
+                .description("uploaded")
+                .frequency(frequency)
+                .transport(TRANSPORT)
+                .dataType(dataType)
+                .build();
+    }
+}
@@ -1,12 +1,20 @@
 package org.finos.waltz.integration_test.inmem.service;
 
+import org.finos.waltz.common.CollectionUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.ActorHelper;
+import org.finos.waltz.integration_test.inmem.helpers.AppHelper;
 import org.finos.waltz.integration_test.inmem.helpers.InvolvementHelper;
+import org.finos.waltz.integration_test.inmem.helpers.LogicalFlowHelper;
+import org.finos.waltz.integration_test.inmem.helpers.PersonHelper;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.report_grid.*;
+import org.finos.waltz.schema.tables.records.CostKindRecord;
+import org.finos.waltz.schema.tables.records.CostRecord;
 import org.finos.waltz.service.report_grid.ReportGridMemberService;
 import org.finos.waltz.service.report_grid.ReportGridService;
 import org.jooq.DSLContext;
@@ -15,13 +23,24 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.CollectionUtilities.find;
 import static org.finos.waltz.common.CollectionUtilities.maybeFirst;
 import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.common.SetUtilities.map;
 import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.COST_KIND;
 import static org.finos.waltz.schema.Tables.REPORT_GRID_COLUMN_DEFINITION;
 import static org.junit.Assert.*;
 
@@ -41,6 +60,18 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
     @Autowired
     private InvolvementHelper involvementHelper;
 
+    @Autowired
+    private AppHelper appHelper;
+
+    @Autowired
+    private PersonHelper personHelper;
+
+    @Autowired
+    private ActorHelper actorHelper;
+
+    @Autowired
+    private LogicalFlowHelper logicalFlowHelper;
+
 
     @Test
     public void canCreateAReportGrid() throws InsufficientPrivelegeException {
@@ -107,9 +138,113 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void gridCellsAreFetchedForEachColumnFamily() throws InsufficientPrivelegeException {
+        EntityReference app1 = appHelper.createNewApp(mkName("gridApp1"), ouIds.a);
+        EntityReference app2 = appHelper.createNewApp(mkName("gridApp2"), ouIds.a);
+        EntityReference otherApp = appHelper.createNewApp(mkName("gridOtherApp"), ouIds.b);
+
+        String email = mkName("gridPerson");
+        Long personId = personHelper.createPerson(email);
+        long invKind = involvementHelper.mkInvolvementKind(mkName("gridInv"));
+        involvementHelper.createInvolvement(personId, invKind, app1);
+
+        long costKind = mkCostKind(mkName("gridCost"));
+        mkCost(costKind, app1, 2020, 10);
+        mkCost(costKind, app1, 2021, 20);
+        mkCost(costKind, app2, 2021, 5);
+        mkCost(costKind, otherApp, 2022, 99);
+
+        ReportGridDefinition def = mkGrid(
+                EntityReference.mkRef(EntityKind.INVOLVEMENT_KIND, invKind),
+                EntityReference.mkRef(EntityKind.COST_KIND, costKind));
+
+        ReportGrid grid = reportGridService.getByIdAndSelectionOptions(
+                def.id().get(),
+                mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN));
+
+        List<ReportGridCell> cells = grid.instance().cellData();
+        assertEquals(2, grid.instance().applications().size());
+        assertEquals(3, cells.size());
+
+        ReportGridCell involvementCell = find(cells, c -> c.columnEntityKind() == EntityKind.INVOLVEMENT_KIND)
+                .orElseThrow(() -> new AssertionError("Should have an involvement cell"));
+        assertEquals(app1.id(), involvementCell.applicationId());
+        assertEquals(email, involvementCell.text());
+
+        Map<Long, BigDecimal> costsByApp = cells
+                .stream()
+                .filter(c -> c.columnEntityKind() == EntityKind.COST_KIND)
+                .collect(toMap(ReportGridCell::applicationId, ReportGridCell::value));
+        assertEquals(
+                "costs are for the latest year of the apps in the grid, other apps are ignored",
+                2,
+                costsByApp.size());
+        assertEquals(0, BigDecimal.valueOf(20).compareTo(costsByApp.get(app1.id())));
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(costsByApp.get(app2.id())));
+    }
+
+
+    @Test
+    public void gridInstancesAreCachedUntilContributingDataChanges() throws InsufficientPrivelegeException {
+        EntityReference app = appHelper.createNewApp(mkName("cachedGridApp"), ouIds.a);
+        long costKind = mkCostKind(mkName("cachedGridCost"));
+        mkCost(costKind, app, 2021, 10);
+
+        ReportGridDefinition def = mkGrid(EntityReference.mkRef(EntityKind.COST_KIND, costKind));
+        EntityReference ou = mkRef(EntityKind.ORG_UNIT, ouIds.a, "name is not part of the cache key");
+
+        ReportGrid first = reportGridService.getByIdAndSelectionOptions(def.id().get(), mkOpts(ou, HierarchyQueryScope.CHILDREN));
+        long hits = reportGridService.getInstanceCacheHitCount();
+        ReportGrid second = reportGridService.getByIdAndSelectionOptions(def.id().get(), mkOpts(mkRef(EntityKind.ORG_UNIT, ouIds.a), HierarchyQueryScope.CHILDREN));
+
+        assertSame("second request should be served from the cache", first.instance(), second.instance());
+        assertEquals(hits + 1, reportGridService.getInstanceCacheHitCount());
+        assertTrue(reportGridService.getInstanceCacheWeight() > 0);
+
+        dsl.update(COST)
+                .set(COST.AMOUNT, BigDecimal.valueOf(20))
+                .where(COST.COST_KIND_ID.eq(costKind))
+                .execute();
+
+        ReportGrid third = reportGridService.getByIdAndSelectionOptions(def.id().get(), mkOpts(ou, HierarchyQueryScope.CHILDREN));
+        ReportGridCell cell = CollectionUtilities.first(third.instance().cellData());
+        assertEquals("cost change should have invalidated the cache", 0, BigDecimal.valueOf(20).compareTo(cell.value()));
+    }
+
+
+    @Test
+    public void gridMembershipChangesViaSelectorTablesInvalidateTheCache() throws InsufficientPrivelegeException {
+        Long actorId = actorHelper.createActor(mkName("gridActor"));
+        EntityReference actor = mkRef(EntityKind.ACTOR, actorId);
+        EntityReference app1 = appHelper.createNewApp(mkName("flowGridApp1"), ouIds.a);
+        EntityReference app2 = appHelper.createNewApp(mkName("flowGridApp2"), ouIds.a);
+        logicalFlowHelper.createLogicalFlow(app1, actor);
+
+        ReportGridDefinition def = mkGrid();
+
+        ReportGrid before = reportGridService.getByIdAndSelectionOptions(def.id().get(), mkOpts(actor));
+        assertEquals(1, before.instance().applications().size());
+
+        logicalFlowHelper.createLogicalFlow(app2, actor);
+
+        ReportGrid after = reportGridService.getByIdAndSelectionOptions(def.id().get(), mkOpts(actor));
+        assertEquals(
+                "new logical flow should have invalidated the cache",
+                asSet(app1.id(), app2.id()),
+                map(after.instance().applications(), a -> a.id().get()));
+    }
+
+
     // -- HELPERS --------------
 
     private ReportGridDefinition mkGrid() throws InsufficientPrivelegeException {
+        long invKind = involvementHelper.mkInvolvementKind(mkName("dummyInv"));
+        return mkGrid(EntityReference.mkRef(EntityKind.INVOLVEMENT_KIND, invKind));
+    }
+
+
+    private ReportGridDefinition mkGrid(EntityReference... columnRefs) throws InsufficientPrivelegeException {
         ReportGridCreateCommand cmd = ImmutableReportGridCreateCommand.builder()
                 .name(mkName("testReport"))
                 .build();
@@ -117,17 +252,18 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
         String admin = mkName("admin");
         ReportGridDefinition def = reportGridService.create(cmd, admin);
 
-        long invKind = involvementHelper.mkInvolvementKind(mkName("dummyInv"));
-
-        ReportGridColumnDefinition colDef = ImmutableReportGridColumnDefinition
-                .builder()
-                .columnEntityReference(EntityReference.mkRef(EntityKind.INVOLVEMENT_KIND, invKind))
-                .position(10)
-                .build();
+        AtomicInteger position = new AtomicInteger(0);
+        Set<ReportGridColumnDefinition> colDefs = map(
+                asList(columnRefs),
+                ref -> ImmutableReportGridColumnDefinition
+                        .builder()
+                        .columnEntityReference(ref)
+                        .position(position.addAndGet(10))
+                        .build());
 
         ReportGridColumnDefinitionsUpdateCommand colCmd = ImmutableReportGridColumnDefinitionsUpdateCommand
                 .builder()
-                .columnDefinitions(asSet(colDef))
+                .columnDefinitions(colDefs)
                 .build();
 
 
@@ -138,4 +274,25 @@ public class ReportGridServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    private long mkCostKind(String name) {
+        CostKindRecord record = dsl.newRecord(COST_KIND);
+        record.setName(name);
+        record.setDescription(name);
+        record.setExternalId(name);
+        record.insert();
+        return record.getId();
+    }
+
+
+    private void mkCost(long costKind, EntityReference ref, int year, long amount) {
+        CostRecord record = dsl.newRecord(COST);
+        record.setCostKindId(costKind);
+        record.setEntityId(ref.id());
+        record.setEntityKind(ref.kind().name());
+        record.setYear(year);
+        record.setAmount(BigDecimal.valueOf(amount));
+        record.setLastUpdatedBy(LAST_UPDATE_USER);
+        record.setProvenance(PROVENANCE);
+        record.insert();
+    }
 }
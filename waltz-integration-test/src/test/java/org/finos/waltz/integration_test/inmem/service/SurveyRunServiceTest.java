@@ -141,6 +141,96 @@ public class SurveyRunServiceTest extends BaseInMemoryIntegrationTest {
     }
 
 
+    @Test
+    public void individualSurveysAreIssuedOnePerRecipientAndReplacedOnReissue() throws InsufficientPrivelegeException {
+        String stem = "srt_individualSurveysAreIssuedOnePerRecipient";
+
+        String admin = mkName(stem, "admin");
+        personHelper.createPerson(admin);
+
+        String u1 = mkName(stem, "user1");
+        Long u1Id = personHelper.createPerson(u1);
+        String u2a = mkName(stem, "user2a");
+        Long u2aId = personHelper.createPerson(u2a);
+        String u2b = mkName(stem, "user2b");
+        Long u2bId = personHelper.createPerson(u2b);
+        String owner = mkName(stem, "owner");
+        Long ownerId = personHelper.createPerson(owner);
+
+        EntityReference appA = appHelper.createNewApp(mkName(stem, "appA"), ouIds.a);
+        EntityReference appB = appHelper.createNewApp(mkName(stem, "appB"), ouIds.b);
+
+        long invKind = involvementHelper.mkInvolvementKind(mkName(stem, "invKind"));
+        long ownerInvKind = involvementHelper.mkInvolvementKind(mkName(stem, "ownerInvKind"));
+        involvementHelper.createInvolvement(u1Id, invKind, appA);
+        involvementHelper.createInvolvement(u2aId, invKind, appB);
+        involvementHelper.createInvolvement(u2bId, invKind, appB);
+        involvementHelper.createInvolvement(ownerId, ownerInvKind, appB);
+
+        Long grpId = groupHelper.createAppGroupWithAppRefs(mkName(stem, "group"), asSet(appA, appB));
+
+        long tId = templateHelper.createTemplate(admin, mkName(stem, "template"));
+
+        SurveyRunCreateCommand cmd = ImmutableSurveyRunCreateCommand.builder()
+                .issuanceKind(SurveyIssuanceKind.INDIVIDUAL)
+                .name("test")
+                .description("run desc")
+                .selectionOptions(IdSelectionOptions.mkOpts(EntityReference.mkRef(EntityKind.APP_GROUP, grpId)))
+                .surveyTemplateId(tId)
+                .addInvolvementKindIds(invKind)
+                .addOwnerInvKindIds(ownerInvKind)
+                .dueDate(DateTimeUtilities.today().plusMonths(1))
+                .approvalDueDate(DateTimeUtilities.today().plusMonths(1))
+                .contactEmail("someone@somewhere.com")
+                .build();
+
+        IdCommandResponse runResp = runService.createSurveyRun(admin, cmd);
+        Long surveyRunId = runResp.id().orElseThrow(() -> new AssertionFailedError("Failed to create run"));
+
+        ImmutableInstancesAndRecipientsCreateCommand createCmd = ImmutableInstancesAndRecipientsCreateCommand.builder()
+                .surveyRunId(surveyRunId)
+                .dueDate(toLocalDate(nowUtcTimestamp()))
+                .approvalDueDate(toLocalDate(nowUtcTimestamp()))
+                .excludedRecipients(emptySet())
+                .build();
+        runService.createSurveyInstancesAndRecipients(createCmd);
+
+        Set<SurveyInstance> instances = instanceService.findForSurveyRun(surveyRunId);
+        assertEquals(3, instances.size(), "should be one instance per recipient");
+
+        for (SurveyInstance instance : instances) {
+            Long instanceId = instance.id().orElseThrow(() -> new AssertionFailedError("Instance has no id"));
+            assertEquals(1, instanceService.findRecipients(instanceId).size(), "each instance has a single recipient");
+            assertNotNull(instanceService.checkPersonIsOwnerOrAdmin(admin, instanceId), "run owner is owner of every instance");
+        }
+
+        Set<SurveyInstance> instancesForU2a = instanceService.findForRecipient(u2aId);
+        Set<SurveyInstance> instancesForU2b = instanceService.findForRecipient(u2bId);
+        assertEquals(1, instancesForU2a.size());
+        assertEquals(1, instancesForU2b.size());
+        assertNotEquals(instancesForU2a, instancesForU2b, "users on the same app get their own instances");
+
+        Long u2aInstanceId = instancesForU2a.iterator().next().id().get();
+        assertNotNull(instanceService.checkPersonIsOwnerOrAdmin(owner, u2aInstanceId), "involvement based owner owns instances for app B");
+
+        SurveyInstance u1Instance = instanceService.findForRecipient(u1Id).iterator().next();
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> instanceService.checkPersonIsOwnerOrAdmin(owner, u1Instance.id().get()),
+                "involvement based owner does not own instances for app A");
+
+        runService.createSurveyInstancesAndRecipients(createCmd);
+
+        Set<SurveyInstance> reissuedInstances = instanceService.findForSurveyRun(surveyRunId);
+        assertEquals(3, reissuedInstances.size(), "reissuing replaces the existing instances");
+        assertTrue(
+                Collections.disjoint(
+                        map(instances, i -> i.id().get()),
+                        map(reissuedInstances, i -> i.id().get())),
+                "reissued instances are new");
+    }
+
+
     private Set<String> recipsToUserIds(List<Person> aRecips) {
         return map(aRecips, Person::userId);
     }
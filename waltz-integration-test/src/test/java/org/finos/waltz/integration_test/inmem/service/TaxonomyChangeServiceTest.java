@@ -0,0 +1,180 @@
+package org.finos.waltz.integration_test.inmem.service;
+
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyClosureCache;
+import org.finos.waltz.integration_test.inmem.BaseInMemoryIntegrationTest;
+import org.finos.waltz.integration_test.inmem.helpers.MeasurableHelper;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
+import org.finos.waltz.model.measurable.Measurable;
+import org.finos.waltz.model.taxonomy_management.ImmutableTaxonomyChangeCommand;
+import org.finos.waltz.model.taxonomy_management.TaxonomyChangeCommand;
+import org.finos.waltz.model.taxonomy_management.TaxonomyChangeLifecycleStatus;
+import org.finos.waltz.model.taxonomy_management.TaxonomyChangeType;
+import org.finos.waltz.model.user.SystemRole;
+import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.measurable.MeasurableService;
+import org.finos.waltz.service.taxonomy_management.TaxonomyChangeService;
+import org.jooq.DSLContext;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkName;
+import static org.finos.waltz.integration_test.inmem.helpers.NameHelper.mkUserId;
+import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.tables.EntityHierarchy.ENTITY_HIERARCHY;
+import static org.finos.waltz.schema.tables.MeasurableCategory.MEASURABLE_CATEGORY;
+import static org.finos.waltz.schema.tables.User.USER;
+import static org.finos.waltz.schema.tables.UserRole.USER_ROLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaxonomyChangeServiceTest extends BaseInMemoryIntegrationTest {
+
+    @Autowired
+    private TaxonomyChangeService taxonomyChangeService;
+
+    @Autowired
+    private MeasurableService measurableService;
+
+    @Autowired
+    private MeasurableHelper measurableHelper;
+
+    @Autowired
+    private EntityHierarchyService entityHierarchyService;
+
+    @Autowired
+    private EntityHierarchyClosureCache closureCache;
+
+    @Autowired
+    private DSLContext dsl;
+
+
+    @Test
+    public void batchApplyRunsAllDraftsForTheDomain() {
+        String userId = mkTaxonomyEditor();
+        EntityReference category = mkEditableCategory();
+        long root = measurableHelper.createMeasurable(mkName("root"), category.id());
+        long x = measurableHelper.createMeasurable(mkName("x"), category.id());
+        long y = measurableHelper.createMeasurable(mkName("y"), category.id());
+
+        submit(category, TaxonomyChangeType.MOVE, x, newHashMap("destinationId", Long.toString(root)), userId);
+        submit(category, TaxonomyChangeType.MOVE, y, newHashMap("destinationId", Long.toString(x)), userId);
+        // relies on the hierarchy reflecting the earlier moves to find 'y' as a child of 'x'
+        submit(category, TaxonomyChangeType.REMOVE, x, Collections.emptyMap(), userId);
+
+        List<TaxonomyChangeCommand> applied = taxonomyChangeService.applyAllByDomain(category, userId);
+
+        assertEquals(3, applied.size());
+        assertTrue(applied.stream().allMatch(c -> c.status() == TaxonomyChangeLifecycleStatus.EXECUTED));
+        assertTrue(taxonomyChangeService.findDraftChangesByDomain(category).isEmpty());
+
+        assertEquals(EntityLifecycleStatus.ACTIVE, measurableService.getById(root).entityLifecycleStatus());
+        assertEquals(EntityLifecycleStatus.REMOVED, measurableService.getById(x).entityLifecycleStatus());
+        assertEquals(EntityLifecycleStatus.REMOVED, measurableService.getById(y).entityLifecycleStatus());
+
+        assertEquals(
+                3,
+                dsl.fetchCount(ENTITY_HIERARCHY, ENTITY_HIERARCHY.ANCESTOR_ID.eq(root).and(ENTITY_HIERARCHY.KIND.eq(EntityKind.MEASURABLE.name()))),
+                "hierarchy should be rebuilt once all changes are applied");
+    }
+
+
+    @Test
+    public void batchApplyIsAllOrNothing() {
+        String userId = mkTaxonomyEditor();
+        EntityReference category = mkEditableCategory();
+        long root = measurableHelper.createMeasurable(mkName("root"), category.id());
+        long x = measurableHelper.createMeasurable(mkName("x"), category.id());
+
+        submit(category, TaxonomyChangeType.MOVE, x, newHashMap("destinationId", Long.toString(root)), userId);
+        submit(category, TaxonomyChangeType.MOVE, root, newHashMap("destinationId", Long.toString(root)), userId);
+
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> taxonomyChangeService.applyAllByDomain(category, userId),
+                "cannot move a node under itself");
+
+        Measurable reloadedX = measurableService.getById(x);
+        assertFalse(reloadedX.parentId().isPresent(), "first move should have been rolled back");
+        assertEquals(2, taxonomyChangeService.findDraftChangesByDomain(category).size());
+        assertFalse(closureCache.isSuspended(EntityKind.MEASURABLE), "closure should be usable again after a rollback");
+    }
+
+
+    @Test
+    public void hierarchyCachedBeforeBatchApplyIsDiscardedOnceCommitted() {
+        String userId = mkTaxonomyEditor();
+        EntityReference category = mkEditableCategory();
+        long root = measurableHelper.createMeasurable(mkName("root"), category.id());
+        long x = measurableHelper.createMeasurable(mkName("x"), category.id());
+        entityHierarchyService.buildForMeasurableByCategory(category.id());
+
+        // caches the closure as it is before the move is applied
+        assertEquals(1, findChildren(root).size());
+
+        submit(category, TaxonomyChangeType.MOVE, x, newHashMap("destinationId", Long.toString(root)), userId);
+        taxonomyChangeService.applyAllByDomain(category, userId);
+
+        assertFalse(closureCache.isSuspended(EntityKind.MEASURABLE));
+        assertEquals(2, findChildren(root).size(), "closure cached before the commit should have been discarded");
+    }
+
+
+    private List<Measurable> findChildren(long measurableId) {
+        return measurableService.findByMeasurableIdSelector(mkOpts(
+                mkRef(EntityKind.MEASURABLE, measurableId),
+                HierarchyQueryScope.CHILDREN));
+    }
+
+
+    private void submit(EntityReference category,
+                        TaxonomyChangeType changeType,
+                        long measurableId,
+                        Map<String, String> params,
+                        String userId) {
+        taxonomyChangeService.submitDraftChange(
+                ImmutableTaxonomyChangeCommand.builder()
+                        .changeDomain(category)
+                        .changeType(changeType)
+                        .primaryReference(mkRef(EntityKind.MEASURABLE, measurableId))
+                        .params(params)
+                        .createdBy(userId)
+                        .lastUpdatedBy(userId)
+                        .build(),
+                userId);
+    }
+
+
+    private EntityReference mkEditableCategory() {
+        long categoryId = measurableHelper.createMeasurableCategory(mkName("taxonomy"));
+        dsl.update(MEASURABLE_CATEGORY)
+                .set(MEASURABLE_CATEGORY.EDITABLE, true)
+                .where(MEASURABLE_CATEGORY.ID.eq(categoryId))
+                .execute();
+        return mkRef(EntityKind.MEASURABLE_CATEGORY, categoryId);
+    }
+
+
+    private String mkTaxonomyEditor() {
+        String userId = mkUserId("taxonomyEditor");
+        dsl.insertInto(USER)
+                .set(USER.USER_NAME, userId)
+                .set(USER.PASSWORD, "")
+                .execute();
+        dsl.insertInto(USER_ROLE)
+                .set(USER_ROLE.USER_NAME, userId)
+                .set(USER_ROLE.ROLE, SystemRole.TAXONOMY_EDITOR.name())
+                .execute();
+        return userId;
+    }
+}
@@ -21,7 +21,6 @@ package org.finos.waltz.jobs.generators;
 import org.finos.waltz.common.RandomUtilities;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDefinitionDao;
-import org.finos.waltz.data.entity_statistic.EntityStatisticValueDao;
 import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -31,6 +30,7 @@ import org.finos.waltz.model.entity_statistic.*;
 import org.finos.waltz.model.orgunit.OrganisationalUnit;
 import org.finos.waltz.service.DIConfiguration;
 import org.finos.waltz.service.entity_hierarchy.EntityHierarchyService;
+import org.finos.waltz.service.entity_statistic.EntityStatisticService;
 import org.jooq.DSLContext;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -162,7 +162,7 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
         DSLContext dsl = context.getBean(DSLContext.class);
         ApplicationDao applicationDao = context.getBean(ApplicationDao.class);
         OrganisationalUnitDao organisationalUnitDao = context.getBean(OrganisationalUnitDao.class);
-        EntityStatisticValueDao valueDao = context.getBean(EntityStatisticValueDao.class);
+        EntityStatisticService statisticService = context.getBean(EntityStatisticService.class);
         EntityStatisticDefinitionDao definitionDao = context.getBean(EntityStatisticDefinitionDao.class);
         EntityHierarchyService entityHierarchyService = context.getBean(EntityHierarchyService.class);
 
@@ -192,18 +192,18 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
         definitionDao.insert(SERVER_COUNT);
         definitionDao.insert(PRE_COMPUTED);
 
-        createAdoptionStatsFor(SDLC_TECH, applications, valueDao);
-        createAdoptionStatsFor(SDLC_PROCESS, applications, valueDao);
-        createAdoptionStatsFor(SDLC_JIRA, applications, valueDao);
-        createAdoptionStatsFor(SDLC_SVN, applications, valueDao);
-        createAdoptionStatsFor(SDLC_WIKI, applications, valueDao);
-        createIntStatsFor(AUDIT, applications, valueDao, 20, failIfPositiveFn);
-        createIntStatsFor(SDLC, applications, valueDao, 20, failIfPositiveFn);
+        createAdoptionStatsFor(SDLC_TECH, applications, statisticService);
+        createAdoptionStatsFor(SDLC_PROCESS, applications, statisticService);
+        createAdoptionStatsFor(SDLC_JIRA, applications, statisticService);
+        createAdoptionStatsFor(SDLC_SVN, applications, statisticService);
+        createAdoptionStatsFor(SDLC_WIKI, applications, statisticService);
+        createIntStatsFor(AUDIT, applications, statisticService, 20, failIfPositiveFn);
+        createIntStatsFor(SDLC, applications, statisticService, 20, failIfPositiveFn);
 
-        createIntStatsFor(SERVER_COUNT, applications, valueDao, 20, (x, y) -> "VIRTUAL");
-        createIntStatsFor(SERVER_COUNT, applications, valueDao, 20, (x, y) -> "BARE_METAL");
+        createIntStatsFor(SERVER_COUNT, applications, statisticService, 20, (x, y) -> "VIRTUAL");
+        createIntStatsFor(SERVER_COUNT, applications, statisticService, 20, (x, y) -> "BARE_METAL");
 
-        createPreComputedStatsFor(PRE_COMPUTED, orgUnits, valueDao);
+        createPreComputedStatsFor(PRE_COMPUTED, orgUnits, statisticService);
 
         entityHierarchyService.buildFor(EntityKind.ENTITY_STATISTIC);
 
@@ -214,7 +214,7 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
 
     private void createIntStatsFor(EntityStatisticDefinition defn,
                                    Application[] applications,
-                                   EntityStatisticValueDao valueDao,
+                                   EntityStatisticService statisticService,
                                    int bound,
                                    BiFunction<StatisticValueState, Integer, String> outcomeFn) {
 
@@ -245,13 +245,13 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
                 })
                 .collect(toList());
 
-        valueDao.bulkSaveValues(values);
+        statisticService.bulkSaveValues(values);
     }
 
 
     private void createAdoptionStatsFor(EntityStatisticDefinition defn,
                                         Application[] applications,
-                                        EntityStatisticValueDao valueDao) {
+                                        EntityStatisticService statisticService) {
 
         List<EntityStatisticValue> values = streamAppRefs(applications)
                 .flatMap(appRef -> {
@@ -274,13 +274,13 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
                 })
                 .collect(Collectors.toList());
 
-        valueDao.bulkSaveValues(values);
+        statisticService.bulkSaveValues(values);
     }
 
 
     private void createPreComputedStatsFor(EntityStatisticDefinition defn,
                                            OrganisationalUnit[] orgUnits,
-                                           EntityStatisticValueDao valueDao) {
+                                           EntityStatisticService statisticService) {
 
 
         List<EntityStatisticValue> values = streamOrgUnitRefs(orgUnits)
@@ -300,7 +300,7 @@ public class EntityStatisticGenerator implements SampleDataGenerator {
                 })
                 .collect(Collectors.toList());
 
-        valueDao.bulkSaveValues(values);
+        statisticService.bulkSaveValues(values);
     }
 
 
@@ -0,0 +1,153 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.jobs.harness;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.flow_classification_rule.ImmutableFlowClassificationRuleVantagePoint;
+import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
+import org.finos.waltz.service.flow_classification_rule.FlowClassificationRuleResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.finos.waltz.common.MapUtilities.groupAndThen;
+import static org.finos.waltz.common.MapUtilities.isEmpty;
+import static org.finos.waltz.jobs.harness.HarnessUtilities.time;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+/**
+ * Compares the flat FlowClassificationRuleResolver with the nested map
+ * structure it replaced, by rating a batch of synthetic decorators.
+ */
+public class FlowClassificationRuleResolverHarness {
+
+    private static final int ORG_UNITS = 2_000;
+    private static final int DATA_TYPES = 200;
+    private static final int APPS = 20_000;
+    private static final int VANTAGE_POINTS = 500_000;
+    private static final int DECORATORS = 1_000_000;
+    private static final int ROUNDS = 5;
+
+
+    public static void main(String[] args) {
+        Random random = new Random(42);
+        String[] codes = {"PRIMARY", "SECONDARY", "TERTIARY"};
+
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>(VANTAGE_POINTS);
+        for (int i = 0; i < VANTAGE_POINTS; i++) {
+            vantagePoints.add(ImmutableFlowClassificationRuleVantagePoint
+                    .builder()
+                    .vantagePoint(mkRef(EntityKind.ORG_UNIT, random.nextInt(ORG_UNITS)))
+                    .vantagePointRank(random.nextInt(5))
+                    .dataType(mkRef(EntityKind.DATA_TYPE, random.nextInt(DATA_TYPES)))
+                    .dataTypeRank(random.nextInt(5))
+                    .applicationId((long) random.nextInt(APPS))
+                    .classificationCode(codes[random.nextInt(codes.length)])
+                    .ruleId((long) i)
+                    .build());
+        }
+
+        long[] orgUnitIds = new long[DECORATORS];
+        long[] appIds = new long[DECORATORS];
+        long[] dataTypeIds = new long[DECORATORS];
+        for (int i = 0; i < DECORATORS; i++) {
+            orgUnitIds[i] = random.nextInt(ORG_UNITS);
+            appIds[i] = random.nextInt(APPS);
+            dataTypeIds[i] = random.nextInt(DATA_TYPES);
+        }
+
+        NestedMapResolver nested = time("build nested", () -> new NestedMapResolver(vantagePoints));
+        FlowClassificationRuleResolver flat = time("build flat", () -> new FlowClassificationRuleResolver(vantagePoints));
+
+        for (int round = 1; round <= ROUNDS; round++) {
+            time("nested, round " + round, () -> {
+                int discouraged = 0;
+                for (int i = 0; i < DECORATORS; i++) {
+                    AuthoritativenessRatingValue rating = nested.resolve(
+                            mkRef(EntityKind.ORG_UNIT, orgUnitIds[i]),
+                            mkRef(EntityKind.APPLICATION, appIds[i]),
+                            dataTypeIds[i]);
+                    if (rating == AuthoritativenessRatingValue.DISCOURAGED) discouraged++;
+                }
+                return discouraged;
+            });
+
+            time("flat, round " + round, () -> {
+                int discouraged = 0;
+                for (int i = 0; i < DECORATORS; i++) {
+                    AuthoritativenessRatingValue rating = flat.resolve(
+                            EntityKind.ORG_UNIT,
+                            orgUnitIds[i],
+                            appIds[i],
+                            dataTypeIds[i]);
+                    if (rating == AuthoritativenessRatingValue.DISCOURAGED) discouraged++;
+                }
+                return discouraged;
+            });
+        }
+    }
+
+
+    /**
+     * The previous resolver implementation: OrgUnit -> [DataTypeId -> [AppId -> Rating] ]
+     */
+    private static class NestedMapResolver {
+
+        private final Map<EntityReference, Map<Long, Map<Long, Optional<FlowClassificationRuleVantagePoint>>>> byOuThenDataTypeThenApp;
+
+
+        private NestedMapResolver(List<FlowClassificationRuleVantagePoint> vantagePoints) {
+            byOuThenDataTypeThenApp = groupAndThen(
+                    FlowClassificationRuleVantagePoint::vantagePoint,
+                    byOus -> groupAndThen(
+                            byOu -> byOu.dataType().id(),
+                            byDts -> groupAndThen(
+                                    FlowClassificationRuleVantagePoint::applicationId,
+                                    FlowClassificationRuleResolver::getMostSpecificRanked,
+                                    byDts),
+                            byOus),
+                    vantagePoints);
+        }
+
+
+        private AuthoritativenessRatingValue resolve(EntityReference vantagePoint,
+                                                     EntityReference source,
+                                                     Long dataTypeId) {
+            Map<Long, Map<Long, Optional<FlowClassificationRuleVantagePoint>>> ouGroup = byOuThenDataTypeThenApp.get(vantagePoint);
+            if (isEmpty(ouGroup)) {
+                return AuthoritativenessRatingValue.NO_OPINION;
+            }
+
+            Map<Long, Optional<FlowClassificationRuleVantagePoint>> dataTypeGroup = ouGroup.get(dataTypeId);
+            if (isEmpty(dataTypeGroup)) {
+                return AuthoritativenessRatingValue.NO_OPINION;
+            }
+
+            return dataTypeGroup
+                    .getOrDefault(source.id(), Optional.empty())
+                    .map(r -> AuthoritativenessRatingValue.of(r.classificationCode()))
+                    .orElse(AuthoritativenessRatingValue.DISCOURAGED);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 public class FlowDiagramFromMeasurableGenerator {
 
@@ -85,7 +86,7 @@ public class FlowDiagramFromMeasurableGenerator {
             .from(mr)
             .innerJoin(eh).on(mr.MEASURABLE_ID.eq(eh.ID).and(eh.KIND.eq(EntityKind.MEASURABLE.name())))
             .innerJoin(app).on(app.ID.eq(mr.ENTITY_ID).and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
-            .where(tx.renderInlined(eh.ANCESTOR_ID.in(baseSelector).and(activeAppCondition)));
+            .where(maybeInline(tx, eh.ANCESTOR_ID.in(baseSelector).and(activeAppCondition)));
     }
 
 
@@ -255,7 +256,7 @@ public class FlowDiagramFromMeasurableGenerator {
                 .selectDistinct(mr.ENTITY_ID)
                 .from(mr)
                 .innerJoin(app).on(app.ID.eq(mr.ENTITY_ID).and(mr.ENTITY_KIND.eq(EntityKind.APPLICATION.name())))
-                .where(tx.renderInlined(cond));
+                .where(maybeInline(tx, cond));
     }
 
 
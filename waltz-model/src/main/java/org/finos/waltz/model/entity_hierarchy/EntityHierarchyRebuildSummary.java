@@ -0,0 +1,54 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.entity_hierarchy;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityKind;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+
+
+/**
+ * Outcome of an incremental hierarchy rebuild, giving the number of
+ * `(id, ancestor_id, level)` tuples which were changed.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableEntityHierarchyRebuildSummary.class)
+@JsonDeserialize(as = ImmutableEntityHierarchyRebuildSummary.class)
+public abstract class EntityHierarchyRebuildSummary {
+
+    public abstract EntityKind kind();
+    public abstract int insertCount();
+    public abstract int updateCount();
+    public abstract int deleteCount();
+    public abstract int unchangedCount();
+    public abstract long durationMillis();
+    public abstract LocalDateTime completedAt();
+
+
+    /**
+     * @return the number of tuples in the hierarchy once the rebuild completed
+     */
+    @Value.Derived
+    public int size() {
+        return insertCount() + updateCount() + unchangedCount();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.model.logical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.immutables.value.Value;
+
+import java.util.Map;
+import java.util.Optional;
+
+
+/**
+ * Summarises everything downstream of an entity, i.e. what may be
+ * impacted by a change to it.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableLogicalFlowImpactSummary.class)
+@JsonDeserialize(as = ImmutableLogicalFlowImpactSummary.class)
+public abstract class LogicalFlowImpactSummary {
+
+    public abstract EntityReference entityReference();
+
+    public abstract Optional<Long> dataTypeId();
+
+    public abstract int impactedCount();
+
+    /**
+     * @return distance (in hops) to the furthest impacted entity, 0 if nothing is impacted
+     */
+    public abstract int radius();
+
+    public abstract Map<Integer, Integer> countsByDistance();
+
+    public abstract Map<EntityKind, Integer> countsByKind();
+
+    public abstract int flowCount();
+
+}
@@ -0,0 +1,61 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.physical_flow;
+
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.immutables.value.Value;
+
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * Outcome of creating a batch of parsed physical flows (and any
+ * missing logical flows and specifications) in a single transaction.
+ */
+@Value.Immutable
+public abstract class PhysicalFlowBulkCreateResult {
+
+    /**
+     * @return physical flow ids in the same order as the parsed flows supplied
+     */
+    public abstract List<Long> physicalFlowIds();
+
+    public abstract Set<Long> createdPhysicalFlowIds();
+
+    /**
+     * @return ids of all logical flows used by the batch, whether created, restored or pre-existing
+     */
+    public abstract Set<Long> logicalFlowIds();
+
+    @Value.Default
+    public int createdLogicalFlowCount() {
+        return 0;
+    }
+
+    @Value.Default
+    public int createdSpecificationCount() {
+        return 0;
+    }
+
+    /**
+     * @return data type decorators added to logical flows and specifications
+     */
+    public abstract List<DataTypeDecorator> addedDecorators();
+}
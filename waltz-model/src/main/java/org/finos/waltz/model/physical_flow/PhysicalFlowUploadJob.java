@@ -0,0 +1,54 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.physical_flow;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.finos.waltz.model.system.job_log.JobStatus;
+import org.immutables.value.Value;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+
+/**
+ * Status of a physical flow upload which is running (or has run) in the
+ * background.  Clients poll for this until the status is no longer
+ * `IN_PROGRESS` and then fetch the command responses separately.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutablePhysicalFlowUploadJob.class)
+@JsonDeserialize(as = ImmutablePhysicalFlowUploadJob.class)
+public abstract class PhysicalFlowUploadJob {
+
+    public abstract String id();
+    public abstract String userId();
+    public abstract JobStatus status();
+    public abstract PhysicalFlowUploadPhase phase();
+    public abstract int commandCount();
+
+    @Value.Default
+    public int createdCount() {
+        return 0;
+    }
+
+    public abstract LocalDateTime submittedAt();
+    public abstract Optional<LocalDateTime> completedAt();
+    public abstract Optional<String> errorMessage();
+}
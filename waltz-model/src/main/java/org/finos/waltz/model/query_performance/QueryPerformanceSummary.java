@@ -0,0 +1,57 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.query_performance;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.immutables.value.Value;
+
+
+/**
+ * Execution statistics for all queries sharing the same normalised sql
+ * (i.e. with literals and bind values removed).  All durations are in
+ * milliseconds.
+ */
+@Value.Immutable
+@JsonSerialize(as = ImmutableQueryPerformanceSummary.class)
+@JsonDeserialize(as = ImmutableQueryPerformanceSummary.class)
+public abstract class QueryPerformanceSummary {
+
+    public abstract String sql();
+    public abstract long executionCount();
+    public abstract long errorCount();
+    public abstract long rowCount();
+    public abstract double totalMillis();
+    public abstract double meanMillis();
+    public abstract double p50Millis();
+    public abstract double p95Millis();
+    public abstract double p99Millis();
+    public abstract double maxMillis();
+
+    /**
+     * @return mean time spent executing the statement, excluding fetching results
+     */
+    public abstract double meanExecuteMillis();
+
+    /**
+     * @return mean time spent fetching results
+     */
+    public abstract double meanFetchMillis();
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+
+import java.math.BigDecimal;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Collections.unmodifiableSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Columnar store of report grid cells.
+ *
+ * Each attribute of a cell is held in its own array, rather than as a list
+ * of `ReportGridCell` objects, which keeps large (cached) grids compact.
+ * The cells can be looked up by application id, the index is built on first
+ * use after which no more cells may be added.
+ *
+ * As a `List<ReportGridCell>` the cells serialise to the same json as a list
+ * of cells, each element is created as it is read.
+ */
+public class ReportGridCells extends AbstractList<ReportGridCell> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] NO_ROWS = new int[0];
+
+    private int size = 0;
+    private EntityKind[] columnEntityKinds = new EntityKind[INITIAL_CAPACITY];
+    private long[] columnEntityIds = new long[INITIAL_CAPACITY];
+    private long[] applicationIds = new long[INITIAL_CAPACITY];
+    private long[] ratingIds = new long[INITIAL_CAPACITY];
+    private final BitSet hasRatingId = new BitSet();
+    private BigDecimal[] values = new BigDecimal[INITIAL_CAPACITY];
+    private String[] texts = new String[INITIAL_CAPACITY];
+    private String[] comments = new String[INITIAL_CAPACITY];
+
+    private volatile Map<Long, int[]> rowsByApplicationId = null;
+
+
+    public void add(EntityKind columnEntityKind,
+                    long columnEntityId,
+                    long applicationId,
+                    Long ratingId,
+                    BigDecimal value,
+                    String text,
+                    String comment) {
+        checkNotNull(columnEntityKind, "columnEntityKind cannot be null");
+        if (rowsByApplicationId != null) {
+            throw new IllegalStateException("Cells cannot be added once they have been indexed");
+        }
+
+        ensureCapacity(size + 1);
+        columnEntityKinds[size] = columnEntityKind;
+        columnEntityIds[size] = columnEntityId;
+        applicationIds[size] = applicationId;
+        if (ratingId != null) {
+            ratingIds[size] = ratingId;
+            hasRatingId.set(size);
+        }
+        values[size] = value;
+        texts[size] = text;
+        comments[size] = comment;
+        size++;
+        modCount++;
+    }
+
+
+    /**
+     * Copies a single row from another set of cells.
+     */
+    public void addRow(ReportGridCells other, int row) {
+        add(other.columnEntityKind(row),
+                other.columnEntityId(row),
+                other.applicationId(row),
+                other.ratingId(row),
+                other.value(row),
+                other.text(row),
+                other.comment(row));
+    }
+
+
+    @Override
+    public boolean add(ReportGridCell cell) {
+        checkNotNull(cell, "cell cannot be null");
+        add(cell.columnEntityKind(),
+                cell.columnEntityId(),
+                cell.applicationId(),
+                cell.ratingId(),
+                cell.value(),
+                cell.text(),
+                cell.comment());
+        return true;
+    }
+
+
+    @Override
+    public boolean addAll(Collection<? extends ReportGridCell> cells) {
+        if (cells instanceof ReportGridCells) {
+            ReportGridCells other = (ReportGridCells) cells;
+            for (int row = 0; row < other.size; row++) {
+                addRow(other, row);
+            }
+            return other.size > 0;
+        } else {
+            return super.addAll(cells);
+        }
+    }
+
+
+    @Override
+    public ReportGridCell get(int row) {
+        checkRow(row);
+        return ImmutableReportGridCell
+                .builder()
+                .columnEntityKind(columnEntityKinds[row])
+                .columnEntityId(columnEntityIds[row])
+                .applicationId(applicationIds[row])
+                .ratingId(ratingId(row))
+                .value(values[row])
+                .text(texts[row])
+                .comment(comments[row])
+                .build();
+    }
+
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+
+    public EntityKind columnEntityKind(int row) {
+        checkRow(row);
+        return columnEntityKinds[row];
+    }
+
+
+    public long columnEntityId(int row) {
+        checkRow(row);
+        return columnEntityIds[row];
+    }
+
+
+    public long applicationId(int row) {
+        checkRow(row);
+        return applicationIds[row];
+    }
+
+
+    public Long ratingId(int row) {
+        checkRow(row);
+        return hasRatingId.get(row)
+                ? ratingIds[row]
+                : null;
+    }
+
+
+    public BigDecimal value(int row) {
+        checkRow(row);
+        return values[row];
+    }
+
+
+    public String text(int row) {
+        checkRow(row);
+        return texts[row];
+    }
+
+
+    public String comment(int row) {
+        checkRow(row);
+        return comments[row];
+    }
+
+
+    /**
+     * @return ids of the applications which have at least one cell
+     */
+    public Set<Long> applicationIds() {
+        return unmodifiableSet(getRowsByApplicationId().keySet());
+    }
+
+
+    /**
+     * @param applicationId  application (grid row) of interest
+     * @return positions of the cells for the application, in the order they were added
+     */
+    public int[] rowsForApplication(long applicationId) {
+        return getRowsByApplicationId().getOrDefault(applicationId, NO_ROWS).clone();
+    }
+
+
+    // -- helpers ---
+
+    private Map<Long, int[]> getRowsByApplicationId() {
+        Map<Long, int[]> index = rowsByApplicationId;
+        if (index == null) {
+            synchronized (this) {
+                index = rowsByApplicationId;
+                if (index == null) {
+                    index = mkIndex();
+                    rowsByApplicationId = index;
+                }
+            }
+        }
+        return index;
+    }
+
+
+    private Map<Long, int[]> mkIndex() {
+        Map<Long, Integer> countsByApplicationId = new HashMap<>();
+        for (int row = 0; row < size; row++) {
+            countsByApplicationId.merge(applicationIds[row], 1, Integer::sum);
+        }
+
+        Map<Long, int[]> index = new HashMap<>(countsByApplicationId.size() * 2);
+        countsByApplicationId.forEach((appId, count) -> index.put(appId, new int[count]));
+
+        Map<Long, Integer> positions = new HashMap<>(countsByApplicationId.size() * 2);
+        for (int row = 0; row < size; row++) {
+            long appId = applicationIds[row];
+            int position = positions.merge(appId, 1, Integer::sum) - 1;
+            index.get(appId)[position] = row;
+        }
+        return index;
+    }
+
+
+    private void ensureCapacity(int required) {
+        if (required <= columnEntityIds.length) {
+            return;
+        }
+        int capacity = Math.max(required, columnEntityIds.length * 2);
+        columnEntityKinds = Arrays.copyOf(columnEntityKinds, capacity);
+        columnEntityIds = Arrays.copyOf(columnEntityIds, capacity);
+        applicationIds = Arrays.copyOf(applicationIds, capacity);
+        ratingIds = Arrays.copyOf(ratingIds, capacity);
+        values = Arrays.copyOf(values, capacity);
+        texts = Arrays.copyOf(texts, capacity);
+        comments = Arrays.copyOf(comments, capacity);
+    }
+
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+        }
+    }
+}
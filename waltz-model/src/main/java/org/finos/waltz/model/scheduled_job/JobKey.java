@@ -28,6 +28,7 @@ public enum JobKey {
 
     DATA_TYPE_RIPPLE_PHYSICAL_TO_LOGICAL,
     DATA_TYPE_USAGE_RECALC_APPLICATION,
+    DATA_TYPE_USAGE_RECALC_PENDING,
     AUTH_SOURCE_RECALC_FLOW_RATINGS,
     LOGICAL_FLOW_CLEANUP_ORPHANS,
     ATTESTATION_CLEANUP_ORPHANS,
@@ -0,0 +1,108 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.model.report_grid;
+
+import org.finos.waltz.model.EntityKind;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReportGridCellsTest {
+
+    @Test
+    public void cellsCanBeReadByRowOrAsImmutables() {
+        ReportGridCells cells = mkCells();
+
+        assertEquals(3, cells.size());
+        assertEquals(EntityKind.COST_KIND, cells.columnEntityKind(1));
+        assertEquals(new BigDecimal("12.5"), cells.value(1));
+        assertNull(cells.ratingId(1), "absent rating ids are null");
+        assertEquals(Long.valueOf(7L), cells.ratingId(0));
+
+        ReportGridCell expected = ImmutableReportGridCell
+                .builder()
+                .columnEntityKind(EntityKind.MEASURABLE)
+                .columnEntityId(10L)
+                .applicationId(1L)
+                .ratingId(7L)
+                .comment("comment")
+                .build();
+        assertEquals(expected, cells.get(0));
+    }
+
+
+    @Test
+    public void cellsAreIndexedByApplication() {
+        ReportGridCells cells = mkCells();
+
+        assertEquals(asSet(1L, 2L), cells.applicationIds());
+        assertArrayEquals(new int[]{0, 2}, cells.rowsForApplication(1L));
+        assertArrayEquals(new int[]{1}, cells.rowsForApplication(2L));
+        assertArrayEquals(new int[0], cells.rowsForApplication(3L));
+    }
+
+
+    @Test
+    public void cellsCannotBeAddedOnceIndexed() {
+        ReportGridCells cells = mkCells();
+        cells.applicationIds();
+
+        assertThrows(
+                IllegalStateException.class,
+                () -> cells.add(EntityKind.COST_KIND, 1L, 1L, null, null, null, null));
+    }
+
+
+    @Test
+    public void addAllCopiesColumns() {
+        ReportGridCells cells = new ReportGridCells();
+        cells.addAll(mkCells());
+        cells.addAll(mkCells());
+
+        assertEquals(6, cells.size());
+        assertEquals(mkCells().get(2), cells.get(5));
+    }
+
+
+    @Test
+    public void growsBeyondInitialCapacity() {
+        ReportGridCells cells = new ReportGridCells();
+        for (long i = 0; i < 100; i++) {
+            cells.add(EntityKind.SURVEY_QUESTION, i, i % 10, null, null, "text " + i, null);
+        }
+
+        assertEquals(100, cells.size());
+        assertEquals("text 99", cells.text(99));
+        assertEquals(10, cells.rowsForApplication(3L).length);
+    }
+
+
+    // -- helpers ---
+
+    private static ReportGridCells mkCells() {
+        ReportGridCells cells = new ReportGridCells();
+        cells.add(EntityKind.MEASURABLE, 10L, 1L, 7L, null, null, "comment");
+        cells.add(EntityKind.COST_KIND, 20L, 2L, null, new BigDecimal("12.5"), null, null);
+        cells.add(EntityKind.INVOLVEMENT_KIND, 30L, 1L, null, null, "a@b.com", null);
+        return cells;
+    }
+}
@@ -23,8 +23,12 @@ import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 import org.finos.waltz.data.DBExecutorPool;
 import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.data.JooqUtilities;
+import org.finos.waltz.service.query_performance.QueryPerformanceRegistry;
+import org.finos.waltz.service.table_change.TableChangeTracker;
 import org.jooq.DSLContext;
 import org.jooq.SQLDialect;
+import org.jooq.TransactionListener;
 import org.jooq.conf.Settings;
 import org.jooq.impl.DSL;
 import org.jooq.impl.DefaultConfiguration;
@@ -37,6 +41,7 @@ import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
 
 import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
 
 
 @Configuration
@@ -68,12 +73,30 @@ public class DIBaseConfiguration {
     @Value("${database.pool.min:2}")
     private int dbPoolMin;
 
+    @Value("${database.executor.threads:0}")
+    private int dbExecutorThreads;
+
+    @Value("${database.executor.queue.capacity:0}")
+    private int dbExecutorQueueCapacity;
+
+    @Value("${database.executor.task.timeout.millis:0}")
+    private long dbExecutorTaskTimeoutMillis;
+
+    @Value("${database.selectors.inline:true}")
+    private boolean inlineSelectors;
+
     @Value("${jooq.dialect}")
     private String dialect;
 
     @Value("${database.performance.query.slow.threshold:10}")
     private int databasePerformanceQuerySlowThreshold;
 
+    @Value("${database.performance.query.slow.threshold.millis:0}")
+    private long databasePerformanceQuerySlowThresholdMillis;
+
+    @Value("${database.performance.query.max.shapes:2000}")
+    private int databasePerformanceQueryMaxShapes;
+
     @Bean
     public DataSource dataSource() {
 
@@ -90,13 +113,30 @@ public class DIBaseConfiguration {
 
     @Bean
     public DBExecutorPoolInterface dbExecutorPool() {
-        return new DBExecutorPool(dbPoolMin, dbPoolMax);
+        int threadCount = dbExecutorThreads > 0
+                ? Integer.min(dbExecutorThreads, dbPoolMax)
+                : Integer.max(dbPoolMax / 2, 1);
+        return new DBExecutorPool(threadCount, dbExecutorQueueCapacity, dbExecutorTaskTimeoutMillis);
+    }
+
+
+    @Bean
+    public QueryPerformanceRegistry queryPerformanceRegistry() {
+        return new QueryPerformanceRegistry(databasePerformanceQueryMaxShapes);
+    }
+
+
+    @Bean
+    public TableChangeTracker tableChangeTracker() {
+        return new TableChangeTracker();
     }
 
 
     @Bean
     @Autowired
-    public DSLContext dsl(DataSource dataSource) {
+    public DSLContext dsl(DataSource dataSource,
+                          QueryPerformanceRegistry queryPerformanceRegistry,
+                          TableChangeTracker tableChangeTracker) {
         try {
             SQLDialect.valueOf(dialect);
         } catch (IllegalArgumentException iae) {
@@ -108,18 +148,33 @@ public class DIBaseConfiguration {
         Settings dslSettings = new Settings()
                 .withRenderOutputForSQLServerReturningClause(false);
 
+        if (! inlineSelectors) {
+            // pad IN lists to a small number of distinct lengths so their plans can be reused
+            dslSettings.withInListPadding(true);
+        }
+
         if ("true".equals(System.getProperty(JOOQ_DEBUG_PROPERTY))) {
             dslSettings
                     .withRenderFormatted(true)
                     .withExecuteLogging(true);
         }
 
+        long slowQueryThresholdMillis = databasePerformanceQuerySlowThresholdMillis > 0
+                ? databasePerformanceQuerySlowThresholdMillis
+                : TimeUnit.SECONDS.toMillis(databasePerformanceQuerySlowThreshold);
+
+        TableChangeListener tableChangeListener = new TableChangeListener(tableChangeTracker);
+
         org.jooq.Configuration configuration = new DefaultConfiguration()
                 .set(dataSource)
                 .set(SQLDialect.valueOf(dialect))
                 .set(dslSettings)
-                .set(new SlowQueryListener(databasePerformanceQuerySlowThreshold))
-                .set(new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()));
+                .set(new QueryPerformanceListener(queryPerformanceRegistry, slowQueryThresholdMillis),
+                     tableChangeListener,
+                     new SpringExceptionTranslationExecuteListener(new SQLStateSQLExceptionTranslator()))
+                .set((TransactionListener) tableChangeListener);
+
+        configuration.data(JooqUtilities.INLINE_SELECTORS_KEY, inlineSelectors);
 
         return DSL.using(configuration);
     }
@@ -19,8 +19,16 @@
 package org.finos.waltz.service;
 
 import org.finos.waltz.service.email.DummyJavaMailSender;
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.finos.waltz.service.jmx.DBExecutorPoolMonitor;
 import org.finos.waltz.service.jmx.PersonMaintenance;
+import org.finos.waltz.service.jmx.QueryPerformance;
+import org.finos.waltz.service.jmx.ReportGridCache;
+import org.finos.waltz.service.jmx.UserRoleCache;
 import org.finos.waltz.service.person_hierarchy.PersonHierarchyService;
+import org.finos.waltz.service.query_performance.QueryPerformanceService;
+import org.finos.waltz.service.report_grid.ReportGridService;
+import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.model.ImmutableWaltzVersionInfo;
 import org.finos.waltz.model.WaltzVersionInfo;
 import org.finos.waltz.model.settings.ImmutableSetting;
@@ -112,6 +120,13 @@ public class DIConfiguration implements SchedulingConfigurer {
     }
 
 
+    @Bean
+    @Autowired
+    public DBExecutorPoolMonitor dbExecutorPoolMonitor(DBExecutorPoolInterface dbExecutorPool) {
+        return new DBExecutorPoolMonitor(dbExecutorPool);
+    }
+
+
     @Bean
     @Autowired
     public PersonMaintenance personMaintenance(PersonHierarchyService personHierarchyService) {
@@ -119,6 +134,27 @@ public class DIConfiguration implements SchedulingConfigurer {
     }
 
 
+    @Bean
+    @Autowired
+    public QueryPerformance queryPerformance(QueryPerformanceService queryPerformanceService) {
+        return new QueryPerformance(queryPerformanceService);
+    }
+
+
+    @Bean
+    @Autowired
+    public UserRoleCache userRoleCache(UserRoleService userRoleService) {
+        return new UserRoleCache(userRoleService);
+    }
+
+
+    @Bean
+    @Autowired
+    public ReportGridCache reportGridCache(ReportGridService reportGridService) {
+        return new ReportGridCache(reportGridService);
+    }
+
+
     @Bean
     public JavaMailSender mailSender() {
         if (smtpHost == null) {
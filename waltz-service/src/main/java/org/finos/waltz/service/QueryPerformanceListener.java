@@ -0,0 +1,187 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service;
+
+
+import org.finos.waltz.service.query_performance.QueryPerformanceRegistry;
+import org.jooq.ExecuteContext;
+import org.jooq.conf.Settings;
+import org.jooq.impl.DSL;
+import org.jooq.impl.DefaultExecuteListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Times every query executed via jOOQ and records the timings, per
+ * normalised sql, in a {@link QueryPerformanceRegistry}.  Queries slower
+ * than the threshold are also logged to the performance log.
+ *
+ * A single listener instance is shared by all executions, so the
+ * timings for each execution are held in the execute context's data map.
+ */
+public class QueryPerformanceListener extends DefaultExecuteListener {
+
+    private static final String PERFORMANCE_APPENDER = "WALTZ.PERFORMANCE";
+    private static final Logger LOG = LoggerFactory.getLogger(PERFORMANCE_APPENDER);
+    private static final String TIMINGS_KEY = QueryPerformanceListener.class.getName() + ".timings";
+
+    private final QueryPerformanceRegistry registry;
+    private final long slowQueryThresholdInNanos;
+
+
+    public class SQLPerformanceWarning
+            extends Exception {
+
+        public SQLPerformanceWarning(String message) {
+            super(message);
+        }
+    }
+
+
+    public QueryPerformanceListener(QueryPerformanceRegistry registry, long slowQueryThresholdMillis) {
+        checkNotNull(registry, "registry cannot be null");
+        LOG.info("Initialising with {} millisecond slow query threshold", slowQueryThresholdMillis);
+        this.registry = registry;
+        this.slowQueryThresholdInNanos = TimeUnit.MILLISECONDS.toNanos(slowQueryThresholdMillis);
+    }
+
+
+    @Override
+    public void start(ExecuteContext ctx) {
+        ctx.data(TIMINGS_KEY, new Timings(System.nanoTime()));
+    }
+
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        timings(ctx).executeStart = System.nanoTime();
+    }
+
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        Timings timings = timings(ctx);
+        timings.executeNanos += System.nanoTime() - timings.executeStart;
+    }
+
+
+    @Override
+    public void fetchStart(ExecuteContext ctx) {
+        timings(ctx).fetchStart = System.nanoTime();
+    }
+
+
+    @Override
+    public void fetchEnd(ExecuteContext ctx) {
+        Timings timings = timings(ctx);
+        timings.fetchNanos += System.nanoTime() - timings.fetchStart;
+    }
+
+
+    @Override
+    public void recordEnd(ExecuteContext ctx) {
+        timings(ctx).fetchedRows++;
+    }
+
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        timings(ctx).failed = true;
+    }
+
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        Timings timings = (Timings) ctx.data(TIMINGS_KEY);
+        if (timings == null) {
+            return;
+        }
+
+        long totalNanos = System.nanoTime() - timings.start;
+        String sql = sqlOf(ctx);
+
+        registry.record(
+                sql,
+                totalNanos,
+                timings.executeNanos,
+                timings.fetchNanos,
+                Math.max(timings.fetchedRows, ctx.rows()),
+                timings.failed);
+
+        if (totalNanos > slowQueryThresholdInNanos) {
+            logSlowQuery(ctx, sql, totalNanos);
+        }
+    }
+
+
+    // -- HELPERS
+
+    private void logSlowQuery(ExecuteContext ctx, String sql, long totalNanos) {
+        String statement = ctx.query() == null
+                ? sql
+                : DSL.using(ctx.dialect(), new Settings().withRenderFormatted(true)).renderInlined(ctx.query());
+
+        LOG.info(
+                String.format("Slow SQL executed in %d ms", TimeUnit.NANOSECONDS.toMillis(totalNanos)),
+                new SQLPerformanceWarning(statement));
+    }
+
+
+    private static String sqlOf(ExecuteContext ctx) {
+        if (ctx.sql() != null) {
+            return ctx.sql();
+        }
+        String[] batchSql = ctx.batchSQL();
+        return batchSql.length > 0 && batchSql[0] != null
+                ? "/* batch */ " + batchSql[0]
+                : "(unknown)";
+    }
+
+
+    private static Timings timings(ExecuteContext ctx) {
+        Timings timings = (Timings) ctx.data(TIMINGS_KEY);
+        if (timings == null) {
+            timings = new Timings(System.nanoTime());
+            ctx.data(TIMINGS_KEY, timings);
+        }
+        return timings;
+    }
+
+
+    private static class Timings {
+
+        private final long start;
+        private long executeStart;
+        private long executeNanos;
+        private long fetchStart;
+        private long fetchNanos;
+        private long fetchedRows;
+        private boolean failed;
+
+
+        private Timings(long start) {
+            this.start = start;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service;
+
+
+import org.finos.waltz.service.table_change.TableChangeTracker;
+import org.jooq.ExecuteContext;
+import org.jooq.TransactionContext;
+import org.jooq.TransactionListener;
+import org.jooq.impl.DefaultExecuteListener;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Reports each successfully executed statement to the {@link TableChangeTracker}.
+ *
+ * Statements executed within a transaction are reported straight away and
+ * again once the transaction ends.  Without the second notification a cache
+ * could be repopulated with the pre-commit data between the statement
+ * and the commit.
+ */
+public class TableChangeListener extends DefaultExecuteListener implements TransactionListener {
+
+    private final TableChangeTracker tracker;
+    private final ThreadLocal<Set<String>> pendingTables = ThreadLocal.withInitial(HashSet::new);
+
+
+    public TableChangeListener(TableChangeTracker tracker) {
+        checkNotNull(tracker, "tracker cannot be null");
+        this.tracker = tracker;
+    }
+
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        boolean inTransaction = isInTransaction(ctx.connection());
+
+        if (ctx.sql() != null) {
+            record(ctx.sql(), inTransaction);
+        } else {
+            for (String sql : ctx.batchSQL()) {
+                record(sql, inTransaction);
+            }
+        }
+    }
+
+
+    @Override
+    public void beginStart(TransactionContext ctx) {
+    }
+
+
+    @Override
+    public void beginEnd(TransactionContext ctx) {
+    }
+
+
+    @Override
+    public void commitStart(TransactionContext ctx) {
+    }
+
+
+    @Override
+    public void commitEnd(TransactionContext ctx) {
+        flushPendingTables();
+    }
+
+
+    @Override
+    public void rollbackStart(TransactionContext ctx) {
+    }
+
+
+    @Override
+    public void rollbackEnd(TransactionContext ctx) {
+        flushPendingTables();
+    }
+
+
+    // -- HELPERS
+
+    private void record(String sql, boolean inTransaction) {
+        TableChangeTracker
+                .modifiedTable(sql)
+                .ifPresent(table -> {
+                    tracker.recordChange(table);
+                    if (inTransaction) {
+                        pendingTables.get().add(table);
+                    }
+                });
+    }
+
+
+    private void flushPendingTables() {
+        Set<String> pending = pendingTables.get();
+        if (pending.isEmpty()) {
+            return;
+        }
+        pendingTables.remove();
+        pending.forEach(tracker::recordChange);
+    }
+
+
+    private static boolean isInTransaction(Connection connection) {
+        try {
+            return connection != null && ! connection.getAutoCommit();
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+}
@@ -31,27 +31,27 @@ import org.finos.waltz.model.attestation.*;
 import org.finos.waltz.model.person.Person;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.util.*;
 
-import static java.util.stream.Collectors.groupingBy;
-import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.ListUtilities.asList;
-import static org.finos.waltz.common.ListUtilities.isEmpty;
 import static org.finos.waltz.common.SetUtilities.asSet;
 import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.IdSelectionOptions.mkOpts;
 import static org.finos.waltz.model.attestation.AttestationStatus.ISSUED;
 import static org.finos.waltz.model.attestation.AttestationStatus.ISSUING;
-import static org.finos.waltz.model.utils.IdUtilities.toIds;
 
 @Service
 public class AttestationRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AttestationRunService.class);
+
     private final AttestationInstanceDao attestationInstanceDao;
     private final AttestationInstanceRecipientDao attestationInstanceRecipientDao;
     private final AttestationRunDao attestationRunDao;
@@ -142,14 +142,8 @@ public class AttestationRunService {
         // create run
         Long runId = attestationRunDao.create(userId, command);
 
-        // generate instances and recipients
-        List<AttestationInstanceRecipient> instanceRecipients = generateAttestationInstanceRecipients(
-                runId,
-                command.attestedEntityKind(),
-                userId);
-
-        // store
-        createAttestationInstancesAndRecipients(instanceRecipients);
+        // generate and store instances and recipients
+        issueInstancesForRun(attestationRunDao.getById(runId), userId);
 
         if (command.sendEmailNotifications()){
             emailService.sendEmailNotification(mkRef(EntityKind.ATTESTATION_RUN, runId));
@@ -161,29 +155,52 @@ public class AttestationRunService {
     }
 
 
-    private List<AttestationInstanceRecipient> generateAttestationInstanceRecipients(long attestationRunId,
-                                                                                     EntityKind attestedEntityKind,
-                                                                                     String userId) {
-        AttestationRun attestationRun = attestationRunDao.getById(attestationRunId);
-        checkNotNull(attestationRun, "attestationRun " + attestationRunId + " not found");
+    /**
+     * Creates the instances and recipients for a single run.  Involvement based runs
+     * are issued with set based inserts so memory use does not grow with the number
+     * of recipients.
+     *
+     * @return number of instances created
+     */
+    private int issueInstancesForRun(AttestationRun attestationRun, String userId) {
+        checkNotNull(attestationRun, "attestationRun cannot be null");
 
-        if(attestationRun.involvementKindIds().isEmpty()) {
+        long st = System.currentTimeMillis();
+        long attestationRunId = attestationRun.id().get();
 
-            return asList(mkInstanceRecipient(attestationRunId, attestationRun.selectionOptions().entityReference(), userId, attestedEntityKind));
+        if (attestationRun.involvementKindIds().isEmpty()) {
+            AttestationInstanceRecipient instanceRecipient = mkInstanceRecipient(
+                    attestationRunId,
+                    attestationRun.selectionOptions().entityReference(),
+                    userId,
+                    attestationRun.attestedEntityKind());
 
-        } else {
+            long instanceId = attestationInstanceDao.create(instanceRecipient.attestationInstance());
+            attestationInstanceRecipientDao.create(instanceId, instanceRecipient.userId());
 
-            Map<EntityReference, List<Person>> entityRefToPeople = getEntityReferenceToPeople(
-                    attestationRun.targetEntityKind(),
-                    attestationRun.selectionOptions(),
-                    attestationRun.involvementKindIds());
-
-            return entityRefToPeople.entrySet()
-                    .stream()
-                    .flatMap(e -> e.getValue().stream()
-                            .map(p -> mkInstanceRecipient(attestationRunId, e.getKey(), p.email(), attestedEntityKind)))
-                    .distinct()
-                    .collect(toList());
+            LOG.info("Issued attestation run {}: 1 instance for {}", attestationRunId, userId);
+            return 1;
+        } else {
+            EntityKind targetEntityKind = attestationRun.targetEntityKind();
+            if (targetEntityKind != EntityKind.APPLICATION) {
+                throw new IllegalArgumentException("Cannot create attestation instances for entity kind: " + targetEntityKind);
+            }
+
+            Tuple2<Integer, Integer> counts = attestationInstanceDao.createForRunByInvolvement(
+                    attestationRunId,
+                    targetEntityKind,
+                    mkIdSelector(targetEntityKind, attestationRun.selectionOptions()),
+                    attestationRun.involvementKindIds(),
+                    attestationRun.attestedEntityKind());
+
+            LOG.info(
+                    "Issued attestation run {}: {} instances, {} recipients in {}ms",
+                    attestationRunId,
+                    counts.v1,
+                    counts.v2,
+                    System.currentTimeMillis() - st);
+
+            return counts.v1;
         }
     }
 
@@ -225,29 +242,6 @@ public class AttestationRunService {
     }
 
 
-    private void createAttestationInstancesAndRecipients(List<AttestationInstanceRecipient> instanceRecipients) {
-
-        Map<AttestationInstance, List<AttestationInstanceRecipient>> instancesAndRecipientsToSave = instanceRecipients
-                .stream()
-                .collect(groupingBy(
-                        AttestationInstanceRecipient::attestationInstance,
-                        toList()
-                ));
-
-
-        // insert new instances and recipients
-        instancesAndRecipientsToSave.forEach(
-                (k, v) -> {
-                    // create instance
-                    long instanceId = attestationInstanceDao.create(k);
-
-                    // create recipients for the instance
-                    v.forEach(r -> attestationInstanceRecipientDao.create(instanceId, r.userId()));
-                }
-        );
-    }
-
-
     public IdCommandResponse createRunForEntity(String username, AttestEntityCommand entityRunCreateCommand) {
         return create(username, mkCreateCommand(entityRunCreateCommand));
     }
@@ -274,26 +268,24 @@ public class AttestationRunService {
     }
 
 
+    /**
+     * Issues each pending run in turn, a run is marked as `ISSUING` whilst its
+     * instances are being created and `ISSUED` once complete.
+     *
+     * @return number of runs issued
+     */
     public int issueInstancesForPendingRuns() {
 
         Set<AttestationRun> pendingRuns = attestationRunDao.findPendingRuns();
 
-        List<AttestationInstanceRecipient> instanceRecipients = pendingRuns
-                .stream()
-                .flatMap(run -> generateAttestationInstanceRecipients(
-                            run.id().get(),
-                            run.attestedEntityKind(),
-                            "admin")
-                        .stream())
-                .collect(toList());
-
-        Set<Long> runsBeingIssued = toIds(pendingRuns);
-        attestationRunDao.updateStatusForRunIds(runsBeingIssued, ISSUING);
-
-        if(!isEmpty(instanceRecipients)){
-            createAttestationInstancesAndRecipients(instanceRecipients);
+        int issuedRunCount = 0;
+        for (AttestationRun run : pendingRuns) {
+            Set<Long> runIds = asSet(run.id().get());
+            attestationRunDao.updateStatusForRunIds(runIds, ISSUING);
+            issueInstancesForRun(run, "admin");
+            issuedRunCount += attestationRunDao.updateStatusForRunIds(runIds, ISSUED);
         }
 
-        return attestationRunDao.updateStatusForRunIds(runsBeingIssued, ISSUED);
+        return issuedRunCount;
     }
 }
@@ -27,6 +27,7 @@ import org.finos.waltz.data.bookmark.BookmarkIdSelectorFactory;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.bookmark.Bookmark;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -120,6 +121,13 @@ public class BookmarkService {
     }
 
 
+    public int deleteByBookmarkIdSelector(DSLContext tx, IdSelectionOptions selectionOptions) {
+        GenericSelector selector = genericSelectorFactory.apply(selectionOptions);
+        return bookmarkDao
+                .deleteByParentSelector(tx, selector);
+    }
+
+
     private String getEntityName(EntityReference entityReference) {
         return (entityReference.name().isPresent()
                         ? entityReference
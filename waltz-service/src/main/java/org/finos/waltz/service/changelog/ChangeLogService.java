@@ -23,23 +23,19 @@ import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
-import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.changelog.ChangeLogDao;
 import org.finos.waltz.data.changelog.ChangeLogSummariesDao;
 import org.finos.waltz.data.logical_flow.LogicalFlowDao;
 import org.finos.waltz.data.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommissionDao;
 import org.finos.waltz.data.measurable_rating_replacement.MeasurableRatingReplacementDao;
 import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
-import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
 import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ChangeLog;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
-import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.measurable_rating_planned_decommission.MeasurableRatingPlannedDecommission;
 import org.finos.waltz.model.measurable_rating_replacement.MeasurableRatingReplacement;
 import org.finos.waltz.model.physical_flow.PhysicalFlow;
-import org.finos.waltz.model.physical_specification.PhysicalSpecification;
 import org.finos.waltz.model.tally.DateTally;
 import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
@@ -62,12 +58,11 @@ import static org.jooq.lambda.tuple.Tuple.tuple;
 public class ChangeLogService {
 
     private final ChangeLogDao changeLogDao;
+    private final ChangeLogWriter changeLogWriter;
     private final ChangeLogSummariesDao changeLogSummariesDao;
     private final DBExecutorPoolInterface dbExecutorPool;
     private final PhysicalFlowDao physicalFlowDao;
     private final LogicalFlowDao logicalFlowDao;
-    private final PhysicalSpecificationDao physicalSpecificationDao;
-    private final ApplicationDao applicationDao;
     private final MeasurableRatingReplacementDao measurableRatingReplacementdao;
     private final MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao;
     private final EntityReferenceNameResolver nameResolver;
@@ -75,32 +70,30 @@ public class ChangeLogService {
 
     @Autowired
     public ChangeLogService(ChangeLogDao changeLogDao,
+                            ChangeLogWriter changeLogWriter,
                             ChangeLogSummariesDao changeLogSummariesDao,
                             DBExecutorPoolInterface dbExecutorPool,
                             PhysicalFlowDao physicalFlowDao,
-                            PhysicalSpecificationDao physicalSpecificationDao,
                             LogicalFlowDao logicalFlowDao,
-                            ApplicationDao applicationDao,
                             MeasurableRatingReplacementDao measurableRatingReplacementDao,
                             MeasurableRatingPlannedDecommissionDao measurableRatingPlannedDecommissionDao,
                             EntityReferenceNameResolver nameResolver) {
         checkNotNull(changeLogDao, "changeLogDao must not be null");
+        checkNotNull(changeLogWriter, "changeLogWriter must not be null");
         checkNotNull(changeLogSummariesDao, "changeLogSummariesDao must not be null");
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
-        checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(measurableRatingReplacementDao, "measurableRatingReplacementDao cannot be null");
         checkNotNull(measurableRatingPlannedDecommissionDao, "measurableRatingPlannedDecommissionDao cannot be null");
         checkNotNull(nameResolver, "nameResolver cannot be null");
 
         this.changeLogDao = changeLogDao;
+        this.changeLogWriter = changeLogWriter;
         this.changeLogSummariesDao = changeLogSummariesDao;
         this.dbExecutorPool = dbExecutorPool;
         this.physicalFlowDao = physicalFlowDao;
-        this.physicalSpecificationDao = physicalSpecificationDao;
         this.logicalFlowDao = logicalFlowDao;
-        this.applicationDao = applicationDao;
         this.measurableRatingReplacementdao = measurableRatingReplacementDao;
         this.measurableRatingPlannedDecommissionDao = measurableRatingPlannedDecommissionDao;
         this.nameResolver = nameResolver;
@@ -133,13 +126,21 @@ public class ChangeLogService {
     }
 
 
+    /**
+     * Writes the entry, or queues it if change log writing is asynchronous
+     * (see {@link ChangeLogWriter}).
+     */
     public int write(ChangeLog changeLog) {
-        return changeLogDao.write(changeLog);
+        return changeLogWriter.write(Collections.singletonList(changeLog));
     }
 
 
-    public int[] write(Collection<ChangeLog> changeLogs) {
-        return changeLogDao.write(changeLogs);
+    /**
+     * Writes the entries, or queues them if change log writing is asynchronous
+     * (see {@link ChangeLogWriter}).
+     */
+    public int write(Collection<ChangeLog> changeLogs) {
+        return changeLogWriter.write(changeLogs);
     }
 
 
@@ -275,13 +276,17 @@ public class ChangeLogService {
 
     private Tuple2<String, Set<EntityReference>> preparePreambleAndEntitiesForChangeLogs(PhysicalFlow physicalFlow) {
         LogicalFlow logicalFlow = logicalFlowDao.getByFlowId(physicalFlow.logicalFlowId());
-        PhysicalSpecification specification = physicalSpecificationDao.getById(physicalFlow.specificationId());
+        EntityReference specificationRef = mkRef(PHYSICAL_SPECIFICATION, physicalFlow.specificationId());
+        Map<EntityReference, EntityReference> resolved = resolveRefs(
+                specificationRef,
+                logicalFlow.source(),
+                logicalFlow.target());
 
         String messagePreamble = format(
                 "Physical flow: %s, from: %s, to: %s",
-                specification.name(),
-                safeName(logicalFlow.source()),
-                safeName(logicalFlow.target()));
+                nameOf(resolved, specificationRef),
+                safeName(resolved.get(logicalFlow.source())),
+                safeName(resolved.get(logicalFlow.target())));
 
         return tuple(
                 messagePreamble,
@@ -313,9 +318,15 @@ public class ChangeLogService {
     private Tuple2<String, Set<EntityReference>> preparePreambleAndEntitiesForChangeLogs(MeasurableRatingReplacement measurableRatingReplacement) {
 
         MeasurableRatingPlannedDecommission plannedDecommission = measurableRatingPlannedDecommissionDao.getById(measurableRatingReplacement.decommissionId());
-        String measurableName = resolveName(plannedDecommission.measurableId(), MEASURABLE);
-        String originalEntityName = resolveName(plannedDecommission.entityReference().id(), plannedDecommission.entityReference().kind());
-        String newEntityName = resolveName(measurableRatingReplacement.entityReference().id(), measurableRatingReplacement.entityReference().kind());
+        EntityReference measurableRef = mkRef(MEASURABLE, plannedDecommission.measurableId());
+        Map<EntityReference, EntityReference> resolved = resolveRefs(
+                measurableRef,
+                plannedDecommission.entityReference(),
+                measurableRatingReplacement.entityReference());
+
+        String measurableName = nameOf(resolved, measurableRef);
+        String originalEntityName = nameOf(resolved, plannedDecommission.entityReference());
+        String newEntityName = nameOf(resolved, measurableRatingReplacement.entityReference());
 
         String messagePreamble = format(
                 "Replacement %s: %s [%d], for measurable: %s [%d] on: %s [%d]",
@@ -337,18 +348,21 @@ public class ChangeLogService {
     private Tuple2<String, Set<EntityReference>> preparePreambleAndEntitiesForChangeLogs(MeasurableRatingPlannedDecommission measurableRatingPlannedDecommission) {
 
         Set<MeasurableRatingReplacement> replacements = measurableRatingReplacementdao.fetchByDecommissionId(measurableRatingPlannedDecommission.id());
-        String measurableName = resolveName(measurableRatingPlannedDecommission.measurableId(), MEASURABLE);
+        EntityReference measurableRef = mkRef(MEASURABLE, measurableRatingPlannedDecommission.measurableId());
         EntityReference entityReference = measurableRatingPlannedDecommission.entityReference();
-        String entityName = resolveName(entityReference.id(), entityReference.kind());
+        Map<EntityReference, EntityReference> resolved = resolveRefs(measurableRef, entityReference);
+
+        String measurableName = nameOf(resolved, measurableRef);
+        String entityName = nameOf(resolved, entityReference);
 
         String messagePreamble = format(
                 "Measurable Rating: %s [%d] on: %s [%s]",
                 measurableName,
                 measurableRatingPlannedDecommission.measurableId(),
                 entityName,
-                getExternalId(entityReference)
-                        .map(ExternalIdValue::value)
-                        .orElse(String.valueOf(entityReference.id())));
+                entityReference.kind() == APPLICATION
+                        ? resolved.get(entityReference).externalId().orElse(String.valueOf(entityReference.id()))
+                        : String.valueOf(entityReference.id()));
 
         return tuple(
                 messagePreamble,
@@ -356,17 +370,27 @@ public class ChangeLogService {
     }
 
 
-    private Optional<ExternalIdValue> getExternalId(EntityReference entityReference) {
-        return entityReference.kind().equals(APPLICATION)
-                ? applicationDao.getById(entityReference.id()).assetCode()
-                : Optional.empty();
+    /**
+     * Resolves the names (and external ids) of all the given refs with a single call
+     * to the name resolver.  Refs which cannot be resolved are returned as given.
+     *
+     * @return resolved refs, keyed by the given refs
+     */
+    private Map<EntityReference, EntityReference> resolveRefs(EntityReference... refs) {
+        Map<EntityReference, EntityReference> resolvedByKey = new HashMap<>();
+        nameResolver
+                .resolveWithExternalIds(Arrays.asList(refs))
+                .forEach(r -> resolvedByKey.put(mkRef(r.kind(), r.id()), r));
+
+        Map<EntityReference, EntityReference> result = new HashMap<>();
+        for (EntityReference ref : refs) {
+            result.put(ref, resolvedByKey.getOrDefault(mkRef(ref.kind(), ref.id()), ref));
+        }
+        return result;
     }
 
 
-    private String resolveName(long id, EntityKind kind) {
-        return nameResolver
-                .resolve(mkRef(kind, id))
-                .flatMap(EntityReference::name)
-                .orElse("UNKNOWN");
+    private static String nameOf(Map<EntityReference, EntityReference> resolved, EntityReference ref) {
+        return resolved.get(ref).name().orElse("UNKNOWN");
     }
 }
@@ -0,0 +1,277 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.changelog;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Writes change log entries to the database.
+ *
+ * By default entries are written immediately, using multi-row inserts.  When
+ * `waltz.changelog.async.enabled` is set entries are instead queued and written
+ * in batches by a background thread, either every `waltz.changelog.async.flush.interval.millis`
+ * or as soon as `waltz.changelog.async.batch.size` entries are waiting.  This
+ * removes change log writes from the request path, at the cost of entries
+ * becoming visible slightly after the change they describe.
+ *
+ * If the queue is full entries are written on the calling thread.  A batch which
+ * fails to write is kept and retried, ahead of any newer entries, on the next
+ * flush.  Once a batch has failed `MAX_BATCH_ATTEMPTS` times its entries are
+ * written one at a time, so a single bad entry cannot hold up the others.
+ * If the final flush at shutdown fails the remaining entries are also written
+ * one at a time, on the shutdown thread.  Only entries which cannot be written
+ * individually are logged (at error level) and dropped.
+ */
+@Service
+public class ChangeLogWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChangeLogWriter.class);
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private final ChangeLogDao changeLogDao;
+
+    @Value("${waltz.changelog.async.enabled:false}")
+    private boolean async;
+
+    @Value("${waltz.changelog.async.flush.interval.millis:1000}")
+    private long flushIntervalMillis;
+
+    @Value("${waltz.changelog.async.batch.size:500}")
+    private int batchSize;
+
+    @Value("${waltz.changelog.async.queue.capacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<ChangeLog> queue;
+    private ScheduledExecutorService flusher;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    // guarded by `this`, see `flush`
+    private final List<ChangeLog> failedBatch = new ArrayList<>();
+    private int failedBatchAttempts = 0;
+
+
+    @Autowired
+    public ChangeLogWriter(ChangeLogDao changeLogDao) {
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
+        this.changeLogDao = changeLogDao;
+    }
+
+
+    @PostConstruct
+    public void init() {
+        if (!async) {
+            return;
+        }
+
+        queue = new ArrayBlockingQueue<>(Math.max(queueCapacity, batchSize));
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Change Log Writer");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(
+                this::flushQuietly,
+                flushIntervalMillis,
+                flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+
+        LOG.info("Writing change log entries asynchronously, batch size: {}, flush interval: {}ms", batchSize, flushIntervalMillis);
+    }
+
+
+    public boolean isAsync() {
+        return async;
+    }
+
+
+    /**
+     * Writes, or queues, the given entries.
+     *
+     * @param changeLogs  entries to write
+     * @return number of entries written or queued
+     */
+    public int write(Collection<ChangeLog> changeLogs) {
+        checkNotNull(changeLogs, "changeLogs cannot be null");
+
+        if (!async) {
+            return changeLogDao.write(changeLogs);
+        }
+
+        List<ChangeLog> overflow = new ArrayList<>();
+        changeLogs.forEach(changeLog -> {
+            if (!queue.offer(changeLog)) {
+                overflow.add(changeLog);
+            }
+        });
+
+        if (!overflow.isEmpty()) {
+            LOG.warn("Change log queue is full, writing {} entries directly", overflow.size());
+            changeLogDao.write(overflow);
+        }
+
+        if (queue.size() >= batchSize && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(this::flushQuietly);
+        }
+
+        return changeLogs.size();
+    }
+
+
+    /**
+     * Writes all currently queued entries, does nothing if the writer is synchronous.
+     * Any previously failed batch is retried first, if it fails again the remaining
+     * entries stay queued.
+     *
+     * @return number of entries written
+     */
+    public synchronized int flush() {
+        if (!async) {
+            return 0;
+        }
+
+        flushRequested.set(false);
+
+        int written = retryFailedBatch();
+        List<ChangeLog> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            try {
+                written += changeLogDao.write(batch);
+            } catch (RuntimeException e) {
+                failedBatch.addAll(batch);
+                failedBatchAttempts = 1;
+                throw e;
+            }
+            batch.clear();
+        }
+        return written;
+    }
+
+
+    /**
+     * @return number of entries waiting to be written, including any awaiting a retry
+     */
+    public int getPendingCount() {
+        if (!async) {
+            return 0;
+        }
+        synchronized (this) {
+            return queue.size() + failedBatch.size();
+        }
+    }
+
+
+    @PreDestroy
+    public void shutdown() {
+        if (!async) {
+            return;
+        }
+
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(flushIntervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            int written = flush();
+            LOG.info("Wrote {} queued change log entries on shutdown", written);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write queued change log entries on shutdown, writing them individually", e);
+            synchronized (this) {
+                List<ChangeLog> remaining = new ArrayList<>(failedBatch);
+                queue.drainTo(remaining);
+                failedBatch.clear();
+                int written = writeIndividually(remaining);
+                LOG.info("Wrote {} of {} remaining change log entries individually on shutdown", written, remaining.size());
+            }
+        }
+    }
+
+
+    // --- helpers
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write change log entries", e);
+        }
+    }
+
+
+    private int retryFailedBatch() {
+        if (failedBatch.isEmpty()) {
+            return 0;
+        }
+
+        int written;
+        try {
+            written = changeLogDao.write(failedBatch);
+        } catch (RuntimeException e) {
+            failedBatchAttempts++;
+            if (failedBatchAttempts < MAX_BATCH_ATTEMPTS) {
+                throw e;
+            }
+            LOG.warn("Change log batch failed {} times, writing its {} entries individually", failedBatchAttempts, failedBatch.size(), e);
+            written = writeIndividually(failedBatch);
+        }
+
+        failedBatch.clear();
+        failedBatchAttempts = 0;
+        return written;
+    }
+
+
+    private int writeIndividually(List<ChangeLog> changeLogs) {
+        int written = 0;
+        for (ChangeLog changeLog : changeLogs) {
+            try {
+                written += changeLogDao.write(changeLog);
+            } catch (RuntimeException e) {
+                LOG.error("Unwritten change log entry: {}", changeLog, e);
+            }
+        }
+        return written;
+    }
+
+}
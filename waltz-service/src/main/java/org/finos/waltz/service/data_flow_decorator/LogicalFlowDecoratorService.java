@@ -20,6 +20,7 @@ package org.finos.waltz.service.data_flow_decorator;
 
 
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.finos.waltz.common.Checks;
@@ -74,6 +75,7 @@ public class LogicalFlowDecoratorService {
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
     private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final DataTypeUsageService dataTypeUsageService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final DataTypeDao dataTypeDao;
     private final LogicalFlowDao logicalFlowDao;
     private final ChangeLogService changeLogService;
@@ -87,6 +89,7 @@ public class LogicalFlowDecoratorService {
                                        DataTypeDao dataTypeDao,
                                        LogicalFlowDao logicalFlowDao,
                                        LogicalFlowService logicalFlowService,
+                                       LogicalFlowGraphService logicalFlowGraphService,
                                        LogicalFlowStatsDao logicalFlowStatsDao,
                                        ChangeLogService changeLogService) {
 
@@ -96,12 +99,14 @@ public class LogicalFlowDecoratorService {
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
         checkNotNull(logicalFlowService, "logicalFlowService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
 
         this.logicalFlowDecoratorSummaryDao = logicalFlowDecoratorSummaryDao;
         this.ratingsCalculator = ratingsCalculator;
         this.dataTypeUsageService = dataTypeUsageService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.dataTypeDao = dataTypeDao;
         this.logicalFlowDao = logicalFlowDao;
         this.changeLogService = changeLogService;
@@ -142,7 +147,8 @@ public class LogicalFlowDecoratorService {
                 .flatMap(f -> Stream.of(f.source(), f.target()))
                 .collect(Collectors.toList());
 
-        dataTypeUsageService.recalculateForApplications(effectedEntities);
+        dataTypeUsageService.markForRecalculation(effectedEntities);
+        logicalFlowGraphService.refreshFlows(map(actions, UpdateDataFlowDecoratorsAction::flowId));
         bulkAudit(actions, username, effectedFlows);
 
         return added;
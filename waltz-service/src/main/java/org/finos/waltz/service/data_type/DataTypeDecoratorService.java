@@ -21,6 +21,7 @@ package org.finos.waltz.service.data_type;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
 import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.physical_flow.PhysicalFlowService;
 import org.finos.waltz.service.physical_specification.PhysicalSpecificationService;
@@ -69,6 +70,7 @@ public class DataTypeDecoratorService {
     private final LogicalFlowService logicalFlowService;
     private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
     private final DataTypeUsageService dataTypeUsageService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
     private final DataTypeService dataTypeService;
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
     private final PhysicalSpecificationDao physicalSpecificationDao;
@@ -84,6 +86,7 @@ public class DataTypeDecoratorService {
                                     LogicalFlowService logicalFlowService,
                                     LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
                                     DataTypeUsageService dataTypeUsageService,
+                                    LogicalFlowGraphService logicalFlowGraphService,
                                     DataTypeService dataTypeService,
                                     PhysicalSpecificationDao physicalSpecificationDao,
                                     PhysicalSpecificationService physicalSpecificationService) {
@@ -91,6 +94,7 @@ public class DataTypeDecoratorService {
         checkNotNull(logicalFlowDecoratorService, "logicalFlowDecoratorService cannot be null");
         checkNotNull(physicalFlowService, "physicalFlowService cannot be null");
         checkNotNull(physicalSpecificationService, "physicalSpecificationService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
 
         this.changeLogService = changeLogService;
         this.physicalFlowService = physicalFlowService;
@@ -98,6 +102,7 @@ public class DataTypeDecoratorService {
         this.logicalFlowService = logicalFlowService;
         this.ratingsCalculator = ratingsCalculator;
         this.dataTypeUsageService = dataTypeUsageService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
         this.dataTypeService = dataTypeService;
         this.dataTypeDecoratorDaoSelectorFactory = dataTypeDecoratorDaoSelectorFactory;
         this.physicalSpecificationDao = physicalSpecificationDao;
@@ -173,7 +178,7 @@ public class DataTypeDecoratorService {
         audit(format("Added data types: %s", dataTypeIds.toString()),
                 entityReference, userName);
 
-        recalculateDataTypeUsageForApplications(entityReference);
+        markDataTypeUsageForRecalculation(entityReference);
 
         if (PHYSICAL_SPECIFICATION.equals(entityReference.kind())) {
             physicalSpecificationService.propagateDataTypesToLogicalFlows(userName, entityReference.id());
@@ -193,16 +198,17 @@ public class DataTypeDecoratorService {
 
         audit(format("Removed data types: %s", dataTypeIds.toString()),
                 entityReference, userName);
-        recalculateDataTypeUsageForApplications(entityReference);
+        markDataTypeUsageForRecalculation(entityReference);
 
         return result;
     }
 
 
-    private void recalculateDataTypeUsageForApplications(EntityReference associatedEntityReference) {
+    private void markDataTypeUsageForRecalculation(EntityReference associatedEntityReference) {
         if(LOGICAL_DATA_FLOW.equals(associatedEntityReference.kind())) {
             LogicalFlow flow = logicalFlowDao.getByFlowId(associatedEntityReference.id());
-            dataTypeUsageService.recalculateForApplications(newArrayList(flow.source(), flow.target()));
+            dataTypeUsageService.markForRecalculation(newArrayList(flow.source(), flow.target()));
+            logicalFlowGraphService.refreshFlows(newArrayList(flow.id().get()));
         }
     }
 
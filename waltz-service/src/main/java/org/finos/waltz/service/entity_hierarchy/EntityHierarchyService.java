@@ -27,6 +27,7 @@ import org.finos.waltz.common.hierarchy.HierarchyUtilities;
 import org.finos.waltz.common.hierarchy.Node;
 import org.finos.waltz.data.change_initiative.ChangeInitiativeDao;
 import org.finos.waltz.data.data_type.DataTypeDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyClosureCache;
 import org.finos.waltz.data.entity_hierarchy.EntityHierarchyDao;
 import org.finos.waltz.data.entity_hierarchy.EntityRootsSelectorFactory;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDao;
@@ -35,6 +36,7 @@ import org.finos.waltz.data.orgunit.OrganisationalUnitDao;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.entity_hierarchy.EntityHierarchyItem;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyRebuildSummary;
 import org.finos.waltz.model.entity_hierarchy.ImmutableEntityHierarchyItem;
 import org.finos.waltz.model.tally.ImmutableTally;
 import org.finos.waltz.model.tally.Tally;
@@ -44,6 +46,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -61,17 +64,20 @@ public class EntityHierarchyService {
     private final ChangeInitiativeDao changeInitiativeDao;
     private final DataTypeDao dataTypeDao;
     private final EntityHierarchyDao entityHierarchyDao;
+    private final EntityHierarchyClosureCache entityHierarchyClosureCache;
     private final EntityRootsSelectorFactory entityRootsSelectorFactory = new EntityRootsSelectorFactory();
     private final EntityStatisticDao entityStatisticDao;
     private final MeasurableDao measurableDao;
     private final OrganisationalUnitDao organisationalUnitDao;
     private final PersonHierarchyService personHierarchyService;
+    private final Map<EntityKind, EntityHierarchyRebuildSummary> lastRebuildSummaries = new ConcurrentHashMap<>();
 
     @Autowired
     public EntityHierarchyService(DSLContext dsl,
                                   ChangeInitiativeDao changeInitiativeDao,
                                   DataTypeDao dataTypeDao,
                                   EntityHierarchyDao entityHierarchyDao,
+                                  EntityHierarchyClosureCache entityHierarchyClosureCache,
                                   EntityStatisticDao entityStatisticDao,
                                   MeasurableDao measurableDao, 
                                   OrganisationalUnitDao organisationalUnitDao,
@@ -81,6 +87,7 @@ public class EntityHierarchyService {
         checkNotNull(changeInitiativeDao, "changeInitiativeDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
         checkNotNull(entityHierarchyDao, "entityHierarchyDao cannot be null");
+        checkNotNull(entityHierarchyClosureCache, "entityHierarchyClosureCache cannot be null");
         checkNotNull(entityStatisticDao, "entityStatisticDao cannot be null");
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(organisationalUnitDao, "organisationalUnitDao cannot be null");
@@ -90,6 +97,7 @@ public class EntityHierarchyService {
         this.changeInitiativeDao = changeInitiativeDao;
         this.dataTypeDao = dataTypeDao;
         this.entityHierarchyDao = entityHierarchyDao;
+        this.entityHierarchyClosureCache = entityHierarchyClosureCache;
         this.entityStatisticDao = entityStatisticDao;
         this.measurableDao = measurableDao;
         this.organisationalUnitDao = organisationalUnitDao;
@@ -145,40 +153,87 @@ public class EntityHierarchyService {
             return rc.length;
         } else {
             Table table = determineTableToRebuild(kind);
-            return buildFor(table, kind, DSL.trueCondition(), DSL.trueCondition());
+            Forest<Long, Long> forest = HierarchyUtilities.toForest(fetchFlatNodes(dsl, table, DSL.trueCondition()));
+            int rc = dsl.transactionResult(ctx -> buildFor(ctx.dsl(), forest, kind, DSL.trueCondition()));
+            entityHierarchyClosureCache.replace(kind, forest);
+            return rc;
         }
     }
 
 
     public int buildForMeasurableByCategory(long categoryId) {
-        return buildFor(MEASURABLE,
+        int rc = dsl.transactionResult(ctx -> buildForMeasurableByCategory(ctx.dsl(), categoryId));
+
+        // only part of the measurable hierarchy has been rebuilt, the closure will be reloaded on next use
+        entityHierarchyClosureCache.invalidate(EntityKind.MEASURABLE);
+        return rc;
+    }
+
+
+    /**
+     * Rebuilds the measurable hierarchy for a single category using the given
+     * (transactional) context.  The closure cache is <em>not</em> touched, callers
+     * should {@link #suspendClosure(EntityKind)} before starting the transaction and
+     * {@link #resumeClosure(EntityKind)} once it has completed.
+     *
+     * @param tx  context to perform the rebuild with
+     * @param categoryId  id of the measurable category to rebuild
+     * @return number of hierarchy entries for the category
+     */
+    public int buildForMeasurableByCategory(DSLContext tx, long categoryId) {
+        Forest<Long, Long> forest = HierarchyUtilities.toForest(fetchFlatNodes(
+                tx,
+                MEASURABLE,
+                MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId)));
+
+        return buildFor(tx,
+                        forest,
                         EntityKind.MEASURABLE,
-                        MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId),
                         ENTITY_HIERARCHY.ID.in(select(MEASURABLE.ID)
                                                 .from(MEASURABLE)
                                                 .where(MEASURABLE.MEASURABLE_CATEGORY_ID.eq(categoryId))));
     }
 
 
-    private int buildFor(Table table,
+    public void suspendClosure(EntityKind kind) {
+        entityHierarchyClosureCache.suspend(kind);
+    }
+
+
+    public void resumeClosure(EntityKind kind) {
+        entityHierarchyClosureCache.resume(kind);
+    }
+
+
+    /**
+     * @return the outcome of the most recent rebuild for each kind (since startup)
+     */
+    public Collection<EntityHierarchyRebuildSummary> findLastRebuildSummaries() {
+        return lastRebuildSummaries.values();
+    }
+
+
+    private int buildFor(DSLContext tx,
+                         Forest<Long, Long> forest,
                          EntityKind kind,
-                         Condition selectFilter,
                          Condition deleteFilter) {
-        Collection<FlatNode<Long, Long>> flatNodes = fetchFlatNodes(table, selectFilter);
-        List<EntityHierarchyItem> hierarchyItems = convertFlatNodesToHierarchyItems(kind, flatNodes);
+        List<EntityHierarchyItem> hierarchyItems = convertForestToHierarchyItems(kind, forest);
+
+        EntityHierarchyRebuildSummary summary = entityHierarchyDao.replaceHierarchy(tx, kind, hierarchyItems, deleteFilter);
+        lastRebuildSummaries.put(kind, summary);
 
-        return entityHierarchyDao.replaceHierarchy(kind, hierarchyItems, deleteFilter);
+        return summary.size();
     }
 
 
-    private List<FlatNode<Long, Long>> fetchFlatNodes(Table table, Condition selectFilter) {
+    private List<FlatNode<Long, Long>> fetchFlatNodes(DSLContext tx, Table table, Condition selectFilter) {
         Field<Long> idField = table.field("id", Long.class);
         Field<Long> parentIdField = table.field("parent_id", Long.class);
 
         checkNotNull(idField, "cannot find id column");
         checkNotNull(parentIdField, "cannot find parent_id column");
 
-        return dsl.select(idField, parentIdField)
+        return tx.select(idField, parentIdField)
                 .from(table)
                 .where(selectFilter)
                 .fetch(r -> new FlatNode<>(
@@ -188,9 +243,7 @@ public class EntityHierarchyService {
     }
 
 
-    private List<EntityHierarchyItem> convertFlatNodesToHierarchyItems(EntityKind kind, Collection<FlatNode<Long, Long>> flatNodes) {
-        Forest<Long, Long> forest = HierarchyUtilities.toForest(flatNodes);
-        Node<Long, Long> r = forest.getAllNodes().get(811L);
+    private List<EntityHierarchyItem> convertForestToHierarchyItems(EntityKind kind, Forest<Long, Long> forest) {
         Map<Long, Integer> idToLevel = HierarchyUtilities.assignDepths(forest);
 
         return forest.getAllNodes()
@@ -27,6 +27,7 @@ import org.finos.waltz.model.entity_relationship.Directionality;
 import org.finos.waltz.model.entity_relationship.EntityRelationship;
 import org.finos.waltz.model.entity_relationship.EntityRelationshipKey;
 import org.finos.waltz.model.entity_relationship.RelationshipKind;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -114,4 +115,10 @@ public class EntityRelationshipService {
         GenericSelector selector = genericSelectorFactory.apply(selectionOptions);
         return entityRelationshipDao.deleteForGenericEntitySelector(selector);
     }
+
+
+    public int deleteForGenericEntitySelector(DSLContext tx, IdSelectionOptions selectionOptions) {
+        GenericSelector selector = genericSelectorFactory.apply(selectionOptions);
+        return entityRelationshipDao.deleteForGenericEntitySelector(tx, selector);
+    }
 }
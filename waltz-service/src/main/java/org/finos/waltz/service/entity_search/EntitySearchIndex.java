@@ -0,0 +1,466 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.data.SearchUtilities;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchDocument;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.jooq.lambda.tuple.Tuple2;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * An in-memory inverted index over the searchable text of entities.
+ *
+ * Text is split into lower case alphanumeric tokens.  Each token maps to the
+ * documents containing it, along with the weight of the most important field
+ * (name, alias, identifier or description) it was found in.  The tokens are
+ * held in sorted order, so short query terms are matched as prefixes, and
+ * tokens are also indexed by their trigrams, so longer terms can be matched
+ * anywhere within a token (mirroring the `like '%term%'` database searches).
+ *
+ * All query terms must match for a document to be returned.  Documents are
+ * scored by summing, for each term, the best field weight multiplied by how
+ * well the term matched (exact, prefix or infix), giving a single ranking
+ * across all entity kinds.  Entities found by other means (e.g. a database
+ * search) can be scored on the same scale with `score`, from their name
+ * and description, so they can be ranked alongside indexed results.
+ *
+ * The index is safe for concurrent use, documents may be added, replaced and
+ * removed while searches are taking place.
+ */
+public class EntitySearchIndex {
+
+    private static final int NAME_WEIGHT = 8;
+    private static final int ALIAS_WEIGHT = 6;
+    private static final int IDENTIFIER_WEIGHT = 6;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private static final int EXACT_MATCH = 3;
+    private static final int PREFIX_MATCH = 2;
+    private static final int INFIX_MATCH = 1;
+
+    private static final int NGRAM_SIZE = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<IndexedDocument> documents = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final Map<Tuple2<EntityKind, Long>, Integer> slotsByRef = new HashMap<>();
+    private final TreeMap<String, Map<Integer, Integer>> weightsBySlotByToken = new TreeMap<>();
+    private final Map<String, Set<String>> tokensByNgram = new HashMap<>();
+
+
+    /**
+     * Adds the documents, replacing any existing documents for the same entities.
+     *
+     * @param docs  documents to index
+     */
+    public void upsert(Collection<EntitySearchDocument> docs) {
+        checkNotNull(docs, "docs cannot be null");
+        withWriteLock(() -> {
+            docs.forEach(this::doUpsert);
+            return null;
+        });
+    }
+
+
+    /**
+     * Removes the document (if any) for the given entity.
+     *
+     * @param kind  kind of entity
+     * @param id  entity id
+     */
+    public void remove(EntityKind kind, long id) {
+        withWriteLock(() -> {
+            doRemove(tuple(kind, id));
+            return null;
+        });
+    }
+
+
+    /**
+     * Replaces all documents of the given kind.
+     *
+     * @param kind  kind of entity
+     * @param docs  complete set of documents for the kind
+     */
+    public void replaceAll(EntityKind kind, Collection<EntitySearchDocument> docs) {
+        checkNotNull(kind, "kind cannot be null");
+        checkNotNull(docs, "docs cannot be null");
+        withWriteLock(() -> {
+            new ArrayList<>(slotsByRef.keySet())
+                    .stream()
+                    .filter(ref -> ref.v1 == kind)
+                    .forEach(this::doRemove);
+            docs.forEach(this::doUpsert);
+            return null;
+        });
+    }
+
+
+    public int size() {
+        return withReadLock(slotsByRef::size);
+    }
+
+
+    /**
+     * Finds the entities matching the search query in the options, restricted
+     * to the entity kinds and lifecycle statuses in the options.  At most
+     * `limit` results are returned for each kind.
+     *
+     * @param options  search options
+     * @return matching entities, best matches first
+     */
+    public List<EntityReference> search(EntitySearchOptions options) {
+        return searchScored(options)
+                .stream()
+                .map(t -> t.v1)
+                .collect(toList());
+    }
+
+
+    /**
+     * As `search`, but each entity is paired with its score.
+     *
+     * @param options  search options
+     * @return matching entities with their scores, best matches first
+     */
+    public List<Tuple2<EntityReference, Integer>> searchScored(EntitySearchOptions options) {
+        checkNotNull(options, "options cannot be null");
+
+        List<String> terms = toQueryTerms(options.searchQuery());
+        if (terms.isEmpty() || options.entityKinds().isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<EntityKind> kinds = EnumSet.copyOf(options.entityKinds());
+        Set<EntityLifecycleStatus> statuses = options.entityLifecycleStatuses().isEmpty()
+                ? Collections.emptySet()
+                : EnumSet.copyOf(options.entityLifecycleStatuses());
+
+        List<Tuple2<EntityReference, Integer>> matches = withReadLock(() -> {
+            Map<Integer, Integer> scoresBySlot = null;
+            for (String term : terms) {
+                Map<Integer, Integer> termScores = scoreTerm(term);
+                if (scoresBySlot == null) {
+                    scoresBySlot = termScores;
+                } else {
+                    scoresBySlot.keySet().retainAll(termScores.keySet());
+                    scoresBySlot.replaceAll((slot, score) -> score + termScores.get(slot));
+                }
+                if (scoresBySlot.isEmpty()) {
+                    break;
+                }
+            }
+
+            List<Tuple2<EntityReference, Integer>> scored = new ArrayList<>();
+            scoresBySlot.forEach((slot, score) -> {
+                EntityReference ref = documents.get(slot).doc.entityReference();
+                if (kinds.contains(ref.kind()) && statuses.contains(ref.entityLifecycleStatus())) {
+                    scored.add(tuple(ref, score));
+                }
+            });
+            return scored;
+        });
+
+        Map<EntityKind, Integer> countsByKind = new EnumMap<>(EntityKind.class);
+        List<Tuple2<EntityReference, Integer>> results = new ArrayList<>();
+        for (Tuple2<EntityReference, Integer> match : rank(matches)) {
+            int count = countsByKind.merge(match.v1.kind(), 1, Integer::sum);
+            if (count <= options.limit()) {
+                results.add(match);
+            }
+        }
+        return results;
+    }
+
+
+    /**
+     * Scores an entity against the query on the same scale as `search`, using
+     * only the name and description of the reference.  Terms which do not
+     * match either contribute nothing (the entity may have been matched on
+     * some other field).
+     *
+     * @param ref  entity to score
+     * @param query  search query
+     * @return score, higher is better
+     */
+    public static int score(EntityReference ref, String query) {
+        checkNotNull(ref, "ref cannot be null");
+
+        Map<String, Integer> weightsByToken = new HashMap<>();
+        addTokens(weightsByToken, ref.name().orElse(null), NAME_WEIGHT);
+        addTokens(weightsByToken, ref.description(), DESCRIPTION_WEIGHT);
+
+        int score = 0;
+        for (String term : toQueryTerms(query)) {
+            int termScore = 0;
+            for (Map.Entry<String, Integer> entry : weightsByToken.entrySet()) {
+                String token = entry.getKey();
+                int matchWeight = token.equals(term)
+                        ? EXACT_MATCH
+                        : token.startsWith(term)
+                            ? PREFIX_MATCH
+                            : term.length() >= NGRAM_SIZE && token.contains(term)
+                                ? INFIX_MATCH
+                                : 0;
+                termScore = Math.max(termScore, entry.getValue() * matchWeight);
+            }
+            score += termScore;
+        }
+        return score;
+    }
+
+
+    /**
+     * Sorts scored entities, best first.  Equal scores favour shorter names.
+     *
+     * @param scored  entities paired with their scores
+     * @return new list, best matches first
+     */
+    public static List<Tuple2<EntityReference, Integer>> rank(Collection<Tuple2<EntityReference, Integer>> scored) {
+        checkNotNull(scored, "scored cannot be null");
+
+        List<Tuple2<EntityReference, Integer>> ranked = new ArrayList<>(scored);
+        ranked.sort(Comparator
+                .comparingInt((Tuple2<EntityReference, Integer> t) -> -t.v2)
+                .thenComparingInt(t -> lowerCaseName(t.v1).length())
+                .thenComparing(t -> lowerCaseName(t.v1)));
+        return ranked;
+    }
+
+
+    /**
+     * Splits text into lower case alphanumeric tokens.
+     *
+     * @param text  text to tokenise, may be null
+     * @return tokens in the order they appear in the text
+     */
+    static List<String> tokenise(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase().split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+
+    // -- helpers ---
+
+    private static List<String> toQueryTerms(String query) {
+        if (query == null) {
+            return Collections.emptyList();
+        }
+
+        Set<String> terms = new LinkedHashSet<>();
+        SearchUtilities
+                .mkTerms(query)
+                .forEach(term -> terms.addAll(tokenise(term)));
+        return new ArrayList<>(terms);
+    }
+
+
+    private Map<Integer, Integer> scoreTerm(String term) {
+        Map<Integer, Integer> scores = new HashMap<>();
+        for (String token : findMatchingTokens(term)) {
+            int matchWeight = token.equals(term)
+                    ? EXACT_MATCH
+                    : token.startsWith(term)
+                        ? PREFIX_MATCH
+                        : INFIX_MATCH;
+
+            weightsBySlotByToken
+                    .get(token)
+                    .forEach((slot, fieldWeight) -> scores.merge(slot, fieldWeight * matchWeight, Math::max));
+        }
+        return scores;
+    }
+
+
+    private Collection<String> findMatchingTokens(String term) {
+        if (term.length() < NGRAM_SIZE) {
+            return weightsBySlotByToken
+                    .subMap(term, true, term + Character.MAX_VALUE, true)
+                    .keySet();
+        }
+
+        Set<String> smallestCandidates = null;
+        for (String ngram : mkNgrams(term)) {
+            Set<String> candidates = tokensByNgram.get(ngram);
+            if (candidates == null) {
+                return Collections.emptyList();
+            }
+            if (smallestCandidates == null || candidates.size() < smallestCandidates.size()) {
+                smallestCandidates = candidates;
+            }
+        }
+
+        List<String> matching = new ArrayList<>();
+        for (String candidate : smallestCandidates) {
+            if (candidate.contains(term)) {
+                matching.add(candidate);
+            }
+        }
+        return matching;
+    }
+
+
+    private void doUpsert(EntitySearchDocument doc) {
+        EntityReference ref = doc.entityReference();
+        Tuple2<EntityKind, Long> key = tuple(ref.kind(), ref.id());
+        doRemove(key);
+
+        Map<String, Integer> weightsByToken = new HashMap<>();
+        addTokens(weightsByToken, ref.name().orElse(null), NAME_WEIGHT);
+        doc.aliases().forEach(alias -> addTokens(weightsByToken, alias, ALIAS_WEIGHT));
+        doc.identifiers().forEach(identifier -> addTokens(weightsByToken, identifier, IDENTIFIER_WEIGHT));
+        addTokens(weightsByToken, ref.description(), DESCRIPTION_WEIGHT);
+
+        int slot;
+        IndexedDocument indexed = new IndexedDocument(doc, weightsByToken);
+        if (freeSlots.isEmpty()) {
+            slot = documents.size();
+            documents.add(indexed);
+        } else {
+            slot = freeSlots.pop();
+            documents.set(slot, indexed);
+        }
+        slotsByRef.put(key, slot);
+
+        weightsByToken.forEach((token, weight) -> weightsBySlotByToken
+                .computeIfAbsent(token, t -> {
+                    mkNgrams(t).forEach(ngram -> tokensByNgram
+                            .computeIfAbsent(ngram, k -> new HashSet<>())
+                            .add(t));
+                    return new HashMap<>();
+                })
+                .put(slot, weight));
+    }
+
+
+    private void doRemove(Tuple2<EntityKind, Long> key) {
+        Integer slot = slotsByRef.remove(key);
+        if (slot == null) {
+            return;
+        }
+
+        IndexedDocument indexed = documents.get(slot);
+        documents.set(slot, null);
+        freeSlots.push(slot);
+
+        indexed.weightsByToken.keySet().forEach(token -> {
+            Map<Integer, Integer> weightsBySlot = weightsBySlotByToken.get(token);
+            weightsBySlot.remove(slot);
+            if (weightsBySlot.isEmpty()) {
+                weightsBySlotByToken.remove(token);
+                mkNgrams(token).forEach(ngram -> {
+                    Set<String> tokens = tokensByNgram.get(ngram);
+                    tokens.remove(token);
+                    if (tokens.isEmpty()) {
+                        tokensByNgram.remove(ngram);
+                    }
+                });
+            }
+        });
+    }
+
+
+    private static void addTokens(Map<String, Integer> weightsByToken, String text, int weight) {
+        tokenise(text).forEach(token -> weightsByToken.merge(token, weight, Math::max));
+    }
+
+
+    private static String lowerCaseName(EntityReference ref) {
+        return ref.name().orElse("").toLowerCase();
+    }
+
+
+    private static Set<String> mkNgrams(String token) {
+        Set<String> ngrams = new HashSet<>();
+        for (int i = 0; i + NGRAM_SIZE <= token.length(); i++) {
+            ngrams.add(token.substring(i, i + NGRAM_SIZE));
+        }
+        return ngrams;
+    }
+
+
+    private <T> T withReadLock(Supplier<T> supplier) {
+        lock.readLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    private <T> T withWriteLock(Supplier<T> supplier) {
+        lock.writeLock().lock();
+        try {
+            return supplier.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    private static class IndexedDocument {
+
+        private final EntitySearchDocument doc;
+        private final Map<String, Integer> weightsByToken;
+
+
+        private IndexedDocument(EntitySearchDocument doc, Map<String, Integer> weightsByToken) {
+            this.doc = doc;
+            this.weightsByToken = weightsByToken;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.data.changelog.ChangeLogDao;
+import org.finos.waltz.data.entity_search.EntitySearchDocumentDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchDocument;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toSet;
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Maintains the optional in-memory {@link EntitySearchIndex}.
+ *
+ * When enabled (`waltz.search.index.enabled`) the index is built shortly after
+ * startup.  It is then kept up to date by periodically reading new change log
+ * entries and re-indexing the entities they refer to, as changes are logged
+ * by every node this also picks up changes made elsewhere in the cluster.
+ * Change log ids are allocated on insert but become visible on commit, so an
+ * entry may appear below ids already seen.  Each poll therefore re-scans the
+ * trailing `TRAILING_ID_WINDOW` ids and re-indexes any entry not seen before.
+ * Not all changes (e.g. bulk loads) are logged, so the index is also rebuilt
+ * in full every `FULL_REBUILD_INTERVAL_MILLIS`.
+ */
+@Service
+public class EntitySearchIndexService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EntitySearchIndexService.class);
+
+    private static final long FULL_REBUILD_INTERVAL_MILLIS = TimeUnit.HOURS.toMillis(1);
+    private static final int TRAILING_ID_WINDOW = 5_000;
+
+    private final EntitySearchDocumentDao entitySearchDocumentDao;
+    private final ChangeLogDao changeLogDao;
+    private final EntitySearchIndex index = new EntitySearchIndex();
+
+    @Value("${waltz.search.index.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean built = false;
+    private int lastChangeLogId = 0;
+    private final NavigableSet<Integer> seenChangeLogIds = new TreeSet<>();
+    private long lastFullBuildAt = 0;
+
+
+    @Autowired
+    public EntitySearchIndexService(EntitySearchDocumentDao entitySearchDocumentDao,
+                                    ChangeLogDao changeLogDao) {
+        checkNotNull(entitySearchDocumentDao, "entitySearchDocumentDao cannot be null");
+        checkNotNull(changeLogDao, "changeLogDao cannot be null");
+
+        this.entitySearchDocumentDao = entitySearchDocumentDao;
+        this.changeLogDao = changeLogDao;
+    }
+
+
+    /**
+     * @return true if the index is enabled and has been built
+     */
+    public boolean isAvailable() {
+        return enabled && built;
+    }
+
+
+    public Set<EntityKind> getIndexedKinds() {
+        return EntitySearchDocumentDao.supportedKinds();
+    }
+
+
+    /**
+     * Searches the index, only kinds given by `getIndexedKinds` will be returned.
+     *
+     * @param options  search options
+     * @return matching entities, best matches first
+     */
+    public List<EntityReference> search(EntitySearchOptions options) {
+        return index.search(options);
+    }
+
+
+    /**
+     * As `search`, but each entity is paired with its score (see
+     * {@link EntitySearchIndex#score(EntityReference, String)}).
+     *
+     * @param options  search options
+     * @return matching entities with their scores, best matches first
+     */
+    public List<Tuple2<EntityReference, Integer>> searchScored(EntitySearchOptions options) {
+        return index.searchScored(options);
+    }
+
+
+    /**
+     * Reloads every indexed kind from the database.
+     *
+     * @return number of documents in the index
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+
+        // read before loading, so changes made during the load are re-applied by the next refresh
+        int latestChangeLogId = changeLogDao.getLatestId();
+        Set<Integer> committedChangeLogIds = changeLogDao
+                .findParentReferencesByIdInRange(
+                        latestChangeLogId - TRAILING_ID_WINDOW,
+                        latestChangeLogId,
+                        getIndexedKinds())
+                .keySet();
+
+        getIndexedKinds().forEach(kind -> index.replaceAll(
+                kind,
+                entitySearchDocumentDao.findAll(kind)));
+
+        lastChangeLogId = latestChangeLogId;
+        seenChangeLogIds.clear();
+        seenChangeLogIds.addAll(committedChangeLogIds);
+        lastFullBuildAt = System.currentTimeMillis();
+        built = true;
+
+        LOG.info("Built entity search index with {} documents in {}ms", index.size(), lastFullBuildAt - start);
+        return index.size();
+    }
+
+
+    /**
+     * Re-indexes entities mentioned in change log entries which have become
+     * visible since the last refresh (or rebuild), including late committed
+     * entries within the trailing id window.
+     *
+     * @return number of entities re-indexed
+     */
+    public synchronized int refresh() {
+        int latestChangeLogId = Math.max(changeLogDao.getLatestId(), lastChangeLogId);
+
+        Map<Integer, EntityReference> refsByChangeLogId = changeLogDao.findParentReferencesByIdInRange(
+                lastChangeLogId - TRAILING_ID_WINDOW,
+                latestChangeLogId,
+                getIndexedKinds());
+
+        Set<EntityReference> changed = refsByChangeLogId
+                .entrySet()
+                .stream()
+                .filter(e -> !seenChangeLogIds.contains(e.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(toSet());
+
+        reindex(changed);
+        lastChangeLogId = latestChangeLogId;
+        seenChangeLogIds.addAll(refsByChangeLogId.keySet());
+        seenChangeLogIds.headSet(latestChangeLogId - TRAILING_ID_WINDOW, true).clear();
+
+        LOG.debug("Re-indexed {} changed entities", changed.size());
+        return changed.size();
+    }
+
+
+    /**
+     * Reloads the given entities into the index, entities which no longer
+     * exist are removed from it.
+     *
+     * @param refs  entities to reload
+     */
+    public synchronized void reindex(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+
+        Map<EntityKind, Set<Long>> idsByKind = refs
+                .stream()
+                .filter(ref -> getIndexedKinds().contains(ref.kind()))
+                .collect(groupingBy(EntityReference::kind, mapping(EntityReference::id, toSet())));
+
+        idsByKind.forEach((kind, ids) -> {
+            List<EntitySearchDocument> docs = entitySearchDocumentDao.findByIds(kind, ids);
+            index.upsert(docs);
+
+            Set<Long> foundIds = docs
+                    .stream()
+                    .map(d -> d.entityReference().id())
+                    .collect(toSet());
+
+            ids.stream()
+                    .filter(id -> !foundIds.contains(id))
+                    .forEach(id -> index.remove(kind, id));
+        });
+    }
+
+
+    @Scheduled(initialDelay = 10_000, fixedDelay = 30_000)
+    public synchronized void maintain() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            if (!built || System.currentTimeMillis() - lastFullBuildAt > FULL_REBUILD_INTERVAL_MILLIS) {
+                rebuild();
+            } else {
+                refresh();
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to maintain entity search index", e);
+        }
+    }
+
+}
@@ -39,18 +39,22 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.WaltzEntity;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Future;
 
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.jooq.lambda.Unchecked.supplier;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class EntitySearchService {
@@ -70,6 +74,7 @@ public class EntitySearchService {
     private final ServerInformationService serverInformationService;
     private final SoftwareCatalogService softwareCatalogService;
     private final FlowDiagramService flowDiagramService;
+    private final EntitySearchIndexService entitySearchIndexService;
 
 
     @Autowired
@@ -87,7 +92,8 @@ public class EntitySearchService {
                                RoadmapService roadmapService,
                                ServerInformationService serverInformationService,
                                SoftwareCatalogService softwareCatalogService,
-                               FlowDiagramService flowDiagramService) {
+                               FlowDiagramService flowDiagramService,
+                               EntitySearchIndexService entitySearchIndexService) {
 
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(actorService, "actorService cannot be null");
@@ -104,6 +110,7 @@ public class EntitySearchService {
         checkNotNull(roadmapService, "roadmapService cannot be null");
         checkNotNull(serverInformationService, "serverInformationService cannot be null");
         checkNotNull(softwareCatalogService, "softwareCatalogService cannot be null");
+        checkNotNull(entitySearchIndexService, "entitySearchIndexService cannot be null");
 
         this.actorService = actorService;
         this.dbExecutorPool = dbExecutorPool;
@@ -120,9 +127,21 @@ public class EntitySearchService {
         this.roadmapService = roadmapService;
         this.serverInformationService = serverInformationService;
         this.softwareCatalogService = softwareCatalogService;
+        this.entitySearchIndexService = entitySearchIndexService;
     }
 
 
+    /**
+     * Searches across the kinds given in the options.  When the in-memory
+     * search index is available it answers for the kinds it holds, with the
+     * remaining kinds searched in the database (in parallel).  The database
+     * results are then scored on the index's scale and the two sets ranked
+     * together.  Without the index results are returned grouped by kind, as
+     * the database searches return them.
+     *
+     * @param options  search options
+     * @return references to matching entities
+     */
     public List<EntityReference> search(EntitySearchOptions options) {
         checkNotNull(options, "options cannot be null");
 
@@ -131,17 +150,35 @@ public class EntitySearchService {
             return Collections.emptyList();
         }
 
+        Set<EntityKind> indexedKinds = entitySearchIndexService.isAvailable()
+                ? entitySearchIndexService.getIndexedKinds()
+                : Collections.emptySet();
+
         List<Future<Collection<? extends WaltzEntity>>> futures = options
                 .entityKinds()
                 .stream()
+                .filter(ek -> !indexedKinds.contains(ek))
                 .map(ek -> dbExecutorPool.submit(mkCallable(ek, options)))
                 .collect(toList());
 
-        return futures
+        List<EntityReference> dbResults = futures
                 .stream()
                 .flatMap(f -> supplier(f::get).get().stream())
                 .map(WaltzEntity::entityReference)
                 .collect(toList());
+
+        if (indexedKinds.isEmpty()) {
+            return dbResults;
+        }
+
+        List<Tuple2<EntityReference, Integer>> scored = new ArrayList<>(entitySearchIndexService.searchScored(options));
+        dbResults.forEach(ref -> scored.add(tuple(ref, EntitySearchIndex.score(ref, options.searchQuery()))));
+
+        return EntitySearchIndex
+                .rank(scored)
+                .stream()
+                .map(t -> t.v1)
+                .collect(toList());
     }
 
 
@@ -22,10 +22,16 @@ import org.finos.waltz.common.Checks;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticDefinitionDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticRollupDao;
+import org.finos.waltz.data.entity_statistic.EntityStatisticRollupDao.BucketKind;
 import org.finos.waltz.data.entity_statistic.EntityStatisticSummaryDao;
 import org.finos.waltz.data.entity_statistic.EntityStatisticValueDao;
+import org.finos.waltz.data.orgunit.OrganisationalUnitIdSelectorFactory;
 import org.finos.waltz.model.Duration;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.entity_statistic.EntityStatistic;
@@ -34,46 +40,70 @@ import org.finos.waltz.model.entity_statistic.EntityStatisticValue;
 import org.finos.waltz.model.entity_statistic.RollupKind;
 import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchy;
 import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchyUtilities;
+import org.finos.waltz.model.tally.ImmutableTallyPack;
 import org.finos.waltz.model.tally.TallyPack;
+import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
 
 import static java.util.Collections.emptyList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.CollectionUtilities.sort;
 import static org.finos.waltz.common.ListUtilities.concat;
 import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.SetUtilities.asSet;
 
 @Service
 public class EntityStatisticService {
 
     private final ApplicationIdSelectorFactory factory = new ApplicationIdSelectorFactory();
+    private final OrganisationalUnitIdSelectorFactory orgUnitIdSelectorFactory = new OrganisationalUnitIdSelectorFactory();
     private final EntityStatisticValueDao valueDao;
     private final EntityStatisticDefinitionDao definitionDao;
     private final EntityStatisticSummaryDao summaryDao;
     private final EntityStatisticDao statisticDao;
+    private final EntityStatisticRollupDao rollupDao;
+    private final DSLContext dsl;
 
 
     @Autowired
     public EntityStatisticService(EntityStatisticValueDao valueDao,
                                   EntityStatisticDefinitionDao definitionDao,
                                   EntityStatisticSummaryDao summaryDao,
-                                  EntityStatisticDao statisticDao)
+                                  EntityStatisticDao statisticDao,
+                                  EntityStatisticRollupDao rollupDao,
+                                  DSLContext dsl)
     {
         checkNotNull(valueDao, "valueDao cannot be null");
         checkNotNull(definitionDao, "definitionDao cannot be null");
         checkNotNull(summaryDao, "summaryDao cannot be null");
         checkNotNull(statisticDao, "statisticDao cannot be null");
+        checkNotNull(rollupDao, "rollupDao cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
 
         this.valueDao = valueDao;
         this.definitionDao = definitionDao;
         this.summaryDao = summaryDao;
         this.statisticDao = statisticDao;
+        this.rollupDao = rollupDao;
+        this.dsl = dsl;
 
     }
 
@@ -90,6 +120,36 @@ public class EntityStatisticService {
     }
 
 
+    /**
+     * Saves the values and refreshes the history rollups of each statistic
+     * for the dates covered by the new application values, all in one
+     * transaction.
+     */
+    public int[] bulkSaveValues(List<EntityStatisticValue> values) {
+        checkNotNull(values, "values cannot be null");
+
+        return dsl.transactionResult(ctx -> {
+            DSLContext tx = ctx.dsl();
+
+            int[] result = valueDao.bulkSaveValues(tx, values);
+
+            values.stream()
+                    .filter(v -> v.entity().kind() == EntityKind.APPLICATION)
+                    .collect(groupingBy(
+                            EntityStatisticValue::statisticId,
+                            mapping(v -> v.createdAt().toLocalDate(),
+                                    toCollection(TreeSet::new))))
+                    .forEach((statisticId, dates) -> rollupDao.refresh(
+                            tx,
+                            statisticId,
+                            dates.first(),
+                            dates.last()));
+
+            return result;
+        });
+    }
+
+
     public List<EntityStatisticValue> getStatisticValuesForAppIdSelector(long statisticId, IdSelectionOptions options) {
         Select<Record1<Long>> appIdSelector = factory.apply(options);
 
@@ -165,6 +225,19 @@ public class EntityStatisticService {
         Checks.checkNotNull(options, "options cannot be null");
         Checks.checkNotNull(duration, "duration cannot be null");
 
+        if (rollupKind != RollupKind.NONE && canUseRollups(options)) {
+            Optional<Tuple2<LocalDate, LocalDate>> rolledUpRange = rollupDao.findRolledUpRange(statisticId);
+            if (rolledUpRange.isPresent()) {
+                return calculateHistoricStatTallyFromRollups(
+                        statisticId,
+                        rollupKind,
+                        options,
+                        duration,
+                        rolledUpRange.get().v1(),
+                        rolledUpRange.get().v2());
+            }
+        }
+
         Select<Record1<Long>> appIdSelector = factory.apply(options);
 
         switch(rollupKind) {
@@ -182,6 +255,20 @@ public class EntityStatisticService {
     }
 
 
+    /**
+     * Recomputes the history rollups for every active statistic, used to
+     * populate rollups for values which were loaded before rollups existed.
+     */
+    public int rebuildHistoricRollups() {
+        return findAllActiveDefinitions(false)
+                .stream()
+                .map(d -> d.id().orElse(null))
+                .filter(Objects::nonNull)
+                .mapToInt(rollupDao::rebuild)
+                .sum();
+    }
+
+
     public EntityStatisticDefinition getDefinitionById(long id) {
         return definitionDao.getById(id);
     }
@@ -190,4 +277,86 @@ public class EntityStatisticService {
     public List<EntityStatisticDefinition> findAllActiveDefinitions(boolean rollupOnly) {
         return definitionDao.findAllActiveDefinitions(rollupOnly);
     }
+
+
+    /**
+     * Reads history from the rollups.  Values created outside the rolled up
+     * range (before rollups were introduced, or since the last refresh) are
+     * read from the raw values and bucketed the same way as the rollups.
+     */
+    private List<TallyPack<String>> calculateHistoricStatTallyFromRollups(Long statisticId,
+                                                                          RollupKind rollupKind,
+                                                                          IdSelectionOptions options,
+                                                                          Duration duration,
+                                                                          LocalDate rolledUpFrom,
+                                                                          LocalDate rolledUpUntil) {
+        BucketKind bucketKind = EntityStatisticRollupDao.toBucketKind(duration);
+
+        // a partially covered week must be read entirely from the raw values
+        LocalDate rawFrom = bucketKind == BucketKind.WEEK
+                ? EntityStatisticRollupDao.toWeekStart(rolledUpUntil)
+                : rolledUpUntil;
+
+        List<TallyPack<String>> rolledUp = rollupDao
+                .findHistory(
+                        statisticId,
+                        orgUnitIdSelectorFactory.apply(options),
+                        rollupKind,
+                        duration)
+                .stream()
+                .filter(p -> p.lastUpdatedAt().toLocalDate().isBefore(rawFrom))
+                .collect(toList());
+
+        Select<Record1<Long>> appIdSelector = factory.apply(options);
+        List<TallyPack<String>> raw;
+        switch(rollupKind) {
+            case COUNT_BY_ENTITY:
+                raw = summaryDao.generateHistoricWithCountByEntity(statisticId, appIdSelector, duration, rolledUpFrom, rawFrom);
+                break;
+            case SUM_BY_VALUE:
+                raw = summaryDao.generateHistoricWithSumByValue(statisticId, appIdSelector, duration, rolledUpFrom, rawFrom);
+                break;
+            case AVG_BY_VALUE:
+                raw = summaryDao.generateHistoricWithAvgByValue(statisticId, appIdSelector, duration, rolledUpFrom, rawFrom);
+                break;
+            default:
+                throw new UnsupportedOperationException(String.format("Rollup kind [%s] not supported.", rollupKind));
+        }
+
+        return sort(
+                concat(bucketKind == BucketKind.WEEK ? toWeeklyPacks(raw) : raw, rolledUp),
+                Comparator.comparing(TallyPack::lastUpdatedAt));
+    }
+
+
+    /**
+     * Matches the weekly rollups: each week holds the last day in the week
+     * which has values, keyed by the start of the week.
+     */
+    private static List<TallyPack<String>> toWeeklyPacks(List<TallyPack<String>> dailyPacks) {
+        return dailyPacks
+                .stream()
+                .collect(toMap(
+                        p -> EntityStatisticRollupDao.toWeekStart(p.lastUpdatedAt().toLocalDate()),
+                        p -> p,
+                        (a, b) -> a.lastUpdatedAt().isAfter(b.lastUpdatedAt()) ? a : b))
+                .entrySet()
+                .stream()
+                .map(e -> ImmutableTallyPack
+                        .copyOf(e.getValue())
+                        .withLastUpdatedAt(e.getKey().atStartOfDay()))
+                .collect(toList());
+    }
+
+
+    /**
+     * Rollups are held per org unit and only include active applications, so
+     * they can only answer org unit queries which use the default filters.
+     */
+    private boolean canUseRollups(IdSelectionOptions options) {
+        return options.entityReference().kind() == EntityKind.ORG_UNIT
+                && options.scope() != HierarchyQueryScope.PARENTS
+                && options.entityLifecycleStatuses().equals(asSet(EntityLifecycleStatus.ACTIVE))
+                && options.filters().omitApplicationKinds().isEmpty();
+    }
 }
@@ -39,7 +39,6 @@ import org.springframework.stereotype.Service;
 import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -97,10 +96,7 @@ public class FlowClassificationCalculator {
         IdSelectionOptions selectorOptions = mkOpts(vantageRef);
         Select<Record1<Long>> selector = appIdSelectorFactory.apply(selectorOptions);
         Set<Long> dataTypeDescendents = entityHierarchyDao
-                .findDesendents(dataType.entityReference())
-                .stream()
-                .map(d -> d.id().get())
-                .collect(Collectors.toSet());
+                .findDescendantIds(dataType.entityReference());
 
         Collection<DataTypeDecorator> impactedDecorators = logicalFlowDecoratorDao
                 .findByEntityIdSelector(selector, Optional.of(EntityKind.APPLICATION))
@@ -18,6 +18,7 @@
 
 package org.finos.waltz.service.flow_classification_rule;
 
+import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.flow_classification_rule.FlowClassificationRuleVantagePoint;
 import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
@@ -25,35 +26,125 @@ import org.finos.waltz.model.rating.AuthoritativenessRatingValue;
 import java.util.*;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.CollectionUtilities.head;
 import static org.finos.waltz.common.CollectionUtilities.sort;
-import static org.finos.waltz.common.MapUtilities.groupAndThen;
-import static org.finos.waltz.common.MapUtilities.isEmpty;
 
 
+/**
+ * Resolves the flow classification rating for a (vantage point, source app, data type).
+ *
+ * Internally the vantage points are held in flat, primitive arrays:
+ * <ul>
+ *     <li>an open addressing table keyed on (vantage kind, vantage id, data type id)
+ *     which points to a group of entries</li>
+ *     <li>per group, a range of the app arrays, sorted by app id, holding the byte
+ *     coded rating and the most specific vantage point for each app</li>
+ * </ul>
+ * The most specific vantage point per app is chosen when the resolver is
+ * built, so a lookup is a single probe and a binary search.  The primitive
+ * `resolve` methods do not allocate.
+ */
 public class FlowClassificationRuleResolver {
 
-    private final Map<EntityReference, Map<Long, Map<Long, Optional<FlowClassificationRuleVantagePoint>>>> byOuThenDataTypeThenApp;
+    private static final int NOT_FOUND = -1;
+    private static final byte NO_OPINION_CODE = 0;
+    private static final byte DISCOURAGED_CODE = 1;
+    private static final int MAX_RATING_CODES = 255;
+
+    // open addressing table, a slot kind of zero denotes an empty slot
+    private final int mask;
+    private final byte[] slotKinds;
+    private final long[] slotVantageIds;
+    private final long[] slotDataTypeIds;
+    private final int[] slotOffsets;
+    private final int[] slotLengths;
+
+    // entries, grouped by slot and sorted by app id within each group
+    private final long[] appIds;
+    private final byte[] ratingCodes;
+    private final List<Optional<FlowClassificationRuleVantagePoint>> rules;
+
+    private final AuthoritativenessRatingValue[] ratingsByCode;
+
 
     /**
      * Construct the Resolver with an internal structure as follows:
-     * OrgUnit -> [DataTypeId -> [AppId -> Rating] ]
+     * (OrgUnit, DataTypeId) -> [AppId -> Rating]
      * @param flowClassificationVantagePoints
      */
     public FlowClassificationRuleResolver(List<FlowClassificationRuleVantagePoint> flowClassificationVantagePoints) {
         checkNotNull(flowClassificationVantagePoints, "flowClassificationVantagePoints cannot be null");
 
-        byOuThenDataTypeThenApp =
-                groupAndThen(
-                        FlowClassificationRuleVantagePoint::vantagePoint,
-                        byOus -> groupAndThen(
-                                byOu -> byOu.dataType().id(),
-                                byDts -> groupAndThen(
-                                        FlowClassificationRuleVantagePoint::applicationId,
-                                        a -> getMostSpecificRanked(a),
-                                        byDts),
-                                byOus),
-                        flowClassificationVantagePoints);
+        Comparator<FlowClassificationRuleVantagePoint> byKey = Comparator
+                .comparingInt((FlowClassificationRuleVantagePoint vp) -> vp.vantagePoint().kind().ordinal())
+                .thenComparingLong(vp -> vp.vantagePoint().id())
+                .thenComparingLong(vp -> vp.dataType().id())
+                .thenComparingLong(FlowClassificationRuleVantagePoint::applicationId);
+
+        Comparator<FlowClassificationRuleVantagePoint> byRankDescending = Comparator
+                .comparingInt(FlowClassificationRuleVantagePoint::vantagePointRank)
+                .thenComparingInt(FlowClassificationRuleVantagePoint::dataTypeRank)
+                .reversed();
+
+        // most specific vantage point for each (kind, vantage, data type, app) comes first in its run
+        List<FlowClassificationRuleVantagePoint> sorted = sort(
+                flowClassificationVantagePoints,
+                byKey.thenComparing(byRankDescending));
+
+        List<FlowClassificationRuleVantagePoint> winners = new ArrayList<>(sorted.size());
+        FlowClassificationRuleVantagePoint prev = null;
+        int groupCount = 0;
+        for (FlowClassificationRuleVantagePoint vp : sorted) {
+            if (prev == null || !sameGroup(prev, vp)) {
+                groupCount++;
+                winners.add(vp);
+            } else if (prev.applicationId().longValue() != vp.applicationId().longValue()) {
+                winners.add(vp);
+            }
+            prev = vp;
+        }
+
+        Map<String, Byte> codesByName = new HashMap<>();
+        List<AuthoritativenessRatingValue> ratingValues = new ArrayList<>();
+        ratingValues.add(AuthoritativenessRatingValue.NO_OPINION);
+        ratingValues.add(AuthoritativenessRatingValue.DISCOURAGED);
+        codesByName.put(AuthoritativenessRatingValue.NO_OPINION.value(), NO_OPINION_CODE);
+        codesByName.put(AuthoritativenessRatingValue.DISCOURAGED.value(), DISCOURAGED_CODE);
+
+        int capacity = Integer.highestOneBit(Math.max(groupCount, 1) * 2 - 1) << 1;
+        mask = capacity - 1;
+        slotKinds = new byte[capacity];
+        slotVantageIds = new long[capacity];
+        slotDataTypeIds = new long[capacity];
+        slotOffsets = new int[capacity];
+        slotLengths = new int[capacity];
+
+        int size = winners.size();
+        appIds = new long[size];
+        ratingCodes = new byte[size];
+        rules = new ArrayList<>(size);
+
+        int slot = NOT_FOUND;
+        for (int i = 0; i < size; i++) {
+            FlowClassificationRuleVantagePoint vp = winners.get(i);
+
+            if (i == 0 || !sameGroup(winners.get(i - 1), vp)) {
+                slot = claimSlot(vp);
+                slotOffsets[slot] = i;
+            }
+            slotLengths[slot]++;
+
+            appIds[i] = vp.applicationId();
+            ratingCodes[i] = codesByName.computeIfAbsent(vp.classificationCode(), code -> {
+                ratingValues.add(AuthoritativenessRatingValue.of(code));
+                checkTrue(ratingValues.size() <= MAX_RATING_CODES, "Too many distinct classification codes");
+                return (byte) (ratingValues.size() - 1);
+            });
+            rules.add(Optional.of(vp));
+        }
+
+        ratingsByCode = ratingValues.toArray(new AuthoritativenessRatingValue[0]);
     }
 
 
@@ -69,43 +160,55 @@ public class FlowClassificationRuleResolver {
     public AuthoritativenessRatingValue resolve(EntityReference vantagePoint,
                                                 EntityReference source,
                                                 Long dataTypeId) {
+        return resolve(vantagePoint.kind(), vantagePoint.id(), source.id(), dataTypeId);
+    }
 
-        Map<Long, Map<Long, Optional<FlowClassificationRuleVantagePoint>>> ouGroup = byOuThenDataTypeThenApp.get(vantagePoint);
-
-        // if a match cannot be found for the ou and the dt then no opinion, if a match can be found for these but the source application
-        // doesn't match then the rating should be discouraged
-
-        if(isEmpty(ouGroup)) {
-            return AuthoritativenessRatingValue.NO_OPINION;
-        }
-
-        Map<Long, Optional<FlowClassificationRuleVantagePoint>> dataTypeGroup = ouGroup.get(dataTypeId);
 
-        if(isEmpty(dataTypeGroup)) {
+    /**
+     * Primitive variant of {@link #resolve(EntityReference, EntityReference, Long)}.
+     *
+     * If a match cannot be found for the vantage point and the data type then
+     * the result is 'no opinion', if a match can be found but the source app
+     * does not match then the rating is 'discouraged'.
+     */
+    public AuthoritativenessRatingValue resolve(EntityKind vantagePointKind,
+                                                long vantagePointId,
+                                                long sourceAppId,
+                                                long dataTypeId) {
+        int slot = findSlot(vantagePointKind, vantagePointId, dataTypeId);
+        if (slot == NOT_FOUND) {
             return AuthoritativenessRatingValue.NO_OPINION;
         }
 
-        Optional<FlowClassificationRuleVantagePoint> maybeRating = dataTypeGroup.getOrDefault(
-                source.id(),
-                Optional.empty());
-
-        return maybeRating
-                .map(r -> AuthoritativenessRatingValue.of(r.classificationCode()))
-                .orElse(AuthoritativenessRatingValue.DISCOURAGED);
+        int idx = findApp(slot, sourceAppId);
+        return idx == NOT_FOUND
+                ? AuthoritativenessRatingValue.DISCOURAGED
+                : ratingsByCode[ratingCodes[idx] & 0xFF];
     }
 
 
     public Optional<FlowClassificationRuleVantagePoint> resolveAuthSource(EntityReference vantagePoint, EntityReference source, Long dataTypeId) {
+        return resolveAuthSource(vantagePoint.kind(), vantagePoint.id(), source.id(), dataTypeId);
+    }
 
-        Map<Long, Map<Long, Optional<FlowClassificationRuleVantagePoint>>> ouGroup = byOuThenDataTypeThenApp.get(vantagePoint);
-        if(isEmpty(ouGroup)) return Optional.empty();
 
-        Map<Long, Optional<FlowClassificationRuleVantagePoint>> dataTypeGroup = ouGroup.get(dataTypeId);
-        if(isEmpty(dataTypeGroup)) return Optional.empty();
+    /**
+     * Primitive variant of {@link #resolveAuthSource(EntityReference, EntityReference, Long)}.
+     * The returned optionals are shared, so no allocation takes place.
+     */
+    public Optional<FlowClassificationRuleVantagePoint> resolveAuthSource(EntityKind vantagePointKind,
+                                                                          long vantagePointId,
+                                                                          long sourceAppId,
+                                                                          long dataTypeId) {
+        int slot = findSlot(vantagePointKind, vantagePointId, dataTypeId);
+        if (slot == NOT_FOUND) {
+            return Optional.empty();
+        }
 
-        return  dataTypeGroup.getOrDefault(
-                source.id(),
-                Optional.empty());
+        int idx = findApp(slot, sourceAppId);
+        return idx == NOT_FOUND
+                ? Optional.empty()
+                : rules.get(idx);
     }
 
 
@@ -126,4 +229,66 @@ public class FlowClassificationRuleResolver {
                     (x, y) -> comparator.compare(y, x))); //note the reversal of parameters because we want descending order
     }
 
+
+    // -- HELPERS
+
+    private int claimSlot(FlowClassificationRuleVantagePoint vp) {
+        byte kindCode = toKindCode(vp.vantagePoint().kind());
+        long vantagePointId = vp.vantagePoint().id();
+        long dataTypeId = vp.dataType().id();
+
+        int slot = hash(kindCode, vantagePointId, dataTypeId) & mask;
+        while (slotKinds[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+
+        slotKinds[slot] = kindCode;
+        slotVantageIds[slot] = vantagePointId;
+        slotDataTypeIds[slot] = dataTypeId;
+        return slot;
+    }
+
+
+    private int findSlot(EntityKind vantagePointKind, long vantagePointId, long dataTypeId) {
+        byte kindCode = toKindCode(vantagePointKind);
+        int slot = hash(kindCode, vantagePointId, dataTypeId) & mask;
+
+        while (slotKinds[slot] != 0) {
+            if (slotKinds[slot] == kindCode
+                    && slotVantageIds[slot] == vantagePointId
+                    && slotDataTypeIds[slot] == dataTypeId) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+
+    private int findApp(int slot, long appId) {
+        int from = slotOffsets[slot];
+        int idx = Arrays.binarySearch(appIds, from, from + slotLengths[slot], appId);
+        return idx < 0 ? NOT_FOUND : idx;
+    }
+
+
+    private static boolean sameGroup(FlowClassificationRuleVantagePoint a, FlowClassificationRuleVantagePoint b) {
+        return a.vantagePoint().kind() == b.vantagePoint().kind()
+                && a.vantagePoint().id() == b.vantagePoint().id()
+                && a.dataType().id() == b.dataType().id();
+    }
+
+
+    private static byte toKindCode(EntityKind kind) {
+        return (byte) (kind.ordinal() + 1);
+    }
+
+
+    private static int hash(byte kindCode, long vantagePointId, long dataTypeId) {
+        long h = vantagePointId * 0x9E3779B97F4A7C15L + dataTypeId;
+        h = (h ^ kindCode) * 0xBF58476D1CE4E5B9L;
+        h ^= h >>> 31;
+        return (int) (h ^ (h >>> 32));
+    }
+
 }
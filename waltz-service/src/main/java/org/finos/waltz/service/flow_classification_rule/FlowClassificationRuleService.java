@@ -20,7 +20,9 @@ package org.finos.waltz.service.flow_classification_rule;
 
 import org.finos.waltz.schema.Tables;
 import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.common.BatchProcessingCollector;
 import org.finos.waltz.common.exception.NotFoundException;
+import org.finos.waltz.data.DBExecutorPoolInterface;
 import org.finos.waltz.data.GenericSelector;
 import org.finos.waltz.data.GenericSelectorFactory;
 import org.finos.waltz.data.actor.ActorDao;
@@ -44,20 +46,25 @@ import org.jooq.Condition;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.jooq.impl.DSL;
+import org.jooq.lambda.Unchecked;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 import static org.finos.waltz.schema.tables.LogicalFlowDecorator.LOGICAL_FLOW_DECORATOR;
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.model.EntityKind.ACTOR;
+import static org.finos.waltz.model.EntityKind.APPLICATION;
 import static org.finos.waltz.model.EntityKind.ORG_UNIT;
 import static org.finos.waltz.model.EntityReference.mkRef;
 
@@ -66,6 +73,8 @@ import static org.finos.waltz.model.EntityReference.mkRef;
 public class FlowClassificationRuleService {
 
     private static final Logger LOG = LoggerFactory.getLogger(FlowClassificationRuleService.class);
+    private static final int RATING_UPDATE_BATCH_SIZE = 1000;
+    private static final int RATING_CANDIDATE_PAGE_SIZE = 20_000;
 
     private final FlowClassificationRuleDao flowClassificationRuleDao;
     private final FlowClassificationDao flowClassificationDao;
@@ -76,6 +85,7 @@ public class FlowClassificationRuleService {
     private final FlowClassificationCalculator ratingCalculator;
     private final ChangeLogService changeLogService;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final DBExecutorPoolInterface dbExecutorPool;
     private final DataTypeIdSelectorFactory dataTypeIdSelectorFactory = new DataTypeIdSelectorFactory();
     private final ApplicationIdSelectorFactory applicationIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final GenericSelectorFactory genericSelectorFactory = new GenericSelectorFactory();
@@ -90,7 +100,8 @@ public class FlowClassificationRuleService {
                                          ActorDao actorDao,
                                          FlowClassificationCalculator ratingCalculator,
                                          ChangeLogService changeLogService,
-                                         LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+                                         LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                         DBExecutorPoolInterface dbExecutorPool) {
         checkNotNull(flowClassificationRuleDao, "flowClassificationRuleDao must not be null");
         checkNotNull(flowClassificationDao, "flowClassificationDao must not be null");
         checkNotNull(actorDao, "actorDao must not be null");
@@ -100,6 +111,7 @@ public class FlowClassificationRuleService {
         checkNotNull(ratingCalculator, "ratingCalculator cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
 
         this.flowClassificationRuleDao = flowClassificationRuleDao;
         this.flowClassificationDao = flowClassificationDao;
@@ -110,6 +122,7 @@ public class FlowClassificationRuleService {
         this.ratingCalculator = ratingCalculator;
         this.changeLogService = changeLogService;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.dbExecutorPool = dbExecutorPool;
     }
 
 
@@ -201,23 +214,78 @@ public class FlowClassificationRuleService {
     }
 
 
+    /**
+     * Recalculates the rating of every logical flow decorator.
+     *
+     * The target rating of each decorator is computed in memory (org unit
+     * rules, overridden by any point-to-point rules) and compared to the
+     * current value.  Only decorators whose rating or rule have changed are
+     * written, in batches, in parallel via the db executor pool.  Ratings are
+     * never reset to 'no opinion' as an intermediate step.  Decorators are
+     * processed a page at a time so they are never all held in memory.
+     *
+     * @return true once all changes have been written
+     */
     public boolean fastRecalculateAllFlowRatings() {
-        logicalFlowDecoratorDao.updateRatingsByCondition(AuthoritativenessRatingValue.NO_OPINION, DSL.trueCondition());
+        FlowClassificationRuleResolver orgUnitResolver = new FlowClassificationRuleResolver(
+                flowClassificationRuleDao.findAllExpandedFlowClassificationRuleVantagePoints());
+
+        FlowClassificationRuleResolver pointToPointResolver = new FlowClassificationRuleResolver(
+                flowClassificationRuleDao.findExpandedPointToPointFlowClassificationRuleVantagePoints());
 
-        //finds all the vantage points to apply using parent as selector
-        List<FlowClassificationRuleVantagePoint> flowClassificationRuleVantagePoints = flowClassificationRuleDao
-                .findFlowClassificationRuleVantagePoints();
+        int candidateCount = 0;
+        int changeCount = 0;
+        int updateCount = 0;
+        int batchCount = 0;
+        long lastDecoratorId = Long.MIN_VALUE;
 
-        flowClassificationRuleVantagePoints
-                .forEach(a -> {
-                    LOG.info("Updating decorators for: {}", a);
-                    int updateCount = logicalFlowDecoratorDao.updateDecoratorsForFlowClassificationRule(a);
-                    LOG.info("Updated {} decorators for: {}", updateCount, a);
-        });
+        // decorators are read a page at a time, and each page's changes are written before moving on
+        while (true) {
+            List<FlowClassificationRatingCandidate> candidates = logicalFlowDecoratorDao.findFlowClassificationRatingCandidates(
+                    lastDecoratorId,
+                    RATING_CANDIDATE_PAGE_SIZE);
 
-        //overrides rating for point to point flows (must run after the above)
-        int updatedDecoratorRatings = flowClassificationRuleDao.updatePointToPointFlowClassificationRules();
-        LOG.info("Updated decorators for: {} point-to-point flows", updatedDecoratorRatings);
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            List<Future<Integer>> pendingUpdates = new ArrayList<>();
+
+            changeCount += candidates
+                    .stream()
+                    .map(c -> recalculateRating(orgUnitResolver, pointToPointResolver, c))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(new BatchProcessingCollector<>(
+                            RATING_UPDATE_BATCH_SIZE,
+                            batch -> {
+                                if (!batch.isEmpty()) {
+                                    // the collector reuses the batch list, so take a copy for the async update
+                                    List<FlowClassificationRatingCandidate> changes = new ArrayList<>(batch);
+                                    pendingUpdates.add(dbExecutorPool.submit(() -> logicalFlowDecoratorDao.updateRatings(changes)));
+                                }
+                            }));
+
+            updateCount += pendingUpdates
+                    .stream()
+                    .mapToInt(f -> Unchecked.supplier(f::get).get())
+                    .sum();
+
+            candidateCount += candidates.size();
+            batchCount += pendingUpdates.size();
+            lastDecoratorId = candidates.get(candidates.size() - 1).decoratorId();
+
+            if (candidates.size() < RATING_CANDIDATE_PAGE_SIZE) {
+                break;
+            }
+        }
+
+        LOG.info(
+                "Recalculated flow ratings for {} decorators, {} changed, {} updated in {} batches",
+                candidateCount,
+                changeCount,
+                updateCount,
+                batchCount);
 
         return true;
     }
@@ -322,6 +390,70 @@ public class FlowClassificationRuleService {
     }
 
 
+    /**
+     * Point-to-point rules take precedence, otherwise app to app flows are
+     * rated by the rules of the target app's org unit (or any of its parents).
+     *
+     * The resolvers hand back shared ratings and rules, and these are compared
+     * with the candidate's current values directly.  A new candidate is only
+     * built for decorators which have changed.
+     *
+     * @return the candidate with its new rating and rule, or empty if neither has changed
+     */
+    private static Optional<FlowClassificationRatingCandidate> recalculateRating(FlowClassificationRuleResolver orgUnitResolver,
+                                                                                 FlowClassificationRuleResolver pointToPointResolver,
+                                                                                 FlowClassificationRatingCandidate candidate) {
+        AuthoritativenessRatingValue rating = AuthoritativenessRatingValue.NO_OPINION;
+        Optional<FlowClassificationRuleVantagePoint> rule = Optional.empty();
+
+        if (candidate.source().kind() == APPLICATION) {
+            long sourceAppId = candidate.source().id();
+            long dataTypeId = candidate.dataTypeId();
+            EntityKind targetKind = candidate.target().kind();
+            long targetId = candidate.target().id();
+
+            Optional<FlowClassificationRuleVantagePoint> pointToPointRule = pointToPointResolver.resolveAuthSource(
+                    targetKind,
+                    targetId,
+                    sourceAppId,
+                    dataTypeId);
+
+            if (pointToPointRule.isPresent()) {
+                rating = pointToPointResolver.resolve(targetKind, targetId, sourceAppId, dataTypeId);
+                rule = pointToPointRule;
+            } else if (targetKind == APPLICATION && candidate.targetOrgUnitId().isPresent()) {
+                long orgUnitId = candidate.targetOrgUnitId().get();
+                rating = orgUnitResolver.resolve(ORG_UNIT, orgUnitId, sourceAppId, dataTypeId);
+                rule = orgUnitResolver.resolveAuthSource(ORG_UNIT, orgUnitId, sourceAppId, dataTypeId);
+            }
+        }
+
+        if (isUnchanged(candidate, rating, rule)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(ImmutableFlowClassificationRatingCandidate
+                .copyOf(candidate)
+                .withRating(rating)
+                .withFlowClassificationRuleId(rule.map(FlowClassificationRuleVantagePoint::ruleId)));
+    }
+
+
+    private static boolean isUnchanged(FlowClassificationRatingCandidate candidate,
+                                       AuthoritativenessRatingValue rating,
+                                       Optional<FlowClassificationRuleVantagePoint> rule) {
+        Optional<AuthoritativenessRatingValue> currentRating = candidate.rating();
+        if (!currentRating.isPresent() || !currentRating.get().equals(rating)) {
+            return false;
+        }
+
+        Optional<Long> currentRuleId = candidate.flowClassificationRuleId();
+        return rule.isPresent()
+                ? currentRuleId.isPresent() && currentRuleId.get().longValue() == rule.get().ruleId().longValue()
+                : !currentRuleId.isPresent();
+    }
+
+
     private void logRemoval(long id, String username) {
         FlowClassificationRule rule = getById(id);
 
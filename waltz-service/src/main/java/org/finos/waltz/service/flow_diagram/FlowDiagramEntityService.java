@@ -28,6 +28,7 @@ import org.finos.waltz.model.flow_diagram.FlowDiagramEntity;
 import org.finos.waltz.model.flow_diagram.ImmutableFlowDiagramEntity;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -103,4 +104,11 @@ public class FlowDiagramEntityService {
         return flowDiagramEntityDao.deleteForGenericEntitySelector(selector);
 
     }
+
+
+    public int deleteForEntitySelector(DSLContext tx, IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        GenericSelector selector = genericSelectorFactory.apply(options);
+        return flowDiagramEntityDao.deleteForGenericEntitySelector(tx, selector);
+    }
 }
@@ -34,6 +34,7 @@ import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.involvement.EntityInvolvementChangeCommand;
 import org.finos.waltz.model.involvement.Involvement;
 import org.finos.waltz.model.person.Person;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -162,6 +163,14 @@ public class InvolvementService {
     }
 
 
+    public int deleteByGenericEntitySelector(DSLContext tx, IdSelectionOptions selectionOptions) {
+        GenericSelector genericSelector = genericSelectorFactory
+                .apply(selectionOptions);
+        return involvementDao
+                .deleteByGenericEntitySelector(tx, genericSelector);
+    }
+
+
     private Involvement mkInvolvement(EntityReference entityReference,
                                       EntityInvolvementChangeCommand command) {
         checkNotNull(entityReference, "entityReference cannot be null");
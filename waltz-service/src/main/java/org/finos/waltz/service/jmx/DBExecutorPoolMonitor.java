@@ -0,0 +1,109 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.data.DBExecutorPoolInterface;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Activity of the executor used to run concurrent database queries")
+public class DBExecutorPoolMonitor {
+
+    private final DBExecutorPoolInterface dbExecutorPool;
+
+    @Autowired
+    public DBExecutorPoolMonitor(DBExecutorPoolInterface dbExecutorPool) {
+        this.dbExecutorPool = dbExecutorPool;
+    }
+
+
+    @ManagedAttribute(description = "Number of threads running queries")
+    public int getThreadCount() {
+        return dbExecutorPool.getStats().threadCount();
+    }
+
+
+    @ManagedAttribute(description = "Maximum number of queued queries")
+    public int getQueueCapacity() {
+        return dbExecutorPool.getStats().queueCapacity();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries currently executing")
+    public int getActiveCount() {
+        return dbExecutorPool.getStats().activeCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries waiting for a thread")
+    public int getQueuedCount() {
+        return dbExecutorPool.getStats().queuedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries completed by the pool's threads")
+    public long getCompletedCount() {
+        return dbExecutorPool.getStats().completedCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries run on the requesting thread as the queue was full")
+    public long getCallerRunsCount() {
+        return dbExecutorPool.getStats().callerRunsCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of queries cancelled as they exceeded their deadline")
+    public long getTimedOutCount() {
+        return dbExecutorPool.getStats().timedOutCount();
+    }
+
+
+    @ManagedAttribute(description = "Mean time (ms) queries waited for a thread")
+    public double getMeanQueueWaitMillis() {
+        return dbExecutorPool.getStats().meanQueueWaitMillis();
+    }
+
+
+    @ManagedAttribute(description = "95th percentile time (ms) queries waited for a thread")
+    public double getP95QueueWaitMillis() {
+        return dbExecutorPool.getStats().p95QueueWaitMillis();
+    }
+
+
+    @ManagedAttribute(description = "Mean query execution time (ms)")
+    public double getMeanExecutionMillis() {
+        return dbExecutorPool.getStats().meanExecutionMillis();
+    }
+
+
+    @ManagedAttribute(description = "95th percentile query execution time (ms)")
+    public double getP95ExecutionMillis() {
+        return dbExecutorPool.getStats().p95ExecutionMillis();
+    }
+
+
+    @ManagedAttribute(description = "Longest query execution time (ms)")
+    public double getMaxExecutionMillis() {
+        return dbExecutorPool.getStats().maxExecutionMillis();
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.model.query_performance.QueryPerformanceSummary;
+import org.finos.waltz.service.query_performance.QueryPerformanceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import static java.lang.String.format;
+
+@ManagedResource(description = "Query performance statistics, grouped by normalised sql")
+public class QueryPerformance {
+
+    private final QueryPerformanceService queryPerformanceService;
+
+    @Autowired
+    public QueryPerformance(QueryPerformanceService queryPerformanceService) {
+        this.queryPerformanceService = queryPerformanceService;
+    }
+
+
+    @ManagedAttribute(description = "Number of distinct query shapes being tracked")
+    public int getQueryShapeCount() {
+        return queryPerformanceService.countQueryShapes();
+    }
+
+
+    @ManagedOperation(description = "Queries with the highest total execution time")
+    public String[] findTopByTotalTime(int limit) {
+        return queryPerformanceService
+                .findTopByTotalTime(limit)
+                .stream()
+                .map(QueryPerformance::describe)
+                .toArray(String[]::new);
+    }
+
+
+    @ManagedOperation(description = "Clear all query performance statistics")
+    public boolean reset() {
+        return queryPerformanceService.reset("jmx");
+    }
+
+
+    private static String describe(QueryPerformanceSummary s) {
+        return format(
+                "count=%d, errors=%d, rows=%d, total=%.1fms, mean=%.2fms, p50=%.2fms, p95=%.2fms, p99=%.2fms, max=%.2fms, execute=%.2fms, fetch=%.2fms :: %s",
+                s.executionCount(),
+                s.errorCount(),
+                s.rowCount(),
+                s.totalMillis(),
+                s.meanMillis(),
+                s.p50Millis(),
+                s.p95Millis(),
+                s.p99Millis(),
+                s.maxMillis(),
+                s.meanExecuteMillis(),
+                s.meanFetchMillis(),
+                s.sql());
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.report_grid.ReportGridService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.List;
+
+@ManagedResource(description = "Statistics and maintenance for the cache of computed report grid instances")
+public class ReportGridCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ReportGridCache.class);
+
+    private final ReportGridService reportGridService;
+
+    @Autowired
+    public ReportGridCache(ReportGridService reportGridService) {
+        this.reportGridService = reportGridService;
+    }
+
+
+    @ManagedAttribute(description = "Number of cached grid instances")
+    public int getSize() {
+        return reportGridService.getInstanceCacheSize();
+    }
+
+
+    @ManagedAttribute(description = "Combined weight (cells plus rows) of the cached grid instances")
+    public long getWeight() {
+        return reportGridService.getInstanceCacheWeight();
+    }
+
+
+    @ManagedAttribute(description = "Maximum combined weight before least recently used instances are evicted")
+    public long getMaxWeight() {
+        return reportGridService.getInstanceCacheMaxWeight();
+    }
+
+
+    @ManagedAttribute(description = "Number of grid requests served from the cache")
+    public long getHitCount() {
+        return reportGridService.getInstanceCacheHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of grid requests which were computed")
+    public long getMissCount() {
+        return reportGridService.getInstanceCacheMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Fraction of grid requests served from the cache")
+    public double getHitRatio() {
+        long hits = getHitCount();
+        long total = hits + getMissCount();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+
+    @ManagedAttribute(description = "Number of cached instances removed as they expired or the cache was full")
+    public long getEvictionCount() {
+        return reportGridService.getInstanceCacheEvictionCount();
+    }
+
+
+    @ManagedAttribute(description = "Description and weight of each cached instance, least recently used first")
+    public List<String> getEntryWeights() {
+        return reportGridService.getInstanceCacheEntryWeights();
+    }
+
+
+    @ManagedOperation(description = "Discard all cached grid instances")
+    public void invalidateAll() {
+        LOG.warn("Invalidating report grid cache (via jmx)");
+        reportGridService.invalidateInstanceCache();
+    }
+
+}
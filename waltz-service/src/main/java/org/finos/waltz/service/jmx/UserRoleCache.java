@@ -0,0 +1,72 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.jmx;
+
+import org.finos.waltz.service.user.UserRoleService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+@ManagedResource(description = "Statistics and maintenance for the cache of user roles used by authorisation checks")
+public class UserRoleCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(UserRoleCache.class);
+
+    private final UserRoleService userRoleService;
+
+    @Autowired
+    public UserRoleCache(UserRoleService userRoleService) {
+        this.userRoleService = userRoleService;
+    }
+
+
+    @ManagedAttribute(description = "Number of users with cached roles")
+    public int getSize() {
+        return userRoleService.getRoleCacheSize();
+    }
+
+
+    @ManagedAttribute(description = "Number of role lookups served from the cache")
+    public long getHitCount() {
+        return userRoleService.getRoleCacheHitCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of role lookups which went to the database")
+    public long getMissCount() {
+        return userRoleService.getRoleCacheMissCount();
+    }
+
+
+    @ManagedAttribute(description = "Number of cached entries removed as they expired or the cache was full")
+    public long getEvictionCount() {
+        return userRoleService.getRoleCacheEvictionCount();
+    }
+
+
+    @ManagedOperation(description = "Discard all cached roles")
+    public void invalidateAll() {
+        LOG.warn("Invalidating user role cache (via jmx)");
+        userRoleService.invalidateAllRoles();
+    }
+
+}
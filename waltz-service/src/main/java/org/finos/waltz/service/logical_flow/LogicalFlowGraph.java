@@ -0,0 +1,435 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowLineage;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowLineageNode;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowRoute;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineage;
+import org.finos.waltz.model.logical_flow.LogicalFlowRoute;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.model.EntityReference.mkRef;
+
+
+/**
+ * An in-memory, directed graph of logical flows.
+ *
+ * Nodes (flow sources and targets) and edges (flows) are identified by
+ * their position in a set of parallel arrays, each node holds the positions
+ * of its inbound and outbound edges.  Edges carry the ids of the data types
+ * decorating the flow so traversals may be restricted to flows of
+ * particular data types.
+ *
+ * Flows may be added, updated and removed individually.  Positions of removed
+ * edges are reused, nodes are never removed (a node without edges is harmless).
+ * Access is guarded by a read/write lock so queries may run concurrently
+ * with each other, but not with updates.
+ */
+public class LogicalFlowGraph {
+
+    /**
+     * Follows every flow, including flows without any data types.
+     */
+    public static final LongPredicate ANY_DATA_TYPE = dataTypeId -> true;
+
+    private static final int INITIAL_CAPACITY = 64;
+    private static final long[] NO_DATA_TYPES = new long[0];
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<EntityReference, Integer> nodeIdxByRef = new HashMap<>();
+    private EntityReference[] nodes = new EntityReference[INITIAL_CAPACITY];
+    private IntList[] outEdges = new IntList[INITIAL_CAPACITY];
+    private IntList[] inEdges = new IntList[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+
+    private final Map<Long, Integer> edgeIdxByFlowId = new HashMap<>();
+    private long[] edgeFlowIds = new long[INITIAL_CAPACITY];
+    private int[] edgeSources = new int[INITIAL_CAPACITY];
+    private int[] edgeTargets = new int[INITIAL_CAPACITY];
+    private long[][] edgeDataTypeIds = new long[INITIAL_CAPACITY][];
+    private int edgeSlots = 0;
+    private final IntList freeEdgeSlots = new IntList();
+
+
+    /**
+     * Adds a flow to the graph, or updates it if it is already present.
+     *
+     * @param flowId  logical flow id
+     * @param source  source of the flow
+     * @param target  target of the flow
+     * @param dataTypeIds  ids of the data types carried by the flow
+     */
+    public void upsert(long flowId,
+                       EntityReference source,
+                       EntityReference target,
+                       long[] dataTypeIds) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+        checkNotNull(dataTypeIds, "dataTypeIds cannot be null");
+
+        lock.writeLock().lock();
+        try {
+            int sourceIdx = nodeIdx(source);
+            int targetIdx = nodeIdx(target);
+
+            Integer existingIdx = edgeIdxByFlowId.get(flowId);
+            if (existingIdx != null) {
+                if (edgeSources[existingIdx] == sourceIdx && edgeTargets[existingIdx] == targetIdx) {
+                    edgeDataTypeIds[existingIdx] = dataTypeIds.clone();
+                    return;
+                }
+                removeEdge(existingIdx);
+            }
+
+            addEdge(flowId, sourceIdx, targetIdx, dataTypeIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * Applies several updates (calls to `upsert` and `remove`) under a single
+     * write lock, so queries see either all or none of them.
+     *
+     * @param updates  updates to apply to this graph
+     */
+    public void updateAll(Consumer<LogicalFlowGraph> updates) {
+        checkNotNull(updates, "updates cannot be null");
+
+        lock.writeLock().lock();
+        try {
+            updates.accept(this);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    /**
+     * @param flowId  logical flow id
+     * @return true if the flow was present
+     */
+    public boolean remove(long flowId) {
+        lock.writeLock().lock();
+        try {
+            Integer idx = edgeIdxByFlowId.get(flowId);
+            if (idx == null) {
+                return false;
+            }
+            removeEdge(idx);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+
+    public int nodeCount() {
+        lock.readLock().lock();
+        try {
+            return nodeCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    public int flowCount() {
+        lock.readLock().lock();
+        try {
+            return edgeIdxByFlowId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Breadth first traversal from the given entity.
+     *
+     * @param ref  starting entity
+     * @param direction  `INBOUND` for upstream lineage, `OUTBOUND` for downstream
+     * @param maxDepth  maximum number of hops to follow
+     * @param dataTypeId  data type the lineage is being traced for, if any
+     * @param dataTypeFilter  flows are only followed if one of their data types satisfies this
+     * @return entities reached and the flows followed to reach them
+     */
+    public LogicalFlowLineage traverse(EntityReference ref,
+                                       FlowDirection direction,
+                                       int maxDepth,
+                                       Optional<Long> dataTypeId,
+                                       LongPredicate dataTypeFilter) {
+        checkNotNull(ref, "ref cannot be null");
+        checkTrue(direction != FlowDirection.INTRA, "Can only traverse INBOUND or OUTBOUND flows");
+        checkNotNull(dataTypeFilter, "dataTypeFilter cannot be null");
+
+        boolean downstream = direction == FlowDirection.OUTBOUND;
+
+        ImmutableLogicalFlowLineage.Builder result = ImmutableLogicalFlowLineage
+                .builder()
+                .entityReference(ref)
+                .direction(direction)
+                .dataTypeId(dataTypeId);
+
+        lock.readLock().lock();
+        try {
+            Integer startIdx = nodeIdxByRef.get(key(ref));
+            if (startIdx == null) {
+                return result.build();
+            }
+
+            int[] distances = new int[nodeCount];
+            Arrays.fill(distances, -1);
+            distances[startIdx] = 0;
+
+            IntList queue = new IntList();
+            queue.add(startIdx);
+
+            for (int head = 0; head < queue.size; head++) {
+                int nodeIdx = queue.values[head];
+                int distance = distances[nodeIdx];
+                if (distance >= maxDepth) {
+                    continue;
+                }
+
+                IntList edges = downstream ? outEdges[nodeIdx] : inEdges[nodeIdx];
+                for (int i = 0; i < edges.size; i++) {
+                    int edgeIdx = edges.values[i];
+                    if (! carries(edgeIdx, dataTypeFilter)) {
+                        continue;
+                    }
+
+                    result.addFlowIds(edgeFlowIds[edgeIdx]);
+
+                    int nextIdx = downstream ? edgeTargets[edgeIdx] : edgeSources[edgeIdx];
+                    if (distances[nextIdx] < 0) {
+                        distances[nextIdx] = distance + 1;
+                        queue.add(nextIdx);
+                        result.addNodes(ImmutableLogicalFlowLineageNode
+                                .builder()
+                                .entityReference(nodes[nextIdx])
+                                .distance(distance + 1)
+                                .build());
+                    }
+                }
+            }
+
+            return result.build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    /**
+     * Finds a route with the fewest hops from the source to the target.
+     *
+     * @param source  starting entity
+     * @param target  destination entity
+     * @param dataTypeId  data type the route is being traced for, if any
+     * @param dataTypeFilter  flows are only followed if one of their data types satisfies this
+     * @return the route, or empty if the target cannot be reached
+     */
+    public Optional<LogicalFlowRoute> findRoute(EntityReference source,
+                                                EntityReference target,
+                                                Optional<Long> dataTypeId,
+                                                LongPredicate dataTypeFilter) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+        checkNotNull(dataTypeFilter, "dataTypeFilter cannot be null");
+
+        lock.readLock().lock();
+        try {
+            Integer sourceIdx = nodeIdxByRef.get(key(source));
+            Integer targetIdx = nodeIdxByRef.get(key(target));
+            if (sourceIdx == null || targetIdx == null || sourceIdx.equals(targetIdx)) {
+                return Optional.empty();
+            }
+
+            // edge used to first reach each node, -1 if not yet reached
+            int[] arrivedVia = new int[nodeCount];
+            Arrays.fill(arrivedVia, -1);
+
+            IntList queue = new IntList();
+            queue.add(sourceIdx);
+
+            for (int head = 0; head < queue.size && arrivedVia[targetIdx] < 0; head++) {
+                IntList edges = outEdges[queue.values[head]];
+                for (int i = 0; i < edges.size; i++) {
+                    int edgeIdx = edges.values[i];
+                    int nextIdx = edgeTargets[edgeIdx];
+                    if (nextIdx != sourceIdx
+                            && arrivedVia[nextIdx] < 0
+                            && carries(edgeIdx, dataTypeFilter)) {
+                        arrivedVia[nextIdx] = edgeIdx;
+                        queue.add(nextIdx);
+                    }
+                }
+            }
+
+            if (arrivedVia[targetIdx] < 0) {
+                return Optional.empty();
+            }
+
+            LinkedList<EntityReference> routeNodes = new LinkedList<>();
+            LinkedList<Long> routeFlowIds = new LinkedList<>();
+            for (int nodeIdx = targetIdx; nodeIdx != sourceIdx; nodeIdx = edgeSources[arrivedVia[nodeIdx]]) {
+                routeNodes.addFirst(nodes[nodeIdx]);
+                routeFlowIds.addFirst(edgeFlowIds[arrivedVia[nodeIdx]]);
+            }
+            routeNodes.addFirst(nodes[sourceIdx]);
+
+            return Optional.of(ImmutableLogicalFlowRoute
+                    .builder()
+                    .source(nodes[sourceIdx])
+                    .target(nodes[targetIdx])
+                    .dataTypeId(dataTypeId)
+                    .nodes(routeNodes)
+                    .flowIds(routeFlowIds)
+                    .build());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+
+    // --- helpers (callers must hold the appropriate lock)
+
+    private boolean carries(int edgeIdx, LongPredicate dataTypeFilter) {
+        if (dataTypeFilter == ANY_DATA_TYPE) {
+            return true;
+        }
+        for (long dataTypeId : edgeDataTypeIds[edgeIdx]) {
+            if (dataTypeFilter.test(dataTypeId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private int nodeIdx(EntityReference ref) {
+        Integer existing = nodeIdxByRef.get(key(ref));
+        if (existing != null) {
+            if (ref.name().isPresent()) {
+                nodes[existing] = ref;  // keep the latest name
+            }
+            return existing;
+        }
+
+        if (nodeCount == nodes.length) {
+            int capacity = nodes.length * 2;
+            nodes = Arrays.copyOf(nodes, capacity);
+            outEdges = Arrays.copyOf(outEdges, capacity);
+            inEdges = Arrays.copyOf(inEdges, capacity);
+        }
+
+        int idx = nodeCount++;
+        nodes[idx] = ref;
+        outEdges[idx] = new IntList();
+        inEdges[idx] = new IntList();
+        nodeIdxByRef.put(key(ref), idx);
+        return idx;
+    }
+
+
+    private void addEdge(long flowId, int sourceIdx, int targetIdx, long[] dataTypeIds) {
+        int idx;
+        if (freeEdgeSlots.size > 0) {
+            idx = freeEdgeSlots.values[--freeEdgeSlots.size];
+        } else {
+            if (edgeSlots == edgeFlowIds.length) {
+                int capacity = edgeFlowIds.length * 2;
+                edgeFlowIds = Arrays.copyOf(edgeFlowIds, capacity);
+                edgeSources = Arrays.copyOf(edgeSources, capacity);
+                edgeTargets = Arrays.copyOf(edgeTargets, capacity);
+                edgeDataTypeIds = Arrays.copyOf(edgeDataTypeIds, capacity);
+            }
+            idx = edgeSlots++;
+        }
+
+        edgeFlowIds[idx] = flowId;
+        edgeSources[idx] = sourceIdx;
+        edgeTargets[idx] = targetIdx;
+        edgeDataTypeIds[idx] = dataTypeIds.clone();
+        outEdges[sourceIdx].add(idx);
+        inEdges[targetIdx].add(idx);
+        edgeIdxByFlowId.put(flowId, idx);
+    }
+
+
+    private void removeEdge(int idx) {
+        outEdges[edgeSources[idx]].remove(idx);
+        inEdges[edgeTargets[idx]].remove(idx);
+        edgeIdxByFlowId.remove(edgeFlowIds[idx]);
+        edgeDataTypeIds[idx] = NO_DATA_TYPES;
+        freeEdgeSlots.add(idx);
+    }
+
+
+    private static EntityReference key(EntityReference ref) {
+        return mkRef(ref.kind(), ref.id());
+    }
+
+
+    /**
+     * Minimal growable list of primitive ints.
+     */
+    private static class IntList {
+
+        private int[] values = new int[4];
+        private int size = 0;
+
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+
+        private void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,354 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.entity_hierarchy.EntityHierarchyClosureCache;
+import org.finos.waltz.data.logical_flow.LogicalFlowDao;
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.datatype.DataTypeDecorator;
+import org.finos.waltz.model.logical_flow.ImmutableLogicalFlowImpactSummary;
+import org.finos.waltz.model.logical_flow.LogicalFlow;
+import org.finos.waltz.model.logical_flow.LogicalFlowImpactSummary;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineage;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineageNode;
+import org.finos.waltz.model.logical_flow.LogicalFlowRoute;
+import org.jooq.lambda.tuple.Tuple2;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.summingInt;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+
+
+/**
+ * Answers lineage questions (upstream, downstream, routes and impact) from
+ * an in-memory {@link LogicalFlowGraph} of all active logical flows.
+ *
+ * The graph is loaded on first use.  Flows changed via this node should be
+ * passed to `refreshFlows` so the graph stays current without a reload.  As
+ * flows may also change on other nodes, or via bulk loads, the graph is
+ * reloaded in full every `FULL_REBUILD_INTERVAL_MILLIS`.
+ *
+ * Data type filters include descendants of the requested data type.
+ */
+@Service
+public class LogicalFlowGraphService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogicalFlowGraphService.class);
+
+    private static final long FULL_REBUILD_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+    private static final int DEFAULT_MAX_DEPTH = 10;
+
+    private final LogicalFlowDao logicalFlowDao;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final EntityHierarchyClosureCache closureCache;
+
+    private volatile LogicalFlowGraph graph;
+    private long lastFullBuildAt = 0;
+
+    // guarded by this, incremented whenever flows are applied to (or a new) graph
+    private long generation = 0;
+
+
+    @Autowired
+    public LogicalFlowGraphService(LogicalFlowDao logicalFlowDao,
+                                   LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                   EntityHierarchyClosureCache closureCache) {
+        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(closureCache, "closureCache cannot be null");
+
+        this.logicalFlowDao = logicalFlowDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.closureCache = closureCache;
+    }
+
+
+    public LogicalFlowLineage getUpstream(EntityReference ref,
+                                          Optional<Integer> maxDepth,
+                                          Optional<Long> dataTypeId) {
+        return traverse(ref, FlowDirection.INBOUND, maxDepth, dataTypeId);
+    }
+
+
+    public LogicalFlowLineage getDownstream(EntityReference ref,
+                                            Optional<Integer> maxDepth,
+                                            Optional<Long> dataTypeId) {
+        return traverse(ref, FlowDirection.OUTBOUND, maxDepth, dataTypeId);
+    }
+
+
+    public Optional<LogicalFlowRoute> findRoute(EntityReference source,
+                                                EntityReference target,
+                                                Optional<Long> dataTypeId) {
+        checkNotNull(source, "source cannot be null");
+        checkNotNull(target, "target cannot be null");
+        checkNotNull(dataTypeId, "dataTypeId cannot be null");
+
+        return getGraph().findRoute(source, target, dataTypeId, mkDataTypeFilter(dataTypeId));
+    }
+
+
+    /**
+     * Summarises everything downstream of the given entity, regardless of distance.
+     *
+     * @param ref  entity which may be changing
+     * @param dataTypeId  restricts the summary to flows of this data type (or its descendants)
+     * @return impact summary
+     */
+    public LogicalFlowImpactSummary calculateImpact(EntityReference ref,
+                                                    Optional<Long> dataTypeId) {
+        LogicalFlowLineage downstream = traverse(ref, FlowDirection.OUTBOUND, Optional.of(Integer.MAX_VALUE), dataTypeId);
+        List<LogicalFlowLineageNode> nodes = downstream.nodes();
+
+        Map<Integer, Integer> countsByDistance = nodes
+                .stream()
+                .collect(groupingBy(LogicalFlowLineageNode::distance, TreeMap::new, summingInt(n -> 1)));
+
+        Map<EntityKind, Integer> countsByKind = nodes
+                .stream()
+                .collect(groupingBy(n -> n.entityReference().kind(), TreeMap::new, summingInt(n -> 1)));
+
+        return ImmutableLogicalFlowImpactSummary
+                .builder()
+                .entityReference(ref)
+                .dataTypeId(dataTypeId)
+                .impactedCount(nodes.size())
+                .radius(nodes.stream().mapToInt(LogicalFlowLineageNode::distance).max().orElse(0))
+                .countsByDistance(countsByDistance)
+                .countsByKind(countsByKind)
+                .flowCount(downstream.flowIds().size())
+                .build();
+    }
+
+
+    /**
+     * Reloads the given flows (and their data types) into the graph.  Flows
+     * which have been removed are dropped from the graph.  Does nothing if the
+     * graph has not yet been loaded.
+     *
+     * The flows are loaded without holding the lock, which is only taken to
+     * apply them to the graph.  If another refresh or a rebuild was applied
+     * while loading it may have read newer data, so the flows are re-read
+     * under the lock rather than applied out of order.
+     *
+     * Failures are logged, not thrown, as this is called after flows have been
+     * changed. The graph is instead reloaded in full on the next maintenance run.
+     *
+     * @param flowIds  ids of logical flows which have been added, changed or removed
+     */
+    public void refreshFlows(Collection<Long> flowIds) {
+        checkNotNull(flowIds, "flowIds cannot be null");
+
+        if (graph == null || flowIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            long loadedAtGeneration;
+            synchronized (this) {
+                loadedAtGeneration = generation;
+            }
+
+            Tuple2<List<LogicalFlow>, Map<Long, Collection<DataTypeDecorator>>> loaded = loadFlows(flowIds);
+
+            synchronized (this) {
+                if (generation != loadedAtGeneration) {
+                    loaded = loadFlows(flowIds);
+                }
+                applyFlows(flowIds, loaded.v1(), loaded.v2());
+            }
+        } catch (RuntimeException e) {
+            LOG.error("Failed to refresh logical flow graph for flows: " + flowIds + ", will be reloaded", e);
+            synchronized (this) {
+                lastFullBuildAt = 0;
+            }
+        }
+    }
+
+
+    /**
+     * Loads all active logical flows into a new graph, replacing the current one.
+     *
+     * @return number of flows in the graph
+     */
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+
+        LogicalFlowGraph newGraph = new LogicalFlowGraph();
+
+        Map<Long, Collection<DataTypeDecorator>> decoratorsByFlowId = groupBy(
+                DataTypeDecorator::dataFlowId,
+                logicalFlowDecoratorDao.findAll());
+
+        logicalFlowDao
+                .findAllActive()
+                .stream()
+                .filter(LogicalFlowGraphService::isActive)
+                .forEach(f -> newGraph.upsert(
+                        f.id().get(),
+                        f.source(),
+                        f.target(),
+                        toDataTypeIds(decoratorsByFlowId.get(f.id().get()))));
+
+        graph = newGraph;
+        generation++;
+        lastFullBuildAt = System.currentTimeMillis();
+
+        LOG.info("Built logical flow graph with {} nodes and {} flows in {}ms",
+                newGraph.nodeCount(),
+                newGraph.flowCount(),
+                lastFullBuildAt - start);
+
+        return newGraph.flowCount();
+    }
+
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    public synchronized void maintain() {
+        if (graph == null || System.currentTimeMillis() - lastFullBuildAt <= FULL_REBUILD_INTERVAL_MILLIS) {
+            return;
+        }
+
+        try {
+            rebuild();
+        } catch (Exception e) {
+            LOG.error("Failed to rebuild logical flow graph", e);
+        }
+    }
+
+
+    // --- helpers
+
+    private Tuple2<List<LogicalFlow>, Map<Long, Collection<DataTypeDecorator>>> loadFlows(Collection<Long> flowIds) {
+        return tuple(
+                logicalFlowDao.findActiveByFlowIds(flowIds),
+                groupBy(
+                        DataTypeDecorator::dataFlowId,
+                        logicalFlowDecoratorDao.findByFlowIds(flowIds)));
+    }
+
+
+    private synchronized void applyFlows(Collection<Long> flowIds,
+                                         List<LogicalFlow> flows,
+                                         Map<Long, Collection<DataTypeDecorator>> decoratorsByFlowId) {
+        graph.updateAll(g -> {
+            Set<Long> toRemove = new HashSet<>(flowIds);
+            flows.stream()
+                    .filter(LogicalFlowGraphService::isActive)
+                    .forEach(f -> {
+                        long flowId = f.id().get();
+                        g.upsert(flowId, f.source(), f.target(), toDataTypeIds(decoratorsByFlowId.get(flowId)));
+                        toRemove.remove(flowId);
+                    });
+            toRemove.forEach(g::remove);
+        });
+        generation++;
+    }
+
+
+    private LogicalFlowLineage traverse(EntityReference ref,
+                                        FlowDirection direction,
+                                        Optional<Integer> maxDepth,
+                                        Optional<Long> dataTypeId) {
+        checkNotNull(ref, "ref cannot be null");
+        checkNotNull(maxDepth, "maxDepth cannot be null");
+        checkNotNull(dataTypeId, "dataTypeId cannot be null");
+
+        int depth = maxDepth.orElse(DEFAULT_MAX_DEPTH);
+        checkTrue(depth > 0, "maxDepth must be positive");
+
+        return getGraph().traverse(ref, direction, depth, dataTypeId, mkDataTypeFilter(dataTypeId));
+    }
+
+
+    private LogicalFlowGraph getGraph() {
+        LogicalFlowGraph current = graph;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (this) {
+            if (graph == null) {
+                rebuild();
+            }
+            return graph;
+        }
+    }
+
+
+    private LongPredicate mkDataTypeFilter(Optional<Long> dataTypeId) {
+        return dataTypeId
+                .map(dtId -> {
+                    long[] ids = closureCache
+                            .getClosure(EntityKind.DATA_TYPE)
+                            .descendantsOf(dtId);
+
+                    if (ids.length == 0) {
+                        return (LongPredicate) id -> id == dtId;
+                    } else {
+                        // descendantsOf does not guarantee ordering
+                        Arrays.sort(ids);
+                        return (LongPredicate) id -> Arrays.binarySearch(ids, id) >= 0;
+                    }
+                })
+                .orElse(LogicalFlowGraph.ANY_DATA_TYPE);
+    }
+
+
+    private static boolean isActive(LogicalFlow flow) {
+        return ! flow.isRemoved()
+                && flow.entityLifecycleStatus() == EntityLifecycleStatus.ACTIVE;
+    }
+
+
+    private static long[] toDataTypeIds(Collection<DataTypeDecorator> decorators) {
+        return decorators == null
+                ? new long[0]
+                : decorators
+                    .stream()
+                    .mapToLong(DataTypeDecorator::dataTypeId)
+                    .distinct()
+                    .toArray();
+    }
+
+}
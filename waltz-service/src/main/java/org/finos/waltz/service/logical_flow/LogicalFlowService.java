@@ -61,6 +61,7 @@ import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.isEmpty;
 import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.finos.waltz.common.ListUtilities.map;
 import static org.finos.waltz.common.SetUtilities.fromCollection;
 import static org.finos.waltz.model.EntityKind.DATA_TYPE;
 import static org.finos.waltz.model.EntityKind.LOGICAL_DATA_FLOW;
@@ -80,6 +81,7 @@ public class LogicalFlowService {
     private final LogicalFlowDao logicalFlowDao;
     private final LogicalFlowStatsDao logicalFlowStatsDao;
     private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final LogicalFlowGraphService logicalFlowGraphService;
 
     private final ApplicationIdSelectorFactory appIdSelectorFactory = new ApplicationIdSelectorFactory();
     private final LogicalFlowIdSelectorFactory logicalFlowIdSelectorFactory = new LogicalFlowIdSelectorFactory();
@@ -93,7 +95,8 @@ public class LogicalFlowService {
                               DBExecutorPoolInterface dbExecutorPool,
                               LogicalFlowDao logicalFlowDao,
                               LogicalFlowStatsDao logicalFlowStatsDao,
-                              LogicalFlowDecoratorDao logicalFlowDecoratorDao) {
+                              LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                              LogicalFlowGraphService logicalFlowGraphService) {
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(dbExecutorPool, "dbExecutorPool cannot be null");
         checkNotNull(dataTypeService, "dataTypeService cannot be null");
@@ -101,6 +104,7 @@ public class LogicalFlowService {
         checkNotNull(logicalFlowDao, "logicalFlowDao must not be null");
         checkNotNull(logicalFlowDecoratorDao, "logicalFlowDataTypeDecoratorDao cannot be null");
         checkNotNull(logicalFlowStatsDao, "logicalFlowStatsDao cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
 
         this.changeLogService = changeLogService;
         this.dataTypeService = dataTypeService;
@@ -109,6 +113,7 @@ public class LogicalFlowService {
         this.logicalFlowDao = logicalFlowDao;
         this.logicalFlowStatsDao = logicalFlowStatsDao;
         this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.logicalFlowGraphService = logicalFlowGraphService;
     }
 
 
@@ -153,6 +158,15 @@ public class LogicalFlowService {
     }
 
 
+    /**
+     * @param options  selection options
+     * @return lazily read flows, the stream must be closed
+     */
+    public Stream<LogicalFlow> streamBySelector(IdSelectionOptions options) {
+        return logicalFlowDao.streamBySelector(logicalFlowIdSelectorFactory.apply(options));
+    }
+
+
     /**
      * Creates a logical flow and creates a default, 'UNKNOWN' data type decoration
      * if possible.
@@ -178,6 +192,8 @@ public class LogicalFlowService {
 
         LogicalFlow logicalFlow = logicalFlowDao.addFlow(flowToAdd);
         attemptToAddUnknownDecoration(logicalFlow, username);
+        dataTypeUsageService.markForRecalculation(newArrayList(logicalFlow.source(), logicalFlow.target()));
+        logicalFlowGraphService.refreshFlows(newArrayList(logicalFlow.id().get()));
 
         changeLogService.writeChangeLogEntries(logicalFlow, username, "Added", Operation.ADD);
 
@@ -227,7 +243,14 @@ public class LogicalFlowService {
                         .build())
                 .collect(toList());
 
-        return logicalFlowDao.addFlows(flowsToAdd, username);
+        List<LogicalFlow> addedFlows = logicalFlowDao.addFlows(flowsToAdd, username);
+        dataTypeUsageService.markForRecalculation(addedFlows
+                .stream()
+                .flatMap(f -> Stream.of(f.source(), f.target()))
+                .collect(toList()));
+        logicalFlowGraphService.refreshFlows(map(addedFlows, f -> f.id().get()));
+
+        return addedFlows;
     }
 
 
@@ -243,7 +266,7 @@ public class LogicalFlowService {
 
     /**
      * Removes the given logical flow and creates an audit log entry.
-     * The removal is a soft removal. After the removal usage stats are recalculated
+     * The removal is a soft removal. After the removal usage stats are marked for recalculation
      *
      * todo: #WALTZ-1894 for cleanupOrphans task
      *
@@ -263,7 +286,8 @@ public class LogicalFlowService {
 
             Set<EntityReference> affectedEntityRefs = SetUtilities.fromArray(logicalFlow.source(), logicalFlow.target());
 
-            dataTypeUsageService.recalculateForApplications(affectedEntityRefs);
+            dataTypeUsageService.markForRecalculation(affectedEntityRefs);
+            logicalFlowGraphService.refreshFlows(newArrayList(flowId));
 
             changeLogService.writeChangeLogEntries(logicalFlow, username,
                     "Removed : datatypes [" + getAssociatedDatatypeNamesAsCsv(flowId) + "]",
@@ -325,6 +349,9 @@ public class LogicalFlowService {
     public boolean restoreFlow(long logicalFlowId, String username) {
         boolean result = logicalFlowDao.restoreFlow(logicalFlowId, username);
         if (result) {
+            LogicalFlow logicalFlow = logicalFlowDao.getByFlowId(logicalFlowId);
+            dataTypeUsageService.markForRecalculation(newArrayList(logicalFlow.source(), logicalFlow.target()));
+            logicalFlowGraphService.refreshFlows(newArrayList(logicalFlowId));
             changeLogService.writeChangeLogEntries(mkRef(LOGICAL_DATA_FLOW, logicalFlowId), username, "Restored", Operation.ADD);
         }
         return result;
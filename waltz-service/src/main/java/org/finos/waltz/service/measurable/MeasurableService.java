@@ -21,7 +21,6 @@ package org.finos.waltz.service.measurable;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.common.DateTimeUtilities;
 import org.finos.waltz.common.StringUtilities;
-import org.finos.waltz.data.EntityReferenceNameResolver;
 import org.finos.waltz.data.measurable.MeasurableDao;
 import org.finos.waltz.data.measurable.MeasurableIdSelectorFactory;
 import org.finos.waltz.data.measurable.search.MeasurableSearchDao;
@@ -29,6 +28,7 @@ import org.finos.waltz.model.*;
 import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.entity_search.EntitySearchOptions;
 import org.finos.waltz.model.measurable.Measurable;
+import org.jooq.DSLContext;
 import org.jooq.Record1;
 import org.jooq.Select;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -50,23 +50,23 @@ public class MeasurableService {
     private final MeasurableIdSelectorFactory measurableIdSelectorFactory = new MeasurableIdSelectorFactory();
     private final MeasurableSearchDao measurableSearchDao;
     private final ChangeLogService changeLogService;
-    private final EntityReferenceNameResolver nameResolver;
+    private final DSLContext dsl;
 
 
     @Autowired
     public MeasurableService(MeasurableDao measurableDao,
                              MeasurableSearchDao measurableSearchDao,
-                             EntityReferenceNameResolver nameResolver,
-                             ChangeLogService changeLogService) {
+                             ChangeLogService changeLogService,
+                             DSLContext dsl) {
         checkNotNull(measurableDao, "measurableDao cannot be null");
         checkNotNull(measurableSearchDao, "measurableSearchDao cannot be null");
-        checkNotNull(nameResolver, "nameResolver cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
 
         this.measurableDao = measurableDao;
         this.measurableSearchDao = measurableSearchDao;
-        this.nameResolver = nameResolver;
         this.changeLogService = changeLogService;
+        this.dsl = dsl;
     }
 
 
@@ -117,48 +117,82 @@ public class MeasurableService {
     }
 
 
+    public Measurable getById(DSLContext tx, long id) {
+        return measurableDao.getById(tx, id);
+    }
+
+
     public Collection<Measurable> findByOrgUnitId(Long id) {
         return measurableDao.findByOrgUnitId(id);
     }
 
 
     public boolean updateConcreteFlag(Long id, boolean newValue, String userId) {
-        logUpdate(id, "concrete flag", Boolean.toString(newValue), m -> Optional.of(Boolean.toString(m.concrete())), userId);
+        return updateConcreteFlag(dsl, id, newValue, userId);
+    }
+
 
-        return measurableDao.updateConcreteFlag(id, newValue, userId);
+    public boolean updateConcreteFlag(DSLContext tx, Long id, boolean newValue, String userId) {
+        logUpdate(tx, id, "concrete flag", Boolean.toString(newValue), m -> Optional.of(Boolean.toString(m.concrete())), userId);
+        return measurableDao.updateConcreteFlag(tx, id, newValue, userId);
     }
 
 
     public boolean updateName(long id, String newValue, String userId) {
-        logUpdate(id, "name", newValue, m -> ofNullable(m.name()), userId);
-        return measurableDao.updateName(id, newValue, userId);
+        return updateName(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateName(DSLContext tx, long id, String newValue, String userId) {
+        logUpdate(tx, id, "name", newValue, m -> ofNullable(m.name()), userId);
+        return measurableDao.updateName(tx, id, newValue, userId);
     }
 
 
     public boolean updateDescription(long id, String newValue, String userId) {
-        logUpdate(id, "description", newValue, m -> ofNullable(m.description()), userId);
-        return measurableDao.updateDescription(id, newValue, userId);
+        return updateDescription(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateDescription(DSLContext tx, long id, String newValue, String userId) {
+        logUpdate(tx, id, "description", newValue, m -> ofNullable(m.description()), userId);
+        return measurableDao.updateDescription(tx, id, newValue, userId);
     }
 
 
     public boolean updateExternalId(long id, String newValue, String userId) {
-        logUpdate(id, "externalId", newValue, ExternalIdProvider::externalId, userId);
-        return measurableDao.updateExternalId(id, newValue, userId);
+        return updateExternalId(dsl, id, newValue, userId);
+    }
+
+
+    public boolean updateExternalId(DSLContext tx, long id, String newValue, String userId) {
+        logUpdate(tx, id, "externalId", newValue, ExternalIdProvider::externalId, userId);
+        return measurableDao.updateExternalId(tx, id, newValue, userId);
     }
 
 
     public boolean create(Measurable measurable, String userId) {
-        Long measurableId = measurableDao.create(measurable);
+        return create(dsl, measurable, userId);
+    }
+
+
+    public boolean create(DSLContext tx, Measurable measurable, String userId) {
+        Long measurableId = measurableDao.create(tx, measurable);
         writeAuditMessage(measurableId, userId, String.format("created new measurable %s", measurable.name()));
         return measurableId > 1;
     }
 
 
     public int deleteByIdSelector(IdSelectionOptions selectionOptions) {
+        return deleteByIdSelector(dsl, selectionOptions);
+    }
+
+
+    public int deleteByIdSelector(DSLContext tx, IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
         return measurableDao
-                .deleteByIdSelector(selector);
+                .deleteByIdSelector(tx, selector);
     }
 
 
@@ -172,25 +206,31 @@ public class MeasurableService {
      * @param userId        who initiated this move
      */
     public boolean updateParentId(Long measurableId, Long destinationId, String userId) {
+        return updateParentId(dsl, measurableId, destinationId, userId);
+    }
+
+
+    public boolean updateParentId(DSLContext tx, Long measurableId, Long destinationId, String userId) {
         checkNotNull(measurableId, "Cannot updateParentId a measurable with a null id");
 
         writeAuditMessage(
                 measurableId,
                 userId,
                 format("Measurable: [%s] moved to new parent: [%s]",
-                        resolveName(measurableId),
+                        resolveName(tx, measurableId),
                         destinationId == null
                                 ? "<root of tree>"
-                                : resolveName(destinationId)));
+                                : resolveName(tx, destinationId)));
 
-        return measurableDao.updateParentId(measurableId, destinationId, userId);
+        return measurableDao.updateParentId(tx, measurableId, destinationId, userId);
     }
 
 
     // --- helpers ---
 
-    private void logUpdate(long id, String valueName, String newValue, Function<Measurable, Optional<String>> valueExtractor, String userId) {
-        String existingValue = ofNullable(measurableDao.getById(id))
+    private void logUpdate(DSLContext tx, long id, String valueName, String newValue, Function<Measurable, Optional<String>> valueExtractor, String userId) {
+        Measurable existing = measurableDao.getById(tx, id);
+        String existingValue = ofNullable(existing)
                 .flatMap(valueExtractor)
                 .orElse("<null>");
 
@@ -198,17 +238,16 @@ public class MeasurableService {
                 id,
                 userId,
                 format("Measurable: [%s] %s updated, from: [%s] to: [%s]",
-                        resolveName(id),
+                        ofNullable(existing).map(Measurable::name).orElse("UNKNOWN"),
                         valueName,
                         existingValue,
                         newValue));
     }
 
 
-    private String resolveName(long id) {
-        return nameResolver
-                .resolve(mkRef(EntityKind.MEASURABLE, id))
-                .flatMap(EntityReference::name)
+    private String resolveName(DSLContext tx, long id) {
+        return ofNullable(measurableDao.getById(tx, id))
+                .map(Measurable::name)
                 .orElse("UNKNOWN");
     }
 
@@ -40,11 +40,13 @@ import org.finos.waltz.model.tally.MeasurableRatingTally;
 import org.finos.waltz.model.tally.Tally;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.*;
@@ -105,6 +107,17 @@ public class MeasurableRatingService {
         return measurableRatingDao.findByApplicationIdSelector(selector);
     }
 
+
+    /**
+     * @param options  selection options (applications)
+     * @return lazily read ratings, the stream must be closed
+     */
+    public Stream<MeasurableRating> streamByAppIdSelector(IdSelectionOptions options) {
+        checkNotNull(options, "options cannot be null");
+        Select<Record1<Long>> selector = applicationIdSelectorFactory.apply(options);
+        return measurableRatingDao.streamByApplicationIdSelector(selector);
+    }
+
     // -- WRITE
 
     public Collection<MeasurableRating> save(SaveMeasurableRatingCommand command, boolean ignoreReadOnly) {
@@ -247,6 +260,15 @@ public class MeasurableRatingService {
     }
 
 
+    /**
+     * @param id  measurable category id
+     * @return lazily read ratings, the stream must be closed
+     */
+    public Stream<MeasurableRating> streamByCategory(long id) {
+        return measurableRatingDao.streamByCategory(id);
+    }
+
+
     public int deleteByMeasurableIdSelector(IdSelectionOptions selectionOptions) {
         Select<Record1<Long>> selector = measurableIdSelectorFactory
                 .apply(selectionOptions);
@@ -254,6 +276,14 @@ public class MeasurableRatingService {
                 .deleteByMeasurableIdSelector(selector);
     }
 
+
+    public int deleteByMeasurableIdSelector(DSLContext tx, IdSelectionOptions selectionOptions) {
+        Select<Record1<Long>> selector = measurableIdSelectorFactory
+                .apply(selectionOptions);
+        return measurableRatingDao
+                .deleteByMeasurableIdSelector(tx, selector);
+    }
+
     public String getRequiredRatingEditRole(EntityReference ref) {
         return measurableDao.getRequiredRatingEditRole(ref);
     }
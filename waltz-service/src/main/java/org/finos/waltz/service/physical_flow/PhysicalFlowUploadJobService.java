@@ -0,0 +1,190 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.physical_flow;
+
+import org.finos.waltz.data.physical_flow.PhysicalFlowUploadJobDao;
+import org.finos.waltz.model.physical_flow.ImmutablePhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommand;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadCommandResponse;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadJob;
+import org.finos.waltz.model.physical_flow.PhysicalFlowUploadPhase;
+import org.finos.waltz.model.system.job_log.JobStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
+
+
+/**
+ * Runs physical flow uploads in the background so that large uploads are
+ * not bound by the lifetime of a single http request.
+ *
+ * Clients submit an upload, receiving a job, and then poll for the job until
+ * it is no longer `IN_PROGRESS`.  The command responses can then be fetched.
+ * Uploads are executed one at a time, on the node they were submitted to,
+ * but job status and results are stored in the database so polls may be
+ * answered by any node.  Jobs are only visible to the user who submitted them.
+ *
+ * Finished jobs are purged `RETENTION_MINUTES` after they complete.  Jobs
+ * still in progress after `ABANDONED_MINUTES` (e.g. because the node running
+ * them was stopped) are marked as failed.
+ */
+@Service
+public class PhysicalFlowUploadJobService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PhysicalFlowUploadJobService.class);
+
+    private static final long RETENTION_MINUTES = 60;
+    private static final long ABANDONED_MINUTES = TimeUnit.HOURS.toMinutes(6);
+
+    private final PhysicalFlowUploadService physicalFlowUploadService;
+    private final PhysicalFlowUploadJobDao physicalFlowUploadJobDao;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            runnable -> {
+                Thread t = new Thread(runnable, "Physical Flow Upload");
+                t.setDaemon(true);
+                return t;
+            });
+
+
+    @Autowired
+    public PhysicalFlowUploadJobService(PhysicalFlowUploadService physicalFlowUploadService,
+                                        PhysicalFlowUploadJobDao physicalFlowUploadJobDao) {
+        checkNotNull(physicalFlowUploadService, "physicalFlowUploadService cannot be null");
+        checkNotNull(physicalFlowUploadJobDao, "physicalFlowUploadJobDao cannot be null");
+        this.physicalFlowUploadService = physicalFlowUploadService;
+        this.physicalFlowUploadJobDao = physicalFlowUploadJobDao;
+    }
+
+
+    public PhysicalFlowUploadJob submit(String username,
+                                        List<PhysicalFlowUploadCommand> cmds) {
+        checkNotNull(username, "username cannot be null");
+        checkNotNull(cmds, "cmds cannot be null");
+
+        PhysicalFlowUploadJob job = ImmutablePhysicalFlowUploadJob.builder()
+                .id(UUID.randomUUID().toString())
+                .userId(username)
+                .status(JobStatus.IN_PROGRESS)
+                .phase(PhysicalFlowUploadPhase.QUEUED)
+                .commandCount(cmds.size())
+                .submittedAt(nowUtc())
+                .build();
+
+        physicalFlowUploadJobDao.create(job);
+
+        executor.submit(() -> run(job, cmds));
+
+        return job;
+    }
+
+
+    /**
+     * @param username  user requesting the job
+     * @param jobId  identifier returned when the upload was submitted
+     * @return the job, if it exists and belongs to the user
+     */
+    public Optional<PhysicalFlowUploadJob> getJob(String username, String jobId) {
+        return Optional
+                .ofNullable(physicalFlowUploadJobDao.getById(jobId))
+                .filter(j -> j.userId().equals(username));
+    }
+
+
+    /**
+     * @param username  user requesting the results
+     * @param jobId  identifier returned when the upload was submitted
+     * @return responses for the created flows, empty if the job is unknown or has not completed successfully
+     */
+    public List<PhysicalFlowUploadCommandResponse> findResults(String username, String jobId) {
+        return getJob(username, jobId)
+                .filter(j -> j.status() == JobStatus.SUCCESS)
+                .map(j -> physicalFlowUploadJobDao.findResults(jobId))
+                .orElse(Collections.emptyList());
+    }
+
+
+    /**
+     * Removes finished jobs once they are older than the retention period and
+     * fails jobs which appear to have been abandoned.
+     *
+     * @return number of jobs removed
+     */
+    @Scheduled(initialDelay = 60_000, fixedDelay = 300_000)
+    public int purgeExpiredJobs() {
+        LocalDateTime now = nowUtc();
+
+        int abandoned = physicalFlowUploadJobDao.failInProgressSubmittedBefore(
+                now.minusMinutes(ABANDONED_MINUTES),
+                "Upload did not complete, the server running it may have been stopped");
+
+        if (abandoned > 0) {
+            LOG.warn("Marked {} abandoned physical flow upload jobs as failed", abandoned);
+        }
+
+        return physicalFlowUploadJobDao.deleteCompletedBefore(now.minusMinutes(RETENTION_MINUTES));
+    }
+
+
+    private void run(PhysicalFlowUploadJob submitted, List<PhysicalFlowUploadCommand> cmds) {
+        String jobId = submitted.id();
+        AtomicReference<PhysicalFlowUploadJob> job = new AtomicReference<>(submitted);
+        long start = System.currentTimeMillis();
+        try {
+            List<PhysicalFlowUploadCommandResponse> results = physicalFlowUploadService.upload(
+                    submitted.userId(),
+                    cmds,
+                    phase -> physicalFlowUploadJobDao.updateStatus(job.updateAndGet(j -> ImmutablePhysicalFlowUploadJob
+                            .copyOf(j)
+                            .withPhase(phase))));
+
+            physicalFlowUploadJobDao.updateStatus(
+                    job.updateAndGet(j -> ImmutablePhysicalFlowUploadJob
+                            .copyOf(j)
+                            .withStatus(JobStatus.SUCCESS)
+                            .withPhase(PhysicalFlowUploadPhase.DONE)
+                            .withCreatedCount(results.size())
+                            .withCompletedAt(nowUtc())),
+                    results);
+
+            LOG.info("Physical flow upload job {} completed in {}ms", jobId, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            LOG.warn("Physical flow upload job {} failed: {}", jobId, e.getMessage(), e);
+            physicalFlowUploadJobDao.updateStatus(job.updateAndGet(j -> ImmutablePhysicalFlowUploadJob
+                    .copyOf(j)
+                    .withStatus(JobStatus.FAILURE)
+                    .withErrorMessage(Optional.ofNullable(e.getMessage()).orElse(e.getClass().getSimpleName()))
+                    .withCompletedAt(nowUtc())));
+        }
+    }
+}
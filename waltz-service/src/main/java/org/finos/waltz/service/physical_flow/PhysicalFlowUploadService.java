@@ -18,49 +18,55 @@
 
 package org.finos.waltz.service.physical_flow;
 
-import org.finos.waltz.service.data_type.DataTypeDecoratorService;
+import org.finos.waltz.service.changelog.ChangeLogService;
+import org.finos.waltz.service.data_flow_decorator.LogicalFlowDecoratorRatingsCalculator;
 import org.finos.waltz.service.enum_value.EnumValueAliasService;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.service.usage_info.DataTypeUsageService;
 import org.finos.waltz.common.Aliases;
 import org.finos.waltz.common.MapUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.actor.ActorDao;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.data_type.DataTypeDao;
-import org.finos.waltz.data.logical_flow.LogicalFlowDao;
-import org.finos.waltz.data.physical_flow.PhysicalFlowDao;
-import org.finos.waltz.data.physical_specification.PhysicalSpecificationDao;
+import org.finos.waltz.data.datatype_decorator.LogicalFlowDecoratorDao;
+import org.finos.waltz.data.physical_flow.PhysicalFlowUploadDao;
 import org.finos.waltz.model.Criticality;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
-import org.finos.waltz.model.UserTimestamp;
+import org.finos.waltz.model.Operation;
+import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.actor.Actor;
 import org.finos.waltz.model.application.Application;
+import org.finos.waltz.model.changelog.ChangeLog;
+import org.finos.waltz.model.changelog.ImmutableChangeLog;
 import org.finos.waltz.model.command.CommandOutcome;
 import org.finos.waltz.model.datatype.DataType;
 import org.finos.waltz.model.datatype.DataTypeDecorator;
 import org.finos.waltz.model.enum_value.EnumValueKind;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
-import org.finos.waltz.model.logical_flow.ImmutableLogicalFlow;
-import org.finos.waltz.model.logical_flow.LogicalFlow;
 import org.finos.waltz.model.physical_flow.*;
 import org.finos.waltz.model.physical_specification.DataFormatKind;
-import org.finos.waltz.model.physical_specification.ImmutablePhysicalSpecification;
-import org.finos.waltz.model.physical_specification.PhysicalSpecification;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static java.lang.String.format;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
-import static org.finos.waltz.common.DateTimeUtilities.nowUtc;
-import static org.finos.waltz.common.SetUtilities.fromArray;
+import static org.finos.waltz.common.MapUtilities.groupBy;
+import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.common.SetUtilities.union;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 import static org.finos.waltz.common.StringUtilities.lower;
 
@@ -71,39 +77,48 @@ public class PhysicalFlowUploadService {
     private final ActorDao actorDao;
     private final ApplicationDao applicationDao;
     private final DataTypeDao dataTypeDao;
-    private final LogicalFlowDao logicalFlowDao;
-    private final DataTypeDecoratorService dataTypeDecoratorService;
-    private final PhysicalFlowDao physicalFlowDao;
-    private final PhysicalSpecificationDao physicalSpecificationDao;
+    private final PhysicalFlowUploadDao physicalFlowUploadDao;
+    private final LogicalFlowDecoratorDao logicalFlowDecoratorDao;
+    private final LogicalFlowDecoratorRatingsCalculator ratingsCalculator;
+    private final DataTypeUsageService dataTypeUsageService;
+    private final LogicalFlowGraphService logicalFlowGraphService;
+    private final ChangeLogService changeLogService;
     private final EnumValueAliasService enumValueAliasService;
 
     private final Pattern basisOffsetRegex = Pattern.compile("T?(?<offset>[\\+\\-]?\\d+)");
 
 
+    @Autowired
     public PhysicalFlowUploadService(ActorDao actorDao,
                                      ApplicationDao applicationDao,
                                      DataTypeDao dataTypeDao,
-                                     LogicalFlowDao logicalFlowDao,
-                                     DataTypeDecoratorService dataTypeDecoratorService,
-                                     PhysicalFlowDao physicalFlowDao,
-                                     PhysicalSpecificationDao physicalSpecificationDao,
+                                     PhysicalFlowUploadDao physicalFlowUploadDao,
+                                     LogicalFlowDecoratorDao logicalFlowDecoratorDao,
+                                     LogicalFlowDecoratorRatingsCalculator ratingsCalculator,
+                                     DataTypeUsageService dataTypeUsageService,
+                                     LogicalFlowGraphService logicalFlowGraphService,
+                                     ChangeLogService changeLogService,
                                      EnumValueAliasService enumValueAliasService) {
         checkNotNull(actorDao, "actorDao cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(dataTypeDao, "dataTypeDao cannot be null");
-        checkNotNull(dataTypeDecoratorService, "dataTypeDecoratorService cannot be null");
-        checkNotNull(logicalFlowDao, "logicalFlowDao cannot be null");
-        checkNotNull(physicalFlowDao, "physicalFlowDao cannot be null");
-        checkNotNull(physicalSpecificationDao, "physicalSpecificationDao cannot be null");
+        checkNotNull(physicalFlowUploadDao, "physicalFlowUploadDao cannot be null");
+        checkNotNull(logicalFlowDecoratorDao, "logicalFlowDecoratorDao cannot be null");
+        checkNotNull(ratingsCalculator, "ratingsCalculator cannot be null");
+        checkNotNull(dataTypeUsageService, "dataTypeUsageService cannot be null");
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
+        checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(enumValueAliasService, "enumValueAliasService cannot be null");
         this.actorDao = actorDao;
         this.applicationDao = applicationDao;
         this.dataTypeDao = dataTypeDao;
-        this.logicalFlowDao = logicalFlowDao;
-        this.physicalFlowDao = physicalFlowDao;
-        this.physicalSpecificationDao = physicalSpecificationDao;
+        this.physicalFlowUploadDao = physicalFlowUploadDao;
+        this.logicalFlowDecoratorDao = logicalFlowDecoratorDao;
+        this.ratingsCalculator = ratingsCalculator;
+        this.dataTypeUsageService = dataTypeUsageService;
+        this.logicalFlowGraphService = logicalFlowGraphService;
+        this.changeLogService = changeLogService;
         this.enumValueAliasService = enumValueAliasService;
-        this.dataTypeDecoratorService = dataTypeDecoratorService;
     }
 
 
@@ -136,23 +151,48 @@ public class PhysicalFlowUploadService {
         }
 
         // no parse errors - check for duplicates
+        Map<PhysicalFlowParsed, Long> existingIds = physicalFlowUploadDao.findPhysicalFlowIds(
+                map(parsedFlows, PhysicalFlowUploadCommandResponse::parsedFlow));
+
         List<PhysicalFlowUploadCommandResponse> responses = parsedFlows.stream()
-                .map(f -> Optional.ofNullable(physicalFlowDao.getByParsedFlow(f.parsedFlow()))
-                    .map(m -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
+                .map(f -> Optional.ofNullable(existingIds.get(f.parsedFlow()))
+                    .map(id -> (PhysicalFlowUploadCommandResponse) ImmutablePhysicalFlowUploadCommandResponse
                             .copyOf(f)
-                            .withEntityReference(m.entityReference()))
+                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id)))
                     .orElse(f))
                 .collect(toList());
 
         return responses;
     }
 
-    
+
     public List<PhysicalFlowUploadCommandResponse> upload(String username,
                                                           List<PhysicalFlowUploadCommand> cmds) throws Exception {
+        return upload(username, cmds, phase -> {});
+    }
+
+
+    /**
+     * Validates and then creates the physical flows described by the commands.
+     *
+     * Existing logical flows, specifications and physical flows are resolved
+     * in bulk and anything missing is created in a single transaction (see
+     * {@link PhysicalFlowUploadDao}).  Flow ratings, audit entries and data
+     * type usages are updated once that transaction has committed.
+     *
+     * @param username  user performing the upload
+     * @param cmds  upload commands
+     * @param phaseListener  notified as each phase of the upload starts
+     * @return responses for the newly created flows
+     */
+    public List<PhysicalFlowUploadCommandResponse> upload(String username,
+                                                          List<PhysicalFlowUploadCommand> cmds,
+                                                          Consumer<PhysicalFlowUploadPhase> phaseListener) throws Exception {
         checkNotNull(cmds, "cmds cannot be empty");
+        checkNotNull(phaseListener, "phaseListener cannot be null");
 
         // load application and actor maps
+        phaseListener.accept(PhysicalFlowUploadPhase.VALIDATING);
         List<PhysicalFlowUploadCommandResponse> validated = validate(cmds);
 
         if(validated.stream().anyMatch(v -> v.outcome() == CommandOutcome.FAILURE)) {
@@ -163,37 +203,33 @@ public class PhysicalFlowUploadService {
                 .filter(v -> v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)
                 .collect(toList());
 
-        // create physical flow with ids from the above two
-        List<PhysicalFlowUploadCommandResponse> created = newFlowCmds.stream()
-                .map(v -> {
-                    if (!(v.outcome() == CommandOutcome.SUCCESS && v.entityReference() == null)) {
-                        return v;
-                    }
-
-                    PhysicalFlowParsed flow = v.parsedFlow();
-                    LogicalFlow logicalFlow = getOrCreateLogicalFlow(flow.source(), flow.target(), flow.dataType(), username);
-                    PhysicalSpecification specification = getOrCreatePhysicalSpec(flow, username);
-
-                    PhysicalFlow newFlow = ImmutablePhysicalFlow.builder()
-                            .logicalFlowId(logicalFlow.id().get())
-                            .specificationId(specification.id().get())
-                            .basisOffset(flow.basisOffset())
-                            .frequency(flow.frequency())
-                            .transport(flow.transport())
-                            .criticality(flow.criticality())
-                            .description(flow.description())
-                            .externalId(Optional.ofNullable(flow.externalId()))
-                            .lastUpdatedBy(username)
-                            .lastUpdatedAt(nowUtc())
-                            .build();
-
-                    long id = getOrCreatePhysicalFlow(newFlow);
-
-                    return ImmutablePhysicalFlowUploadCommandResponse.copyOf(v)
-                            .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, id));
-                })
+        if (newFlowCmds.isEmpty()) {
+            return newFlowCmds;
+        }
+
+        List<PhysicalFlowParsed> newFlows = newFlowCmds
+                .stream()
+                .map(PhysicalFlowUploadCommandResponse::parsedFlow)
                 .collect(toList());
 
+        // create physical flows (and any missing logical flows and specs)
+        PhysicalFlowBulkCreateResult result = physicalFlowUploadDao.createFlows(username, newFlows, phaseListener);
+
+        phaseListener.accept(PhysicalFlowUploadPhase.FINALISING);
+        rateLogicalFlowDecorators(result.addedDecorators());
+        auditAddedDecorators(username, result.addedDecorators());
+        dataTypeUsageService.markForRecalculation(union(
+                map(newFlows, PhysicalFlowParsed::source),
+                map(newFlows, PhysicalFlowParsed::target)));
+        logicalFlowGraphService.refreshFlows(result.logicalFlowIds());
+
+        List<PhysicalFlowUploadCommandResponse> created = new ArrayList<>(newFlowCmds.size());
+        for (int i = 0; i < newFlowCmds.size(); i++) {
+            created.add(ImmutablePhysicalFlowUploadCommandResponse
+                    .copyOf(newFlowCmds.get(i))
+                    .withEntityReference(EntityReference.mkRef(EntityKind.PHYSICAL_FLOW, result.physicalFlowIds().get(i))));
+        }
+
         return created;
     }
 
@@ -339,12 +375,17 @@ public class PhysicalFlowUploadService {
 
 
     private Map<String, Application> loadApplicationsByAssetCode() {
+        List<Application> appsWithAssetCodes = applicationDao
+                .findAll()
+                .stream()
+                .filter(a -> a.assetCode().map(ExternalIdValue::value).filter(StringUtilities::notEmpty).isPresent())
+                .collect(toList());
+
         return MapUtilities.indexBy(
-                a -> a.assetCode()
-                        .map(ExternalIdValue::value)
-                        .map(StringUtilities::lower)
-                        .orElse(""),
-                applicationDao.findAll());
+                a -> lower(a.assetCode().get().value()),
+                identity(),
+                appsWithAssetCodes,
+                (a1, a2) -> a2);
     }
 
 
@@ -364,90 +405,48 @@ public class PhysicalFlowUploadService {
     }
 
 
-    private LogicalFlow getOrCreateLogicalFlow(EntityReference source,
-                                               EntityReference target,
-                                               EntityReference dataType,
-                                               String username) {
-
-        LogicalFlow flow = logicalFlowDao.getBySourceAndTarget(source, target);
-
-        if (flow == null) {
-            LocalDateTime now = nowUtc();
-
-            LogicalFlow flowToAdd = ImmutableLogicalFlow.builder()
-                    .source(source)
-                    .target(target)
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
+    /**
+     * Logical flow decorators are added with a rating of `NO_OPINION`, once
+     * committed the real ratings can be calculated (in one pass) and saved.
+     */
+    private void rateLogicalFlowDecorators(Collection<DataTypeDecorator> addedDecorators) {
+        List<DataTypeDecorator> logicalFlowDecorators = addedDecorators
+                .stream()
+                .filter(d -> d.entityReference().kind() == EntityKind.LOGICAL_DATA_FLOW)
+                .collect(toList());
 
-            flow = logicalFlowDao.addFlow(flowToAdd);
+        if (logicalFlowDecorators.isEmpty()) {
+            return;
         }
 
-
-        EntityReference logicalFlowEntityRef = EntityReference.mkRef(EntityKind.LOGICAL_DATA_FLOW, flow.id().get());
-        DataTypeDecorator existingDecorator = dataTypeDecoratorService.getByEntityRefAndDataTypeId(
-                logicalFlowEntityRef,
-                dataType.id());
-
-        if(existingDecorator == null) {
-            dataTypeDecoratorService
-                    .addDecorators(username, logicalFlowEntityRef, fromArray(dataType.id()));
+        Collection<DataTypeDecorator> rated = ratingsCalculator.calculate(logicalFlowDecorators);
+        if (!rated.isEmpty()) {
+            logicalFlowDecoratorDao.addDecorators(rated);
         }
-        return flow;
     }
 
 
-    private PhysicalSpecification getOrCreatePhysicalSpec(PhysicalFlowParsed flow,
-                                                          String username) {
-        EntityReference owner = flow.owner();
-        DataFormatKind format = flow.format();
-        String name = flow.name();
-
-
-        // check database
-        PhysicalSpecification spec = physicalSpecificationDao.getByParsedFlow(flow);
-        if (spec == null) {
-
-            // create
-            LocalDateTime now = nowUtc();
-            PhysicalSpecification specToAdd = ImmutablePhysicalSpecification.builder()
-                    .owningEntity(owner)
-                    .format(format)
-                    .name(name)
-                    .externalId(Optional.ofNullable(flow.specExternalId()).orElse(""))
-                    .description(Optional.ofNullable(flow.specDescription()).orElse(""))
-                    .lastUpdatedBy(username)
-                    .lastUpdatedAt(now)
-                    .provenance("waltz")
-                    .created(UserTimestamp.mkForUser(username, now))
-                    .build();
-
-            Long id = physicalSpecificationDao.create(specToAdd);
-            spec = ImmutablePhysicalSpecification
-                    .copyOf(specToAdd)
-                    .withId(id);
-        }
-
-        long dataTypeId = flow.dataType().id();
-        EntityReference specificationEntityRef = EntityReference.mkRef(EntityKind.PHYSICAL_SPECIFICATION, spec.id().get());
-
-        DataTypeDecorator existingDataType = dataTypeDecoratorService.getByEntityRefAndDataTypeId(specificationEntityRef, dataTypeId);
-        if(existingDataType == null) {
-            dataTypeDecoratorService.addDecorators(username, specificationEntityRef, fromArray(dataTypeId));
-        }
-        return spec;
-    }
-
+    private void auditAddedDecorators(String username, Collection<DataTypeDecorator> addedDecorators) {
+        Map<EntityReference, Collection<Long>> dataTypeIdsByEntity = groupBy(
+                DataTypeDecorator::entityReference,
+                DataTypeDecorator::dataTypeId,
+                addedDecorators);
+
+        List<ChangeLog> logEntries = dataTypeIdsByEntity
+                .entrySet()
+                .stream()
+                .map(e -> ImmutableChangeLog.builder()
+                        .parentReference(e.getKey())
+                        .userId(username)
+                        .severity(Severity.INFORMATION)
+                        .message(format("Added data types: %s", e.getValue()))
+                        .childKind(EntityKind.DATA_TYPE)
+                        .operation(Operation.UPDATE)
+                        .build())
+                .collect(toList());
 
-    private long getOrCreatePhysicalFlow(PhysicalFlow newFlow) {
-        PhysicalFlow existing = physicalFlowDao.matchPhysicalFlow(newFlow);
-        if (existing != null) {
-            return existing.id().get();
-        } else {
-            return physicalFlowDao.create(newFlow);
+        if (!logEntries.isEmpty()) {
+            changeLogService.write(logEntries);
         }
     }
 
@@ -0,0 +1,156 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_performance;
+
+import org.finos.waltz.common.LatencyHistogram;
+import org.finos.waltz.model.query_performance.ImmutableQueryPerformanceSummary;
+import org.finos.waltz.model.query_performance.QueryPerformanceSummary;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Collects query execution statistics keyed by normalised sql.
+ *
+ * Normalisation replaces literals with `?` and collapses lists of
+ * parameters, so queries which differ only by their (bind or inlined)
+ * values share the same statistics.  To bound memory usage only the
+ * first `maxQueryShapes` distinct shapes are tracked individually, any
+ * others are grouped together.
+ */
+public class QueryPerformanceRegistry {
+
+    public static final String OTHER_QUERIES = "(other queries)";
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERIC_LITERAL = Pattern.compile("(?<![\\w.\"])-?\\d+(?:\\.\\d+)?(?![\\w\"])");
+    private static final Pattern PARAMETER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final int maxQueryShapes;
+    private final Map<String, QueryStatistics> statisticsBySql = new ConcurrentHashMap<>();
+
+
+    public QueryPerformanceRegistry(int maxQueryShapes) {
+        checkTrue(maxQueryShapes > 0, "maxQueryShapes must be positive");
+        this.maxQueryShapes = maxQueryShapes;
+    }
+
+
+    public void record(String sql,
+                       long totalNanos,
+                       long executeNanos,
+                       long fetchNanos,
+                       long rowCount,
+                       boolean failed) {
+        String key = normalise(sql);
+
+        QueryStatistics stats = statisticsBySql.get(key);
+        if (stats == null) {
+            stats = statisticsBySql.size() < maxQueryShapes
+                    ? statisticsBySql.computeIfAbsent(key, k -> new QueryStatistics())
+                    : statisticsBySql.computeIfAbsent(OTHER_QUERIES, k -> new QueryStatistics());
+        }
+
+        stats.latency.record(totalNanos);
+        stats.executeNanos.add(executeNanos);
+        stats.fetchNanos.add(fetchNanos);
+        stats.rowCount.add(Math.max(rowCount, 0));
+        if (failed) {
+            stats.errorCount.increment();
+        }
+    }
+
+
+    /**
+     * @return summaries for all tracked query shapes, ordered by total time (descending)
+     */
+    public List<QueryPerformanceSummary> findAll() {
+        return statisticsBySql
+                .entrySet()
+                .stream()
+                .map(e -> e.getValue().toSummary(e.getKey()))
+                .sorted(Comparator.comparingDouble(QueryPerformanceSummary::totalMillis).reversed())
+                .collect(toList());
+    }
+
+
+    public int size() {
+        return statisticsBySql.size();
+    }
+
+
+    public void reset() {
+        statisticsBySql.clear();
+    }
+
+
+    public static String normalise(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String noStrings = STRING_LITERAL.matcher(sql).replaceAll("?");
+        String noNumbers = NUMERIC_LITERAL.matcher(noStrings).replaceAll("?");
+        String noLists = PARAMETER_LIST.matcher(noNumbers).replaceAll("(?...)");
+        return WHITESPACE.matcher(noLists).replaceAll(" ").trim();
+    }
+
+
+    private static class QueryStatistics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder executeNanos = new LongAdder();
+        private final LongAdder fetchNanos = new LongAdder();
+        private final LongAdder rowCount = new LongAdder();
+        private final LongAdder errorCount = new LongAdder();
+
+
+        private QueryPerformanceSummary toSummary(String sql) {
+            long count = latency.count();
+            return ImmutableQueryPerformanceSummary
+                    .builder()
+                    .sql(sql)
+                    .executionCount(count)
+                    .errorCount(errorCount.sum())
+                    .rowCount(rowCount.sum())
+                    .totalMillis(toMillis(latency.totalNanos()))
+                    .meanMillis(toMillis(latency.meanNanos()))
+                    .p50Millis(toMillis(latency.percentileNanos(50)))
+                    .p95Millis(toMillis(latency.percentileNanos(95)))
+                    .p99Millis(toMillis(latency.percentileNanos(99)))
+                    .maxMillis(toMillis(latency.maxNanos()))
+                    .meanExecuteMillis(count == 0 ? 0 : toMillis((double) executeNanos.sum() / count))
+                    .meanFetchMillis(count == 0 ? 0 : toMillis((double) fetchNanos.sum() / count))
+                    .build();
+        }
+
+
+        private static double toMillis(double nanos) {
+            return nanos / 1_000_000;
+        }
+    }
+}
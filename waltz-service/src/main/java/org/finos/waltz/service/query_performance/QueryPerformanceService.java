@@ -0,0 +1,74 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.query_performance;
+
+import org.finos.waltz.model.query_performance.QueryPerformanceSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+@Service
+public class QueryPerformanceService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueryPerformanceService.class);
+
+    private final QueryPerformanceRegistry queryPerformanceRegistry;
+
+
+    @Autowired
+    public QueryPerformanceService(QueryPerformanceRegistry queryPerformanceRegistry) {
+        checkNotNull(queryPerformanceRegistry, "queryPerformanceRegistry cannot be null");
+        this.queryPerformanceRegistry = queryPerformanceRegistry;
+    }
+
+
+    /**
+     * @param limit  maximum number of summaries to return
+     * @return summaries of the queries with the highest total execution time
+     */
+    public List<QueryPerformanceSummary> findTopByTotalTime(int limit) {
+        checkTrue(limit > 0, "limit must be positive");
+        return queryPerformanceRegistry
+                .findAll()
+                .stream()
+                .limit(limit)
+                .collect(toList());
+    }
+
+
+    public int countQueryShapes() {
+        return queryPerformanceRegistry.size();
+    }
+
+
+    public boolean reset(String username) {
+        LOG.info("Query performance statistics reset by: {}", username);
+        queryPerformanceRegistry.reset();
+        return true;
+    }
+
+}
@@ -18,12 +18,15 @@
 
 package org.finos.waltz.service.report_grid;
 
+import org.finos.waltz.common.ExpiringCache;
+import org.finos.waltz.common.ListUtilities;
 import org.finos.waltz.common.exception.InsufficientPrivelegeException;
 import org.finos.waltz.common.exception.NotFoundException;
 import org.finos.waltz.data.application.ApplicationDao;
 import org.finos.waltz.data.application.ApplicationIdSelectorFactory;
 import org.finos.waltz.data.report_grid.ReportGridDao;
 import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
 import org.finos.waltz.model.HierarchyQueryScope;
 import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.model.ImmutableIdSelectionOptions;
@@ -33,23 +36,88 @@ import org.finos.waltz.model.report_grid.*;
 import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.rating_scheme.RatingSchemeService;
+import org.finos.waltz.service.table_change.TableChangeTracker;
 import org.finos.waltz.service.user.UserRoleService;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.jooq.Table;
+import org.jooq.lambda.tuple.Tuple2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.Checks.checkTrue;
 import static org.finos.waltz.common.SetUtilities.map;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.finos.waltz.schema.Tables.*;
+import static org.jooq.lambda.tuple.Tuple.tuple;
 
 @Service
 public class ReportGridService {
 
+    /**
+     * Tables read when computing grid instances, any modification to these
+     * discards all cached instances.  This covers both the cell data and the
+     * tables the application id selectors read to decide which applications
+     * are in the grid, so keep it in step with `ApplicationIdSelectorFactory`.
+     */
+    private static final List<Table<?>> CONTRIBUTING_TABLES = ListUtilities.asList(
+            // cell data
+            MEASURABLE_RATING,
+            MEASURABLE,
+            ASSESSMENT_RATING,
+            COST,
+            INVOLVEMENT,
+            PERSON,
+            SURVEY_INSTANCE,
+            SURVEY_QUESTION,
+            SURVEY_QUESTION_RESPONSE,
+            SURVEY_QUESTION_LIST_RESPONSE,
+            RATING_SCHEME_ITEM,
+            // grid membership
+            APPLICATION,
+            APPLICATION_GROUP_ENTRY,
+            APPLICATION_GROUP_OU_ENTRY,
+            ENTITY_HIERARCHY,
+            ENTITY_RELATIONSHIP,
+            LOGICAL_FLOW,
+            LOGICAL_FLOW_DECORATOR,
+            PHYSICAL_FLOW,
+            PHYSICAL_SPEC_DATA_TYPE,
+            FLOW_DIAGRAM_ENTITY,
+            PROCESS_DIAGRAM_ENTITY,
+            PERSON_HIERARCHY,
+            SCENARIO_RATING_ITEM,
+            SERVER_USAGE,
+            DATABASE_USAGE,
+            SOFTWARE_USAGE,
+            SOFTWARE_VERSION,
+            SOFTWARE_VERSION_LICENCE,
+            TAG_USAGE);
+
+    /**
+     * The weight of a cached instance is its number of cells plus rows.
+     */
+    private static final long INSTANCE_CACHE_MAX_WEIGHT = 2_000_000;
+
+    /**
+     * Changes made on another node (or directly in the database) will be
+     * picked up once the cached instance is older than this.
+     */
+    private static final long INSTANCE_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+    private final ExpiringCache<Tuple2<ReportGridDefinition, IdSelectionOptions>, ReportGridInstance> instanceCache = new ExpiringCache<>(
+            INSTANCE_CACHE_MAX_WEIGHT,
+            INSTANCE_CACHE_TTL_MILLIS,
+            instance -> 1L + instance.cellData().size() + instance.applications().size());
+
     private final RatingSchemeService ratingSchemeService;
     private final ApplicationDao applicationDao;
     private final ReportGridDao reportGridDao;
@@ -66,13 +134,15 @@ public class ReportGridService {
                              RatingSchemeService ratingSchemeService,
                              ReportGridMemberService reportGridMemberService,
                              ChangeLogService changeLogService,
-                             UserRoleService userRoleService) {
+                             UserRoleService userRoleService,
+                             TableChangeTracker tableChangeTracker) {
         checkNotNull(reportGridDao, "reportGridDao cannot be null");
         checkNotNull(reportGridMemberService, "reportGridMemberService cannot be null");
         checkNotNull(applicationDao, "applicationDao cannot be null");
         checkNotNull(ratingSchemeService, "ratingSchemeService cannot be null");
         checkNotNull(changeLogService, "changeLogService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
+        checkNotNull(tableChangeTracker, "tableChangeTracker cannot be null");
 
         this.reportGridDao = reportGridDao;
         this.reportGridMemberService = reportGridMemberService;
@@ -80,6 +150,8 @@ public class ReportGridService {
         this.ratingSchemeService = ratingSchemeService;
         this.changeLogService = changeLogService;
         this.userRoleService = userRoleService;
+
+        tableChangeTracker.subscribe(CONTRIBUTING_TABLES, instanceCache::invalidateAll);
     }
 
 
@@ -97,15 +169,7 @@ public class ReportGridService {
             long id,
             IdSelectionOptions idSelectionOptions) {
 
-        // WARNING:  The grid computation is very slow if given a large person tree.
-        //    Therefore we restrict it to EXACT only behaviour.
-        //    If you are changing this please ensure you have tested with realistic test data.
-
-        IdSelectionOptions opts = idSelectionOptions.entityReference().kind() == EntityKind.PERSON
-                ? ImmutableIdSelectionOptions
-                    .copyOf(idSelectionOptions)
-                    .withScope(HierarchyQueryScope.EXACT)
-                : idSelectionOptions;
+        IdSelectionOptions opts = normaliseSelectionOptions(idSelectionOptions);
 
         ReportGridDefinition definition = reportGridDao.getGridDefinitionById(id);
 
@@ -113,7 +177,10 @@ public class ReportGridService {
             return null;
         }
 
-        ReportGridInstance instance = mkInstance(id, opts);
+        // the definition is part of the key, so changes to the columns give a new entry
+        ReportGridInstance instance = instanceCache.get(
+                tuple(definition, opts),
+                k -> mkInstance(id, k.v2));
 
         return ImmutableReportGrid
                 .builder()
@@ -123,14 +190,97 @@ public class ReportGridService {
     }
 
 
+    public void invalidateInstanceCache() {
+        instanceCache.invalidateAll();
+    }
+
+
+    public int getInstanceCacheSize() {
+        return instanceCache.size();
+    }
+
+
+    public long getInstanceCacheWeight() {
+        return instanceCache.weight();
+    }
+
+
+    public long getInstanceCacheMaxWeight() {
+        return instanceCache.maxWeight();
+    }
+
+
+    public long getInstanceCacheHitCount() {
+        return instanceCache.hitCount();
+    }
+
+
+    public long getInstanceCacheMissCount() {
+        return instanceCache.missCount();
+    }
+
+
+    public long getInstanceCacheEvictionCount() {
+        return instanceCache.evictionCount();
+    }
+
+
+    /**
+     * @return description and weight of each cached instance, least recently used first
+     */
+    public List<String> getInstanceCacheEntryWeights() {
+        return instanceCache
+                .entryWeights()
+                .entrySet()
+                .stream()
+                .map(e -> format(
+                        "grid: %s, selector: %s/%d (%s) - weight: %d",
+                        e.getKey().v1.id().orElse(null),
+                        e.getKey().v2.entityReference().kind(),
+                        e.getKey().v2.entityReference().id(),
+                        e.getKey().v2.scope(),
+                        e.getValue()))
+                .collect(toList());
+    }
+
+
+    /**
+     * Person trees are restricted to EXACT (see below) and entity references are
+     * reduced to their kind and id, so equivalent requests share a cache entry.
+     */
+    private static IdSelectionOptions normaliseSelectionOptions(IdSelectionOptions idSelectionOptions) {
+        EntityReference ref = idSelectionOptions.entityReference();
+
+        // WARNING:  The grid computation is very slow if given a large person tree.
+        //    Therefore we restrict it to EXACT only behaviour.
+        //    If you are changing this please ensure you have tested with realistic test data.
+
+        return ImmutableIdSelectionOptions
+                .copyOf(idSelectionOptions)
+                .withEntityReference(mkRef(ref.kind(), ref.id()))
+                .withScope(ref.kind() == EntityKind.PERSON
+                        ? HierarchyQueryScope.EXACT
+                        : idSelectionOptions.scope());
+    }
+
+
     private ReportGridInstance mkInstance(long id, IdSelectionOptions idSelectionOptions) {
         Select<Record1<Long>> appSelector = applicationIdSelectorFactory.apply(idSelectionOptions);
-        Set<ReportGridCell> cellData = reportGridDao.findCellDataByGridId(id, appSelector);
         List<Application> apps = applicationDao.findByAppIdSelector(appSelector);
 
-        Set<RatingSchemeItem> ratingSchemeItems = ratingSchemeService.findRatingSchemeItemsByIds(map(
-                cellData,
-                ReportGridCell::ratingId));
+        // resolve the selector once and reuse the ids for every column family
+        Set<Long> appIds = map(apps, app -> app.id().get());
+        ReportGridCells cellData = reportGridDao.findCellDataByGridId(id, appIds);
+
+        Set<Long> ratingIds = new HashSet<>();
+        for (int row = 0; row < cellData.size(); row++) {
+            Long ratingId = cellData.ratingId(row);
+            if (ratingId != null) {
+                ratingIds.add(ratingId);
+            }
+        }
+
+        Set<RatingSchemeItem> ratingSchemeItems = ratingSchemeService.findRatingSchemeItemsByIds(ratingIds);
 
         ReportGridInstance instance = ImmutableReportGridInstance
                 .builder()
@@ -36,6 +36,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.UUID;
 import java.util.function.Consumer;
 
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -46,6 +49,8 @@ public class ScheduledJobService {
 
     private static final Logger LOG = LoggerFactory.getLogger(ScheduledJobService.class);
 
+    private static final Duration LEASE_TIMEOUT = Duration.ofMinutes(10);
+
     private final DataTypeUsageService dataTypeUsageService;
     private final EntityHierarchyService entityHierarchyService;
     private final FlowClassificationRuleService flowClassificationRuleService;
@@ -53,6 +58,7 @@ public class ScheduledJobService {
     private final PhysicalSpecDataTypeService physicalSpecDataTypeService;
     private final ScheduledJobDao scheduledJobDao;
     private final AttestationRunService attestationRunService;
+    private final String nodeId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
 
 
     @Autowired
@@ -118,6 +124,54 @@ public class ScheduledJobService {
     }
 
 
+    /**
+     * Recalculates data type usages for entities whose flows or flow decorators
+     * have changed.  Unlike the other jobs this recurs, so rather than a status
+     * in `settings` it uses a lease to ensure only one node drains at a time.
+     * The lease is renewed after each batch and is released once finished (or
+     * failed, leaving the pending entities for the next run).  A lease which
+     * has not been renewed within `LEASE_TIMEOUT`, e.g. because the node holding
+     * it crashed, may be taken over by another node.
+     */
+    @Scheduled(fixedDelay = 30_000)
+    public void recalculatePendingDataTypeUsages() {
+        runRecurring(JobKey.DATA_TYPE_USAGE_RECALC_PENDING,
+                (jk) -> {
+                    int recalculated = dataTypeUsageService.recalculatePending(() -> renewLease(jk));
+                    if (recalculated > 0) {
+                        LOG.info("Recalculated data type usages for {} entities", recalculated);
+                    }
+                });
+    }
+
+
+    private void runRecurring(JobKey jobKey, Consumer<JobKey> jobExecutor) {
+        try {
+            if (! scheduledJobDao.claimLease(jobKey, nodeId, LEASE_TIMEOUT)) {
+                return;
+            }
+        } catch (Exception e) {
+            LOG.error("Failed to start job: " + jobKey, e);
+            return;
+        }
+
+        try {
+            jobExecutor.accept(jobKey);
+        } catch (Exception e) {
+            LOG.error("Failed to run job: " + jobKey, e);
+        } finally {
+            scheduledJobDao.releaseLease(jobKey, nodeId);
+        }
+    }
+
+
+    private void renewLease(JobKey jobKey) {
+        if (! scheduledJobDao.renewLease(jobKey, nodeId)) {
+            throw new IllegalStateException("Lease for job: " + jobKey + " has been taken over by another node");
+        }
+    }
+
+
     private void runIfNeeded(JobKey jobKey, Consumer<JobKey> jobExecutor) {
         try {
             if (scheduledJobDao.isJobRunnable(jobKey)
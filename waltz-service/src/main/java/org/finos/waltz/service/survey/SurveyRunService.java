@@ -32,6 +32,8 @@ import org.finos.waltz.model.survey.*;
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.jooq.Record1;
 import org.jooq.Select;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -50,6 +52,8 @@ import static org.finos.waltz.common.SetUtilities.fromCollection;
 @Service
 public class SurveyRunService {
 
+    private static final Logger LOG = LoggerFactory.getLogger(SurveyRunService.class);
+
     private final ChangeLogService changeLogService;
     private final InvolvementDao involvementDao;
     private final PersonDao personDao;
@@ -338,7 +342,13 @@ public class SurveyRunService {
     }
 
 
+    /**
+     * (Re)issues the instances of a survey run.  Any existing instances and recipients
+     * for the run are replaced, the inserts are batched so that firm wide runs can
+     * be issued in a single transaction.
+     */
     public boolean createSurveyInstancesAndRecipients(InstancesAndRecipientsCreateCommand command) {
+        long st = System.currentTimeMillis();
 
         SurveyRun surveyRun = surveyRunDao.getById(command.surveyRunId());
         checkNotNull(surveyRun, "surveyRun " + command.surveyRunId() + " not found");
@@ -359,66 +369,59 @@ public class SurveyRunService {
                         toList()
                 ));
 
-        // delete existing instances and recipients
-        deleteSurveyInstancesAndRecipients(command.surveyRunId());
+        List<SurveyInstanceIssuance> issuances = new ArrayList<>();
 
-        // insert new instances and recipients
         instancesAndRecipientsToSave.forEach(
                 (k,v) -> {
+                    SurveyInstanceCreateCommand instanceCommand = mkInstanceCreateCommand(k);
+
+                    Set<Long> ownerIds = new HashSet<>();
+                    ownerIds.add(surveyRun.ownerId());
+                    fromCollection(surveyOwnersByInstance.get(k)).forEach(o -> ownerIds.add(o.person().id().get()));
+
                     if (surveyRun.issuanceKind() == SurveyIssuanceKind.GROUP) {
                         // one instance per group
-                        long instanceId = createSurveyInstance(k);
-                        createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                        Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                        fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                        v.forEach(r -> createSurveyInstanceRecipient(instanceId, r));
+                        issuances.add(ImmutableSurveyInstanceIssuance.builder()
+                                .instance(instanceCommand)
+                                .ownerIds(ownerIds)
+                                .recipientIds(map(v, r -> r.person().id().get()))
+                                .build());
                     } else {
                         // one instance for each individual
-                        v.forEach(r -> {
-                            long instanceId = createSurveyInstance(k);
-                            createSurveyInstanceOwner(instanceId, surveyRun.ownerId());
-                            Collection<SurveyInstanceOwner> owners = surveyOwnersByInstance.get(k);
-                            fromCollection(owners).forEach(o -> createSurveyInstanceOwner(instanceId, o.person().id().get()));
-                            createSurveyInstanceRecipient(instanceId, r);
-                        });
+                        v.forEach(r -> issuances.add(ImmutableSurveyInstanceIssuance.builder()
+                                .instance(instanceCommand)
+                                .ownerIds(ownerIds)
+                                .addRecipientIds(r.person().id().get())
+                                .build()));
                     }
                 }
         );
 
-        return true;
-    }
+        long generatedAt = System.currentTimeMillis();
 
+        // replaces existing instances and recipients
+        int instanceCount = surveyInstanceDao.replaceInstancesForSurveyRun(command.surveyRunId(), issuances);
 
-    private void deleteSurveyInstancesAndRecipients(long surveyRunId) {
-        surveyInstanceRecipientDao.deleteForSurveyRun(surveyRunId);
-        surveyInstanceDao.deleteForSurveyRun(surveyRunId);
+        LOG.info(
+                "Created {} survey instances for run {}. Timings(ms) - generate: {}, save: {}",
+                instanceCount,
+                command.surveyRunId(),
+                generatedAt - st,
+                System.currentTimeMillis() - generatedAt);
+
+        return true;
     }
 
 
-    private long createSurveyInstance(SurveyInstance surveyInstance) {
-        return surveyInstanceDao.create(ImmutableSurveyInstanceCreateCommand.builder()
+    private SurveyInstanceCreateCommand mkInstanceCreateCommand(SurveyInstance surveyInstance) {
+        return ImmutableSurveyInstanceCreateCommand.builder()
                 .surveyRunId(surveyInstance.surveyRunId())
                 .entityReference(surveyInstance.surveyEntity())
                 .status(surveyInstance.status())
                 .dueDate(surveyInstance.dueDate())
                 .approvalDueDate(surveyInstance.approvalDueDate())
                 .owningRole(surveyInstance.owningRole())
-                .build());
-    }
-
-
-    private long createSurveyInstanceRecipient(long surveyInstanceId, SurveyInstanceRecipient surveyInstanceRecipient) {
-        return surveyInstanceRecipientDao.create(ImmutableSurveyInstanceRecipientCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(surveyInstanceRecipient.person().id().get())
-                .build());
-    }
-
-    private long createSurveyInstanceOwner(long surveyInstanceId, Long ownerId) {
-        return surveyInstanceOwnerDao.create(ImmutableSurveyInstanceOwnerCreateCommand.builder()
-                .surveyInstanceId(surveyInstanceId)
-                .personId(ownerId)
-                .build());
+                .build();
     }
 
 
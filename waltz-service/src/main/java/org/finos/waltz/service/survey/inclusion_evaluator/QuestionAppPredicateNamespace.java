@@ -58,14 +58,16 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
         Condition notRetiredYet = APPLICATION.ACTUAL_RETIREMENT_DATE.isNull()
                 .or(APPLICATION.ACTUAL_RETIREMENT_DATE.greaterOrEqual(DSL.now()));
 
-        return dsl
-                .select(APPLICATION.PLANNED_RETIREMENT_DATE)
-                .from(APPLICATION)
-                .where(APPLICATION.ID.eq(subjectRef.id()))
-                .and(isPlanned)
-                .and(notRetiredYet)
-                .fetch()
-                .isNotEmpty();
+        return memoize(
+                "isRetiring",
+                () -> dsl
+                    .select(APPLICATION.PLANNED_RETIREMENT_DATE)
+                    .from(APPLICATION)
+                    .where(APPLICATION.ID.eq(subjectRef.id()))
+                    .and(isPlanned)
+                    .and(notRetiredYet)
+                    .fetch()
+                    .isNotEmpty());
     }
 
 
@@ -92,16 +94,18 @@ public class QuestionAppPredicateNamespace extends QuestionEntityPredicateNamesp
         Condition subjectMatches = dtu.ENTITY_ID.eq(subjectRef.id())
                 .and(dtu.ENTITY_KIND.eq(subjectRef.kind().name()));
 
-        return dsl
-                .select(dtu.USAGE_KIND)
-                .from(dt)
-                .innerJoin(eh)
-                .on(eh.ANCESTOR_ID.eq(dt.ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
-                .innerJoin(dtu)
-                .on(dtu.DATA_TYPE_ID.eq(eh.ID))
-                .where(dtNameMatches)
-                .and(subjectMatches)
-                .fetchSet(dtu.USAGE_KIND);
+        return memoize(
+                "dataTypeUsages:" + name,
+                () -> dsl
+                    .select(dtu.USAGE_KIND)
+                    .from(dt)
+                    .innerJoin(eh)
+                    .on(eh.ANCESTOR_ID.eq(dt.ID).and(eh.KIND.eq(EntityKind.DATA_TYPE.name())))
+                    .innerJoin(dtu)
+                    .on(dtu.DATA_TYPE_ID.eq(eh.ID))
+                    .where(dtNameMatches)
+                    .and(subjectMatches)
+                    .fetchSet(dtu.USAGE_KIND));
     }
 
 }
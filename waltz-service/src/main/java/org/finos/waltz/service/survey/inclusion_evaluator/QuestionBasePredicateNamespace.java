@@ -1,16 +1,17 @@
 package org.finos.waltz.service.survey.inclusion_evaluator;
 
-import org.apache.commons.jexl3.JexlEngine;
-import org.apache.commons.jexl3.MapContext;
 import org.finos.waltz.model.ExternalIdProvider;
 import org.finos.waltz.model.survey.SurveyQuestion;
 import org.finos.waltz.model.survey.SurveyQuestionResponse;
 import org.finos.waltz.service.survey.SurveyInstanceUtilities;
 
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static org.jooq.lambda.tuple.Tuple.tuple;
@@ -24,7 +25,8 @@ public class QuestionBasePredicateNamespace {
 
     private final Map<String, SurveyQuestion> questionsByExtId;
     private final Map<Long, SurveyQuestionResponse> responsesByQuestionId;
-    private JexlEngine jexl;
+    private final Map<String, Object> memoizedLookups = new HashMap<>();
+    private Predicate<String> evaluator;
 
 
     public QuestionBasePredicateNamespace(List<SurveyQuestion> questions,
@@ -69,11 +71,12 @@ public class QuestionBasePredicateNamespace {
         SurveyQuestion referencedQuestion = questionsByExtId
                 .get(qExtId);
 
-        return referencedQuestion
-                .inclusionPredicate()
-                .map(p -> jexl.createExpression(p).evaluate(new MapContext()))
-                .map(r -> Boolean.valueOf(r.toString()))
-                .orElse(true);
+        return memoize(
+                "ditto:" + qExtId,
+                () -> referencedQuestion
+                        .inclusionPredicate()
+                        .map(p -> evaluator.test(p))
+                        .orElse(true));
     }
 
 
@@ -96,10 +99,25 @@ public class QuestionBasePredicateNamespace {
 
     /**
      * Need to pass in the evaluator so that 'recursive' functions can be computed (e.g. 'DITTO')
-     * @param jexl
+     * @param evaluator  evaluates a predicate against this namespace
      */
-    public void usingEvaluator(JexlEngine jexl) {
-        this.jexl = jexl;
+    public void usingEvaluator(Predicate<String> evaluator) {
+        this.evaluator = evaluator;
+    }
+
+
+    /**
+     * A namespace instance is used for a single evaluation of a survey's questions, so
+     * lookups (which typically hit the database) only need to be computed once, however
+     * many predicates refer to them.
+     */
+    protected <T> T memoize(String key, Supplier<T> supplier) {
+        if (memoizedLookups.containsKey(key)) {
+            return (T) memoizedLookups.get(key);
+        }
+        T result = supplier.get();
+        memoizedLookups.put(key, result);
+        return result;
     }
 
 
@@ -28,6 +28,7 @@ import org.jooq.impl.DSL;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import static org.finos.waltz.schema.Tables.*;
 
@@ -53,16 +54,18 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public String assessmentRating(String name, String defaultVal) {
-        return dsl
-                .select(RATING_SCHEME_ITEM.CODE)
-                .from(ASSESSMENT_DEFINITION)
-                .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
-                .innerJoin(RATING_SCHEME).on(RATING_SCHEME.ID.eq(ASSESSMENT_DEFINITION.RATING_SCHEME_ID))
-                .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
-                .where(ASSESSMENT_DEFINITION.EXTERNAL_ID.eq(name).or(ASSESSMENT_DEFINITION.NAME.eq(name)))
-                .and(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
-                .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
-                .fetchOptional(RATING_SCHEME_ITEM.CODE)
+        return this.<Optional<String>>memoize(
+                    "assessmentRating:" + name,
+                    () -> dsl
+                        .select(RATING_SCHEME_ITEM.CODE)
+                        .from(ASSESSMENT_DEFINITION)
+                        .innerJoin(ASSESSMENT_RATING).on(ASSESSMENT_RATING.ASSESSMENT_DEFINITION_ID.eq(ASSESSMENT_DEFINITION.ID))
+                        .innerJoin(RATING_SCHEME).on(RATING_SCHEME.ID.eq(ASSESSMENT_DEFINITION.RATING_SCHEME_ID))
+                        .innerJoin(RATING_SCHEME_ITEM).on(RATING_SCHEME_ITEM.ID.eq(ASSESSMENT_RATING.RATING_ID))
+                        .where(ASSESSMENT_DEFINITION.EXTERNAL_ID.eq(name).or(ASSESSMENT_DEFINITION.NAME.eq(name)))
+                        .and(ASSESSMENT_RATING.ENTITY_KIND.eq(subjectRef.kind().name()))
+                        .and(ASSESSMENT_RATING.ENTITY_ID.eq(subjectRef.id()))
+                        .fetchOptional(RATING_SCHEME_ITEM.CODE))
                 .orElse(defaultVal);
     }
 
@@ -73,13 +76,15 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
 
 
     public boolean hasInvolvement(String name) {
-        return dsl.fetchExists(DSL
-                .select()
-                .from(INVOLVEMENT)
-                .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
-                .where(INVOLVEMENT_KIND.NAME.equalIgnoreCase(name))
-                .and(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
-                .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name())));
+        return memoize(
+                "hasInvolvement:" + name.toLowerCase(),
+                () -> dsl.fetchExists(DSL
+                        .select()
+                        .from(INVOLVEMENT)
+                        .innerJoin(INVOLVEMENT_KIND).on(INVOLVEMENT.KIND_ID.eq(INVOLVEMENT_KIND.ID))
+                        .where(INVOLVEMENT_KIND.NAME.equalIgnoreCase(name))
+                        .and(INVOLVEMENT.ENTITY_ID.eq(subjectRef.id()))
+                        .and(INVOLVEMENT.ENTITY_KIND.eq(subjectRef.kind().name()))));
     }
 
 
@@ -111,8 +116,9 @@ public class QuestionEntityPredicateNamespace extends QuestionBasePredicateNames
                 .where(subjectEntitiesMatch)
                 .and(subjectInTargetOuTree);
 
-        return dsl
-                .fetchExists(qry);
+        return memoize(
+                "belongsToOrgUnit:" + name,
+                () -> dsl.fetchExists(qry));
     }
 
 }
@@ -28,26 +28,32 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.common.MapUtilities.newHashMap;
 import static org.finos.waltz.common.StringUtilities.isEmpty;
 
 public class QuestionPredicateEvaluator {
 
+    /**
+     * Engines are thread safe, sharing one allows parsed predicates to be cached
+     * (keyed by their text) across evaluations.  Namespaces differ per evaluation
+     * so are supplied via the context (see {@link PredicateContext}) rather than
+     * being registered with the engine.
+     */
+    private static final JexlEngine JEXL = new JexlBuilder()
+            .cache(1024)
+            .create();
+
+
     public static List<SurveyQuestion> eval(DSLContext dsl,
                                      List<SurveyQuestion> qs,
                                      EntityReference subjectRef,
                                      Map<Long, SurveyQuestionResponse> responsesByQuestionId) {
 
         QuestionBasePredicateNamespace namespace = mkPredicateNameSpace(dsl, qs, subjectRef, responsesByQuestionId);
+        PredicateContext ctx = new PredicateContext(namespace);
 
-        JexlBuilder builder = new JexlBuilder();
-        JexlEngine jexl = builder
-                .namespaces(newHashMap(null, namespace))
-                .create();
+        namespace.usingEvaluator(p -> evaluate(p, ctx));
 
-        namespace.usingEvaluator(jexl);
-
-        List<SurveyQuestion> activeQs = determineActiveQs(qs, jexl);
+        List<SurveyQuestion> activeQs = determineActiveQs(qs, ctx);
 
         return activeQs;
     }
@@ -75,7 +81,7 @@ public class QuestionPredicateEvaluator {
     }
 
 
-    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlEngine jexl) {
+    private static List<SurveyQuestion> determineActiveQs(List<SurveyQuestion> qs, JexlContext ctx) {
         List<SurveyQuestion> activeQs = qs
                 .stream()
                 .filter(q -> q
@@ -84,9 +90,7 @@ public class QuestionPredicateEvaluator {
                             if (isEmpty(p)) {
                                 return true;
                             } else {
-                                JexlExpression expr = jexl.createExpression(p);
-                                JexlContext jexlCtx = new MapContext();
-                                return Boolean.valueOf(expr.evaluate(jexlCtx).toString());
+                                return evaluate(p, ctx);
                             }
                         })
                         .orElse(true))
@@ -95,5 +99,32 @@ public class QuestionPredicateEvaluator {
     }
 
 
+    private static boolean evaluate(String predicate, JexlContext ctx) {
+        JexlExpression expr = JEXL.createExpression(predicate);
+        return Boolean.valueOf(String.valueOf(expr.evaluate(ctx)));
+    }
+
+
+    /**
+     * Resolves un-prefixed functions (e.g. `isChecked('Q1')`) against the namespace
+     * for the current evaluation.
+     */
+    private static class PredicateContext extends MapContext implements JexlContext.NamespaceResolver {
+
+        private final QuestionBasePredicateNamespace namespace;
+
+
+        private PredicateContext(QuestionBasePredicateNamespace namespace) {
+            this.namespace = namespace;
+        }
+
+
+        @Override
+        public Object resolveNamespace(String name) {
+            return name == null
+                    ? namespace
+                    : null;
+        }
+    }
 
 }
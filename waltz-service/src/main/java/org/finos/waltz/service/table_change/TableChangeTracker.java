@@ -0,0 +1,154 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.service.table_change;
+
+import org.jooq.Table;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+
+
+/**
+ * Keeps track of which tables have been modified by statements executed
+ * on this node and notifies interested parties, typically caches of
+ * values derived from those tables.
+ *
+ * Statements are reported by the {@link org.finos.waltz.service.TableChangeListener},
+ * the modified table is determined from the leading `insert`, `update`,
+ * `delete`, `merge` or `truncate` clause.  Changes made by other nodes (or
+ * directly in the database) are not seen, so caches relying on this should
+ * still expire their entries after a while.
+ */
+public class TableChangeTracker {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TableChangeTracker.class);
+
+    private static final Pattern MODIFIED_TABLE = Pattern.compile(
+            "^\\s*(?:insert\\s+into|update|delete\\s+from|delete|merge\\s+into|truncate\\s+table)\\s+((?:[\\w\"`\\[\\]]+\\.)*[\\w\"`\\[\\]]+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final Map<String, List<Runnable>> subscribersByTable = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> changeCountsByTable = new ConcurrentHashMap<>();
+
+
+    /**
+     * Registers a callback to be run whenever any of the given tables are modified.
+     * Callbacks are run on the thread which executed the modifying statement so
+     * should be quick, e.g. invalidating a cache.
+     *
+     * @param tables  tables of interest
+     * @param onChange  callback
+     */
+    public void subscribe(Collection<? extends Table<?>> tables, Runnable onChange) {
+        checkNotNull(tables, "tables cannot be null");
+        checkNotNull(onChange, "onChange cannot be null");
+
+        tables.forEach(t -> subscribersByTable
+                .computeIfAbsent(normalise(t.getName()), k -> new CopyOnWriteArrayList<>())
+                .add(onChange));
+    }
+
+
+    /**
+     * Records the execution of a statement, if it modifies a table the
+     * subscribers to that table are notified.
+     *
+     * @param sql  sql of the executed statement
+     */
+    public void recordStatement(String sql) {
+        modifiedTable(sql).ifPresent(this::recordChange);
+    }
+
+
+    /**
+     * Records a modification to the named table and notifies its subscribers.
+     *
+     * @param tableName  name of the modified table (unqualified)
+     */
+    public void recordChange(String tableName) {
+        String table = normalise(tableName);
+        changeCountsByTable
+                .computeIfAbsent(table, k -> new LongAdder())
+                .increment();
+
+        List<Runnable> subscribers = subscribersByTable.get(table);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> {
+                try {
+                    subscriber.run();
+                } catch (Exception e) {
+                    LOG.warn("Table change subscriber failed for table: {}", table, e);
+                }
+            });
+        }
+    }
+
+
+    /**
+     * @param table  table of interest
+     * @return number of modifications seen for the table since startup
+     */
+    public long getChangeCount(Table<?> table) {
+        LongAdder count = changeCountsByTable.get(normalise(table.getName()));
+        return count == null ? 0 : count.sum();
+    }
+
+
+    /**
+     * Determines the (unqualified, lower case) name of the table modified
+     * by the given sql statement.
+     *
+     * @param sql  sql statement, may be null
+     * @return table name if the statement modifies a table
+     */
+    public static Optional<String> modifiedTable(String sql) {
+        if (sql == null) {
+            return Optional.empty();
+        }
+
+        Matcher matcher = MODIFIED_TABLE.matcher(sql);
+        if (! matcher.find()) {
+            return Optional.empty();
+        }
+
+        String qualifiedName = matcher.group(1);
+        String name = qualifiedName.substring(qualifiedName.lastIndexOf('.') + 1);
+        return Optional.of(normalise(name));
+    }
+
+
+    private static String normalise(String tableName) {
+        return tableName
+                .replaceAll("[\"`\\[\\]]", "")
+                .toLowerCase(Locale.ROOT);
+    }
+
+}
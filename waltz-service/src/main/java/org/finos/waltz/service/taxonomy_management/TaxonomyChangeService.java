@@ -33,13 +33,18 @@ import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.measurable_category.MeasurableCategory;
 import org.finos.waltz.model.taxonomy_management.*;
 import org.finos.waltz.model.user.SystemRole;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.finos.waltz.common.Checks.*;
 import static org.jooq.lambda.tuple.Tuple.tuple;
@@ -54,6 +59,7 @@ public class TaxonomyChangeService {
     private final MeasurableCategoryService measurableCategoryService;
     private final MeasurableService measurableService;
     private final EntityHierarchyService entityHierarchyService;
+    private final DSLContext dsl;
 
 
     @Autowired
@@ -63,9 +69,11 @@ public class TaxonomyChangeService {
                                  UserRoleService userRoleService,
                                  List<TaxonomyCommandProcessor> processors,
                                  MeasurableService measurableService,
-                                 EntityHierarchyService entityHierarchyService) {
+                                 EntityHierarchyService entityHierarchyService,
+                                 DSLContext dsl) {
         checkNotNull(taxonomyChangeDao, "taxonomyChangeDao cannot be null");
         checkNotNull(clientCacheKeyService, "clientCacheKeyService cannot be null");
+        checkNotNull(dsl, "dsl cannot be null");
         this.clientCacheKeyService = clientCacheKeyService;
         this.taxonomyChangeDao = taxonomyChangeDao;
         this.userRoleService = userRoleService;
@@ -78,6 +86,7 @@ public class TaxonomyChangeService {
                 .collect(toMap(t -> t.v1, t -> t.v2));
         this.measurableService = measurableService;
         this.entityHierarchyService = entityHierarchyService;
+        this.dsl = dsl;
     }
 
 
@@ -119,33 +128,126 @@ public class TaxonomyChangeService {
         TaxonomyChangeCommand command = taxonomyChangeDao.getDraftCommandById(id);
         verifyUserHasPermissions(userId, command.changeDomain());
 
-        checkFalse(isMoveToSameParent(command),
-                "Measurable cannot set it self as its parent.");
-        checkFalse(isMoveToANodeWhichIsAlreadyAChild(command),
-                "Parent node is already a child of the measurable.");
-
-        TaxonomyCommandProcessor processor = getCommandProcessor(command);
-        TaxonomyChangeCommand updatedCommand = processor.apply(command, userId);
+        TaxonomyChangeCommand updatedCommand = dsl.transactionResult(ctx -> applyCommand(ctx.dsl(), command, userId));
         clientCacheKeyService.createOrUpdate("TAXONOMY");
 
-        updatedCommand = taxonomyChangeDao.update(updatedCommand);
-
-        // rebuild measurable hierarchy
-        if (command.changeDomain().kind() == EntityKind.MEASURABLE_CATEGORY
-                && isHierarchyChange(command)) {
-            entityHierarchyService.buildForMeasurableByCategory(command.changeDomain().id());
+        if (isHierarchyChange(command)) {
+            rebuildHierarchy(command.changeDomain());
         }
 
         return updatedCommand;
     }
 
 
+    /**
+     * Applies all draft changes for the domain, oldest first, in a single
+     * transaction.  The domain hierarchy is rebuilt once at the end (and
+     * before any removal which follows a structural change, as removals use
+     * the hierarchy to find child nodes).  Whilst the transaction is open the
+     * cached hierarchy closure is bypassed, it is discarded (and the client
+     * cache key bumped) only once the transaction has completed.
+     *
+     * If any change fails with an exception none of the changes are applied.
+     *
+     * @param domain  domain whose draft changes should be applied
+     * @param userId  user applying the changes
+     * @return the updated commands, in the order they were applied
+     */
+    public List<TaxonomyChangeCommand> applyAllByDomain(EntityReference domain, String userId) {
+        checkNotNull(domain, "domain cannot be null");
+        verifyUserHasPermissions(userId, domain);
+
+        List<TaxonomyChangeCommand> drafts = taxonomyChangeDao
+                .findChangesByDomainAndStatus(domain, TaxonomyChangeLifecycleStatus.DRAFT)
+                .stream()
+                .sorted(Comparator.comparing(c -> c.id().orElse(Long.MAX_VALUE)))
+                .collect(toList());
+
+        if (drafts.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        boolean rebuildsHierarchy = domain.kind() == EntityKind.MEASURABLE_CATEGORY
+                && drafts.stream().anyMatch(this::isHierarchyChange);
+
+        if (rebuildsHierarchy) {
+            entityHierarchyService.suspendClosure(EntityKind.MEASURABLE);
+        }
+
+        try {
+            List<TaxonomyChangeCommand> updatedCommands = dsl.transactionResult(ctx -> applyAll(
+                    ctx.dsl(),
+                    domain,
+                    drafts,
+                    userId));
+            clientCacheKeyService.createOrUpdate("TAXONOMY");
+            return updatedCommands;
+        } finally {
+            if (rebuildsHierarchy) {
+                entityHierarchyService.resumeClosure(EntityKind.MEASURABLE);
+            }
+        }
+    }
+
+
     public boolean removeById(long id, String userId) {
         verifyUserHasPermissions(userId);
         return taxonomyChangeDao.removeById(id, userId);
     }
 
 
+    private List<TaxonomyChangeCommand> applyAll(DSLContext tx,
+                                                 EntityReference domain,
+                                                 List<TaxonomyChangeCommand> drafts,
+                                                 String userId) {
+        List<TaxonomyChangeCommand> results = new ArrayList<>(drafts.size());
+        boolean hierarchyIsStale = false;
+
+        for (TaxonomyChangeCommand command : drafts) {
+            if (hierarchyIsStale && command.changeType() == TaxonomyChangeType.REMOVE) {
+                rebuildHierarchy(tx, domain);
+                hierarchyIsStale = false;
+            }
+
+            results.add(applyCommand(tx, command, userId));
+            hierarchyIsStale |= isHierarchyChange(command);
+        }
+
+        if (hierarchyIsStale) {
+            rebuildHierarchy(tx, domain);
+        }
+
+        return results;
+    }
+
+
+    private TaxonomyChangeCommand applyCommand(DSLContext tx, TaxonomyChangeCommand command, String userId) {
+        checkFalse(isMoveToSameParent(tx, command),
+                "Measurable cannot set it self as its parent.");
+        checkFalse(isMoveToANodeWhichIsAlreadyAChild(command),
+                "Parent node is already a child of the measurable.");
+
+        TaxonomyCommandProcessor processor = getCommandProcessor(command);
+        TaxonomyChangeCommand updatedCommand = processor.apply(command, userId, tx);
+
+        return taxonomyChangeDao.update(tx, updatedCommand);
+    }
+
+
+    private void rebuildHierarchy(EntityReference domain) {
+        if (domain.kind() == EntityKind.MEASURABLE_CATEGORY) {
+            entityHierarchyService.buildForMeasurableByCategory(domain.id());
+        }
+    }
+
+
+    private void rebuildHierarchy(DSLContext tx, EntityReference domain) {
+        if (domain.kind() == EntityKind.MEASURABLE_CATEGORY) {
+            entityHierarchyService.buildForMeasurableByCategory(tx, domain.id());
+        }
+    }
+
+
     private TaxonomyCommandProcessor getCommandProcessor(TaxonomyChangeCommand command) {
         TaxonomyCommandProcessor processor = processorsByType.get(command.changeType());
         checkNotNull(processor, "Cannot find processor for type: %s", command.changeType());
@@ -170,12 +272,12 @@ public class TaxonomyChangeService {
         }
     }
 
-    private boolean isMoveToSameParent(TaxonomyChangeCommand command) {
+    private boolean isMoveToSameParent(DSLContext tx, TaxonomyChangeCommand command) {
         String destinationId = command.params().get("destinationId");
         if(isMovingToANode(command, destinationId)) {
 
             long parentId = Long.parseLong(destinationId);
-            final Measurable parent = measurableService.getById(parentId);
+            final Measurable parent = measurableService.getById(tx, parentId);
 
             return parent.parentId().isPresent()
                     && command.primaryReference().id() == parent.parentId().get();
@@ -23,6 +23,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangeCommand;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangePreview;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangeType;
+import org.jooq.DSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,7 +54,12 @@ public interface TaxonomyCommandProcessor {
 
 
     TaxonomyChangePreview preview(TaxonomyChangeCommand cmd);
-    TaxonomyChangeCommand apply(TaxonomyChangeCommand command, String userId);
+
+    /**
+     * Applies the command.  All reads and writes should go via the given
+     * context so that several commands may be applied in a single transaction.
+     */
+    TaxonomyChangeCommand apply(TaxonomyChangeCommand command, String userId, DSLContext tx);
 
     Set<TaxonomyChangeType> supportedTypes();
     EntityKind domain();
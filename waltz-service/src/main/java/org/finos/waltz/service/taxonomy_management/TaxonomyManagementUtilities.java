@@ -29,6 +29,7 @@ import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.taxonomy_management.ImmutableTaxonomyChangeImpact;
 import org.finos.waltz.model.taxonomy_management.ImmutableTaxonomyChangePreview;
 import org.finos.waltz.model.taxonomy_management.TaxonomyChangeCommand;
+import org.jooq.DSLContext;
 
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -48,11 +49,33 @@ public class TaxonomyManagementUtilities {
     }
 
 
+    public static Measurable validatePrimaryMeasurable(MeasurableService measurableService,
+                                                       DSLContext tx,
+                                                       TaxonomyChangeCommand cmd) {
+        long measurableId = cmd.primaryReference().id();
+        long categoryId = cmd.changeDomain().id();
+        return validateMeasurableInCategory(measurableService, tx, measurableId, categoryId);
+    }
+
+
     public static Measurable validateMeasurableInCategory(MeasurableService measurableService,
                                                 long measurableId,
                                                 long categoryId) {
-        Measurable measurable = measurableService.getById(measurableId);
+        return checkMeasurableInCategory(measurableService.getById(measurableId), measurableId, categoryId);
+    }
+
+
+    public static Measurable validateMeasurableInCategory(MeasurableService measurableService,
+                                                DSLContext tx,
+                                                long measurableId,
+                                                long categoryId) {
+        return checkMeasurableInCategory(measurableService.getById(tx, measurableId), measurableId, categoryId);
+    }
+
 
+    private static Measurable checkMeasurableInCategory(Measurable measurable,
+                                                        long measurableId,
+                                                        long categoryId) {
         checkNotNull(
                 measurable,
                 "Cannot find measurable [%d]",
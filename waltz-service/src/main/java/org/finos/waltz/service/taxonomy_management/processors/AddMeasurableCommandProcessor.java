@@ -25,6 +25,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.measurable.ImmutableMeasurable;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -76,11 +77,9 @@ public class AddMeasurableCommandProcessor implements TaxonomyCommandProcessor {
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        validatePrimaryMeasurable(measurableService, cmd);
-
-        Measurable primaryReference = measurableService.getById(cmd.primaryReference().id());
+        Measurable primaryReference = validatePrimaryMeasurable(measurableService, tx, cmd);
 
         Optional<Long> parentId = cmd.changeType() == TaxonomyChangeType.ADD_CHILD
                 ? primaryReference.id()
@@ -98,7 +97,7 @@ public class AddMeasurableCommandProcessor implements TaxonomyCommandProcessor {
                 .lastUpdatedAt(DateTimeUtilities.nowUtc())
                 .build();
 
-        measurableService.create(newMeasurable, userId);
+        measurableService.create(tx, newMeasurable, userId);
 
         return ImmutableTaxonomyChangeCommand
                 .copyOf(cmd)
@@ -25,6 +25,7 @@ import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -70,12 +71,13 @@ public class MoveMeasurableCommandProcessor implements TaxonomyCommandProcessor
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
-        Measurable measurableToMove = validate(cmd);
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
+        Measurable measurableToMove = validate(cmd, tx);
         TaxonomyChangeLifecycleStatus outcome = measurableToMove
                 .id()
                 .map(id -> measurableService
                     .updateParentId(
+                        tx,
                         id,
                         getDestination(cmd),
                         userId))
@@ -104,6 +106,18 @@ public class MoveMeasurableCommandProcessor implements TaxonomyCommandProcessor
     }
 
 
+    private Measurable validate(TaxonomyChangeCommand cmd, DSLContext tx) {
+        doBasicValidation(cmd);
+        long categoryId = cmd.changeDomain().id();
+        Measurable m = validateMeasurableInCategory(measurableService, tx, cmd.primaryReference().id(), categoryId);
+        Long destinationId = getDestination(cmd);
+        if (destinationId != null) {
+            validateMeasurableInCategory(measurableService, tx, destinationId, categoryId);
+        }
+        return m;
+    }
+
+
     private Long getDestination(TaxonomyChangeCommand cmd) {
         return cmd.paramAsLong("destinationId", null);
     }
@@ -33,6 +33,7 @@ import org.finos.waltz.model.involvement.Involvement;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.measurable_rating.MeasurableRating;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -197,18 +198,18 @@ public class RemoveMeasurableCommandProcessor implements TaxonomyCommandProcesso
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        Measurable measurable = validatePrimaryMeasurable(measurableService, cmd);
+        Measurable measurable = validatePrimaryMeasurable(measurableService, tx, cmd);
 
         IdSelectionOptions selectionOptions = mkOpts(cmd.primaryReference(), HierarchyQueryScope.CHILDREN);
 
-        removeBookmarks(selectionOptions);
-        removeInvolvements(selectionOptions);
-        removeAppMappings(selectionOptions);
-        removeMeasurables(selectionOptions);
-        removeFlowDiagrams(selectionOptions);
-        removeEntityRelationshipsDiagrams(selectionOptions);
+        removeBookmarks(tx, selectionOptions);
+        removeInvolvements(tx, selectionOptions);
+        removeAppMappings(tx, selectionOptions);
+        removeMeasurables(tx, selectionOptions);
+        removeFlowDiagrams(tx, selectionOptions);
+        removeEntityRelationshipsDiagrams(tx, selectionOptions);
         
         String message = String.format("Measurable %s has been removed", measurable.name());
         Optional<Long> measurableId = measurable.parentId().isPresent()
@@ -225,33 +226,33 @@ public class RemoveMeasurableCommandProcessor implements TaxonomyCommandProcesso
     }
 
 
-    private int removeEntityRelationshipsDiagrams(IdSelectionOptions selectionOptions) {
-        return entityRelationshipService.deleteForGenericEntitySelector(selectionOptions);
+    private int removeEntityRelationshipsDiagrams(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return entityRelationshipService.deleteForGenericEntitySelector(tx, selectionOptions);
     }
 
 
-    private int removeFlowDiagrams(IdSelectionOptions selectionOptions) {
-        return flowDiagramEntityService.deleteForEntitySelector(selectionOptions);
+    private int removeFlowDiagrams(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return flowDiagramEntityService.deleteForEntitySelector(tx, selectionOptions);
     }
 
 
-    private int removeMeasurables(IdSelectionOptions selectionOptions) {
-        return measurableService.deleteByIdSelector(selectionOptions);
+    private int removeMeasurables(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return measurableService.deleteByIdSelector(tx, selectionOptions);
     }
 
 
-    private int removeAppMappings(IdSelectionOptions selectionOptions) {
-        return measurableRatingService.deleteByMeasurableIdSelector(selectionOptions);
+    private int removeAppMappings(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return measurableRatingService.deleteByMeasurableIdSelector(tx, selectionOptions);
     }
 
 
-    private int removeInvolvements(IdSelectionOptions selectionOptions) {
-        return involvementService.deleteByGenericEntitySelector(selectionOptions);
+    private int removeInvolvements(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return involvementService.deleteByGenericEntitySelector(tx, selectionOptions);
     }
 
 
-    private int removeBookmarks(IdSelectionOptions selectionOptions) {
-        return bookmarkService.deleteByBookmarkIdSelector(selectionOptions);
+    private int removeBookmarks(DSLContext tx, IdSelectionOptions selectionOptions) {
+        return bookmarkService.deleteByBookmarkIdSelector(tx, selectionOptions);
     }
 
 }
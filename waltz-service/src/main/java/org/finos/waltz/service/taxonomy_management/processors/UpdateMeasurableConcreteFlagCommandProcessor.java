@@ -26,6 +26,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -92,11 +93,12 @@ public class UpdateMeasurableConcreteFlagCommandProcessor implements TaxonomyCom
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        validatePrimaryMeasurable(measurableService, cmd);
+        validatePrimaryMeasurable(measurableService, tx, cmd);
 
         measurableService.updateConcreteFlag(
+                tx,
                 cmd.primaryReference().id(),
                 getConcreteParam(cmd, true),
                 userId);
@@ -27,6 +27,7 @@ import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
 import org.finos.waltz.service.taxonomy_management.TaxonomyManagementUtilities;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -89,11 +90,12 @@ public class UpdateMeasurableDescriptionCommandProcessor implements TaxonomyComm
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        TaxonomyManagementUtilities.validatePrimaryMeasurable(measurableService, cmd);
+        TaxonomyManagementUtilities.validatePrimaryMeasurable(measurableService, tx, cmd);
 
         measurableService.updateDescription(
+                tx,
                 cmd.primaryReference().id(),
                 TaxonomyManagementUtilities.getDescriptionParam(cmd),
                 userId);
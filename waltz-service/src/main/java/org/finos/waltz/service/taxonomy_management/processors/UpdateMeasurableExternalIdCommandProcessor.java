@@ -25,6 +25,7 @@ import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -71,11 +72,12 @@ public class UpdateMeasurableExternalIdCommandProcessor implements TaxonomyComma
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        validatePrimaryMeasurable(measurableService, cmd);
+        validatePrimaryMeasurable(measurableService, tx, cmd);
 
         measurableService.updateExternalId(
+                tx,
                 cmd.primaryReference().id(),
                 getExternalIdParam(cmd),
                 userId);
@@ -27,6 +27,7 @@ import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.Severity;
 import org.finos.waltz.model.measurable.Measurable;
 import org.finos.waltz.model.taxonomy_management.*;
+import org.jooq.DSLContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -93,11 +94,12 @@ public class UpdateMeasurableNameCommandProcessor implements TaxonomyCommandProc
     }
 
 
-    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId) {
+    public TaxonomyChangeCommand apply(TaxonomyChangeCommand cmd, String userId, DSLContext tx) {
         doBasicValidation(cmd);
-        validatePrimaryMeasurable(measurableService, cmd);
+        validatePrimaryMeasurable(measurableService, tx, cmd);
 
         measurableService.updateName(
+                tx,
                 cmd.primaryReference().id(),
                 cmd.param(PARAM_NAME),
                 userId);
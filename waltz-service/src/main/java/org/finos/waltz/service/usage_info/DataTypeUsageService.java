@@ -33,26 +33,27 @@ import org.finos.waltz.model.usage_info.UsageInfo;
 import org.finos.waltz.model.usage_info.UsageKind;
 import org.jooq.Record1;
 import org.jooq.Select;
-import org.jooq.impl.DSL;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import static org.finos.waltz.schema.tables.Actor.ACTOR;
-import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.CollectionUtilities.*;
 import static org.finos.waltz.common.SetUtilities.fromCollection;
+import static org.finos.waltz.model.EntityReference.mkRef;
 import static org.finos.waltz.model.usage_info.UsageInfoUtilities.mkChangeSet;
 
 @Service
 public class DataTypeUsageService {
 
+    private static final int PENDING_BATCH_SIZE = 5_000;
+
     private final DataTypeUsageDao dataTypeUsageDao;
     private final DataTypeDao dataTypeDao;
     private final ApplicationIdSelectorFactory appIdSelectorFactor = new ApplicationIdSelectorFactory();
@@ -152,40 +153,87 @@ public class DataTypeUsageService {
 
     public boolean recalculateForApplications(Collection<EntityReference> refs) {
         checkNotNull(refs, "refs cannot be null");
-        Set<Long> appIds = refs
-                .stream()
-                .filter(r -> r.kind() == EntityKind.APPLICATION)
-                .map(EntityReference::id)
-                .collect(Collectors.toSet());
+        Set<Long> appIds = idsOfKind(refs, EntityKind.APPLICATION);
+        Set<Long> actorIds = idsOfKind(refs, EntityKind.ACTOR);
+
+        return dataTypeUsageDao.recalculateForIds(EntityKind.APPLICATION, appIds) &&
+                dataTypeUsageDao.recalculateForIds(EntityKind.ACTOR, actorIds);
+    }
+
 
-        Set<Long> actorIds = refs
+    /**
+     * Records that the usages of the given entities (typically the endpoints of
+     * logical flows whose flows or decorators have changed) need recalculating.
+     * The entities are held in the `data_type_usage_pending` table until
+     * {@link #recalculatePending()} is called, by any node.
+     *
+     * Only applications and actors are recorded, other kinds are ignored.
+     *
+     * @param refs  entities whose usages are out of date
+     */
+    public void markForRecalculation(Collection<EntityReference> refs) {
+        checkNotNull(refs, "refs cannot be null");
+        Set<EntityReference> pending = refs
                 .stream()
-                .filter(r -> r.kind() == EntityKind.ACTOR)
-                .map(EntityReference::id)
+                .filter(r -> r.kind() == EntityKind.APPLICATION || r.kind() == EntityKind.ACTOR)
+                .map(r -> mkRef(r.kind(), r.id()))
                 .collect(Collectors.toSet());
 
-        if (isEmpty(appIds) && isEmpty(actorIds)) {
-            return true;
-        } else {
-            Select<Record1<Long>> appIdSelector = convertApplicationIdsToIdSelector(appIds);
-            Select<Record1<Long>> actorIdSelector = convertActorIdsToIdSelector(actorIds);
-            return dataTypeUsageDao.recalculateForIdSelector(EntityKind.APPLICATION, appIdSelector) &&
-                    dataTypeUsageDao.recalculateForIdSelector(EntityKind.ACTOR, actorIdSelector);
+        if (!pending.isEmpty()) {
+            dataTypeUsageDao.addPendingRecalculations(pending);
         }
     }
 
 
-    private Select<Record1<Long>> convertApplicationIdsToIdSelector(Set<Long> appIds) {
-        return DSL.select(APPLICATION.ID)
-                .from(APPLICATION)
-                .where(APPLICATION.ID.in(appIds));
+    /**
+     * Recalculates usages for all entities previously passed to
+     * {@link #markForRecalculation(Collection)}, `PENDING_BATCH_SIZE` entries
+     * at a time.  Entries are only removed once recalculated, so if the
+     * recalculation fails they will be retried on the next call.
+     *
+     * @return number of entities recalculated
+     */
+    public int recalculatePending() {
+        return recalculatePending(() -> {});
     }
 
 
-    private Select<Record1<Long>> convertActorIdsToIdSelector(Set<Long> actorIds) {
-        return DSL.select(ACTOR.ID)
-                .from(ACTOR)
-                .where(ACTOR.ID.in(actorIds));
+    /**
+     * As {@link #recalculatePending()} but calls `afterEachBatch` once each batch
+     * has been recalculated, e.g. to renew a job lease.  If the callback throws
+     * no further batches are processed.
+     *
+     * @param afterEachBatch  called after every batch
+     * @return number of entities recalculated
+     */
+    public int recalculatePending(Runnable afterEachBatch) {
+        checkNotNull(afterEachBatch, "afterEachBatch cannot be null");
+        int recalculated = 0;
+        while (true) {
+            Map<Long, EntityReference> pending = dataTypeUsageDao.findPendingRecalculations(PENDING_BATCH_SIZE);
+            if (pending.isEmpty()) {
+                return recalculated;
+            }
+
+            Set<EntityReference> refs = new HashSet<>(pending.values());
+            recalculateForApplications(refs);
+            dataTypeUsageDao.removePendingRecalculations(pending.keySet());
+            recalculated += refs.size();
+            afterEachBatch.run();
+
+            if (pending.size() < PENDING_BATCH_SIZE) {
+                return recalculated;
+            }
+        }
+    }
+
+
+    private static Set<Long> idsOfKind(Collection<EntityReference> refs, EntityKind kind) {
+        return refs
+                .stream()
+                .filter(r -> r.kind() == kind)
+                .map(EntityReference::id)
+                .collect(Collectors.toSet());
     }
 
 
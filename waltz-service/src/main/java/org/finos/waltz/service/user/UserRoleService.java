@@ -20,6 +20,7 @@ package org.finos.waltz.service.user;
 
 import org.finos.waltz.service.changelog.ChangeLogService;
 import org.finos.waltz.service.person.PersonService;
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.user.UserRoleDao;
@@ -37,9 +38,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static java.lang.String.format;
 import static org.finos.waltz.common.Checks.checkNotNull;
@@ -55,8 +58,20 @@ public class UserRoleService {
 
     private static final Logger LOG = LoggerFactory.getLogger(UserRoleService.class);
 
+    private static final int ROLE_CACHE_MAX_SIZE = 5_000;
+
+    /**
+     * Roles changed on another node (or directly in the database) will be
+     * picked up once the cached entry is older than this.
+     */
+    private static final long ROLE_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
     private final UserRoleDao userRoleDao;
 
+    private final ExpiringCache<String, Set<String>> roleCache = new ExpiringCache<>(
+            ROLE_CACHE_MAX_SIZE,
+            ROLE_CACHE_TTL_MILLIS);
+
     private final ChangeLogService changeLogService;
 
     private final PersonService personService;
@@ -85,7 +100,7 @@ public class UserRoleService {
 
 
     public boolean hasRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return userRoles.containsAll(requiredRoles);
     }
 
@@ -100,7 +115,7 @@ public class UserRoleService {
     }
 
     public boolean hasAnyRole(String userName, Set<String> requiredRoles) {
-        Set<String> userRoles = userRoleDao.getUserRoles(userName);
+        Set<String> userRoles = getUserRoles(userName);
         return ! SetUtilities.intersection(userRoles, requiredRoles)
                     .isEmpty();
     }
@@ -114,7 +129,7 @@ public class UserRoleService {
     public User getByUserId(String userId) {
         return ImmutableUser.builder()
                 .userName(userId)
-                .addAllRoles(userRoleDao.getUserRoles(userId))
+                .addAllRoles(getUserRoles(userId))
                 .build();
     }
 
@@ -141,12 +156,86 @@ public class UserRoleService {
             changeLogService.write(logEntry);
         }
 
-        return userRoleDao.updateRoles(targetUserName, command.roles());
+        return replaceRoles(targetUserName, command.roles());
+    }
+
+
+    /**
+     * Replaces the roles of the given user without writing a change log entry,
+     * used when assigning the default roles to newly registered users.
+     *
+     * @param userName  user whose roles are being replaced
+     * @param roles  complete set of new roles
+     * @return true if the roles were updated
+     */
+    public boolean replaceRoles(String userName, Set<String> roles) {
+        try {
+            return userRoleDao.updateRoles(userName, roles);
+        } finally {
+            invalidateRoles(userName);
+        }
     }
 
 
+    /**
+     * Returns the (unmodifiable) roles of the user, served from a short lived
+     * cache as this is called for most authorisation checks.
+     *
+     * @param userName  user whose roles are required
+     * @return set of role names
+     */
     public Set<String> getUserRoles(String userName) {
-        return userRoleDao.getUserRoles(userName);
+        if (userName == null) {
+            return Collections.emptySet();
+        }
+        return roleCache.get(
+                toRoleCacheKey(userName),
+                k -> Collections.unmodifiableSet(userRoleDao.getUserRoles(userName)));
+    }
+
+
+    /**
+     * Discards any cached roles for the user, they will be reloaded on next use.
+     *
+     * @param userName  user whose cached roles should be discarded
+     */
+    public void invalidateRoles(String userName) {
+        if (userName != null) {
+            roleCache.invalidate(toRoleCacheKey(userName));
+        }
+    }
+
+
+    public void invalidateAllRoles() {
+        roleCache.invalidateAll();
+    }
+
+
+    public int getRoleCacheSize() {
+        return roleCache.size();
+    }
+
+
+    public long getRoleCacheHitCount() {
+        return roleCache.hitCount();
+    }
+
+
+    public long getRoleCacheMissCount() {
+        return roleCache.missCount();
+    }
+
+
+    public long getRoleCacheEvictionCount() {
+        return roleCache.evictionCount();
+    }
+
+
+    /**
+     * Role lookups ignore case, so the cache key does too.
+     */
+    private static String toRoleCacheKey(String userName) {
+        return userName.toLowerCase();
     }
 
 }
@@ -23,7 +23,6 @@ import org.finos.waltz.common.Checks;
 import org.finos.waltz.common.SetUtilities;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.data.user.UserDao;
-import org.finos.waltz.data.user.UserRoleDao;
 import org.finos.waltz.model.settings.Setting;
 import org.finos.waltz.model.user.ImmutableLoginRequest;
 import org.finos.waltz.model.user.LoginRequest;
@@ -46,22 +45,22 @@ public class UserService {
 
     private final UserDao userDao;
     private final PasswordService passwordService;
-    private final UserRoleDao userRoleDao;
+    private final UserRoleService userRoleService;
     private SettingsService settingsService;
 
 
     @Autowired
     public UserService(UserDao userDao,
-                       UserRoleDao userRoleDao,
+                       UserRoleService userRoleService,
                        PasswordService passwordService,
                        SettingsService settingsService) {
         checkNotNull(userDao, "userDao must not be null");
-        checkNotNull(userRoleDao, "userRoleDao cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
         checkNotNull(passwordService, "passwordService must not be null");
         checkNotNull(settingsService, "settingsService cannot be null");
 
         this.userDao = userDao;
-        this.userRoleDao = userRoleDao;
+        this.userRoleService = userRoleService;
         this.passwordService = passwordService;
         this.settingsService = settingsService;
     }
@@ -88,6 +87,7 @@ public class UserService {
     public boolean deleteUser(String userName) {
         LOG.info("Deleting user: " + userName);
         userDao.deleteUser(userName);
+        userRoleService.invalidateRoles(userName);
         LOG.info("Deleted user: " + userName);
         return true;
     }
@@ -134,7 +134,7 @@ public class UserService {
         if (setting != null ) {
             setting.value()
                     .map(s -> StringUtilities.tokenise(s, ","))
-                    .ifPresent(roles -> userRoleDao.updateRoles(username, SetUtilities.fromCollection(roles)));
+                    .ifPresent(roles -> userRoleService.replaceRoles(username, SetUtilities.fromCollection(roles)));
 
         }
     }
@@ -0,0 +1,209 @@
+package org.finos.waltz.service.entity_search;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityLifecycleStatus;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.ImmutableEntityReference;
+import org.finos.waltz.model.entity_search.EntitySearchDocument;
+import org.finos.waltz.model.entity_search.EntitySearchOptions;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchDocument;
+import org.finos.waltz.model.entity_search.ImmutableEntitySearchOptions;
+import org.jooq.lambda.tuple.Tuple2;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.finos.waltz.common.ListUtilities.newArrayList;
+import static org.jooq.lambda.tuple.Tuple.tuple;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntitySearchIndexTest {
+
+    @Test
+    public void tokeniseSplitsOnNonAlphanumerics() {
+        assertEquals(asList("trade", "booking", "v2"), EntitySearchIndex.tokenise("Trade-Booking (v2)"));
+        assertTrue(EntitySearchIndex.tokenise(null).isEmpty());
+        assertTrue(EntitySearchIndex.tokenise(" - ").isEmpty());
+    }
+
+
+    @Test
+    public void findsByPrefixAndInfix() {
+        EntitySearchIndex index = mkIndex();
+
+        assertEquals(asList(2L, 1L), ids(index.search(mkOptions("trad", EntityKind.APPLICATION))), "equal scores favour shorter names");
+        assertEquals(singletonList(3L), ids(index.search(mkOptions("ledger", EntityKind.APPLICATION))));
+        assertEquals(singletonList(3L), ids(index.search(mkOptions("edge", EntityKind.APPLICATION))), "infix match on name");
+        assertTrue(index.search(mkOptions("zzz", EntityKind.APPLICATION)).isEmpty());
+    }
+
+
+    @Test
+    public void allTermsMustMatch() {
+        EntitySearchIndex index = mkIndex();
+        assertEquals(singletonList(2L), ids(index.search(mkOptions("trade risk", EntityKind.APPLICATION))));
+    }
+
+
+    @Test
+    public void identifiersAndAliasesAreSearchable() {
+        EntitySearchIndex index = mkIndex();
+        assertEquals(singletonList(3L), ids(index.search(mkOptions("109235", EntityKind.APPLICATION))));
+        assertEquals(singletonList(1L), ids(index.search(mkOptions("tbs", EntityKind.APPLICATION))));
+    }
+
+
+    @Test
+    public void nameMatchesRankAboveDescriptionMatches() {
+        EntitySearchIndex index = mkIndex();
+        List<Long> ids = ids(index.search(mkOptions("ledger", EntityKind.APPLICATION, EntityKind.MEASURABLE)));
+        assertEquals(asList(3L, 10L), ids);
+    }
+
+
+    @Test
+    public void filtersByKindAndLifecycle() {
+        EntitySearchIndex index = mkIndex();
+
+        assertEquals(singletonList(10L), ids(index.search(mkOptions("ledger", EntityKind.MEASURABLE))));
+        assertTrue(index.search(mkOptions("legacy", EntityKind.APPLICATION)).isEmpty(), "removed apps are excluded by default");
+
+        EntitySearchOptions withRemoved = ImmutableEntitySearchOptions
+                .copyOf(mkOptions("legacy", EntityKind.APPLICATION))
+                .withEntityLifecycleStatuses(newArrayList(EntityLifecycleStatus.REMOVED));
+        assertEquals(singletonList(4L), ids(index.search(withRemoved)));
+    }
+
+
+    @Test
+    public void limitIsAppliedPerKind() {
+        EntitySearchIndex index = mkIndex();
+        EntitySearchOptions options = ImmutableEntitySearchOptions
+                .copyOf(mkOptions("tra", EntityKind.APPLICATION, EntityKind.MEASURABLE))
+                .withLimit(1);
+
+        List<EntityReference> results = index.search(options);
+        assertEquals(2, results.size());
+        assertEquals(1, results.stream().filter(r -> r.kind() == EntityKind.APPLICATION).count());
+        assertEquals(1, results.stream().filter(r -> r.kind() == EntityKind.MEASURABLE).count());
+    }
+
+
+    @Test
+    public void upsertReplacesAndRemoveDeletes() {
+        EntitySearchIndex index = mkIndex();
+        int initialSize = index.size();
+
+        index.upsert(singletonList(mkDoc(EntityKind.APPLICATION, 1L, "Settlement Engine", null, EntityLifecycleStatus.ACTIVE)));
+        assertEquals(initialSize, index.size());
+        assertEquals(singletonList(2L), ids(index.search(mkOptions("trade", EntityKind.APPLICATION))));
+        assertEquals(singletonList(1L), ids(index.search(mkOptions("settle", EntityKind.APPLICATION))));
+
+        index.remove(EntityKind.APPLICATION, 1L);
+        assertEquals(initialSize - 1, index.size());
+        assertTrue(index.search(mkOptions("settle", EntityKind.APPLICATION)).isEmpty());
+    }
+
+
+    @Test
+    public void replaceAllOnlyAffectsTheGivenKind() {
+        EntitySearchIndex index = mkIndex();
+
+        index.replaceAll(EntityKind.APPLICATION, singletonList(mkDoc(EntityKind.APPLICATION, 5L, "Payments", null, EntityLifecycleStatus.ACTIVE)));
+
+        assertTrue(index.search(mkOptions("trade", EntityKind.APPLICATION)).isEmpty());
+        assertEquals(singletonList(5L), ids(index.search(mkOptions("pay", EntityKind.APPLICATION))));
+        assertEquals(singletonList(10L), ids(index.search(mkOptions("ledger", EntityKind.MEASURABLE))));
+    }
+
+
+    @Test
+    public void referencesAreScoredOnTheIndexScale() {
+        EntitySearchIndex index = mkIndex();
+
+        for (String query : asList("ledger", "trade risk", "acc", "counting")) {
+            index.searchScored(mkOptions(query, EntityKind.MEASURABLE, EntityKind.APPLICATION))
+                    .stream()
+                    .filter(t -> t.v1.id() != 1L && t.v1.id() != 3L) // these have aliases/identifiers
+                    .forEach(t -> assertEquals(
+                            t.v2.intValue(),
+                            EntitySearchIndex.score(t.v1, query),
+                            query + " / " + t.v1.name()));
+        }
+    }
+
+
+    @Test
+    public void rankMergesResultsFromDifferentSources() {
+        EntitySearchIndex index = mkIndex();
+        EntityReference fromDb = mkDoc(EntityKind.ACTOR, 20L, "Ledger", null, EntityLifecycleStatus.ACTIVE).entityReference();
+
+        List<Tuple2<EntityReference, Integer>> scored = new ArrayList<>(index.searchScored(mkOptions("ledger", EntityKind.APPLICATION, EntityKind.MEASURABLE)));
+        scored.add(tuple(fromDb, EntitySearchIndex.score(fromDb, "ledger")));
+
+        assertEquals(
+                asList(20L, 3L, 10L),
+                EntitySearchIndex.rank(scored).stream().map(t -> t.v1.id()).collect(toList()),
+                "equal name matches favour shorter names, description matches come last");
+    }
+
+
+    // -- helpers ---
+
+    private static EntitySearchIndex mkIndex() {
+        EntitySearchIndex index = new EntitySearchIndex();
+        index.upsert(asList(
+                ImmutableEntitySearchDocument
+                        .copyOf(mkDoc(EntityKind.APPLICATION, 1L, "Trade Booking", "Books trades", EntityLifecycleStatus.ACTIVE))
+                        .withAliases("TBS"),
+                mkDoc(EntityKind.APPLICATION, 2L, "Trade Risk", null, EntityLifecycleStatus.ACTIVE),
+                ImmutableEntitySearchDocument
+                        .copyOf(mkDoc(EntityKind.APPLICATION, 3L, "General Ledger", null, EntityLifecycleStatus.ACTIVE))
+                        .withIdentifiers("109235-1"),
+                mkDoc(EntityKind.APPLICATION, 4L, "Legacy System", null, EntityLifecycleStatus.REMOVED),
+                mkDoc(EntityKind.MEASURABLE, 10L, "Accounting", "Maintains the ledger", EntityLifecycleStatus.ACTIVE),
+                mkDoc(EntityKind.MEASURABLE, 11L, "Treasury", null, EntityLifecycleStatus.ACTIVE),
+                mkDoc(EntityKind.MEASURABLE, 12L, "Trade Accounting", null, EntityLifecycleStatus.ACTIVE)));
+        return index;
+    }
+
+
+    private static EntitySearchDocument mkDoc(EntityKind kind,
+                                              long id,
+                                              String name,
+                                              String description,
+                                              EntityLifecycleStatus status) {
+        return ImmutableEntitySearchDocument
+                .builder()
+                .entityReference(ImmutableEntityReference
+                        .builder()
+                        .kind(kind)
+                        .id(id)
+                        .name(name)
+                        .description(description)
+                        .entityLifecycleStatus(status)
+                        .build())
+                .build();
+    }
+
+
+    private static EntitySearchOptions mkOptions(String query, EntityKind... kinds) {
+        return ImmutableEntitySearchOptions
+                .builder()
+                .searchQuery(query)
+                .entityKinds(asList(kinds))
+                .build();
+    }
+
+
+    private static List<Long> ids(List<EntityReference> refs) {
+        return refs
+                .stream()
+                .map(EntityReference::id)
+                .collect(toList());
+    }
+}
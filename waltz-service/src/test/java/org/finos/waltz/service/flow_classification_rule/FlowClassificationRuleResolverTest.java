@@ -179,4 +179,87 @@ public class FlowClassificationRuleResolverTest {
         assertFalse(bestRanked.isPresent());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    public void vantagePointsOfDifferentKindsWithTheSameIdAreDistinct() {
+
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>();
+        vantagePoints.add(mkVantagePoint(vantagePoint, 20L, 200L, "PRIMARY", 1L));
+        vantagePoints.add(mkVantagePoint(EntityReference.mkRef(EntityKind.APPLICATION, 20L), 20L, 200L, "SECONDARY", 2L));
+
+        FlowClassificationRuleResolver flowClassificationRuleResolver = new FlowClassificationRuleResolver(vantagePoints);
+
+        assertEquals(AuthoritativenessRatingValue.of("PRIMARY"), flowClassificationRuleResolver.resolve(EntityKind.ORG_UNIT, 20L, 200L, 20L));
+        assertEquals(AuthoritativenessRatingValue.of("SECONDARY"), flowClassificationRuleResolver.resolve(EntityKind.APPLICATION, 20L, 200L, 20L));
+        assertEquals(AuthoritativenessRatingValue.NO_OPINION, flowClassificationRuleResolver.resolve(EntityKind.ACTOR, 20L, 200L, 20L));
+    }
+
+
+    @Test
+    public void resolveAuthSourceReturnsMostSpecificRuleForTheSourceApp() {
+
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>();
+        vantagePoints.add(mkVantagePoint(vantagePoint, 20L, 200L, "PRIMARY", 1L).withVantagePointRank(1));
+        vantagePoints.add(mkVantagePoint(vantagePoint, 20L, 200L, "SECONDARY", 2L).withVantagePointRank(3));
+        vantagePoints.add(mkVantagePoint(vantagePoint, 20L, 205L, "PRIMARY", 3L).withVantagePointRank(5));
+
+        FlowClassificationRuleResolver flowClassificationRuleResolver = new FlowClassificationRuleResolver(vantagePoints);
+
+        Optional<FlowClassificationRuleVantagePoint> rule = flowClassificationRuleResolver.resolveAuthSource(vantagePoint, sourceApp, 20L);
+
+        assertTrue(rule.isPresent());
+        assertEquals(Long.valueOf(2L), rule.get().ruleId());
+        assertFalse(flowClassificationRuleResolver.resolveAuthSource(vantagePoint, EntityReference.mkRef(EntityKind.APPLICATION, 999L), 20L).isPresent());
+    }
+
+
+    @Test
+    public void canResolveManyVantagePoints() {
+
+        List<FlowClassificationRuleVantagePoint> vantagePoints = new ArrayList<>();
+        for (long ou = 1; ou <= 500; ou++) {
+            for (long dt = 1; dt <= 10; dt++) {
+                vantagePoints.add(mkVantagePoint(
+                        EntityReference.mkRef(EntityKind.ORG_UNIT, ou),
+                        dt,
+                        ou * 100 + dt,
+                        dt % 2 == 0 ? "PRIMARY" : "SECONDARY",
+                        ou * 1000 + dt));
+            }
+        }
+
+        FlowClassificationRuleResolver flowClassificationRuleResolver = new FlowClassificationRuleResolver(vantagePoints);
+
+        for (long ou = 1; ou <= 500; ou++) {
+            for (long dt = 1; dt <= 10; dt++) {
+                assertEquals(
+                        AuthoritativenessRatingValue.of(dt % 2 == 0 ? "PRIMARY" : "SECONDARY"),
+                        flowClassificationRuleResolver.resolve(EntityKind.ORG_UNIT, ou, ou * 100 + dt, dt));
+                assertEquals(
+                        AuthoritativenessRatingValue.DISCOURAGED,
+                        flowClassificationRuleResolver.resolve(EntityKind.ORG_UNIT, ou, 1L, dt));
+            }
+            assertEquals(
+                    AuthoritativenessRatingValue.NO_OPINION,
+                    flowClassificationRuleResolver.resolve(EntityKind.ORG_UNIT, ou, ou * 100, 11L));
+        }
+    }
+
+
+    private ImmutableFlowClassificationRuleVantagePoint mkVantagePoint(EntityReference vantagePointRef,
+                                                                      long dataTypeId,
+                                                                      long appId,
+                                                                      String code,
+                                                                      long ruleId) {
+        return ImmutableFlowClassificationRuleVantagePoint.builder()
+                .vantagePoint(vantagePointRef)
+                .vantagePointRank(1)
+                .dataType(EntityReference.mkRef(EntityKind.DATA_TYPE, dataTypeId))
+                .dataTypeRank(1)
+                .applicationId(appId)
+                .classificationCode(code)
+                .ruleId(ruleId)
+                .build();
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.logical_flow;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.FlowDirection;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineage;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineageNode;
+import org.finos.waltz.model.logical_flow.LogicalFlowRoute;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.LongPredicate;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toMap;
+import static org.finos.waltz.common.SetUtilities.asSet;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogicalFlowGraphTest {
+
+    private static final LongPredicate ANY = LogicalFlowGraph.ANY_DATA_TYPE;
+
+    private static final EntityReference A = app(1);
+    private static final EntityReference B = app(2);
+    private static final EntityReference C = app(3);
+    private static final EntityReference D = app(4);
+    private static final EntityReference X = mkRef(EntityKind.ACTOR, 1);
+
+
+    @Test
+    public void downstreamTraversalRecordsMinimumDistances() {
+        LogicalFlowGraph graph = mkGraph();
+
+        LogicalFlowLineage lineage = graph.traverse(A, FlowDirection.OUTBOUND, 10, Optional.empty(), ANY);
+
+        Map<EntityReference, Integer> distances = distances(lineage);
+        assertEquals(3, distances.size());
+        assertEquals(1, distances.get(B));
+        assertEquals(1, distances.get(C), "direct flow is shorter than via B");
+        assertEquals(2, distances.get(X), "actor reached via C");
+        assertEquals(asSet(101L, 102L, 103L, 104L), lineage.flowIds());
+    }
+
+
+    @Test
+    public void upstreamTraversalFollowsInboundFlows() {
+        LogicalFlowGraph graph = mkGraph();
+
+        Map<EntityReference, Integer> distances = distances(graph.traverse(X, FlowDirection.INBOUND, 10, Optional.empty(), ANY));
+
+        assertEquals(3, distances.size());
+        assertEquals(1, distances.get(C));
+        assertEquals(2, distances.get(A));
+        assertEquals(2, distances.get(B));
+    }
+
+
+    @Test
+    public void traversalRespectsDepthAndDataType() {
+        LogicalFlowGraph graph = mkGraph();
+
+        assertEquals(
+                asSet(B, C),
+                distances(graph.traverse(A, FlowDirection.OUTBOUND, 1, Optional.empty(), ANY)).keySet());
+
+        assertEquals(
+                asSet(B, C),
+                distances(graph.traverse(A, FlowDirection.OUTBOUND, 10, Optional.of(10L), dt -> dt == 10L)).keySet(),
+                "flow C -> X does not carry data type 10");
+
+        assertTrue(graph.traverse(D, FlowDirection.OUTBOUND, 10, Optional.empty(), ANY).nodes().isEmpty(), "D is not connected");
+        assertTrue(graph.traverse(app(99), FlowDirection.OUTBOUND, 10, Optional.empty(), ANY).nodes().isEmpty(), "unknown entity");
+    }
+
+
+    @Test
+    public void findsShortestRoute() {
+        LogicalFlowGraph graph = mkGraph();
+
+        LogicalFlowRoute route = graph.findRoute(A, X, Optional.empty(), ANY).get();
+        assertEquals(asList(A, C, X), route.nodes());
+        assertEquals(asList(102L, 104L), route.flowIds());
+
+        assertFalse(graph.findRoute(X, A, Optional.empty(), ANY).isPresent(), "flows are directed");
+        assertFalse(graph.findRoute(A, X, Optional.of(10L), dt -> dt == 10L).isPresent());
+        assertFalse(graph.findRoute(A, D, Optional.empty(), ANY).isPresent());
+    }
+
+
+    @Test
+    public void flowsCanBeUpdatedAndRemoved() {
+        LogicalFlowGraph graph = mkGraph();
+
+        graph.upsert(104L, C, D, new long[]{10L});  // retarget C -> X to C -> D
+        assertEquals(4, graph.flowCount());
+        assertEquals(
+                asSet(B, C, D),
+                distances(graph.traverse(A, FlowDirection.OUTBOUND, 10, Optional.of(10L), dt -> dt == 10L)).keySet());
+
+        assertTrue(graph.remove(102L));
+        assertFalse(graph.remove(102L));
+        assertEquals(asList(A, B, C, D), graph.findRoute(A, D, Optional.empty(), ANY).get().nodes());
+
+        graph.upsert(105L, A, D, new long[]{20L});
+        assertEquals(asList(105L), graph.findRoute(A, D, Optional.empty(), ANY).get().flowIds(), "reuses removed slot");
+        assertEquals(4, graph.flowCount());
+    }
+
+
+    @Test
+    public void updatesCanBeAppliedTogether() {
+        LogicalFlowGraph graph = mkGraph();
+
+        graph.updateAll(g -> {
+            g.remove(101L);
+            g.upsert(106L, A, D, new long[]{10L});
+        });
+
+        assertEquals(4, graph.flowCount());
+        assertEquals(
+                asSet(C, D, X),
+                distances(graph.traverse(A, FlowDirection.OUTBOUND, 10, Optional.empty(), ANY)).keySet());
+    }
+
+
+    // -- helpers
+
+    /**
+     * A -> B -> C -> X (actor), A -> C. D is isolated.
+     * All flows carry data type 10, except C -> X which carries 20.
+     */
+    private static LogicalFlowGraph mkGraph() {
+        LogicalFlowGraph graph = new LogicalFlowGraph();
+        graph.upsert(101L, A, B, new long[]{10L});
+        graph.upsert(102L, A, C, new long[]{10L});
+        graph.upsert(103L, B, C, new long[]{10L});
+        graph.upsert(104L, C, X, new long[]{20L});
+        graph.upsert(999L, D, app(5), new long[]{10L});
+        graph.remove(999L);
+        return graph;
+    }
+
+
+    private static Map<EntityReference, Integer> distances(LogicalFlowLineage lineage) {
+        return lineage
+                .nodes()
+                .stream()
+                .collect(toMap(LogicalFlowLineageNode::entityReference, LogicalFlowLineageNode::distance));
+    }
+
+
+    private static EntityReference app(long id) {
+        return mkRef(EntityKind.APPLICATION, id);
+    }
+}
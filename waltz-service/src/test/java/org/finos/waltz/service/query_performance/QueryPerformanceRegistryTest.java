@@ -0,0 +1,71 @@
+package org.finos.waltz.service.query_performance;
+
+import org.finos.waltz.model.query_performance.QueryPerformanceSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.CollectionUtilities.first;
+import static org.finos.waltz.service.query_performance.QueryPerformanceRegistry.normalise;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QueryPerformanceRegistryTest {
+
+    @Test
+    public void normaliseRemovesLiteralsAndCollapsesLists() {
+        assertEquals(
+                "select \"app\".\"id\" from \"app\" where \"app\".\"id\" in (?...) and \"app\".\"name\" = ?",
+                normalise("select \"app\".\"id\"\n  from \"app\"\n where \"app\".\"id\" in (1, 2, 3) and \"app\".\"name\" = 'it''s'"));
+
+        assertEquals(
+                normalise("select * from t1 where x = ? and y in (?, ?)"),
+                normalise("select * from t1 where x = 42 and y in (7, -8)"),
+                "bind and inlined values give the same shape");
+
+        assertEquals("select * from t1 where x = ?", normalise("select * from t1 where x = 1.5"), "identifiers containing digits are kept");
+        assertEquals("", normalise(null));
+    }
+
+
+    @Test
+    public void recordsAreGroupedByShape() {
+        QueryPerformanceRegistry registry = new QueryPerformanceRegistry(10);
+
+        registry.record("select * from a where id = 1", TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(6), TimeUnit.MILLISECONDS.toNanos(4), 1, false);
+        registry.record("select * from a where id = 2", TimeUnit.MILLISECONDS.toNanos(30), TimeUnit.MILLISECONDS.toNanos(20), TimeUnit.MILLISECONDS.toNanos(10), 3, true);
+        registry.record("select * from b", TimeUnit.MILLISECONDS.toNanos(1), 0, 0, 0, false);
+
+        List<QueryPerformanceSummary> summaries = registry.findAll();
+        assertEquals(2, summaries.size());
+
+        QueryPerformanceSummary top = first(summaries);
+        assertEquals("select * from a where id = ?", top.sql(), "ordered by total time");
+        assertEquals(2, top.executionCount());
+        assertEquals(1, top.errorCount());
+        assertEquals(4, top.rowCount());
+        assertEquals(40, top.totalMillis(), 0.001);
+        assertEquals(13, top.meanExecuteMillis(), 0.001);
+        assertEquals(7, top.meanFetchMillis(), 0.001);
+        assertEquals(30, top.maxMillis(), 0.001);
+    }
+
+
+    @Test
+    public void shapesBeyondTheLimitAreGroupedTogether() {
+        QueryPerformanceRegistry registry = new QueryPerformanceRegistry(1);
+
+        registry.record("select * from a", 1, 0, 0, 0, false);
+        registry.record("select * from b", 1, 0, 0, 0, false);
+        registry.record("select * from c", 1, 0, 0, 0, false);
+
+        assertEquals(2, registry.size());
+        assertTrue(registry
+                .findAll()
+                .stream()
+                .anyMatch(s -> s.sql().equals(QueryPerformanceRegistry.OTHER_QUERIES) && s.executionCount() == 2));
+
+        registry.reset();
+        assertEquals(0, registry.size());
+    }
+}
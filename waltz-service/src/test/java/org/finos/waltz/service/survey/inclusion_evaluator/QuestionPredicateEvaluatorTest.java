@@ -0,0 +1,107 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.service.survey.inclusion_evaluator;
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestion;
+import org.finos.waltz.model.survey.ImmutableSurveyQuestionResponse;
+import org.finos.waltz.model.survey.SurveyQuestion;
+import org.finos.waltz.model.survey.SurveyQuestionFieldType;
+import org.finos.waltz.model.survey.SurveyQuestionResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.finos.waltz.common.ListUtilities.asList;
+import static org.finos.waltz.common.ListUtilities.map;
+import static org.finos.waltz.common.MapUtilities.newHashMap;
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class QuestionPredicateEvaluatorTest {
+
+    private static final EntityReference SUBJECT = mkRef(EntityKind.MEASURABLE, 1L);
+
+    private static final SurveyQuestion Q1 = mkQuestion(1L, "Q1", null);
+    private static final SurveyQuestion Q2 = mkQuestion(2L, "Q2", "isChecked('Q1')");
+    private static final SurveyQuestion Q3 = mkQuestion(3L, "Q3", "ditto('Q2')");
+    private static final SurveyQuestion Q4 = mkQuestion(4L, "Q4", "numberValue('Q1', 10) > 5");
+
+    private static final List<SurveyQuestion> QUESTIONS = asList(Q1, Q2, Q3, Q4);
+
+
+    @Test
+    public void questionsWithoutPredicatesAreAlwaysActive() {
+        List<SurveyQuestion> active = QuestionPredicateEvaluator.eval(
+                null,
+                QUESTIONS,
+                SUBJECT,
+                Collections.emptyMap());
+
+        assertEquals(asList("Q1", "Q4"), toExtIds(active));
+    }
+
+
+    @Test
+    public void predicatesAreEvaluatedAgainstTheResponsesOfEachEvaluation() {
+        Map<Long, SurveyQuestionResponse> checked = newHashMap(1L, mkBooleanResponse(1L, true));
+        Map<Long, SurveyQuestionResponse> unchecked = newHashMap(1L, mkBooleanResponse(1L, false));
+
+        assertEquals(
+                asList("Q1", "Q2", "Q3", "Q4"),
+                toExtIds(QuestionPredicateEvaluator.eval(null, QUESTIONS, SUBJECT, checked)),
+                "ditto should follow the referenced question's predicate");
+
+        assertEquals(
+                asList("Q1", "Q4"),
+                toExtIds(QuestionPredicateEvaluator.eval(null, QUESTIONS, SUBJECT, unchecked)),
+                "cached expressions should not retain responses from earlier evaluations");
+    }
+
+
+    private static List<String> toExtIds(List<SurveyQuestion> qs) {
+        return map(qs, q -> q.externalId().orElse(null));
+    }
+
+
+    private static SurveyQuestionResponse mkBooleanResponse(long questionId, boolean value) {
+        return ImmutableSurveyQuestionResponse.builder()
+                .questionId(questionId)
+                .booleanResponse(value)
+                .build();
+    }
+
+
+    private static SurveyQuestion mkQuestion(long id, String extId, String predicate) {
+        return ImmutableSurveyQuestion.builder()
+                .id(id)
+                .externalId(extId)
+                .surveyTemplateId(1L)
+                .questionText(extId)
+                .fieldType(SurveyQuestionFieldType.BOOLEAN)
+                .inclusionPredicate(Optional.ofNullable(predicate))
+                .build();
+    }
+
+}
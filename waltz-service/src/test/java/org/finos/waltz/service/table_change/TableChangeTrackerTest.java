@@ -0,0 +1,61 @@
+package org.finos.waltz.service.table_change;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.Collections.singletonList;
+import static org.finos.waltz.schema.Tables.COST;
+import static org.finos.waltz.schema.Tables.INVOLVEMENT;
+import static org.finos.waltz.service.table_change.TableChangeTracker.modifiedTable;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TableChangeTrackerTest {
+
+    @Test
+    public void modifiedTableIsFoundForDmlStatements() {
+        assertEquals(Optional.of("cost"), modifiedTable("insert into \"waltz\".\"cost\" (\"id\") values (?)"));
+        assertEquals(Optional.of("cost"), modifiedTable("\n  update [waltz].[dbo].[cost] set [amount] = 1"));
+        assertEquals(Optional.of("cost"), modifiedTable("delete from cost where id = 1"));
+        assertEquals(Optional.of("cost"), modifiedTable("DELETE \"COST\" WHERE id = 1"));
+        assertEquals(Optional.of("cost"), modifiedTable("merge into `cost` using (select 1) t on (1 = 1)"));
+        assertEquals(Optional.of("cost"), modifiedTable("truncate table cost"));
+    }
+
+
+    @Test
+    public void queriesDoNotModifyTables() {
+        assertEquals(Optional.empty(), modifiedTable("select * from cost where note = 'update cost'"));
+        assertEquals(Optional.empty(), modifiedTable(null));
+    }
+
+
+    @Test
+    public void subscribersAreOnlyNotifiedOfChangesToTheirTables() {
+        TableChangeTracker tracker = new TableChangeTracker();
+        AtomicInteger notifications = new AtomicInteger();
+        tracker.subscribe(singletonList(COST), notifications::incrementAndGet);
+
+        tracker.recordStatement("update \"involvement\" set \"kind_id\" = 2");
+        tracker.recordStatement("select * from \"cost\"");
+        assertEquals(0, notifications.get());
+
+        tracker.recordStatement("update \"cost\" set \"amount\" = 2");
+        assertEquals(1, notifications.get());
+        assertEquals(1, tracker.getChangeCount(COST));
+        assertEquals(1, tracker.getChangeCount(INVOLVEMENT));
+    }
+
+
+    @Test
+    public void failingSubscribersDoNotStopOthers() {
+        TableChangeTracker tracker = new TableChangeTracker();
+        AtomicInteger notifications = new AtomicInteger();
+        tracker.subscribe(singletonList(COST), () -> { throw new IllegalStateException("boom"); });
+        tracker.subscribe(singletonList(COST), notifications::incrementAndGet);
+
+        tracker.recordChange("COST");
+        assertEquals(1, notifications.get());
+    }
+}
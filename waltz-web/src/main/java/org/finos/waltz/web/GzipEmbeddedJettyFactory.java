@@ -0,0 +1,119 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web;
+
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+import org.eclipse.jetty.util.thread.ThreadPool;
+import spark.ExceptionMapper;
+import spark.embeddedserver.EmbeddedServer;
+import spark.embeddedserver.EmbeddedServerFactory;
+import spark.embeddedserver.jetty.EmbeddedJettyServer;
+import spark.embeddedserver.jetty.JettyHandler;
+import spark.embeddedserver.jetty.JettyServerFactory;
+import spark.http.matching.MatcherFilter;
+import spark.route.Routes;
+import spark.staticfiles.StaticFilesConfiguration;
+
+import static org.finos.waltz.common.Checks.checkTrue;
+
+
+/**
+ * Creates the embedded Jetty server used by Spark with a `GzipHandler`
+ * in front of Spark's own handler.
+ *
+ * Responses are compressed as they are written (so streamed responses
+ * are never buffered in full) whenever the client accepts gzip and the
+ * response is at least `minimumSize` bytes.  Content which is already
+ * compressed (images, archives and office documents such as the xlsx
+ * extracts) is passed through untouched.
+ *
+ * Apart from the gzip handler this mirrors Spark's default `EmbeddedJettyFactory`.
+ */
+public class GzipEmbeddedJettyFactory implements EmbeddedServerFactory {
+
+    private static final String[] ALREADY_COMPRESSED_MIME_TYPES = {
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "application/vnd.openxmlformats-officedocument.presentationml.presentation",
+            "application/octet-stream"
+    };
+
+    private final int minimumSize;
+
+
+    public GzipEmbeddedJettyFactory(int minimumSize) {
+        checkTrue(minimumSize >= 0, "minimumSize cannot be negative");
+        this.minimumSize = minimumSize;
+    }
+
+
+    @Override
+    public EmbeddedServer create(Routes routeMatcher,
+                                 StaticFilesConfiguration staticFilesConfiguration,
+                                 ExceptionMapper exceptionMapper,
+                                 boolean hasMultipleHandler) {
+        MatcherFilter matcherFilter = new MatcherFilter(
+                routeMatcher,
+                staticFilesConfiguration,
+                exceptionMapper,
+                false,
+                hasMultipleHandler);
+        matcherFilter.init(null);
+
+        JettyHandler handler = new JettyHandler(matcherFilter);
+        handler.getSessionCookieConfig().setHttpOnly(true);
+
+        GzipHandler gzipHandler = new GzipHandler();
+        gzipHandler.setMinGzipSize(minimumSize);
+        gzipHandler.setIncludedMethods("GET", "POST");
+        gzipHandler.addExcludedMimeTypes(ALREADY_COMPRESSED_MIME_TYPES);
+        gzipHandler.setHandler(handler);
+
+        return new EmbeddedJettyServer(new DefaultJettyServerFactory(), gzipHandler);
+    }
+
+
+    /**
+     * Equivalent of Spark's (package private) default server factory.
+     */
+    private static class DefaultJettyServerFactory implements JettyServerFactory {
+
+        @Override
+        public Server create(int maxThreads, int minThreads, int threadTimeoutMillis) {
+            if (maxThreads > 0) {
+                int min = minThreads > 0 ? minThreads : 8;
+                int idleTimeout = threadTimeoutMillis > 0 ? threadTimeoutMillis : 60000;
+                return new Server(new QueuedThreadPool(maxThreads, min, idleTimeout));
+            } else {
+                return new Server();
+            }
+        }
+
+
+        @Override
+        public Server create(ThreadPool threadPool) {
+            return threadPool != null
+                    ? new Server(threadPool)
+                    : new Server();
+        }
+    }
+
+}
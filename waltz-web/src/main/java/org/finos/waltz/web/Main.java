@@ -38,7 +38,9 @@ import org.springframework.dao.DataIntegrityViolationException;
 import spark.Request;
 import spark.Response;
 import spark.Spark;
+import spark.embeddedserver.EmbeddedServers;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 import java.util.TimeZone;
 
@@ -109,6 +111,8 @@ public class Main {
 
         ctx = new AnnotationConfigApplicationContext(DIConfiguration.class);
 
+        enableGZIP();
+
         Map<String, Endpoint> endpoints = ctx.getBeansOfType(Endpoint.class);
         endpoints.forEach((name, endpoint) -> {
             LOG.info("Registering Endpoint: {}", name);
@@ -126,7 +130,6 @@ public class Main {
         LOG.info("Completed endpoint registration");
 
         registerExceptionHandlers();
-        enableGZIP();
         enableCORS();
     }
 
@@ -226,6 +229,10 @@ public class Main {
     }
 
 
+    /**
+     * Must be called before any routes are registered, as registering the
+     * first route causes Spark to create the embedded server.
+     */
     private void enableGZIP() {
         SettingsService settingsService = ctx.getBean(SettingsService.class);
 
@@ -242,11 +249,20 @@ public class Main {
                     .map(Integer::parseInt)
                     .orElse(8192);
 
-            after(((request, response) -> {
-                if(response.body() != null && response.body().length() >= minimumLength) {
-                    response.header("Content-Encoding", "gzip");
+            EmbeddedServers.add(
+                    EmbeddedServers.Identifiers.JETTY,
+                    new GzipEmbeddedJettyFactory(minimumLength));
+
+            // Spark flushes bodies before completing the response, so Jetty cannot
+            // tell that a short body is below the minimum size unless we say so.
+            // Bodies with fewer characters than the minimum are the only ones
+            // which may be under it (in bytes) so we only measure those.
+            afterAfter((request, response) -> {
+                String body = response.body();
+                if (body != null && body.length() < minimumLength) {
+                    response.raw().setContentLength(body.getBytes(StandardCharsets.UTF_8).length);
                 }
-            }));
+            });
 
             LOG.info("Enabled GZIP (size: " + minimumLength + ")");
 
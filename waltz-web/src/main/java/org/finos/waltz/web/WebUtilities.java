@@ -18,7 +18,10 @@
 
 package org.finos.waltz.web;
 
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JSR310Module;
@@ -36,6 +39,7 @@ import spark.Request;
 import spark.Response;
 import spark.ResponseTransformer;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
@@ -74,6 +78,51 @@ public class WebUtilities {
 
     public static final ResponseTransformer transformer = mapper::writeValueAsString;
 
+    /**
+     * Used when writing elements individually to a generator, flushing after
+     * each element would defeat the response buffering (and compression).
+     */
+    private static final ObjectWriter elementWriter = mapper
+            .writer()
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+
+    /**
+     * Writes the items as a json array directly to the response output stream,
+     * one element at a time, rather than rendering the whole array to a String
+     * first.  The items are only iterated once, so lazily evaluated collections
+     * are never held in memory in their entirety.
+     *
+     * The response is committed (and closed) by this method, headers must be
+     * set beforehand.
+     *
+     * @param response  spark response object
+     * @param items  items to write, `null` is written as the json `null`
+     * @return the underlying (completed) http response
+     * @throws IOException if the response cannot be written
+     */
+    public static HttpServletResponse writeJsonArray(Response response,
+                                                     Iterable<?> items) throws IOException {
+        checkNotNull(response, "response must not be null");
+
+        HttpServletResponse httpResponse = response.raw();
+        try (JsonGenerator generator = mapper
+                .getFactory()
+                .createGenerator(httpResponse.getOutputStream(), JsonEncoding.UTF8)) {
+
+            if (items == null) {
+                generator.writeNull();
+            } else {
+                generator.writeStartArray();
+                for (Object item : items) {
+                    elementWriter.writeValue(generator, item);
+                }
+                generator.writeEndArray();
+            }
+        }
+        return httpResponse;
+    }
+
 
     /**
      * @see StringUtilities
@@ -20,9 +20,12 @@ package org.finos.waltz.web.endpoints;
 
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
 import org.finos.waltz.web.WebUtilities;
 import spark.*;
 
+import java.util.stream.Stream;
+
 import static org.finos.waltz.web.WebUtilities.TYPE_JSON;
 
 
@@ -34,12 +37,32 @@ public class EndpointUtilities {
     /**
      * Helper method to register a route which provides a list of items.
      * This helps comprehension as the return types of routes becomes explicit.
+     * The list is streamed to the client as a json array.
      * @param path
      * @param handler
      * @param <T>
      */
     public static <T> void getForList(String path, ListRoute<T> handler) {
-        Spark.get(path, wrapListHandler(handler), transformer);
+        Spark.get(path, wrapListHandler(handler));
+    }
+
+
+    /**
+     * Helper method to register a route which lazily provides a (potentially
+     * large) list of items.  Items are written to the client as a json array
+     * as they are read, so the list is never held in memory.  The stream is
+     * closed (releasing any underlying cursor) once the response is written.
+     * @param path
+     * @param handler
+     * @param <T>
+     */
+    public static <T> void getForStream(String path, StreamRoute<T> handler) {
+        Spark.get(path, wrapStreamHandler(handler));
+    }
+
+
+    public static <T> void postForStream(String path, StreamRoute<T> handler) {
+        Spark.post(path, wrapStreamHandler(handler));
     }
 
 
@@ -60,11 +83,11 @@ public class EndpointUtilities {
     }
 
     public static <T> void postForList(String path, ListRoute<T> handler) {
-        Spark.post(path, wrapListHandler(handler), transformer);
+        Spark.post(path, wrapListHandler(handler));
     }
 
     public static <T> void deleteForList(String path, ListRoute<T> handler) {
-        Spark.delete(path, wrapListHandler(handler), transformer);
+        Spark.delete(path, wrapListHandler(handler));
     }
 
     public static <T> void deleteForDatum(String path, DatumRoute<T> handler) {
@@ -76,7 +99,7 @@ public class EndpointUtilities {
     }
 
     public static <T> void putForList(String path, ListRoute<T> handler) {
-        Spark.put(path, wrapListHandler(handler), transformer);
+        Spark.put(path, wrapListHandler(handler));
     }
 
     public static <T extends Exception> void addExceptionHandler(Class<T> exceptionClass, ExceptionHandler<T> handler) {
@@ -94,10 +117,29 @@ public class EndpointUtilities {
 
     // -- helpers ---
 
+    /**
+     * List results are streamed straight to the response (see
+     * {@link WebUtilities#writeJsonArray(Response, Iterable)}) rather than
+     * being rendered to a String by the transformer.
+     */
     private static <T> Route wrapListHandler(ListRoute<T> handler) {
         return (request, response) -> {
             response.type(TYPE_JSON);
-            return handler.apply(request, response);
+            return WebUtilities.writeJsonArray(response, handler.apply(request, response));
+        };
+    }
+
+    /**
+     * Stream results are written as they are read from the cursor and the
+     * stream (and its connection) closed once the response is complete.
+     */
+    private static <T> Route wrapStreamHandler(StreamRoute<T> handler) {
+        return (request, response) -> {
+            response.type(TYPE_JSON);
+            try (Stream<T> items = handler.apply(request, response)) {
+                Iterable<T> iterable = items == null ? null : items::iterator;
+                return WebUtilities.writeJsonArray(response, iterable);
+            }
         };
     }
 
@@ -24,6 +24,7 @@ import org.finos.waltz.web.ListRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.entity_hierarchy.EntityHierarchyRebuildSummary;
 import org.finos.waltz.model.tally.Tally;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,14 +65,17 @@ public class EntityHierarchyEndpoint implements Endpoint {
         String findRootTalliesPath = mkPath(BASE, "root-tallies");
         String findRootsPath = mkPath(BASE, "roots", ":kind");
         String buildByKindPath = mkPath(BASE, "build", ":kind");
+        String findLastRebuildSummariesPath = mkPath(BASE, "rebuild-summaries");
 
         ListRoute<Tally<String>> findTalliesRoute = (request, response) -> entityHierarchyService.tallyByKind();
         ListRoute<Tally<String>> findRootTalliesRoute = (request, response) -> entityHierarchyService.getRootTallies();
         ListRoute<EntityReference> findRootsRoute = (request, response) -> entityHierarchyService.getRoots(getKind(request));
+        ListRoute<EntityHierarchyRebuildSummary> findLastRebuildSummariesRoute = (request, response) -> entityHierarchyService.findLastRebuildSummaries();
 
         getForList(findTalliesPath, findTalliesRoute);
         getForList(findRootTalliesPath, findRootTalliesRoute);
         getForList(findRootsPath, findRootsRoute);
+        getForList(findLastRebuildSummariesPath, findLastRebuildSummariesRoute);
         postForDatum(buildByKindPath, this::buildByKindRoute);
     }
 
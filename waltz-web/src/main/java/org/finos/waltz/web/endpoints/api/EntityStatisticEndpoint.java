@@ -19,6 +19,7 @@
 package org.finos.waltz.web.endpoints.api;
 
 import org.finos.waltz.service.entity_statistic.EntityStatisticService;
+import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
@@ -33,6 +34,7 @@ import org.finos.waltz.model.entity_statistic.EntityStatisticValue;
 import org.finos.waltz.model.entity_statistic.RollupKind;
 import org.finos.waltz.model.immediate_hierarchy.ImmediateHierarchy;
 import org.finos.waltz.model.tally.TallyPack;
+import org.finos.waltz.model.user.SystemRole;
 import org.finos.waltz.web.WebUtilities;
 import org.finos.waltz.web.endpoints.EndpointUtilities;
 import org.slf4j.Logger;
@@ -54,14 +56,18 @@ public class EntityStatisticEndpoint implements Endpoint {
     private static final String BASE_URL = WebUtilities.mkPath("api", "entity-statistic");
 
     private final EntityStatisticService entityStatisticService;
+    private final UserRoleService userRoleService;
 
     private static final Logger LOG = LoggerFactory.getLogger(EntityStatisticEndpoint.class);
 
 
     @Autowired
-    public EntityStatisticEndpoint(EntityStatisticService entityStatisticService) {
+    public EntityStatisticEndpoint(EntityStatisticService entityStatisticService,
+                                   UserRoleService userRoleService) {
         checkNotNull(entityStatisticService, "entityStatisticService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
         this.entityStatisticService = entityStatisticService;
+        this.userRoleService = userRoleService;
     }
 
 
@@ -117,6 +123,7 @@ public class EntityStatisticEndpoint implements Endpoint {
         String findStatTalliesPath = WebUtilities.mkPath(BASE_URL, "tally");
         String calculateStatTallyPath = WebUtilities.mkPath(BASE_URL, "tally", ":id", ":rollupKind");
         String calculateHistoricStatTallyPath = WebUtilities.mkPath(BASE_URL, "tally", "historic", ":id", ":rollupKind");
+        String rebuildHistoricRollupsPath = WebUtilities.mkPath(BASE_URL, "tally", "historic", "rebuild");
 
         ListRoute<EntityStatisticDefinition> findAllActiveDefinitionsRoute = (request, response)
                 -> entityStatisticService.findAllActiveDefinitions(true);
@@ -136,6 +143,11 @@ public class EntityStatisticEndpoint implements Endpoint {
         DatumRoute<ImmediateHierarchy<EntityStatisticDefinition>> getRelatedStatDefinitionsRoute = (request, response)
                 -> entityStatisticService.getRelatedStatDefinitions(WebUtilities.getLong(request, "statId"), true);
 
+        DatumRoute<Integer> rebuildHistoricRollupsRoute = (request, response) -> {
+            WebUtilities.requireRole(userRoleService, request, SystemRole.ADMIN);
+            return entityStatisticService.rebuildHistoricRollups();
+        };
+
         EndpointUtilities.getForList(findAllActiveDefinitionsPath, findAllActiveDefinitionsRoute);
         EndpointUtilities.getForList(findStatsForEntityPath, findStatsForEntityRoute);
         EndpointUtilities.postForList(findStatValuesBySelectorPath, findStatValuesForAppSelectorRoute);
@@ -145,6 +157,7 @@ public class EntityStatisticEndpoint implements Endpoint {
         EndpointUtilities.postForDatum(calculateHistoricStatTallyPath, this::calculateHistoricStatTallyRoute);
         EndpointUtilities.getForDatum(getRelatedStatDefinitionsPath, getRelatedStatDefinitionsRoute);
         EndpointUtilities.getForDatum(findDefinitionPath, findDefinitionRoute);
+        EndpointUtilities.postForDatum(rebuildHistoricRollupsPath, rebuildHistoricRollupsRoute);
     }
 
 }
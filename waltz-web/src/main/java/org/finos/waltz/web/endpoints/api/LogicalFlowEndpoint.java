@@ -22,6 +22,7 @@ import org.finos.waltz.service.logical_flow.LogicalFlowService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.common.StringUtilities;
 import org.finos.waltz.model.EntityReference;
@@ -91,8 +92,8 @@ public class LogicalFlowEndpoint implements Endpoint {
         ListRoute<LogicalFlow> getByEntityRef = (request, response)
                 -> logicalFlowService.findByEntityReference(getEntityReference(request));
 
-        ListRoute<LogicalFlow> findBySelectorRoute = (request, response)
-                -> logicalFlowService.findBySelector(readIdSelectionOptionsFromBody(request));
+        StreamRoute<LogicalFlow> findBySelectorRoute = (request, response)
+                -> logicalFlowService.streamBySelector(readIdSelectionOptionsFromBody(request));
 
         ListRoute<LogicalFlow> findByIdsRoute = (request, response)
                 -> logicalFlowService.findActiveByFlowIds(readIdsFromBody(request));
@@ -121,7 +122,7 @@ public class LogicalFlowEndpoint implements Endpoint {
         getForDatum(getFlowGraphSummaryPath, getGraphSummaryRoute);
         postForList(findByIdsPath, findByIdsRoute);
         postForList(findUpstreamFlowsForEntityReferencesPath, findUpstreamFlowsForEntityReferencesRoute);
-        postForList(findBySelectorPath, findBySelectorRoute);
+        postForStream(findBySelectorPath, findBySelectorRoute);
         postForDatum(findBySourceAndTargetsPath, this::findBySourceAndTargetsRoute);
         postForDatum(findStatsPath, findStatsRoute);
         deleteForDatum(removeFlowPath, this::removeFlowRoute);
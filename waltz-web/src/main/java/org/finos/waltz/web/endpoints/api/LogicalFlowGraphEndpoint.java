@@ -0,0 +1,116 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.logical_flow.LogicalFlowImpactSummary;
+import org.finos.waltz.model.logical_flow.LogicalFlowLineage;
+import org.finos.waltz.model.logical_flow.LogicalFlowRoute;
+import org.finos.waltz.service.logical_flow.LogicalFlowGraphService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import spark.Request;
+
+import java.util.Optional;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.web.WebUtilities.getEntityReference;
+import static org.finos.waltz.web.WebUtilities.mkPath;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForDatum;
+
+
+/**
+ * Lineage queries answered from the in-memory logical flow graph.
+ *
+ * Optional query parameters:
+ * <ul>
+ *     <li>`dataTypeId` - only follow flows of this data type (or its descendants)</li>
+ *     <li>`maxDepth` - maximum number of hops for upstream/downstream queries (default 10)</li>
+ * </ul>
+ */
+@Service
+public class LogicalFlowGraphEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "logical-flow-graph");
+
+    private final LogicalFlowGraphService logicalFlowGraphService;
+
+
+    @Autowired
+    public LogicalFlowGraphEndpoint(LogicalFlowGraphService logicalFlowGraphService) {
+        checkNotNull(logicalFlowGraphService, "logicalFlowGraphService cannot be null");
+        this.logicalFlowGraphService = logicalFlowGraphService;
+    }
+
+
+    @Override
+    public void register() {
+        String getUpstreamPath = mkPath(BASE_URL, "entity", ":kind", ":id", "upstream");
+        String getDownstreamPath = mkPath(BASE_URL, "entity", ":kind", ":id", "downstream");
+        String calculateImpactPath = mkPath(BASE_URL, "entity", ":kind", ":id", "impact");
+        String findRoutePath = mkPath(BASE_URL, "route", ":sourceKind", ":sourceId", ":targetKind", ":targetId");
+
+        DatumRoute<LogicalFlowLineage> getUpstreamRoute = (request, response)
+                -> logicalFlowGraphService.getUpstream(
+                        getEntityReference(request),
+                        getMaxDepth(request),
+                        getDataTypeId(request));
+
+        DatumRoute<LogicalFlowLineage> getDownstreamRoute = (request, response)
+                -> logicalFlowGraphService.getDownstream(
+                        getEntityReference(request),
+                        getMaxDepth(request),
+                        getDataTypeId(request));
+
+        DatumRoute<LogicalFlowImpactSummary> calculateImpactRoute = (request, response)
+                -> logicalFlowGraphService.calculateImpact(
+                        getEntityReference(request),
+                        getDataTypeId(request));
+
+        DatumRoute<LogicalFlowRoute> findRouteRoute = (request, response)
+                -> logicalFlowGraphService
+                        .findRoute(
+                                getEntityReference(request, "sourceKind", "sourceId"),
+                                getEntityReference(request, "targetKind", "targetId"),
+                                getDataTypeId(request))
+                        .orElse(null);
+
+        getForDatum(getUpstreamPath, getUpstreamRoute);
+        getForDatum(getDownstreamPath, getDownstreamRoute);
+        getForDatum(calculateImpactPath, calculateImpactRoute);
+        getForDatum(findRoutePath, findRouteRoute);
+    }
+
+
+    private static Optional<Long> getDataTypeId(Request request) {
+        return Optional
+                .ofNullable(request.queryParams("dataTypeId"))
+                .map(Long::valueOf);
+    }
+
+
+    private static Optional<Integer> getMaxDepth(Request request) {
+        return Optional
+                .ofNullable(request.queryParams("maxDepth"))
+                .map(Integer::valueOf);
+    }
+
+}
@@ -21,6 +21,7 @@ package org.finos.waltz.web.endpoints.api;
 import org.finos.waltz.service.measurable_rating.MeasurableRatingService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.StreamRoute;
 import org.finos.waltz.web.endpoints.Endpoint;
 import org.finos.waltz.model.EntityKind;
 import org.finos.waltz.model.EntityReference;
@@ -84,11 +85,11 @@ public class MeasurableRatingEndpoint implements Endpoint {
         ListRoute<MeasurableRating> findByMeasurableSelectorRoute = (request, response)
                 -> measurableRatingService.findByMeasurableIdSelector(readIdSelectionOptionsFromBody(request));
 
-        ListRoute<MeasurableRating> findByAppSelectorRoute = (request, response)
-                -> measurableRatingService.findByAppIdSelector(readIdSelectionOptionsFromBody(request));
+        StreamRoute<MeasurableRating> findByAppSelectorRoute = (request, response)
+                -> measurableRatingService.streamByAppIdSelector(readIdSelectionOptionsFromBody(request));
 
-        ListRoute<MeasurableRating> findByCategoryRoute = (request, response)
-                -> measurableRatingService.findByCategory(getId(request));
+        StreamRoute<MeasurableRating> findByCategoryRoute = (request, response)
+                -> measurableRatingService.streamByCategory(getId(request));
 
         ListRoute<Tally<Long>> countByMeasurableCategoryRoute = (request, response)
                 -> measurableRatingService.tallyByMeasurableCategoryId(getId(request));
@@ -101,8 +102,8 @@ public class MeasurableRatingEndpoint implements Endpoint {
 
         getForList(findForEntityPath, findForEntityRoute);
         postForList(findByMeasurableSelectorPath, findByMeasurableSelectorRoute);
-        postForList(findByAppSelectorPath, findByAppSelectorRoute);
-        getForList(findByCategoryPath, findByCategoryRoute);
+        postForStream(findByAppSelectorPath, findByAppSelectorRoute);
+        getForStream(findByCategoryPath, findByCategoryRoute);
         postForList(modifyMeasurableForEntityPath, this::saveRoute);
         deleteForList(modifyMeasurableForEntityPath, this::removeRoute);
         deleteForList(modifyCategoryForEntityPath, this::removeCategoryRoute);
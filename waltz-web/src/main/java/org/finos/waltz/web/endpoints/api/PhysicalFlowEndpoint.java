@@ -20,6 +20,7 @@ package org.finos.waltz.web.endpoints.api;
 
 import com.fasterxml.jackson.databind.JsonMappingException;
 import org.finos.waltz.service.physical_flow.PhysicalFlowService;
+import org.finos.waltz.service.physical_flow.PhysicalFlowUploadJobService;
 import org.finos.waltz.service.physical_flow.PhysicalFlowUploadService;
 import org.finos.waltz.service.user.UserRoleService;
 import org.finos.waltz.web.DatumRoute;
@@ -55,18 +56,22 @@ public class PhysicalFlowEndpoint implements Endpoint {
     private final PhysicalFlowService physicalFlowService;
     private final UserRoleService userRoleService;
     private final PhysicalFlowUploadService physicalFlowUploadService;
+    private final PhysicalFlowUploadJobService physicalFlowUploadJobService;
 
 
     @Autowired
     public PhysicalFlowEndpoint(PhysicalFlowService physicalFlowService,
                                 PhysicalFlowUploadService physicalFlowUploadService,
+                                PhysicalFlowUploadJobService physicalFlowUploadJobService,
                                 UserRoleService userRoleService) {
         checkNotNull(physicalFlowService, "physicalFlowService cannot be null");
         checkNotNull(physicalFlowUploadService, "physicalFlowUploadService cannot be null");
+        checkNotNull(physicalFlowUploadJobService, "physicalFlowUploadJobService cannot be null");
         checkNotNull(userRoleService, "userRoleService cannot be null");
 
         this.physicalFlowService = physicalFlowService;
         this.physicalFlowUploadService = physicalFlowUploadService;
+        this.physicalFlowUploadJobService = physicalFlowUploadJobService;
         this.userRoleService = userRoleService;
     }
 
@@ -154,6 +159,24 @@ public class PhysicalFlowEndpoint implements Endpoint {
                 BASE_URL,
                 "upload");
 
+        String submitUploadJobPath = WebUtilities.mkPath(
+                BASE_URL,
+                "upload",
+                "job");
+
+        String getUploadJobPath = WebUtilities.mkPath(
+                BASE_URL,
+                "upload",
+                "job",
+                ":jobId");
+
+        String findUploadJobResultsPath = WebUtilities.mkPath(
+                BASE_URL,
+                "upload",
+                "job",
+                ":jobId",
+                "results");
+
         String cleanupOrphansPath = WebUtilities.mkPath(BASE_URL, "cleanup-orphans");
 
 
@@ -187,6 +210,15 @@ public class PhysicalFlowEndpoint implements Endpoint {
                 (request, response) -> physicalFlowService
                         .getById(WebUtilities.getId(request));
 
+        DatumRoute<PhysicalFlowUploadJob> getUploadJobRoute =
+                (request, response) -> physicalFlowUploadJobService
+                        .getJob(WebUtilities.getUsername(request), request.params("jobId"))
+                        .orElse(null);
+
+        ListRoute<PhysicalFlowUploadCommandResponse> findUploadJobResultsRoute =
+                (request, response) -> physicalFlowUploadJobService
+                        .findResults(WebUtilities.getUsername(request), request.params("jobId"));
+
         DatumRoute<Boolean> mergeRoute =
                 (request, response) -> physicalFlowService
                         .merge(WebUtilities.getLong(request, "fromId"),
@@ -201,6 +233,8 @@ public class PhysicalFlowEndpoint implements Endpoint {
         EndpointUtilities.postForList(findBySelectorPath, findBySelectorRoute);
         EndpointUtilities.getForList(findByExternalIdPath, findByExternalIdRoute);
         EndpointUtilities.getForList(findUnderlyingPhysicalFlowsPath, findUnderlyingPhysicalFlowsRoute);
+        EndpointUtilities.getForDatum(getUploadJobPath, getUploadJobRoute);
+        EndpointUtilities.getForList(findUploadJobResultsPath, findUploadJobResultsRoute);
 
         EndpointUtilities.postForDatum(mergePath, mergeRoute);
         EndpointUtilities.postForDatum(createPath, this::createFlow);
@@ -208,6 +242,7 @@ public class PhysicalFlowEndpoint implements Endpoint {
         EndpointUtilities.postForDatum(updateAttributePath, this::updateAttribute);
         EndpointUtilities.postForDatum(validateUploadPath, this::validateUpload);
         EndpointUtilities.postForDatum(uploadPath, this::upload);
+        EndpointUtilities.postForDatum(submitUploadJobPath, this::submitUploadJob);
 
         EndpointUtilities.deleteForDatum(deletePath, this::deleteFlow);
         EndpointUtilities.getForDatum(cleanupOrphansPath, this::cleanupOrphansRoute);
@@ -297,6 +332,15 @@ public class PhysicalFlowEndpoint implements Endpoint {
     }
 
 
+    private PhysicalFlowUploadJob submitUploadJob(Request request, Response response) throws IOException {
+        WebUtilities.requireRole(userRoleService, request, SystemRole.LOGICAL_DATA_FLOW_EDITOR);
+        List<PhysicalFlowUploadCommand> commands = Arrays.asList(WebUtilities.readBody(request, PhysicalFlowUploadCommand[].class));
+        String username = WebUtilities.getUsername(request);
+
+        return physicalFlowUploadJobService.submit(username, commands);
+    }
+
+
     private Integer cleanupOrphansRoute(Request request, Response response) throws IOException {
         WebUtilities.requireRole(userRoleService, request, SystemRole.ADMIN);
 
@@ -0,0 +1,75 @@
+/*
+ * Waltz - Enterprise Architecture
+ * Copyright (C) 2016, 2017, 2018, 2019 Waltz open source project
+ * See README.md for more information
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific
+ *
+ */
+
+package org.finos.waltz.web.endpoints.api;
+
+import org.finos.waltz.model.query_performance.QueryPerformanceSummary;
+import org.finos.waltz.service.query_performance.QueryPerformanceService;
+import org.finos.waltz.service.user.UserRoleService;
+import org.finos.waltz.web.DatumRoute;
+import org.finos.waltz.web.ListRoute;
+import org.finos.waltz.web.endpoints.Endpoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import static org.finos.waltz.common.Checks.checkNotNull;
+import static org.finos.waltz.model.user.SystemRole.ADMIN;
+import static org.finos.waltz.web.WebUtilities.*;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.deleteForDatum;
+import static org.finos.waltz.web.endpoints.EndpointUtilities.getForList;
+
+@Service
+public class QueryPerformanceEndpoint implements Endpoint {
+
+    private static final String BASE_URL = mkPath("api", "query-performance");
+    private static final int DEFAULT_LIMIT = 50;
+
+    private final QueryPerformanceService queryPerformanceService;
+    private final UserRoleService userRoleService;
+
+
+    @Autowired
+    public QueryPerformanceEndpoint(QueryPerformanceService queryPerformanceService,
+                                    UserRoleService userRoleService) {
+        checkNotNull(queryPerformanceService, "queryPerformanceService cannot be null");
+        checkNotNull(userRoleService, "userRoleService cannot be null");
+
+        this.queryPerformanceService = queryPerformanceService;
+        this.userRoleService = userRoleService;
+    }
+
+
+    @Override
+    public void register() {
+        String findTopByTotalTimePath = mkPath(BASE_URL);
+        String resetPath = mkPath(BASE_URL);
+
+        ListRoute<QueryPerformanceSummary> findTopByTotalTimeRoute = (request, response) -> {
+            requireRole(userRoleService, request, ADMIN);
+            return queryPerformanceService.findTopByTotalTime(getLimit(request).orElse(DEFAULT_LIMIT));
+        };
+
+        DatumRoute<Boolean> resetRoute = (request, response) -> {
+            requireRole(userRoleService, request, ADMIN);
+            return queryPerformanceService.reset(getUsername(request));
+        };
+
+        getForList(findTopByTotalTimePath, findTopByTotalTimeRoute);
+        deleteForDatum(resetPath, resetRoute);
+    }
+}
@@ -49,6 +49,7 @@ public class TaxonomyManagementEndpoint implements Endpoint {
         registerPreviewById(WebUtilities.mkPath(BASE_URL, "pending-changes", "id", ":id", "preview"));
         registerApplyPendingChange(WebUtilities.mkPath(BASE_URL, "pending-changes", "id", ":id", "apply"));
         registerFindPendingChangesByDomain(WebUtilities.mkPath(BASE_URL, "pending-changes", "by-domain", ":kind", ":id"));
+        registerApplyPendingChangesByDomain(WebUtilities.mkPath(BASE_URL, "pending-changes", "by-domain", ":kind", ":id", "apply"));
     }
 
 
@@ -61,6 +62,15 @@ public class TaxonomyManagementEndpoint implements Endpoint {
     }
 
 
+    private void registerApplyPendingChangesByDomain(String path) {
+        EndpointUtilities.postForList(path, (req, resp) -> {
+            return taxonomyChangeService.applyAllByDomain(
+                    WebUtilities.getEntityReference(req),
+                    WebUtilities.getUsername(req));
+        });
+    }
+
+
     private void registerSubmitPendingChange(String path) {
         EndpointUtilities.postForDatum(path, (req, resp) -> {
             return taxonomyChangeService.submitDraftChange(
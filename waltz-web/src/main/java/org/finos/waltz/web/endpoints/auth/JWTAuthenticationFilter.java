@@ -22,24 +22,46 @@ import com.auth0.jwt.JWT;
 import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import org.finos.waltz.common.ExpiringCache;
 import org.finos.waltz.service.settings.SettingsService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.Request;
 import spark.Response;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.finos.waltz.common.DigestUtilities.digest;
+
 
 /**
  * Authentication filter which verifies a jwt token.  We only care
  * about the bearer name.
+ *
+ * Browsers reuse the same token for every request, so successfully
+ * verified tokens are remembered (by digest) along with their subject.
+ * As the digest covers the whole token, including the header naming the
+ * algorithm and the signature, a repeat of a cached token is exactly the
+ * token which was previously verified.  Cached tokens are forgotten once
+ * they expire.
  */
 public class JWTAuthenticationFilter extends WaltzFilter {
 
     private static final Logger LOG = LoggerFactory.getLogger(JWTAuthenticationFilter.class);
 
+    private static final int VERIFIED_TOKEN_CACHE_MAX_SIZE = 10_000;
+    private static final long VERIFIED_TOKEN_CACHE_TTL_MILLIS = TimeUnit.MINUTES.toMillis(15);
+
     private final JWTVerifier verifier256;
     private final JWTVerifier verifier512;
 
+    private final ExpiringCache<String, String> subjectsByTokenDigest = new ExpiringCache<>(
+            VERIFIED_TOKEN_CACHE_MAX_SIZE,
+            VERIFIED_TOKEN_CACHE_TTL_MILLIS);
+
 
     public JWTAuthenticationFilter(SettingsService settingsService) {
         super(settingsService);
@@ -65,16 +87,38 @@ public class JWTAuthenticationFilter extends WaltzFilter {
             AuthenticationUtilities.setUserAsAnonymous(request);
         } else {
             String token = authorizationHeader.replaceFirst("Bearer ", "");
-            DecodedJWT decodedToken = JWT.decode(token);
+            String tokenDigest = digest(token.getBytes(StandardCharsets.UTF_8), "SHA-256");
 
-            JWTVerifier verifier = selectVerifier(decodedToken);
+            Optional<String> cachedSubject = subjectsByTokenDigest.getIfPresent(tokenDigest);
+            String subject = cachedSubject.isPresent()
+                    ? cachedSubject.get()
+                    : verifyAndCache(token, tokenDigest);
 
-            DecodedJWT decodedJWT = verifier.verify(token);
-            AuthenticationUtilities.setUser(request, decodedJWT.getSubject());
+            AuthenticationUtilities.setUser(request, subject);
         }
     }
 
 
+    private String verifyAndCache(String token, String tokenDigest) {
+        DecodedJWT decodedToken = JWT.decode(token);
+
+        JWTVerifier verifier = selectVerifier(decodedToken);
+
+        DecodedJWT decodedJWT = verifier.verify(token);
+        String subject = decodedJWT.getSubject();
+
+        if (subject != null) {
+            Date expiresAt = decodedJWT.getExpiresAt();
+            subjectsByTokenDigest.put(
+                    tokenDigest,
+                    subject,
+                    expiresAt == null ? Long.MAX_VALUE : expiresAt.getTime());
+        }
+
+        return subject;
+    }
+
+
     private JWTVerifier mkVerifier(Algorithm algorithm) {
         return JWT
                 .require(algorithm)
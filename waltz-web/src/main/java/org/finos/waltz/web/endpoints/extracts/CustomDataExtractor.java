@@ -28,17 +28,23 @@ import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.stereotype.Service;
 import org.supercsv.io.CsvListWriter;
 import org.supercsv.prefs.CsvPreference;
+import spark.Response;
 
+import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.finos.waltz.common.ListUtilities.map;
 import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.convertExcelToByteArray;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.mkCsvWriter;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.mkStreamingWorkbook;
 import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.sanitizeSheetName;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.writeExcelToOutputStream;
 import static org.jooq.lambda.fi.util.function.CheckedConsumer.unchecked;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 
@@ -60,20 +66,73 @@ public abstract class CustomDataExtractor implements DataExtractor {
         }
     }
 
+
+    /**
+     * Streams the report directly to the response.  Rows are consumed from the
+     * given stream as they are written, therefore if the stream is backed by a
+     * lazy database cursor the complete report is never held in memory.
+     *
+     * @param response  web response, the output stream is closed once written
+     * @param format  format of the report
+     * @param reportName  used as the sheet name and suggested filename stem
+     * @param reportRows  stream of rows, each row should align with the headers
+     * @param headers  column headers
+     * @return the underlying http response
+     * @throws IOException  if the report cannot be written
+     */
+    public Object writeReportStream(Response response,
+                                    ExtractFormat format,
+                                    String reportName,
+                                    Stream<List<Object>> reportRows,
+                                    List<String> headers) throws IOException {
+        writeReportHeaders(response, format, reportName);
+        HttpServletResponse httpResponse = response.raw();
+
+        switch (format) {
+            case XLSX:
+                writeExcelToOutputStream(
+                        mkExcelWorkbook(reportName, reportRows, headers),
+                        httpResponse.getOutputStream());
+                break;
+            case CSV:
+                try (CsvListWriter csvWriter = mkCsvWriter(httpResponse.getOutputStream())) {
+                    writeCSV(csvWriter, reportRows, headers);
+                }
+                break;
+            default:
+                throw new UnsupportedOperationException("This report does not support export format: " + format);
+        }
+
+        return httpResponse;
+    }
+
+
     private byte[] mkCSVReport(List<List<Object>> reportRows, List<String> headers) throws IOException {
         StringWriter writer = new StringWriter();
         CsvListWriter csvWriter = new CsvListWriter(writer, CsvPreference.EXCEL_PREFERENCE);
 
+        writeCSV(csvWriter, reportRows.stream(), headers);
+
+        return writer.toString().getBytes();
+    }
+
+
+    private void writeCSV(CsvListWriter csvWriter,
+                          Stream<List<Object>> reportRows,
+                          List<String> headers) throws IOException {
         csvWriter.write(headers);
         reportRows.forEach(unchecked(row -> csvWriter.write(simplify(row))));
         csvWriter.flush();
-
-        return writer.toString().getBytes();
     }
 
 
     private byte[] mkExcelReport(String reportName, List<List<Object>> reportRows, List<String> headers) throws IOException {
-        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        return convertExcelToByteArray(mkExcelWorkbook(reportName, reportRows.stream(), headers));
+    }
+
+
+    private SXSSFWorkbook mkExcelWorkbook(String reportName, Stream<List<Object>> reportRows, List<String> headers) {
+        SXSSFWorkbook workbook = mkStreamingWorkbook();
         SXSSFSheet sheet = workbook.createSheet(sanitizeSheetName(reportName));
 
         int colCount = writeExcelHeader(sheet, headers);
@@ -82,7 +141,7 @@ public abstract class CustomDataExtractor implements DataExtractor {
         sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, colCount));
         sheet.createFreezePane(0, 1);
 
-        return convertExcelToByteArray(workbook);
+        return workbook;
     }
 
 
@@ -100,7 +159,7 @@ public abstract class CustomDataExtractor implements DataExtractor {
         cell.setCellValue(text);
     }
 
-    private int writeExcelBody(List<List<Object>> reportRows, SXSSFSheet sheet) {
+    private int writeExcelBody(Stream<List<Object>> reportRows, SXSSFSheet sheet) {
         AtomicInteger rowNum = new AtomicInteger(1);
         reportRows.forEach(values -> {
             Row row = sheet.createRow(rowNum.getAndIncrement());
@@ -36,11 +36,31 @@ public interface DataExtractor {
 
 
     default Object writeReportResults(Response response, Tuple3<ExtractFormat, String, byte[]> reportResult) throws IOException {
-        String templateName = reportResult.v2;
+        HttpServletResponse httpResponse = response.raw();
+
+        writeReportHeaders(response, reportResult.v1, reportResult.v2);
+
+        byte[] bytes = reportResult.v3;
+        httpResponse.setContentLength(bytes.length);
+        httpResponse.getOutputStream().write(bytes);
+        httpResponse.getOutputStream().flush();
+        httpResponse.getOutputStream().close();
+
+        return httpResponse;
+    }
+
 
+    /**
+     * Sets the content type and disposition headers appropriate to the given format.
+     *
+     * @param response  web response
+     * @param format  format of the extract
+     * @param templateName  used as the stem of the suggested filename
+     */
+    default void writeReportHeaders(Response response, ExtractFormat format, String templateName) {
         HttpServletResponse httpResponse = response.raw();
 
-        switch (reportResult.v1) {
+        switch (format) {
             case XLSX:
                 httpResponse.setHeader("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
                 httpResponse.setHeader("Content-Disposition", "attachment; filename=" + templateName + ".xlsx");
@@ -53,15 +73,6 @@ public interface DataExtractor {
             default:
                 break;
         }
-
-        byte[] bytes = reportResult.v3;
-        httpResponse.setContentLength(bytes.length);
-        httpResponse.getOutputStream().write(bytes);
-        httpResponse.getOutputStream().flush();
-        httpResponse.getOutputStream().close();
-
-        return httpResponse;
     }
 
-
 }
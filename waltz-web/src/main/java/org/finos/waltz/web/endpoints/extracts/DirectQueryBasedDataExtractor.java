@@ -25,11 +25,15 @@ import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.eclipse.jetty.http.MimeTypes;
+import org.jooq.Cursor;
 import org.jooq.DSLContext;
-import org.jooq.Result;
+import org.jooq.Field;
+import org.jooq.Record;
+import org.jooq.ResultQuery;
 import org.jooq.Select;
 import org.jooq.lambda.Unchecked;
 import org.jooq.lambda.tuple.Tuple2;
+import org.supercsv.io.CsvListWriter;
 import spark.Request;
 import spark.Response;
 
@@ -38,8 +42,13 @@ import java.io.IOException;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static org.finos.waltz.common.FunctionUtilities.time;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.EXTRACT_FETCH_SIZE;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.mkCsvWriter;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.writeExcelToOutputStream;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
@@ -74,7 +83,7 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
                                                 String suggestedFilenameStem,
                                                 Response response,
                                                 Tuple2<String, Select<?>>... sheetDefinitions) {
-        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        SXSSFWorkbook workbook = ExtractorUtilities.mkStreamingWorkbook();
 
         for (Tuple2<String, Select<?>> sheetDef : sheetDefinitions) {
             time("preparing excel sheet: " + sheetDef.v1, () -> {
@@ -101,7 +110,7 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
     private static Object writeAsExcel(String suggestedFilenameStem,
                                        Select<?> qry,
                                        Response response) throws IOException {
-        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        SXSSFWorkbook workbook = ExtractorUtilities.mkStreamingWorkbook();
         SXSSFSheet sheet = workbook.createSheet(ExtractorUtilities.sanitizeSheetName(suggestedFilenameStem));
 
         writeExcelHeader(qry, sheet);
@@ -118,57 +127,84 @@ public abstract class DirectQueryBasedDataExtractor implements DataExtractor {
     }
 
 
+    /**
+     * Writes the workbook straight to the response output stream.  No content length
+     * is given so the container will use a chunked transfer encoding, this avoids
+     * buffering the entire (zipped) workbook in memory.
+     */
     private static HttpServletResponse writeExcelToResponse(String suggestedFilenameStem,
                                                             Response response,
                                                             SXSSFWorkbook workbook) throws IOException {
-        byte[] bytes = ExtractorUtilities.convertExcelToByteArray(workbook);
-
         HttpServletResponse httpResponse = response.raw();
 
         httpResponse.setHeader("Content-Type", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
         httpResponse.setHeader("Content-Disposition", "attachment; filename=" + suggestedFilenameStem + ".xlsx");
         httpResponse.setHeader("Content-Transfer-Encoding", "7bit");
 
-        httpResponse.setContentLength(bytes.length);
-        httpResponse.getOutputStream().write(bytes);
-        httpResponse.getOutputStream().flush();
-        httpResponse.getOutputStream().close();
+        writeExcelToOutputStream(workbook, httpResponse.getOutputStream());
 
         return httpResponse;
     }
 
 
-    private Object writeAsCSV(String suggestedFilenameStem,
-                              Select<?> qry,
-                              Response response) {
-        String csv = qry.fetch().formatCSV();
+    /**
+     * Streams the query results, row by row, as csv to the response output stream.
+     * Rows are read from a lazy cursor so the full result set is never materialised.
+     */
+    private static Object writeAsCSV(String suggestedFilenameStem,
+                                     Select<?> qry,
+                                     Response response) throws IOException {
         response.type(MimeTypes.Type.TEXT_PLAIN.name());
         response.header("Content-disposition", "attachment; filename=" + suggestedFilenameStem + ".csv");
-        return csv;
+
+        HttpServletResponse httpResponse = response.raw();
+
+        try (Cursor<? extends Record> cursor = qry.fetchSize(EXTRACT_FETCH_SIZE).fetchLazy();
+             CsvListWriter csvWriter = mkCsvWriter(httpResponse.getOutputStream())) {
+
+            csvWriter.write(qry
+                    .fieldStream()
+                    .map(Field::getName)
+                    .collect(toList()));
+
+            for (Record r : cursor) {
+                csvWriter.write(r.intoList());
+            }
+
+            csvWriter.flush();
+        }
+
+        return httpResponse;
     }
 
 
     private static void writeExcelBody(Select<?> qry,
                                        SXSSFSheet sheet,
                                        DSLContext dsl) {
+        ResultQuery<? extends Record> lazyQry;
+        if (dsl == null) {
+            lazyQry = qry;
+        } else {
+            lazyQry = maybeInline(dsl, qry);
+        }
+
         AtomicInteger rowCounter = new AtomicInteger(1);
-        Result<?> records = dsl == null
-                ? qry.fetch()
-                : time("fetch", () -> dsl.fetch(dsl.renderInlined(qry)));
+        int colCount = qry.fields().length;
 
         time("record chomper", () -> {
-            int colCount = qry.fields().length;
-            records.forEach(r -> {
-                int rowNum = rowCounter.getAndIncrement();
-                Row row = sheet.createRow(rowNum);
-                for (int col = 0; col < colCount; col++) {
-                    Cell cell = row.createCell(col);
-                    Object val = r.get(col);
-                    if (val != null) {
-                        cell.setCellValue(val.toString());
+            try (Cursor<? extends Record> cursor = lazyQry.fetchSize(EXTRACT_FETCH_SIZE).fetchLazy()) {
+                cursor.forEach(r -> {
+                    int rowNum = rowCounter.getAndIncrement();
+                    Row row = sheet.createRow(rowNum);
+                    for (int col = 0; col < colCount; col++) {
+                        Cell cell = row.createCell(col);
+                        Object val = r.get(col);
+                        if (val != null) {
+                            cell.setCellValue(val.toString());
+                        }
                     }
-                }
-            });
+                });
+            }
         });
     }
 
@@ -2,10 +2,16 @@ package org.finos.waltz.web.endpoints.extracts;
 
 
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.supercsv.io.CsvListWriter;
+import org.supercsv.prefs.CsvPreference;
 import spark.Request;
 
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
 
 import static org.finos.waltz.common.EnumUtilities.readEnum;
 import static org.finos.waltz.common.StringUtilities.mkSafe;
@@ -13,14 +19,67 @@ import static org.finos.waltz.common.StringUtilities.mkSafe;
 
 public class ExtractorUtilities {
 
+    /**
+     * Number of rows requested from the database per round trip when
+     * extracts are streamed from a lazy cursor.
+     */
+    public static final int EXTRACT_FETCH_SIZE = 1000;
+
 
     public static byte[] convertExcelToByteArray(SXSSFWorkbook workbook) throws IOException {
         ByteArrayOutputStream outByteStream = new ByteArrayOutputStream();
-        workbook.write(outByteStream);
-        workbook.close();
+        writeExcelToOutputStream(workbook, outByteStream);
         return outByteStream.toByteArray();
     }
 
+
+    /**
+     * Creates a streaming workbook which only keeps a small window of rows
+     * in memory, older rows are flushed to (compressed) temporary files.
+     *
+     * @return a new streaming workbook
+     */
+    public static SXSSFWorkbook mkStreamingWorkbook() {
+        SXSSFWorkbook workbook = new SXSSFWorkbook();
+        workbook.setCompressTempFiles(true);
+        return workbook;
+    }
+
+
+    /**
+     * Writes the workbook to the given output stream and then closes the stream.
+     * The workbook is disposed of afterwards, removing any temporary files it created.
+     *
+     * @param workbook  workbook to write
+     * @param out  target stream, e.g. the servlet output stream
+     * @throws IOException  if the workbook cannot be written
+     */
+    public static void writeExcelToOutputStream(SXSSFWorkbook workbook,
+                                                OutputStream out) throws IOException {
+        try {
+            workbook.write(out);
+            out.flush();
+        } finally {
+            workbook.dispose();
+            workbook.close();
+            out.close();
+        }
+    }
+
+
+    /**
+     * Creates a csv writer (using excel preferences) which writes, via a buffer,
+     * directly to the given output stream.  Closing the writer closes the stream.
+     *
+     * @param out  target stream, e.g. the servlet output stream
+     * @return csv writer
+     */
+    public static CsvListWriter mkCsvWriter(OutputStream out) {
+        return new CsvListWriter(
+                new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)),
+                CsvPreference.EXCEL_PREFERENCE);
+    }
+
     /**
      * Reads the extract format from the web request.  Expects as a param with the
      * name `format`.  E.g. `my-extract?format=XLSX`
@@ -34,6 +34,7 @@ import static org.finos.waltz.schema.Tables.LICENCE;
 import static org.finos.waltz.schema.tables.SoftwareUsage.SOFTWARE_USAGE;
 import static org.finos.waltz.schema.tables.SoftwareVersionLicence.SOFTWARE_VERSION_LICENCE;
 import static spark.Spark.get;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Service
@@ -72,7 +73,7 @@ public class LicencesExtractor extends DirectQueryBasedDataExtractor {
                         .on(SOFTWARE_VERSION_LICENCE.SOFTWARE_VERSION_ID.eq(SOFTWARE_USAGE.SOFTWARE_VERSION_ID))
                     .innerJoin(LICENCE)
                         .on(LICENCE.ID.eq(SOFTWARE_VERSION_LICENCE.LICENCE_ID))
-                    .where(dsl.renderInlined(SOFTWARE_USAGE.APPLICATION_ID.in(appIdSelector)));
+                    .where(maybeInline(dsl, SOFTWARE_USAGE.APPLICATION_ID.in(appIdSelector)));
 
             String filename = format("licences-%s/%s", entityRef.kind(), entityRef.id());
 
@@ -26,11 +26,9 @@ import org.finos.waltz.model.IdSelectionOptions;
 import org.finos.waltz.web.WebUtilities;
 import org.jooq.*;
 import org.jooq.impl.DSL;
-import org.jooq.lambda.tuple.Tuple3;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -39,11 +37,11 @@ import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.schema.tables.Application.APPLICATION;
 import static org.finos.waltz.schema.tables.LogicalFlow.LOGICAL_FLOW;
 import static org.finos.waltz.schema.tables.OrganisationalUnit.ORGANISATIONAL_UNIT;
-import static java.util.stream.Collectors.toList;
 import static org.finos.waltz.common.ListUtilities.isEmpty;
 import static org.finos.waltz.common.ListUtilities.newArrayList;
 import static org.finos.waltz.data.InlineSelectFieldFactory.mkNameField;
 import static org.finos.waltz.model.EntityLifecycleStatus.REMOVED;
+import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.EXTRACT_FETCH_SIZE;
 import static spark.Spark.post;
 
 
@@ -86,13 +84,19 @@ public class LogicalFlowExtractor extends CustomDataExtractor {
         post(WebUtilities.mkPath("data-extract", "logical-flows"), (request, response) -> {
             IdSelectionOptions options = WebUtilities.readIdSelectionOptionsFromBody(request);
 
-            return writeReportResults(
-                    response,
-                    prepareFlows(
-                            prepareQuery(dsl, options),
-                            parseExtractFormat(request),
-                            "logical-flows",
-                            getTagsMap()));
+            Map<Long, List<String>> tags = getTagsMap();
+
+            try (Cursor<Record> cursor = prepareQuery(dsl, options)
+                    .fetchSize(EXTRACT_FETCH_SIZE)
+                    .fetchLazy()) {
+
+                return writeReportStream(
+                        response,
+                        parseExtractFormat(request),
+                        "logical-flows",
+                        cursor.stream().map(row -> toReportRow(row, tags)),
+                        ListUtilities.append(staticHeaders, "Tags"));
+            }
         });
     }
 
@@ -180,39 +184,18 @@ public class LogicalFlowExtractor extends CustomDataExtractor {
                         .or(targetFlowId.isNotNull()));
     }
 
-    private Tuple3<ExtractFormat, String, byte[]> prepareFlows(SelectConditionStep<Record> query,
-                                                               ExtractFormat format,
-                                                               String reportName,
-                                                               Map<Long, List<String>> tags) throws IOException {
-
-        List<List<Object>> reportRows = prepareReportRows(query, tags);
-        return formatReport(
-                format,
-                reportName,
-                reportRows,
-                ListUtilities.append(staticHeaders, "Tags")
-        );
-    }
+    private List<Object> toReportRow(Record row,
+                                     Map<Long, List<String>> tags) {
+        ArrayList<Object> reportRow = new ArrayList<>();
+        staticHeaders.forEach(h -> reportRow.add(row.get(h)));
+
+        Long logicalFlowId = row.get(LOGICAL_FLOW.ID);
+        List<String> logicalFlowTags = tags.get(logicalFlowId);
+        reportRow.add(isEmpty(logicalFlowTags)
+                ? ""
+                : String.join(",", logicalFlowTags));
 
-    private List<List<Object>> prepareReportRows(SelectConditionStep<Record> qry,
-                                                 Map<Long, List<String>> tags) {
-        Result<Record> results = qry.fetch();
-
-        return results
-                .stream()
-                .map(row -> {
-                    ArrayList<Object> reportRow = new ArrayList<>();
-                    staticHeaders.forEach(h -> reportRow.add(row.get(h)));
-
-                    Long logicalFlowId = row.get(LOGICAL_FLOW.ID);
-                    List<String> logicalFlowTags = tags.get(logicalFlowId);
-                    reportRow.add(isEmpty(logicalFlowTags)
-                            ? ""
-                            : String.join(",", logicalFlowTags));
-
-                    return reportRow;
-                })
-                .collect(toList());
+        return reportRow;
     }
 
     private Map<Long, List<String>> getTagsMap() {
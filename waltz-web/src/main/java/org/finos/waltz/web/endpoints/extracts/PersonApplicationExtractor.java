@@ -30,6 +30,7 @@ import org.springframework.stereotype.Service;
 import static org.finos.waltz.schema.Tables.*;
 import static org.finos.waltz.common.Checks.checkNotNull;
 import static spark.Spark.get;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 
 @Service
@@ -77,15 +78,13 @@ public class PersonApplicationExtractor extends DirectQueryBasedDataExtractor {
                 .and(APPLICATION.IS_REMOVED.isFalse());
 
         SelectConditionStep<Record9<Long, String, String, String, String, String, String, String, String>> directInvolvementQry = mkBaseInvolvementSelect(dsl, empId)
-                .where(dsl
-                        .renderInlined(INVOLVEMENT.EMPLOYEE_ID.eq(empId)
+                .where(maybeInline(dsl, INVOLVEMENT.EMPLOYEE_ID.eq(empId)
                         .and(appIsActive)));
 
         SelectConditionStep<Record9<Long, String, String, String, String, String, String, String, String>> oversightInvolvementQry = mkBaseInvolvementSelect(dsl, empId)
                 .innerJoin(PERSON_HIERARCHY)
                 .on(PERSON_HIERARCHY.EMPLOYEE_ID.eq(INVOLVEMENT.EMPLOYEE_ID))
-                .where(dsl
-                        .renderInlined(PERSON_HIERARCHY.MANAGER_ID.eq(empId)
+                .where(maybeInline(dsl, PERSON_HIERARCHY.MANAGER_ID.eq(empId)
                         .and(appIsActive)));
 
         return oversightInvolvementQry.union(directInvolvementQry);
@@ -30,7 +30,7 @@ import org.finos.waltz.model.application.Application;
 import org.finos.waltz.model.external_identifier.ExternalIdValue;
 import org.finos.waltz.model.rating.RatingSchemeItem;
 import org.finos.waltz.model.report_grid.ReportGrid;
-import org.finos.waltz.model.report_grid.ReportGridCell;
+import org.finos.waltz.model.report_grid.ReportGridCells;
 import org.finos.waltz.model.report_grid.ReportGridColumnDefinition;
 import org.finos.waltz.model.report_grid.ReportGridDefinition;
 import org.finos.waltz.service.report_grid.ReportGridService;
@@ -131,30 +131,25 @@ public class ReportGridExtractor implements DataExtractor {
 
     private List<Tuple2<Application, ArrayList<Object>>> prepareReportRows(ReportGrid reportGrid) {
 
-        Set<ReportGridCell> tableData = reportGrid.instance().cellData();
+        ReportGridCells tableData = reportGrid.instance().cellData();
 
         Map<Long, Application> applicationsById = indexById(reportGrid.instance().applications());
         Map<Long, RatingSchemeItem> ratingsById = indexById(reportGrid.instance().ratingSchemeItems());
 
-        Map<Long, Collection<ReportGridCell>> tableDataByAppId = groupBy(
-                tableData,
-                ReportGridCell::applicationId);
-
-        return tableDataByAppId
-                .entrySet()
+        return tableData
+                .applicationIds()
                 .stream()
-                .map(r -> {
-                    Long appId = r.getKey();
+                .map(appId -> {
                     Application app = applicationsById.getOrDefault(appId, null);
 
                     ArrayList<Object> reportRow = new ArrayList<>();
 
-                    Collection<ReportGridCell> cells = r.getValue();
-
-                    Map<Tuple2<Long, EntityKind>, Object> callValuesByColumnRefForApp = indexBy(
-                            cells,
-                            k -> tuple(k.columnEntityId(), k.columnEntityKind()),
-                            v -> getValueFromReportRow(ratingsById, v));
+                    Map<Tuple2<Long, EntityKind>, Object> callValuesByColumnRefForApp = new HashMap<>();
+                    for (int row : tableData.rowsForApplication(appId)) {
+                        callValuesByColumnRefForApp.put(
+                                tuple(tableData.columnEntityId(row), tableData.columnEntityKind(row)),
+                                getValueFromReportRow(ratingsById, tableData, row));
+                    }
 
                     //find data for columns
                     reportGrid.definition()
@@ -173,20 +168,21 @@ public class ReportGridExtractor implements DataExtractor {
 
 
     private Object getValueFromReportRow(Map<Long, RatingSchemeItem> ratingsById,
-                                         ReportGridCell reportGridCell) {
-        switch (reportGridCell.columnEntityKind()){
+                                         ReportGridCells cells,
+                                         int row) {
+        switch (cells.columnEntityKind(row)){
             case COST_KIND:
-                return reportGridCell.value();
+                return cells.value(row);
             case INVOLVEMENT_KIND:
             case SURVEY_QUESTION:
-                return Optional.ofNullable(reportGridCell.text()).orElse("-");
+                return Optional.ofNullable(cells.text(row)).orElse("-");
             case MEASURABLE:
             case ASSESSMENT_DEFINITION:
-                return maybeGet(ratingsById, reportGridCell.ratingId())
+                return maybeGet(ratingsById, cells.ratingId(row))
                         .map(NameProvider::name)
                         .orElse(null);
             default:
-                throw new IllegalArgumentException("This report does not support export with column of type: " + reportGridCell.columnEntityKind().name());
+                throw new IllegalArgumentException("This report does not support export with column of type: " + cells.columnEntityKind(row).name());
         }
     }
 
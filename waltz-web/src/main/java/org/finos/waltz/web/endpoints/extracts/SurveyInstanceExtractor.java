@@ -71,6 +71,7 @@ import static org.finos.waltz.web.endpoints.extracts.ExtractorUtilities.sanitize
 import static org.jooq.lambda.fi.util.function.CheckedConsumer.unchecked;
 import static org.jooq.lambda.tuple.Tuple.tuple;
 import static spark.Spark.get;
+import static org.finos.waltz.data.JooqUtilities.maybeInline;
 
 @Service
 public class SurveyInstanceExtractor implements DataExtractor {
@@ -387,7 +388,7 @@ public class SurveyInstanceExtractor implements DataExtractor {
                 .innerJoin(si).on(sqr.SURVEY_INSTANCE_ID.eq(si.ID))
                 .innerJoin(sr).on(sr.ID.eq(si.SURVEY_RUN_ID))
                 .innerJoin(st).on(st.ID.eq(sr.SURVEY_TEMPLATE_ID))
-                .where(dsl.renderInlined(condition));
+                .where(maybeInline(dsl, condition));
 
         Result<Record> results = extractAnswersQuery.fetch();
 
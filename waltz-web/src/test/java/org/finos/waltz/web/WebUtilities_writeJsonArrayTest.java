@@ -0,0 +1,120 @@
+package org.finos.waltz.web;
+
+
+import org.finos.waltz.model.EntityKind;
+import org.finos.waltz.model.EntityReference;
+import org.finos.waltz.model.report_grid.ReportGridCells;
+import org.junit.jupiter.api.Test;
+import spark.RequestResponseFactory;
+import spark.Response;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.finos.waltz.model.EntityReference.mkRef;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class WebUtilities_writeJsonArrayTest {
+
+    private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+
+    private final Response resp = RequestResponseFactory.create(mkHttpResponse(written));
+
+
+    @Test
+    public void writesSameJsonAsTheTransformer() throws Exception {
+        List<EntityReference> refs = Arrays.asList(
+                mkRef(EntityKind.APPLICATION, 1L, "app \"one\"", "desc"),
+                mkRef(EntityKind.ACTOR, 2L));
+
+        WebUtilities.writeJsonArray(resp, refs);
+
+        assertEquals(WebUtilities.transformer.render(refs), asString());
+    }
+
+
+    @Test
+    public void emptyCollectionsAreWrittenAsEmptyArrays() throws Exception {
+        WebUtilities.writeJsonArray(resp, Collections.emptyList());
+        assertEquals("[]", asString());
+    }
+
+
+    @Test
+    public void nullCollectionsAreWrittenAsNull() throws Exception {
+        WebUtilities.writeJsonArray(resp, null);
+        assertEquals("null", asString());
+    }
+
+
+    @Test
+    public void itemsAreWrittenUsingTheirRuntimeType() throws Exception {
+        List<Object> items = Arrays.asList(1, "two", Optional.of(3), null);
+        WebUtilities.writeJsonArray(resp, items);
+        assertEquals("[1,\"two\",3,null]", asString());
+    }
+
+
+    @Test
+    public void lazyStreamsAreConsumedOnce() throws Exception {
+        Stream<Integer> items = Stream.of(1, 2, 3);
+        Iterable<Integer> iterable = items::iterator;
+        WebUtilities.writeJsonArray(resp, iterable);
+        assertEquals("[1,2,3]", asString());
+    }
+
+
+    @Test
+    public void columnarReportGridCellsAreWrittenAsCells() throws Exception {
+        ReportGridCells cells = new ReportGridCells();
+        cells.add(EntityKind.MEASURABLE, 10L, 1L, 7L, null, null, "comment");
+        cells.add(EntityKind.COST_KIND, 20L, 2L, null, BigDecimal.TEN, null, null);
+
+        WebUtilities.writeJsonArray(resp, cells);
+
+        assertEquals(WebUtilities.transformer.render(new ArrayList<>(cells)), asString());
+    }
+
+
+    private String asString() {
+        return new String(written.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+
+    private static HttpServletResponse mkHttpResponse(ByteArrayOutputStream target) {
+        ServletOutputStream outputStream = new ServletOutputStream() {
+            @Override
+            public boolean isReady() {
+                return true;
+            }
+
+            @Override
+            public void setWriteListener(WriteListener writeListener) {
+            }
+
+            @Override
+            public void write(int b) {
+                target.write(b);
+            }
+        };
+
+        return (HttpServletResponse) Proxy.newProxyInstance(
+                HttpServletResponse.class.getClassLoader(),
+                new Class[]{HttpServletResponse.class},
+                (proxy, method, args) -> method.getName().equals("getOutputStream")
+                        ? outputStream
+                        : null);
+    }
+
+}